@@ -0,0 +1,66 @@
+package com.mig.sales.case_management.model;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Date;
+
+@Entity
+@Table(name = "DISTRIBUTION_CURSORS")
+public class DistributionCursor implements Serializable {
+
+    @Id
+    @Column(name = "CURSOR_NAME")
+    private String name;
+
+    // User who received the last lead; the rotation resumes at the next higher user ID
+    @Column(name = "LAST_USER_ID")
+    private Long lastUserId;
+
+    @Column(name = "ASSIGNED_COUNT", nullable = false)
+    private long assignedCount;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "UPDATED_DATE")
+    private Date updatedDate;
+
+    public DistributionCursor() {
+    }
+
+    public DistributionCursor(String name) {
+        this.name = name;
+    }
+
+    // Getters and Setters
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Long getLastUserId() {
+        return lastUserId;
+    }
+
+    public void setLastUserId(Long lastUserId) {
+        this.lastUserId = lastUserId;
+    }
+
+    public long getAssignedCount() {
+        return assignedCount;
+    }
+
+    public void setAssignedCount(long assignedCount) {
+        this.assignedCount = assignedCount;
+    }
+
+    public Date getUpdatedDate() {
+        return updatedDate;
+    }
+
+    public void setUpdatedDate(Date updatedDate) {
+        this.updatedDate = updatedDate;
+    }
+}
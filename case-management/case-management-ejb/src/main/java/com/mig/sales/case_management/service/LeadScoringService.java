@@ -1,51 +1,20 @@
 package com.mig.sales.case_management.service;
 
 import com.mig.sales.case_management.model.Lead;
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.ScoringRules;
 import javax.ejb.Stateless;
-import java.math.BigDecimal;
 
+/**
+ * Scores leads with the rules shared with the lead management service,
+ * so a lead gets the same score on either path.
+ */
 @Stateless
 public class LeadScoringService {
 
-    public int calculateScore(Lead lead) {
-        int score = 0;
-
-        // Rule 1: Potential Value
-        if (lead.getPotentialValue() != null) {
-            if (lead.getPotentialValue().compareTo(new BigDecimal("500000")) > 0) {
-                score += 50;
-            } else if (lead.getPotentialValue().compareTo(new BigDecimal("100000")) >= 0) {
-                score += 20;
-            } else {
-                score += 5;
-            }
-        }
-
-        // Rule 2: Lead Source
-        if (lead.getLeadSource() != null) {
-            switch (lead.getLeadSource()) {
-                case "Partner Referral":
-                    score += 30;
-                    break;
-                case "Webinar":
-                    score += 15;
-                    break;
-                case "Website Signup":
-                    score += 10;
-                    break;
-                case "Cold Call":
-                    score += 5;
-                    break;
-            }
-        }
+    private static final CompiledScoringRules RULES = CompiledScoringRules.compile(ScoringRules.defaults());
 
-        // Rule 3: Data Completeness
-        boolean hasEmail = lead.getEmail() != null && !lead.getEmail().trim().isEmpty();
-        boolean hasPhone = lead.getPhone() != null && !lead.getPhone().trim().isEmpty();
-        if (hasEmail && hasPhone) {
-            score += 15;
-        }
-
-        return score;
+    public int calculateScore(Lead lead) {
+        return RULES.score(lead.getPotentialValue(), lead.getLeadSource(), lead.getEmail(), lead.getPhone());
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.mig.sales.case_management.service;
 
+import com.mig.sales.case_management.model.DistributionCursor;
 import com.mig.sales.case_management.model.Lead;
 import com.mig.sales.case_management.model.LeadHistory;
 import com.mig.sales.case_management.model.User;
@@ -7,6 +8,7 @@ import com.mig.sales.case_management.model.User;
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
 import java.util.Date;
 import java.util.List;
@@ -14,6 +16,8 @@ import java.util.List;
 @Stateless
 public class LeadService implements LeadServiceLocal {
 
+    private static final String ROUND_ROBIN_CURSOR = "round-robin";
+
     @PersistenceContext(unitName = "case-management-pu")
     private EntityManager em;
 
@@ -41,24 +45,46 @@ public class LeadService implements LeadServiceLocal {
     }
 
     public void distributeLeads() {
+        // Lock the shared rotation cursor so concurrent runs take turns
+        DistributionCursor cursor = em.find(DistributionCursor.class, ROUND_ROBIN_CURSOR, LockModeType.PESSIMISTIC_WRITE);
+        if (cursor == null) {
+            cursor = new DistributionCursor(ROUND_ROBIN_CURSOR);
+            em.persist(cursor);
+        }
+
         // Get all new leads
         List<Lead> newLeads = em.createQuery("SELECT l FROM Lead l WHERE l.status = 'NEW'", Lead.class).getResultList();
 
-        // Get all sales people
-        List<User> salesPeople = em.createQuery("SELECT u FROM User u WHERE u.role = 'SALES_PERSON'", User.class).getResultList();
+        // Get all sales people, in rotation order
+        List<User> salesPeople = em.createQuery("SELECT u FROM User u WHERE u.role = 'SALES_PERSON' ORDER BY u.id", User.class).getResultList();
 
         if (newLeads.isEmpty() || salesPeople.isEmpty()) {
             return; // Nothing to distribute
         }
 
+        // Resume after the sales person who received the previous lead; people added
+        // or removed since then join or leave the cycle at their ID
         int salesPersonIndex = 0;
+        if (cursor.getLastUserId() != null) {
+            while (salesPersonIndex < salesPeople.size()
+                    && salesPeople.get(salesPersonIndex).getId() <= cursor.getLastUserId()) {
+                salesPersonIndex++;
+            }
+        }
+
+        User assignedUser = null;
         for (Lead lead : newLeads) {
-            User assignedUser = salesPeople.get(salesPersonIndex % salesPeople.size());
+            assignedUser = salesPeople.get(salesPersonIndex % salesPeople.size());
             lead.setAssignedTo(assignedUser);
             lead.setStatus("ASSIGNED");
             em.merge(lead);
             salesPersonIndex++;
         }
+
+        // Advance the cursor once for the whole run
+        cursor.setLastUserId(assignedUser.getId());
+        cursor.setAssignedCount(cursor.getAssignedCount() + newLeads.size());
+        cursor.setUpdatedDate(new Date());
     }
 
     @Override
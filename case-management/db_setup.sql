@@ -3,6 +3,16 @@
 -- =====================================================================
 
 -- Drop existing objects if they exist, to allow for a clean setup
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE DISTRIBUTION_CURSORS';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -942 THEN
+         RAISE;
+      END IF;
+END;
+/
+
 BEGIN
    EXECUTE IMMEDIATE 'DROP TABLE LEAD_HISTORY';
 EXCEPTION
@@ -113,6 +123,17 @@ CREATE TABLE LEAD_HISTORY (
     FOREIGN KEY (USER_ID) REFERENCES APP_USERS(USER_ID)
 );
 
+-- Distribution Cursors Table: Persistent round-robin position, one row per rotation.
+-- LAST_USER_ID is the user who received the last lead; the next run starts at the following user ID.
+CREATE TABLE DISTRIBUTION_CURSORS (
+    CURSOR_NAME VARCHAR2(50) PRIMARY KEY,
+    LAST_USER_ID NUMBER,
+    ASSIGNED_COUNT NUMBER DEFAULT 0 NOT NULL,
+    UPDATED_DATE DATE DEFAULT SYSDATE
+);
+
+INSERT INTO DISTRIBUTION_CURSORS (CURSOR_NAME, ASSIGNED_COUNT) VALUES ('round-robin', 0);
+
 
 -- Sample Data (for testing purposes)
 
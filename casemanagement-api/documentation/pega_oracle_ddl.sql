@@ -5,6 +5,56 @@
 -- Includes performance indexes, views, and metadata for data class mapping
 
 -- Drop existing objects if they exist, to allow for a clean setup
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE JOB_RUNS CASCADE CONSTRAINTS';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -942 THEN
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE JOB_LEASES CASCADE CONSTRAINTS';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -942 THEN
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE WEBHOOK_CURSORS CASCADE CONSTRAINTS';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -942 THEN
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE LEAD_OUTBOX CASCADE CONSTRAINTS';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -942 THEN
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'DROP TABLE DISTRIBUTION_CURSORS CASCADE CONSTRAINTS';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -942 THEN
+         RAISE;
+      END IF;
+END;
+/
+
 BEGIN
    EXECUTE IMMEDIATE 'DROP TABLE LEAD_HISTORY CASCADE CONSTRAINTS';
 EXCEPTION
@@ -66,6 +116,26 @@ EXCEPTION
 END;
 /
 
+BEGIN
+   EXECUTE IMMEDIATE 'DROP SEQUENCE LEAD_OUTBOX_SEQ';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -2289 THEN
+         RAISE;
+      END IF;
+END;
+/
+
+BEGIN
+   EXECUTE IMMEDIATE 'DROP SEQUENCE JOB_RUNS_SEQ';
+EXCEPTION
+   WHEN OTHERS THEN
+      IF SQLCODE != -2289 THEN
+         RAISE;
+      END IF;
+END;
+/
+
 -- Drop views
 BEGIN
    EXECUTE IMMEDIATE 'DROP VIEW V_MY_LEADS';
@@ -103,7 +173,10 @@ END;
 
 CREATE SEQUENCE APP_USERS_SEQ START WITH 1 INCREMENT BY 1 NOCACHE;
 CREATE SEQUENCE LEADS_SEQ START WITH 1 INCREMENT BY 1 NOCACHE;
-CREATE SEQUENCE LEAD_HISTORY_SEQ START WITH 1 INCREMENT BY 1 NOCACHE;
+-- History IDs are allocated 50 at a time by the service (ALTER SEQUENCE LEAD_HISTORY_SEQ INCREMENT BY 50 on existing databases)
+CREATE SEQUENCE LEAD_HISTORY_SEQ START WITH 1 INCREMENT BY 50 NOCACHE;
+CREATE SEQUENCE LEAD_OUTBOX_SEQ START WITH 1 INCREMENT BY 1 NOCACHE;
+CREATE SEQUENCE JOB_RUNS_SEQ START WITH 1 INCREMENT BY 1 NOCACHE;
 
 -- =====================================================================
 -- CREATE TABLES
@@ -123,6 +196,9 @@ CREATE TABLE APP_USERS (
     IS_ACTIVE CHAR(1) DEFAULT 'Y' CHECK (IS_ACTIVE IN ('Y', 'N')),
     CREATED_DATE DATE DEFAULT SYSDATE,
     LAST_LOGIN_DATE DATE,
+    -- Routing tags for rule-based lead distribution (comma-separated, empty = any)
+    TERRITORIES VARCHAR2(500),
+    INDUSTRIES VARCHAR2(500),
     -- Audit fields for Pega
     PX_CREATED_DATETIME DATE DEFAULT SYSDATE,
     PX_UPDATED_DATETIME DATE DEFAULT SYSDATE,
@@ -136,6 +212,8 @@ COMMENT ON COLUMN APP_USERS.USERNAME IS 'Unique username for login';
 COMMENT ON COLUMN APP_USERS.PASSWORD IS 'BCrypt hashed password';
 COMMENT ON COLUMN APP_USERS.ROLE IS 'User role: SALES_PERSON or SALES_MANAGER';
 COMMENT ON COLUMN APP_USERS.IS_ACTIVE IS 'User account status';
+COMMENT ON COLUMN APP_USERS.TERRITORIES IS 'Comma-separated territories the rep covers, matched against lead location';
+COMMENT ON COLUMN APP_USERS.INDUSTRIES IS 'Comma-separated industries the rep covers, matched against lead industry';
 COMMENT ON COLUMN APP_USERS.PX_CREATED_DATETIME IS 'Pega audit field - creation timestamp';
 COMMENT ON COLUMN APP_USERS.PX_UPDATED_DATETIME IS 'Pega audit field - last update timestamp';
 
@@ -212,6 +290,79 @@ COMMENT ON COLUMN LEAD_HISTORY.ACTION_TYPE IS 'Type of action: SYSTEM, USER_ACTI
 COMMENT ON COLUMN LEAD_HISTORY.OLD_STATUS IS 'Previous lead status';
 COMMENT ON COLUMN LEAD_HISTORY.NEW_STATUS IS 'New lead status';
 
+-- Distribution Cursors Table: Persistent round-robin position, one row per rotation
+CREATE TABLE DISTRIBUTION_CURSORS (
+    CURSOR_NAME VARCHAR2(50) PRIMARY KEY,
+    LAST_USER_ID NUMBER,
+    ASSIGNED_COUNT NUMBER DEFAULT 0 NOT NULL,
+    UPDATED_DATE DATE DEFAULT SYSDATE
+);
+
+COMMENT ON TABLE DISTRIBUTION_CURSORS IS 'Round-robin rotation state shared by all service nodes';
+COMMENT ON COLUMN DISTRIBUTION_CURSORS.LAST_USER_ID IS 'User who received the last lead; the next run starts at the following user ID';
+COMMENT ON COLUMN DISTRIBUTION_CURSORS.ASSIGNED_COUNT IS 'Total leads assigned through this rotation';
+
+INSERT INTO DISTRIBUTION_CURSORS (CURSOR_NAME, ASSIGNED_COUNT) VALUES ('round-robin', 0);
+
+-- Lead Outbox Table: Lead change events written with each change, relayed to downstream systems
+CREATE TABLE LEAD_OUTBOX (
+    EVENT_ID NUMBER PRIMARY KEY,
+    LEAD_ID NUMBER NOT NULL,
+    EVENT_TYPE VARCHAR2(20) NOT NULL,
+    STATUS VARCHAR2(20),
+    ASSIGNED_TO NUMBER,
+    LEAD_SCORE NUMBER(3),
+    CREATED_DATE TIMESTAMP DEFAULT SYSTIMESTAMP NOT NULL,
+    PUBLISHED_DATE TIMESTAMP
+);
+
+COMMENT ON TABLE LEAD_OUTBOX IS 'Transactional outbox of lead change events, delivered in EVENT_ID order';
+COMMENT ON COLUMN LEAD_OUTBOX.LEAD_ID IS 'Changed lead; not a foreign key so DELETED events outlive the lead';
+COMMENT ON COLUMN LEAD_OUTBOX.EVENT_TYPE IS 'CREATED, UPDATED, STATUS_CHANGED, ASSIGNED, REASSIGNED, SCORED or DELETED';
+COMMENT ON COLUMN LEAD_OUTBOX.STATUS IS 'Status after the change, if the change set it';
+COMMENT ON COLUMN LEAD_OUTBOX.PUBLISHED_DATE IS 'Time the relay delivered the event; NULL while pending';
+
+-- Webhook Cursors Table: Replay position of each webhook endpoint that fell behind the relay
+CREATE TABLE WEBHOOK_CURSORS (
+    ENDPOINT_URL VARCHAR2(500) PRIMARY KEY,
+    BEHIND_SINCE TIMESTAMP NOT NULL,
+    PUBLISHED_DATE TIMESTAMP,
+    EVENT_ID NUMBER,
+    LAST_ERROR VARCHAR2(500),
+    UPDATED_DATE TIMESTAMP DEFAULT SYSTIMESTAMP
+);
+
+COMMENT ON TABLE WEBHOOK_CURSORS IS 'Webhook endpoints replaying missed events; a row exists only while the endpoint is behind';
+COMMENT ON COLUMN WEBHOOK_CURSORS.BEHIND_SINCE IS 'Events delivered from this time on are replayed to the endpoint';
+COMMENT ON COLUMN WEBHOOK_CURSORS.PUBLISHED_DATE IS 'Delivery time of the last replayed event; NULL before the first page';
+COMMENT ON COLUMN WEBHOOK_CURSORS.EVENT_ID IS 'Last replayed event, breaking ties in PUBLISHED_DATE';
+
+-- Job Leases Table: One row per cluster-wide scheduled job, naming the node that runs it
+CREATE TABLE JOB_LEASES (
+    JOB_NAME VARCHAR2(50) PRIMARY KEY,
+    OWNER VARCHAR2(100) NOT NULL,
+    EXPIRES_AT TIMESTAMP NOT NULL
+);
+
+COMMENT ON TABLE JOB_LEASES IS 'Leader election for scheduled jobs; an expired lease may be taken over by any node';
+COMMENT ON COLUMN JOB_LEASES.OWNER IS 'Node holding the lease (host name and instance ID)';
+COMMENT ON COLUMN JOB_LEASES.EXPIRES_AT IS 'Time the lease lapses unless its owner renews it';
+
+-- Job Runs Table: History of scheduled job runs
+CREATE TABLE JOB_RUNS (
+    RUN_ID NUMBER PRIMARY KEY,
+    JOB_NAME VARCHAR2(50) NOT NULL,
+    OWNER VARCHAR2(100) NOT NULL,
+    STARTED_AT TIMESTAMP NOT NULL,
+    FINISHED_AT TIMESTAMP,
+    STATUS VARCHAR2(20) NOT NULL,
+    ERROR_MESSAGE VARCHAR2(500),
+    CONSTRAINT CHK_JOB_RUN_STATUS CHECK (STATUS IN ('SUCCEEDED', 'FAILED'))
+);
+
+COMMENT ON TABLE JOB_RUNS IS 'Runs of scheduled jobs, purged after lead.jobs.history-days';
+COMMENT ON COLUMN JOB_RUNS.OWNER IS 'Node that ran the job';
+
 -- =====================================================================
 -- CREATE INDEXES FOR PERFORMANCE
 -- =====================================================================
@@ -232,12 +383,28 @@ CREATE INDEX IDX_LEADS_COMPANY ON LEADS(COMPANY);
 -- Composite index for common queries
 CREATE INDEX IDX_LEADS_STATUS_ASSIGNED ON LEADS(STATUS, ASSIGNED_TO);
 CREATE INDEX IDX_LEADS_SCORE_STATUS ON LEADS(LEAD_SCORE DESC, STATUS);
+-- Keyset pages of my-leads: unscored leads rank last
+CREATE INDEX IDX_LEADS_ASSIGNEE_RANK ON LEADS(ASSIGNED_TO, COALESCE(LEAD_SCORE, -1) DESC, CREATED_DATE DESC, LEAD_ID DESC);
+-- SLA timers: open leads and their last update, read without touching the table
+CREATE INDEX IDX_LEADS_STATUS_UPDATED ON LEADS(STATUS, UPDATED_DATE, LEAD_ID);
+
+-- Outbox: pending events (NULL PUBLISHED_DATE) in delivery order, and delivered events by age and in
+-- replay order for webhook endpoints that fell behind
+CREATE INDEX IDX_OUTBOX_PUBLISHED ON LEAD_OUTBOX(PUBLISHED_DATE, EVENT_ID);
+-- Change feed (GET /leads/changes) pages through the primary key; purging without a sink goes by CREATED_DATE
+CREATE INDEX IDX_OUTBOX_CREATED ON LEAD_OUTBOX(CREATED_DATE);
+
+-- Job runs: latest runs per job, and purging by age
+CREATE INDEX IDX_JOB_RUNS_JOB ON JOB_RUNS(JOB_NAME, RUN_ID);
+CREATE INDEX IDX_JOB_RUNS_STARTED ON JOB_RUNS(STARTED_AT);
 
 -- Indexes for LEAD_HISTORY table
 CREATE INDEX IDX_HISTORY_LEAD_ID ON LEAD_HISTORY(LEAD_ID);
-CREATE INDEX IDX_HISTORY_USER_ID ON LEAD_HISTORY(USER_ID);
-CREATE INDEX IDX_HISTORY_TIMESTAMP ON LEAD_HISTORY(TIMESTAMP);
-CREATE INDEX IDX_HISTORY_ACTION ON LEAD_HISTORY(ACTION);
+-- Cross-lead history pages (newest first, keyset on TIMESTAMP and HISTORY_ID) by user, action, action type or date
+CREATE INDEX IDX_HISTORY_USER_TIMESTAMP ON LEAD_HISTORY(USER_ID, TIMESTAMP, HISTORY_ID);
+CREATE INDEX IDX_HISTORY_TIMESTAMP ON LEAD_HISTORY(TIMESTAMP, HISTORY_ID);
+CREATE INDEX IDX_HISTORY_ACTION_TIMESTAMP ON LEAD_HISTORY(ACTION, TIMESTAMP, HISTORY_ID);
+CREATE INDEX IDX_HISTORY_TYPE_TIMESTAMP ON LEAD_HISTORY(ACTION_TYPE, TIMESTAMP, HISTORY_ID);
 -- Composite index for lead history queries
 CREATE INDEX IDX_HISTORY_LEAD_TIMESTAMP ON LEAD_HISTORY(LEAD_ID, TIMESTAMP DESC);
 
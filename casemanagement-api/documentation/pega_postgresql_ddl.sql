@@ -6,6 +6,11 @@
 -- Converted from Oracle DDL to PostgreSQL
 
 -- Drop existing objects if they exist, to allow for a clean setup
+DROP TABLE IF EXISTS job_runs CASCADE;
+DROP TABLE IF EXISTS job_leases CASCADE;
+DROP TABLE IF EXISTS webhook_cursors CASCADE;
+DROP TABLE IF EXISTS lead_outbox CASCADE;
+DROP TABLE IF EXISTS distribution_cursors CASCADE;
 DROP TABLE IF EXISTS lead_history CASCADE;
 DROP TABLE IF EXISTS leads CASCADE;
 DROP TABLE IF EXISTS app_users CASCADE;
@@ -14,6 +19,8 @@ DROP TABLE IF EXISTS app_users CASCADE;
 DROP SEQUENCE IF EXISTS app_users_seq CASCADE;
 DROP SEQUENCE IF EXISTS leads_seq CASCADE;
 DROP SEQUENCE IF EXISTS lead_history_seq CASCADE;
+DROP SEQUENCE IF EXISTS lead_outbox_seq CASCADE;
+DROP SEQUENCE IF EXISTS job_runs_seq CASCADE;
 
 -- Drop views
 DROP VIEW IF EXISTS v_my_leads CASCADE;
@@ -26,7 +33,10 @@ DROP VIEW IF EXISTS v_high_value_leads CASCADE;
 
 CREATE SEQUENCE app_users_seq START WITH 1 INCREMENT BY 1 NO CYCLE;
 CREATE SEQUENCE leads_seq START WITH 1 INCREMENT BY 1 NO CYCLE;
-CREATE SEQUENCE lead_history_seq START WITH 1 INCREMENT BY 1 NO CYCLE;
+-- History IDs are allocated 50 at a time by the service (ALTER SEQUENCE lead_history_seq INCREMENT BY 50 on existing databases)
+CREATE SEQUENCE lead_history_seq START WITH 1 INCREMENT BY 50 NO CYCLE;
+CREATE SEQUENCE lead_outbox_seq START WITH 1 INCREMENT BY 1 NO CYCLE;
+CREATE SEQUENCE job_runs_seq START WITH 1 INCREMENT BY 1 NO CYCLE;
 
 -- =====================================================================
 -- CREATE TABLES
@@ -46,6 +56,9 @@ CREATE TABLE app_users (
     is_active CHAR(1) DEFAULT 'Y' CHECK (is_active IN ('Y', 'N')),
     created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     last_login_date TIMESTAMP,
+    -- Routing tags for rule-based lead distribution (comma-separated, empty = any)
+    territories VARCHAR(500),
+    industries VARCHAR(500),
     -- Audit fields for Pega
     px_created_datetime TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     px_updated_datetime TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -59,6 +72,8 @@ COMMENT ON COLUMN app_users.username IS 'Unique username for login';
 COMMENT ON COLUMN app_users.password IS 'BCrypt hashed password';
 COMMENT ON COLUMN app_users.role IS 'User role: SALES_PERSON or SALES_MANAGER';
 COMMENT ON COLUMN app_users.is_active IS 'User account status';
+COMMENT ON COLUMN app_users.territories IS 'Comma-separated territories the rep covers, matched against lead location';
+COMMENT ON COLUMN app_users.industries IS 'Comma-separated industries the rep covers, matched against lead industry';
 COMMENT ON COLUMN app_users.px_created_datetime IS 'Pega audit field - creation timestamp';
 COMMENT ON COLUMN app_users.px_updated_datetime IS 'Pega audit field - last update timestamp';
 
@@ -135,6 +150,79 @@ COMMENT ON COLUMN lead_history.action_type IS 'Type of action: SYSTEM, USER_ACTI
 COMMENT ON COLUMN lead_history.old_status IS 'Previous lead status';
 COMMENT ON COLUMN lead_history.new_status IS 'New lead status';
 
+-- Distribution Cursors Table: Persistent round-robin position, one row per rotation
+CREATE TABLE distribution_cursors (
+    cursor_name VARCHAR(50) PRIMARY KEY,
+    last_user_id BIGINT,
+    assigned_count BIGINT DEFAULT 0 NOT NULL,
+    updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE distribution_cursors IS 'Round-robin rotation state shared by all service nodes';
+COMMENT ON COLUMN distribution_cursors.last_user_id IS 'User who received the last lead; the next run starts at the following user ID';
+COMMENT ON COLUMN distribution_cursors.assigned_count IS 'Total leads assigned through this rotation';
+
+INSERT INTO distribution_cursors (cursor_name, assigned_count) VALUES ('round-robin', 0);
+
+-- Lead Outbox Table: Lead change events written with each change, relayed to downstream systems
+CREATE TABLE lead_outbox (
+    event_id BIGINT PRIMARY KEY DEFAULT nextval('lead_outbox_seq'),
+    lead_id BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20),
+    assigned_to BIGINT,
+    lead_score INTEGER,
+    created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    published_date TIMESTAMP
+);
+
+COMMENT ON TABLE lead_outbox IS 'Transactional outbox of lead change events, delivered in event_id order';
+COMMENT ON COLUMN lead_outbox.lead_id IS 'Changed lead; not a foreign key so DELETED events outlive the lead';
+COMMENT ON COLUMN lead_outbox.event_type IS 'CREATED, UPDATED, STATUS_CHANGED, ASSIGNED, REASSIGNED, SCORED or DELETED';
+COMMENT ON COLUMN lead_outbox.status IS 'Status after the change, if the change set it';
+COMMENT ON COLUMN lead_outbox.published_date IS 'Time the relay delivered the event; NULL while pending';
+
+-- Webhook Cursors Table: Replay position of each webhook endpoint that fell behind the relay
+CREATE TABLE webhook_cursors (
+    endpoint_url VARCHAR(500) PRIMARY KEY,
+    behind_since TIMESTAMP NOT NULL,
+    published_date TIMESTAMP,
+    event_id BIGINT,
+    last_error VARCHAR(500),
+    updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE webhook_cursors IS 'Webhook endpoints replaying missed events; a row exists only while the endpoint is behind';
+COMMENT ON COLUMN webhook_cursors.behind_since IS 'Events delivered from this time on are replayed to the endpoint';
+COMMENT ON COLUMN webhook_cursors.published_date IS 'Delivery time of the last replayed event; NULL before the first page';
+COMMENT ON COLUMN webhook_cursors.event_id IS 'Last replayed event, breaking ties in published_date';
+
+-- Job Leases Table: One row per cluster-wide scheduled job, naming the node that runs it
+CREATE TABLE job_leases (
+    job_name VARCHAR(50) PRIMARY KEY,
+    owner VARCHAR(100) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+COMMENT ON TABLE job_leases IS 'Leader election for scheduled jobs; an expired lease may be taken over by any node';
+COMMENT ON COLUMN job_leases.owner IS 'Node holding the lease (host name and instance ID)';
+COMMENT ON COLUMN job_leases.expires_at IS 'Time the lease lapses unless its owner renews it';
+
+-- Job Runs Table: History of scheduled job runs
+CREATE TABLE job_runs (
+    run_id BIGINT PRIMARY KEY DEFAULT nextval('job_runs_seq'),
+    job_name VARCHAR(50) NOT NULL,
+    owner VARCHAR(100) NOT NULL,
+    started_at TIMESTAMP NOT NULL,
+    finished_at TIMESTAMP,
+    status VARCHAR(20) NOT NULL,
+    error_message VARCHAR(500),
+    CONSTRAINT chk_job_run_status CHECK (status IN ('SUCCEEDED', 'FAILED'))
+);
+
+COMMENT ON TABLE job_runs IS 'Runs of scheduled jobs, purged after lead.jobs.history-days';
+COMMENT ON COLUMN job_runs.owner IS 'Node that ran the job';
+
 -- =====================================================================
 -- CREATE INDEXES FOR PERFORMANCE
 -- =====================================================================
@@ -155,12 +243,29 @@ CREATE INDEX idx_leads_company ON leads(company);
 -- Composite index for common queries
 CREATE INDEX idx_leads_status_assigned ON leads(status, assigned_to);
 CREATE INDEX idx_leads_score_status ON leads(lead_score DESC, status);
+-- Keyset pages of my-leads: unscored leads rank last
+CREATE INDEX idx_leads_assignee_rank ON leads(assigned_to, COALESCE(lead_score, -1) DESC, created_date DESC, lead_id DESC);
+-- SLA timers: open leads and their last update, read without touching the table
+CREATE INDEX idx_leads_status_updated ON leads(status, updated_date, lead_id);
+
+-- Outbox: pending events in delivery order, and delivered events by age and in replay order for
+-- webhook endpoints that fell behind
+CREATE INDEX idx_outbox_pending ON lead_outbox(event_id) WHERE published_date IS NULL;
+CREATE INDEX idx_outbox_published ON lead_outbox(published_date, event_id);
+-- Change feed (GET /leads/changes) pages through the primary key; purging without a sink goes by created_date
+CREATE INDEX idx_outbox_created ON lead_outbox(created_date);
+
+-- Job runs: latest runs per job, and purging by age
+CREATE INDEX idx_job_runs_job ON job_runs(job_name, run_id);
+CREATE INDEX idx_job_runs_started ON job_runs(started_at);
 
 -- Indexes for lead_history table
 CREATE INDEX idx_history_lead_id ON lead_history(lead_id);
-CREATE INDEX idx_history_user_id ON lead_history(user_id);
-CREATE INDEX idx_history_timestamp ON lead_history(timestamp);
-CREATE INDEX idx_history_action ON lead_history(action);
+-- Cross-lead history pages (newest first, keyset on timestamp and history_id) by user, action, action type or date
+CREATE INDEX idx_history_user_timestamp ON lead_history(user_id, timestamp, history_id);
+CREATE INDEX idx_history_timestamp ON lead_history(timestamp, history_id);
+CREATE INDEX idx_history_action_timestamp ON lead_history(action, timestamp, history_id);
+CREATE INDEX idx_history_type_timestamp ON lead_history(action_type, timestamp, history_id);
 -- Composite index for lead history queries
 CREATE INDEX idx_history_lead_timestamp ON lead_history(lead_id, timestamp DESC);
 
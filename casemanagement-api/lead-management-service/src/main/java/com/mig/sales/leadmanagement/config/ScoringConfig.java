@@ -0,0 +1,22 @@
+package com.mig.sales.leadmanagement.config;
+
+import com.mig.sales.scoring.ScoringRules;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Lead scoring configuration
+ */
+@Configuration
+public class ScoringConfig {
+
+    /**
+     * Scoring rules, starting from the defaults and overridden by lead.scoring properties
+     */
+    @Bean
+    @ConfigurationProperties(prefix = "lead.scoring")
+    public ScoringRules scoringRules() {
+        return ScoringRules.defaults();
+    }
+}
@@ -117,7 +117,7 @@ public class SecurityConfig {
                 .requestMatchers("/actuator/health", "/actuator/info").permitAll()
                 .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 // Manager-only endpoints
-                .requestMatchers("/leads/distribute", "/leads/*/approve").hasRole("SALES_MANAGER")
+                .requestMatchers("/leads/distribute", "/leads/distribute/manual", "/leads/rebalance", "/leads/jobs/**", "/leads/rescore", "/leads/scoring/**", "/leads/*/approve").hasRole("SALES_MANAGER")
                 // All other endpoints require authentication
                 .anyRequest().authenticated()
             )
@@ -3,12 +3,27 @@ package com.mig.sales.leadmanagement.controller;
 import com.mig.sales.leadmanagement.dto.LeadRequest;
 import com.mig.sales.leadmanagement.dto.LeadResponse;
 import com.mig.sales.leadmanagement.dto.ApiResponse;
+import com.mig.sales.leadmanagement.dto.DistributeLeadsRequest;
+import com.mig.sales.leadmanagement.dto.LeadIdsRequest;
+import com.mig.sales.leadmanagement.dto.LeadChangesResponse;
+import com.mig.sales.leadmanagement.entity.JobRun;
 import com.mig.sales.leadmanagement.entity.Lead;
 import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
 import com.mig.sales.leadmanagement.service.LeadService;
+import com.mig.sales.leadmanagement.service.LeadChangeFeed;
+import com.mig.sales.leadmanagement.service.LeadEventStream;
 import com.mig.sales.leadmanagement.service.LeadDistributionService;
+import com.mig.sales.leadmanagement.service.LeadRescoringService;
+import com.mig.sales.leadmanagement.service.LeadScoreHistogram;
+import com.mig.sales.leadmanagement.service.LeadStatusMachine;
+import com.mig.sales.leadmanagement.service.LeadScoringService;
+import com.mig.sales.leadmanagement.service.ScoringModelTrainingService;
 import com.mig.sales.leadmanagement.service.WorkflowService;
 import com.mig.sales.leadmanagement.service.UserService;
+import com.mig.sales.leadmanagement.service.ScheduledJobRunner;
+import com.mig.sales.leadmanagement.service.WorkloadRebalancingService;
+import com.mig.sales.scoring.ShadowScoring;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -16,12 +31,18 @@ import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +53,12 @@ import java.util.stream.Collectors;
 @Tag(name = "Lead Management", description = "Lead management APIs")
 public class LeadController {
 
+    private static final int MAX_MY_LEADS_PAGE_SIZE = 200;
+
+    private static final int MAX_CHANGES_PAGE_SIZE = 1000;
+
+    private static final int MAX_JOB_RUNS = 500;
+
     @Autowired
     private LeadService leadService;
 
@@ -44,6 +71,30 @@ public class LeadController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private WorkloadRebalancingService workloadRebalancingService;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Autowired
+    private LeadRescoringService leadRescoringService;
+
+    @Autowired
+    private LeadScoringService leadScoringService;
+
+    @Autowired
+    private ScoringModelTrainingService scoringModelTrainingService;
+
+    @Autowired
+    private LeadScoreHistogram leadScoreHistogram;
+
+    @Autowired
+    private LeadChangeFeed leadChangeFeed;
+
+    @Autowired
+    private LeadEventStream leadEventStream;
+
     /**
      * Get all leads with pagination and filtering
      */
@@ -99,17 +150,103 @@ public class LeadController {
     }
 
     /**
-     * Get current user's assigned leads
+     * Get a page of the current user's assigned leads, best first
      */
     @GetMapping("/my-leads")
-    @Operation(summary = "Get my leads", description = "Get leads assigned to the current user")
-    public ResponseEntity<ApiResponse<List<LeadResponse>>> getMyLeads(Authentication authentication) {
+    @Operation(summary = "Get my leads", description = "Get leads assigned to the current user, ordered by score, " +
+            "creation date and ID. To get the next page, pass the leadScore, createdDate and id of the last lead returned.")
+    public ResponseEntity<ApiResponse<List<LeadResponse>>> getMyLeads(
+            @Parameter(description = "Page size") @RequestParam(required = false, defaultValue = "20") int size,
+            @Parameter(description = "Score of the last lead of the previous page; omit if it was unscored")
+            @RequestParam(required = false) Integer afterScore,
+            @Parameter(description = "Creation date of the last lead of the previous page")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterCreatedDate,
+            @Parameter(description = "ID of the last lead of the previous page")
+            @RequestParam(required = false) Long afterId,
+            Authentication authentication) {
+        if (size < 1 || size > MAX_MY_LEADS_PAGE_SIZE) {
+            throw new BusinessException("Page size must be between 1 and " + MAX_MY_LEADS_PAGE_SIZE);
+        }
+        if (afterId != null && afterCreatedDate == null) {
+            throw new BusinessException("afterCreatedDate is required with afterId");
+        }
+        Lead after = null;
+        if (afterId != null) {
+            after = new Lead();
+            after.setId(afterId);
+            after.setLeadScore(afterScore);
+            after.setCreatedDate(afterCreatedDate);
+        }
         User currentUser = getCurrentUser(authentication);
-        List<Lead> leads = leadService.findByAssignedTo(currentUser);
+        List<Lead> leads = leadService.findMyLeads(currentUser, after, size);
         List<LeadResponse> responses = leads.stream().map(this::convertToResponse).collect(Collectors.toList());
         return ResponseEntity.ok(ApiResponse.success(responses));
     }
 
+    /**
+     * Get leads created, updated or deleted after a watermark
+     */
+    @GetMapping("/changes")
+    @Operation(summary = "Get lead changes", description = "Leads changed after a watermark, one entry per lead, " +
+            "with deleted leads as tombstones. Call without a watermark first to get one, then load the leads, " +
+            "then poll with the watermark of the previous response.")
+    public ResponseEntity<ApiResponse<LeadChangesResponse>> getLeadChanges(
+            @Parameter(description = "Watermark of the previous response; omit to get a starting watermark")
+            @RequestParam(required = false) Long since,
+            @Parameter(description = "Maximum number of change events to read")
+            @RequestParam(required = false, defaultValue = "500") int limit) {
+        if (limit < 1 || limit > MAX_CHANGES_PAGE_SIZE) {
+            throw new BusinessException("Limit must be between 1 and " + MAX_CHANGES_PAGE_SIZE);
+        }
+        LeadChangeFeed.ChangesPage page = leadChangeFeed.getChanges(since, limit);
+        LeadChangesResponse response = new LeadChangesResponse();
+        response.setChanges(page.getChanges().stream().map(change -> {
+            LeadChangesResponse.Change item = new LeadChangesResponse.Change();
+            item.setLeadId(change.getLeadId());
+            item.setChangeType(change.getEventType());
+            item.setDeleted(change.isDeleted());
+            item.setLead(change.isDeleted() ? null : convertToResponse(change.getLead()));
+            return item;
+        }).collect(Collectors.toList()));
+        response.setWatermark(page.getWatermark());
+        response.setHasMore(page.isHasMore());
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    /**
+     * Stream lead changes as Server-Sent Events
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream lead changes", description = "Server-Sent Events stream of lead changes from now on, " +
+            "one event per change named after its type, with the change as JSON data. Sales managers may add stats=true " +
+            "for \"stats\" events carrying the distribution stats fields that changed; other users only receive changes " +
+            "to their own leads. Subscribers that fall too far behind are disconnected and should reload with GET /leads/changes.")
+    public SseEmitter streamLeadChanges(
+            @Parameter(description = "Change types to send, e.g. STATUS_CHANGED") @RequestParam(required = false) List<String> eventType,
+            @Parameter(description = "Only send changes into these statuses") @RequestParam(required = false) List<String> status,
+            @Parameter(description = "Only send changes that leave the lead assigned to this user") @RequestParam(required = false) Long assignedTo,
+            @Parameter(description = "Only send changes that leave the lead assigned to the current user")
+            @RequestParam(required = false, defaultValue = "false") boolean mine,
+            @Parameter(description = "Also send distribution stats changes (sales managers only)")
+            @RequestParam(required = false, defaultValue = "false") boolean stats,
+            Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        Long assignee = mine ? currentUser.getId() : assignedTo;
+        return leadEventStream.subscribe(currentUser, new LeadEventStream.Filter(eventType, status, assignee, stats));
+    }
+
+    /**
+     * Claim the next best lead (Sales Person)
+     */
+    @PostMapping("/next")
+    @Operation(summary = "Claim next lead", description = "Atomically claim the highest-scoring unassigned lead the current user is eligible for")
+    public ResponseEntity<ApiResponse<LeadResponse>> claimNextLead(Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        return leadDistributionService.claimNextLead(currentUser)
+                .map(lead -> ResponseEntity.ok(ApiResponse.success("Lead claimed successfully", convertToResponse(lead))))
+                .orElseGet(() -> ResponseEntity.ok(ApiResponse.success("No eligible leads available", null)));
+    }
+
     /**
      * Get new leads (for managers)
      */
@@ -137,11 +274,57 @@ public class LeadController {
      */
     @PostMapping("/distribute")
     @Operation(summary = "Distribute leads", description = "Distribute new leads to sales team (Manager only)")
-    public ResponseEntity<ApiResponse<String>> distributeLeads() {
-        int distributedCount = leadDistributionService.distributeLeads();
+    public ResponseEntity<ApiResponse<String>> distributeLeads(
+            @Parameter(description = "Distribution strategy: round-robin (default) or rules (territory and industry routing)")
+            @RequestParam(required = false, defaultValue = "round-robin") String strategy) {
+        int distributedCount = "rules".equalsIgnoreCase(strategy)
+                ? leadDistributionService.distributeLeadsByRules()
+                : leadDistributionService.distributeLeads();
         return ResponseEntity.ok(ApiResponse.success("Distributed " + distributedCount + " leads"));
     }
 
+    /**
+     * Distribute specific leads to specific users (Manager only)
+     */
+    @PostMapping("/distribute/manual")
+    @Operation(summary = "Distribute specific leads", description = "Distribute selected leads round-robin across selected users (Manager only)")
+    public ResponseEntity<ApiResponse<LeadDistributionService.DistributionResult>> distributeSpecificLeads(
+            @Valid @RequestBody DistributeLeadsRequest request) {
+        LeadDistributionService.DistributionResult result =
+                leadDistributionService.distributeSpecificLeads(request.getLeadIds(), request.getUserIds());
+        return ResponseEntity.ok(ApiResponse.success("Distributed " + result.getAssignedCount() + " leads", result));
+    }
+
+    /**
+     * Rebalance open leads across active sales persons (Manager only)
+     */
+    @PostMapping("/rebalance")
+    @Operation(summary = "Rebalance workload", description = "Move open leads off inactive and overloaded sales persons (Manager only)")
+    public ResponseEntity<ApiResponse<WorkloadRebalancingService.RebalancePlan>> rebalanceLeads(
+            @Parameter(description = "Only return the planned moves")
+            @RequestParam(required = false, defaultValue = "false") boolean dryRun) {
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.rebalance(dryRun);
+        String message = dryRun
+                ? "Planned " + plan.getMoves().size() + " lead moves"
+                : "Moved " + plan.getMovedCount() + " leads";
+        return ResponseEntity.ok(ApiResponse.success(message, plan));
+    }
+
+    /**
+     * Recent runs of cluster-wide scheduled jobs (Manager only)
+     */
+    @GetMapping("/jobs/runs")
+    @Operation(summary = "Get scheduled job runs", description = "Latest recorded runs of scheduled jobs, newest first (Manager only)")
+    public ResponseEntity<ApiResponse<List<JobRun>>> getJobRuns(
+            @Parameter(description = "Job name; all jobs if omitted")
+            @RequestParam(required = false) String job,
+            @RequestParam(required = false, defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_JOB_RUNS) {
+            throw new BusinessException("Limit must be between 1 and " + MAX_JOB_RUNS);
+        }
+        return ResponseEntity.ok(ApiResponse.success(scheduledJobRunner.findRecentRuns(job, limit)));
+    }
+
     /**
      * Escalate lead (Sales Person)
      */
@@ -191,6 +374,58 @@ public class LeadController {
         return ResponseEntity.ok(ApiResponse.success("Approval requested successfully", response));
     }
 
+    /**
+     * Approve several leads at once (Manager only)
+     */
+    @PostMapping("/bulk/approve")
+    @Operation(summary = "Bulk approve leads", description = "Approve up to 500 leads at once (Manager only); " +
+            "leads the manager may not approve are reported with the reason and left unchanged")
+    public ResponseEntity<ApiResponse<WorkflowService.BulkTransitionResult>> approveLeads(
+            @Valid @RequestBody LeadIdsRequest request, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        WorkflowService.BulkTransitionResult result = workflowService.approveLeads(request.getLeadIds(), currentUser);
+        return ResponseEntity.ok(ApiResponse.success("Approved " + result.getAppliedCount() + " leads", result));
+    }
+
+    /**
+     * Reject several leads at once (Manager only)
+     */
+    @PostMapping("/bulk/reject")
+    @Operation(summary = "Bulk reject leads", description = "Reject up to 500 leads at once with the same reason (Manager only); " +
+            "leads the manager may not reject are reported with the reason and left unchanged")
+    public ResponseEntity<ApiResponse<WorkflowService.BulkTransitionResult>> rejectLeads(
+            @Valid @RequestBody LeadIdsRequest request,
+            @RequestParam(required = false) String reason, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        WorkflowService.BulkTransitionResult result = workflowService.rejectLeads(request.getLeadIds(), currentUser, reason);
+        return ResponseEntity.ok(ApiResponse.success("Rejected " + result.getAppliedCount() + " leads", result));
+    }
+
+    /**
+     * Escalate several high-value leads at once (Sales Person)
+     */
+    @PostMapping("/bulk/escalate")
+    @Operation(summary = "Bulk escalate leads", description = "Escalate up to 500 high-value leads to a manager at once; " +
+            "leads that cannot be escalated are reported with the reason and left unchanged")
+    public ResponseEntity<ApiResponse<WorkflowService.BulkTransitionResult>> escalateLeads(
+            @Valid @RequestBody LeadIdsRequest request, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        WorkflowService.BulkTransitionResult result = workflowService.escalateLeads(request.getLeadIds(), currentUser);
+        return ResponseEntity.ok(ApiResponse.success("Escalated " + result.getAppliedCount() + " leads", result));
+    }
+
+    /**
+     * Get the workflow actions the current user may take on each of a page of leads
+     */
+    @PostMapping("/allowed-actions")
+    @Operation(summary = "Get allowed actions", description = "Workflow actions the current user may take on each lead, " +
+            "for up to 500 leads loaded at once; unknown lead IDs are left out")
+    public ResponseEntity<ApiResponse<Map<Long, Set<LeadStatusMachine.Action>>>> getAllowedActions(
+            @Valid @RequestBody LeadIdsRequest request, Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        return ResponseEntity.ok(ApiResponse.success(workflowService.getAllowedActions(request.getLeadIds(), currentUser)));
+    }
+
     /**
      * Update lead status
      */
@@ -215,6 +450,78 @@ public class LeadController {
         return ResponseEntity.ok(ApiResponse.success("Lead score recalculated successfully", response));
     }
 
+    /**
+     * Rescore all leads with the current scoring rules (Manager only)
+     */
+    @PostMapping("/rescore")
+    @Operation(summary = "Rescore all leads", description = "Recalculate every lead score and write the changed ones (Manager only)")
+    public ResponseEntity<ApiResponse<LeadRescoringService.RescoreResult>> rescoreAllLeads(
+            @Parameter(description = "Resume after this lead ID, as reported by an interrupted run")
+            @RequestParam(required = false) Long afterId,
+            Authentication authentication) {
+        User currentUser = getCurrentUser(authentication);
+        LeadRescoringService.RescoreResult result = leadRescoringService.rescoreAll(afterId, currentUser);
+        return ResponseEntity.ok(ApiResponse.success(
+                "Rescored " + result.getScannedCount() + " leads, " + result.getChangedCount() + " changed", result));
+    }
+
+    /**
+     * Get shadow scoring results for candidate scoring rules (Manager only)
+     */
+    @GetMapping("/scoring/shadow")
+    @Operation(summary = "Get shadow scoring report", description = "Compare candidate scoring rules against the live rules (Manager only)")
+    public ResponseEntity<ApiResponse<ShadowScoring.Report>> getShadowScoringReport() {
+        ShadowScoring.Report report = leadScoringService.getShadowReport();
+        if (report == null) {
+            return ResponseEntity.ok(ApiResponse.success(
+                    "Shadow scoring is off; live scoring rules are " + leadScoringService.getActiveVersion(), null));
+        }
+        return ResponseEntity.ok(ApiResponse.success(report));
+    }
+
+    /**
+     * Get the score distribution of all leads, or of one lead source or industry (Manager only)
+     */
+    @GetMapping("/scoring/distribution")
+    @Operation(summary = "Get score distribution", description = "Lead counts per score band with quartiles, " +
+            "optionally for one lead source or industry (Manager only)")
+    public ResponseEntity<ApiResponse<LeadScoreHistogram.ScoreDistribution>> getScoreDistribution(
+            @Parameter(description = "Lead source filter") @RequestParam(required = false) String source,
+            @Parameter(description = "Industry filter") @RequestParam(required = false) String industry,
+            @Parameter(description = "Scores per band") @RequestParam(required = false, defaultValue = "10") int bandWidth) {
+        return ResponseEntity.ok(ApiResponse.success(leadScoreHistogram.getDistribution(source, industry, bandWidth)));
+    }
+
+    /**
+     * Get the percentile rank of a score (Manager only)
+     */
+    @GetMapping("/scoring/percentile")
+    @Operation(summary = "Get score percentile", description = "Percentage of leads scoring lower, plus half of " +
+            "those scoring the same, optionally among one lead source or industry (Manager only)")
+    public ResponseEntity<ApiResponse<Double>> getScorePercentile(
+            @Parameter(description = "Score to rank") @RequestParam int score,
+            @Parameter(description = "Lead source filter") @RequestParam(required = false) String source,
+            @Parameter(description = "Industry filter") @RequestParam(required = false) String industry) {
+        Double percentile = leadScoreHistogram.percentileOf(score, source, industry);
+        if (percentile == null) {
+            return ResponseEntity.ok(ApiResponse.success("No scored leads match the filter", null));
+        }
+        return ResponseEntity.ok(ApiResponse.success(percentile));
+    }
+
+    /**
+     * Train a scoring model from conversion history (Manager only)
+     */
+    @PostMapping("/scoring/model")
+    @Operation(summary = "Train scoring model", description = "Train a scoring model from converted and rejected leads and compare it with the scoring rules (Manager only)")
+    public ResponseEntity<ApiResponse<ScoringModelTrainingService.TrainingReport>> trainScoringModel(
+            @Parameter(description = "Version label for the model")
+            @RequestParam(required = false) String version) {
+        ScoringModelTrainingService.TrainingReport report = scoringModelTrainingService.train(version);
+        return ResponseEntity.ok(ApiResponse.success(
+                "Trained scoring model " + report.getVersion() + " on " + report.getTrainingCount() + " leads", report));
+    }
+
     /**
      * Get distribution statistics
      */
@@ -0,0 +1,21 @@
+package com.mig.sales.leadmanagement.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO for manually distributing specific leads to specific users
+ */
+@Data
+public class DistributeLeadsRequest {
+
+    @NotEmpty(message = "Lead IDs are required")
+    @Size(max = 10000, message = "At most 10000 leads can be distributed at once")
+    private List<Long> leadIds;
+
+    @NotEmpty(message = "User IDs are required")
+    private List<Long> userIds;
+}
@@ -0,0 +1,27 @@
+package com.mig.sales.leadmanagement.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO for a page of the lead change feed
+ */
+@Data
+public class LeadChangesResponse {
+
+    private List<Change> changes;
+    private Long watermark;
+    private boolean hasMore;
+
+    /**
+     * Latest change to one lead; a deleted lead is a tombstone without a lead
+     */
+    @Data
+    public static class Change {
+        private Long leadId;
+        private String changeType;
+        private boolean deleted;
+        private LeadResponse lead;
+    }
+}
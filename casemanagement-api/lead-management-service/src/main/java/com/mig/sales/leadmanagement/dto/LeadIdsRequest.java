@@ -0,0 +1,18 @@
+package com.mig.sales.leadmanagement.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO for operations on a page of leads
+ */
+@Data
+public class LeadIdsRequest {
+
+    @NotEmpty(message = "Lead IDs are required")
+    @Size(max = 500, message = "At most 500 leads can be handled at once")
+    private List<Long> leadIds;
+}
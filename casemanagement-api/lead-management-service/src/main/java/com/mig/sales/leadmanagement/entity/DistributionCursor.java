@@ -0,0 +1,42 @@
+package com.mig.sales.leadmanagement.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DistributionCursor entity holding the persistent position of a round-robin rotation
+ * Maps to DISTRIBUTION_CURSORS table in Oracle database
+ */
+@Entity
+@Table(name = "DISTRIBUTION_CURSORS")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistributionCursor {
+
+    @Id
+    @NotBlank(message = "Cursor name is required")
+    @Size(max = 50, message = "Cursor name must not exceed 50 characters")
+    @Column(name = "CURSOR_NAME")
+    private String name;
+
+    // User who received the last lead; the rotation resumes at the next higher user ID
+    @Column(name = "LAST_USER_ID")
+    private Long lastUserId;
+
+    @Column(name = "ASSIGNED_COUNT", nullable = false)
+    private Long assignedCount = 0L;
+
+    @Column(name = "UPDATED_DATE")
+    private LocalDateTime updatedDate;
+
+    public DistributionCursor(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,37 @@
+package com.mig.sales.leadmanagement.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * JobLease entity naming the node that runs a scheduled job until the lease expires
+ * Maps to JOB_LEASES table in Oracle database
+ */
+@Entity
+@Table(name = "JOB_LEASES")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobLease {
+
+    @Id
+    @NotBlank(message = "Job name is required")
+    @Size(max = 50, message = "Job name must not exceed 50 characters")
+    @Column(name = "JOB_NAME")
+    private String jobName;
+
+    @NotBlank(message = "Owner is required")
+    @Size(max = 100, message = "Owner must not exceed 100 characters")
+    @Column(name = "OWNER", nullable = false)
+    private String owner;
+
+    // The owner renews the lease well before this; any node may take it over afterwards
+    @Column(name = "EXPIRES_AT", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,52 @@
+package com.mig.sales.leadmanagement.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * JobRun entity recording one run of a scheduled job
+ * Maps to JOB_RUNS table in Oracle database
+ */
+@Entity
+@Table(name = "JOB_RUNS")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "job_runs_seq")
+    @SequenceGenerator(name = "job_runs_seq", sequenceName = "JOB_RUNS_SEQ", allocationSize = 1)
+    @Column(name = "RUN_ID")
+    private Long id;
+
+    @NotBlank(message = "Job name is required")
+    @Size(max = 50, message = "Job name must not exceed 50 characters")
+    @Column(name = "JOB_NAME", nullable = false)
+    private String jobName;
+
+    @Size(max = 100, message = "Owner must not exceed 100 characters")
+    @Column(name = "OWNER", nullable = false)
+    private String owner;
+
+    @Column(name = "STARTED_AT", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "FINISHED_AT")
+    private LocalDateTime finishedAt;
+
+    // SUCCEEDED or FAILED
+    @Size(max = 20, message = "Status must not exceed 20 characters")
+    @Column(name = "STATUS", nullable = false)
+    private String status;
+
+    @Size(max = 500, message = "Error message must not exceed 500 characters")
+    @Column(name = "ERROR_MESSAGE")
+    private String errorMessage;
+}
@@ -25,9 +25,10 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class LeadHistory {
 
+    // IDs are drawn 50 at a time, so LEAD_HISTORY_SEQ must increment by 50
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lead_history_seq")
-    @SequenceGenerator(name = "lead_history_seq", sequenceName = "LEAD_HISTORY_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "lead_history_seq", sequenceName = "LEAD_HISTORY_SEQ", allocationSize = 50)
     @Column(name = "HISTORY_ID")
     private Long id;
 
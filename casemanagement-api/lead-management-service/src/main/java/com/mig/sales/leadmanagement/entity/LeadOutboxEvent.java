@@ -0,0 +1,57 @@
+package com.mig.sales.leadmanagement.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * LeadOutboxEvent entity recording one committed change to a lead, for relaying downstream
+ * Maps to LEAD_OUTBOX table in Oracle database
+ */
+@Entity
+@Table(name = "LEAD_OUTBOX")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadOutboxEvent {
+
+    // allocationSize = 1 so IDs are drawn while the lead's row lock is held, in commit order per lead
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lead_outbox_seq")
+    @SequenceGenerator(name = "lead_outbox_seq", sequenceName = "LEAD_OUTBOX_SEQ", allocationSize = 1)
+    @Column(name = "EVENT_ID")
+    private Long id;
+
+    // Not a foreign key: events of deleted leads must outlive the lead
+    @NotNull
+    @Column(name = "LEAD_ID", nullable = false)
+    private Long leadId;
+
+    @NotNull
+    @Size(max = 20, message = "Event type must not exceed 20 characters")
+    @Column(name = "EVENT_TYPE", nullable = false)
+    private String eventType;
+
+    // New status, assignee and score; null when the change did not set them
+    @Size(max = 20, message = "Status must not exceed 20 characters")
+    @Column(name = "STATUS")
+    private String status;
+
+    @Column(name = "ASSIGNED_TO")
+    private Long assignedTo;
+
+    @Column(name = "LEAD_SCORE")
+    private Integer leadScore;
+
+    @Column(name = "CREATED_DATE", nullable = false)
+    private LocalDateTime createdDate;
+
+    // Set once the relay has delivered the event
+    @Column(name = "PUBLISHED_DATE")
+    private LocalDateTime publishedDate;
+}
@@ -75,6 +75,15 @@ public class User {
     @Column(name = "LAST_LOGIN_DATE")
     private LocalDateTime lastLoginDate;
 
+    // Routing tags (comma-separated); empty means the rep covers every value
+    @Size(max = 500, message = "Territories must not exceed 500 characters")
+    @Column(name = "TERRITORIES")
+    private String territories;
+
+    @Size(max = 500, message = "Industries must not exceed 500 characters")
+    @Column(name = "INDUSTRIES")
+    private String industries;
+
     // Pega audit fields
     @Column(name = "PX_CREATED_DATETIME")
     @CreatedDate
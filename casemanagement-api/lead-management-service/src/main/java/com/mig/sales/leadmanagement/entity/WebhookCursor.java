@@ -0,0 +1,52 @@
+package com.mig.sales.leadmanagement.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * WebhookCursor entity holding the replay position of a webhook endpoint that fell behind the relay;
+ * an endpoint has a row only while it is behind
+ * Maps to WEBHOOK_CURSORS table in Oracle database
+ */
+@Entity
+@Table(name = "WEBHOOK_CURSORS")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebhookCursor {
+
+    @Id
+    @NotBlank(message = "Endpoint URL is required")
+    @Size(max = 500, message = "Endpoint URL must not exceed 500 characters")
+    @Column(name = "ENDPOINT_URL")
+    private String endpointUrl;
+
+    // Events delivered to the other endpoints from this time on are replayed
+    @Column(name = "BEHIND_SINCE", nullable = false)
+    private LocalDateTime behindSince;
+
+    // Last replayed event, by delivery time and ID; null until the first replayed page
+    @Column(name = "PUBLISHED_DATE")
+    private LocalDateTime publishedDate;
+
+    @Column(name = "EVENT_ID")
+    private Long eventId;
+
+    @Size(max = 500, message = "Error must not exceed 500 characters")
+    @Column(name = "LAST_ERROR")
+    private String lastError;
+
+    @Column(name = "UPDATED_DATE")
+    private LocalDateTime updatedDate;
+
+    public WebhookCursor(String endpointUrl, LocalDateTime behindSince) {
+        this.endpointUrl = endpointUrl;
+        this.behindSince = behindSince;
+    }
+}
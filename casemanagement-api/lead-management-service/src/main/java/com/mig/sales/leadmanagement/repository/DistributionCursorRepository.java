@@ -0,0 +1,29 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.DistributionCursor;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for DistributionCursor entity
+ * Provides locked access to persistent round-robin positions
+ */
+@Repository
+public interface DistributionCursorRepository extends JpaRepository<DistributionCursor, String> {
+
+    /**
+     * Find a cursor and lock its row until the current transaction ends,
+     * so concurrent distribution runs on any node advance it one after another
+     * @param name the cursor name
+     * @return Optional containing the cursor if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM DistributionCursor c WHERE c.name = :name")
+    Optional<DistributionCursor> lockByName(@Param("name") String name);
+}
@@ -0,0 +1,46 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for JobLease entity
+ * Each statement is atomic on its own, so nodes race for a lease without holding locks
+ */
+@Repository
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    /**
+     * Renew a lease the owner holds, or take over one that expired
+     * @param jobName the job name
+     * @param owner the node taking or renewing the lease
+     * @param now the current time
+     * @param expiresAt the new expiry
+     * @return 1 if the owner holds the lease now, 0 if another node does
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.owner = :owner, l.expiresAt = :expiresAt " +
+           "WHERE l.jobName = :jobName AND (l.owner = :owner OR l.expiresAt < :now)")
+    int takeOver(@Param("jobName") String jobName, @Param("owner") String owner,
+                 @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Give up a lease so another node can take it over at once
+     * @param jobName the job name
+     * @param owner the node holding the lease
+     * @param now the current time, stored as the expiry
+     * @return 1 if the lease was released
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE JobLease l SET l.expiresAt = :now WHERE l.jobName = :jobName AND l.owner = :owner")
+    int release(@Param("jobName") String jobName, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
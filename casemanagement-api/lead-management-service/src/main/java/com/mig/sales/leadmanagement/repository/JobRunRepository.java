@@ -0,0 +1,45 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.JobRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository interface for JobRun entity
+ */
+@Repository
+public interface JobRunRepository extends JpaRepository<JobRun, Long> {
+
+    /**
+     * Find the latest runs of a job
+     * @param jobName the job name
+     * @param pageable maximum number of runs
+     * @return runs, newest first
+     */
+    @Query("SELECT r FROM JobRun r WHERE r.jobName = :jobName ORDER BY r.id DESC")
+    List<JobRun> findLatestByJobName(@Param("jobName") String jobName, Pageable pageable);
+
+    /**
+     * Find the latest runs of all jobs
+     * @param pageable maximum number of runs
+     * @return runs, newest first
+     */
+    @Query("SELECT r FROM JobRun r ORDER BY r.id DESC")
+    List<JobRun> findLatest(Pageable pageable);
+
+    /**
+     * Delete runs started before a cutoff
+     * @param startedBefore the cutoff
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM JobRun r WHERE r.startedAt < :startedBefore")
+    int deleteStartedBefore(@Param("startedBefore") LocalDateTime startedBefore);
+}
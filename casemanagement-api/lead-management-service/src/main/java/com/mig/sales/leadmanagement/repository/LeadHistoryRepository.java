@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -35,13 +36,6 @@ public interface LeadHistoryRepository extends JpaRepository<LeadHistory, Long>
      */
     Page<LeadHistory> findByLeadOrderByTimestampDesc(Lead lead, Pageable pageable);
 
-    /**
-     * Find lead history by user
-     * @param user the user to get history for
-     * @return List of lead history records ordered by timestamp descending
-     */
-    List<LeadHistory> findByUserOrderByTimestampDesc(User user);
-
     /**
      * Find lead history by lead and user
      * @param lead the lead to get history for
@@ -51,26 +45,106 @@ public interface LeadHistoryRepository extends JpaRepository<LeadHistory, Long>
     List<LeadHistory> findByLeadAndUserOrderByTimestampDesc(Lead lead, User user);
 
     /**
-     * Find lead history by action
-     * @param action the action to search for
-     * @return List of lead history records with the specified action
+     * Find the latest history records by a user, across all leads
+     * @param user the user
+     * @param pageable maximum number of records to return
+     * @return records ordered by timestamp and ID, both descending
      */
-    List<LeadHistory> findByAction(String action);
+    @Query("SELECT h FROM LeadHistory h WHERE h.user = :user ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findLatestByUser(@Param("user") User user, Pageable pageable);
 
     /**
-     * Find lead history by action type
-     * @param actionType the action type to search for
-     * @return List of lead history records with the specified action type
+     * Find the next page of history records by a user, continuing after the given record
+     * @param user the user
+     * @param timestamp timestamp of the last record already returned
+     * @param id ID of the last record already returned
+     * @param pageable maximum number of records to return
+     * @return records after the given one, in the order of {@link #findLatestByUser}
      */
-    List<LeadHistory> findByActionType(String actionType);
+    @Query("SELECT h FROM LeadHistory h WHERE h.user = :user AND " +
+           "(h.timestamp < :timestamp OR (h.timestamp = :timestamp AND h.id < :id)) ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findByUserAfter(@Param("user") User user,
+                                      @Param("timestamp") LocalDateTime timestamp,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
 
     /**
-     * Find lead history by date range
-     * @param startDate the start date
-     * @param endDate the end date
-     * @return List of lead history records within the date range
+     * Find the latest history records with an action, across all leads
+     * @param action the action
+     * @param pageable maximum number of records to return
+     * @return records ordered by timestamp and ID, both descending
+     */
+    @Query("SELECT h FROM LeadHistory h WHERE h.action = :action ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findLatestByAction(@Param("action") String action, Pageable pageable);
+
+    /**
+     * Find the next page of history records with an action, continuing after the given record
+     * @param action the action
+     * @param timestamp timestamp of the last record already returned
+     * @param id ID of the last record already returned
+     * @param pageable maximum number of records to return
+     * @return records after the given one, in the order of {@link #findLatestByAction}
+     */
+    @Query("SELECT h FROM LeadHistory h WHERE h.action = :action AND " +
+           "(h.timestamp < :timestamp OR (h.timestamp = :timestamp AND h.id < :id)) ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findByActionAfter(@Param("action") String action,
+                                        @Param("timestamp") LocalDateTime timestamp,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
+    /**
+     * Find the latest history records with an action type, across all leads
+     * @param actionType the action type
+     * @param pageable maximum number of records to return
+     * @return records ordered by timestamp and ID, both descending
+     */
+    @Query("SELECT h FROM LeadHistory h WHERE h.actionType = :actionType ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findLatestByActionType(@Param("actionType") String actionType, Pageable pageable);
+
+    /**
+     * Find the next page of history records with an action type, continuing after the given record
+     * @param actionType the action type
+     * @param timestamp timestamp of the last record already returned
+     * @param id ID of the last record already returned
+     * @param pageable maximum number of records to return
+     * @return records after the given one, in the order of {@link #findLatestByActionType}
+     */
+    @Query("SELECT h FROM LeadHistory h WHERE h.actionType = :actionType AND " +
+           "(h.timestamp < :timestamp OR (h.timestamp = :timestamp AND h.id < :id)) ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findByActionTypeAfter(@Param("actionType") String actionType,
+                                            @Param("timestamp") LocalDateTime timestamp,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
+    /**
+     * Find the latest history records in a date range, across all leads
+     * @param startDate the start date, inclusive
+     * @param endDate the end date, inclusive
+     * @param pageable maximum number of records to return
+     * @return records ordered by timestamp and ID, both descending
      */
-    List<LeadHistory> findByTimestampBetween(LocalDateTime startDate, LocalDateTime endDate);
+    @Query("SELECT h FROM LeadHistory h WHERE h.timestamp BETWEEN :startDate AND :endDate " +
+           "ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findLatestInRange(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate,
+                                        Pageable pageable);
+
+    /**
+     * Find the next page of history records in a date range, continuing after the given record
+     * @param startDate the start date, inclusive
+     * @param endDate the end date, inclusive
+     * @param timestamp timestamp of the last record already returned
+     * @param id ID of the last record already returned
+     * @param pageable maximum number of records to return
+     * @return records after the given one, in the order of {@link #findLatestInRange}
+     */
+    @Query("SELECT h FROM LeadHistory h WHERE h.timestamp BETWEEN :startDate AND :endDate AND " +
+           "(h.timestamp < :timestamp OR (h.timestamp = :timestamp AND h.id < :id)) ORDER BY h.timestamp DESC, h.id DESC")
+    List<LeadHistory> findInRangeAfter(@Param("startDate") LocalDateTime startDate,
+                                       @Param("endDate") LocalDateTime endDate,
+                                       @Param("timestamp") LocalDateTime timestamp,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
 
     /**
      * Find lead history by lead and date range
@@ -120,5 +194,19 @@ public interface LeadHistoryRepository extends JpaRepository<LeadHistory, Long>
      */
     @Query("SELECT h FROM LeadHistory h WHERE h.lead = :lead AND h.commentText IS NOT NULL AND h.commentText != '' ORDER BY h.timestamp DESC")
     List<LeadHistory> findLeadHistoryWithComments(@Param("lead") Lead lead);
-}
 
+    /**
+     * Read the scoring inputs and latest outcome of the next leads in ID order that reached an outcome status
+     * @param afterId only leads with a higher ID are returned
+     * @param outcomes outcome statuses, e.g. CONVERTED and REJECTED
+     * @param pageable maximum number of rows
+     * @return rows of [leadId, potentialValue, leadSource, email, phone, outcome status]
+     */
+    @Query("SELECT l.id, l.potentialValue, l.leadSource, l.email, l.phone, h.newStatus " +
+           "FROM LeadHistory h JOIN h.lead l WHERE l.id > :afterId AND h.newStatus IN :outcomes " +
+           "AND h.id = (SELECT MAX(h2.id) FROM LeadHistory h2 WHERE h2.lead = l AND h2.newStatus IN :outcomes) " +
+           "ORDER BY l.id")
+    List<Object[]> findOutcomesAfter(@Param("afterId") Long afterId,
+                                     @Param("outcomes") Collection<String> outcomes,
+                                     Pageable pageable);
+}
@@ -0,0 +1,111 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for LeadOutboxEvent entity
+ */
+@Repository
+public interface LeadOutboxRepository extends JpaRepository<LeadOutboxEvent, Long> {
+
+    /**
+     * Find the oldest undelivered events
+     * @param pageable maximum number of events
+     * @return events in ID order
+     */
+    @Query("SELECT e FROM LeadOutboxEvent e WHERE e.publishedDate IS NULL ORDER BY e.id")
+    List<LeadOutboxEvent> findUnpublished(Pageable pageable);
+
+    /**
+     * Find the first events delivered at or after a time, in delivery order
+     * @param since the delivery time
+     * @param pageable maximum number of events
+     * @return events ordered by delivery time, then ID
+     */
+    @Query("SELECT e FROM LeadOutboxEvent e WHERE e.publishedDate >= :since ORDER BY e.publishedDate, e.id")
+    List<LeadOutboxEvent> findPublishedSince(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Find the events delivered after a position, in delivery order
+     * @param publishedDate delivery time of the last event read
+     * @param id ID of the last event read
+     * @param pageable maximum number of events
+     * @return events ordered by delivery time, then ID
+     */
+    @Query("SELECT e FROM LeadOutboxEvent e WHERE e.publishedDate > :publishedDate " +
+           "OR (e.publishedDate = :publishedDate AND e.id > :id) ORDER BY e.publishedDate, e.id")
+    List<LeadOutboxEvent> findPublishedAfter(@Param("publishedDate") LocalDateTime publishedDate, @Param("id") Long id,
+                                             Pageable pageable);
+
+    /**
+     * Find the events after a watermark, a range scan of the primary key
+     * @param afterId only events with a higher ID are returned
+     * @param pageable maximum number of events
+     * @return events in ID order
+     */
+    @Query("SELECT e FROM LeadOutboxEvent e WHERE e.id > :afterId ORDER BY e.id")
+    List<LeadOutboxEvent> findAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Find the most recent events, reading the primary key backwards
+     * @param pageable maximum number of events
+     * @return events, newest first
+     */
+    @Query("SELECT e FROM LeadOutboxEvent e ORDER BY e.id DESC")
+    List<LeadOutboxEvent> findLatest(Pageable pageable);
+
+    /**
+     * Find the oldest retained event ID
+     * @return the ID, or null if the outbox is empty
+     */
+    @Query("SELECT MIN(e.id) FROM LeadOutboxEvent e")
+    Long findMinId();
+
+    /**
+     * Mark events as delivered in a single statement
+     * @param ids the event IDs
+     * @param publishedDate the delivery timestamp
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE LeadOutboxEvent e SET e.publishedDate = :publishedDate WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedDate") LocalDateTime publishedDate);
+
+    /**
+     * Delete events delivered before a cutoff, keeping the newest event so the change feed can tell
+     * a purged watermark from an idle one
+     * @param publishedBefore the cutoff
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM LeadOutboxEvent e WHERE e.publishedDate < :publishedBefore " +
+           "AND e.id < (SELECT MAX(x.id) FROM LeadOutboxEvent x)")
+    int deletePublishedBefore(@Param("publishedBefore") LocalDateTime publishedBefore);
+
+    /**
+     * Delete events recorded before a cutoff, delivered or not, keeping the newest event;
+     * used when no sink is configured
+     * @param createdBefore the cutoff
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM LeadOutboxEvent e WHERE e.createdDate < :createdBefore " +
+           "AND e.id < (SELECT MAX(x.id) FROM LeadOutboxEvent x)")
+    int deleteCreatedBefore(@Param("createdBefore") LocalDateTime createdBefore);
+
+    /**
+     * Count events not yet delivered
+     * @return number of events
+     */
+    long countByPublishedDateIsNull();
+}
@@ -4,13 +4,22 @@ import com.mig.sales.leadmanagement.entity.Lead;
 import com.mig.sales.leadmanagement.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Lead entity
@@ -19,6 +28,11 @@ import java.util.List;
 @Repository
 public interface LeadRepository extends JpaRepository<Lead, Long> {
 
+    /**
+     * Lock timeout hint value Hibernate translates to SKIP LOCKED
+     */
+    String SKIP_LOCKED = "-2";
+
     /**
      * Find leads by status
      * @param status the status to search for
@@ -85,6 +99,77 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     @Query("SELECT l FROM Lead l WHERE l.status = 'NEW' ORDER BY l.leadScore DESC, l.createdDate ASC")
     List<Lead> findNewLeadsForDistribution();
 
+    /**
+     * Read the first page of unassigned NEW leads to claim from, best first, without locking them
+     * @param pageable page size
+     * @return rows of [id, leadScore (-1 if none), createdDate, location, industry]
+     */
+    @Query("SELECT l.id, COALESCE(l.leadScore, -1), l.createdDate, l.location, l.industry FROM Lead l " +
+           "WHERE l.status = 'NEW' AND l.assignedTo IS NULL " +
+           "ORDER BY COALESCE(l.leadScore, -1) DESC, l.createdDate ASC, l.id ASC")
+    List<Object[]> findClaimCandidates(Pageable pageable);
+
+    /**
+     * Read the next page of unassigned NEW leads to claim from, after the last row of the previous page
+     * @param leadScore score of the previous page's last row
+     * @param createdDate creation date of the previous page's last row
+     * @param id ID of the previous page's last row
+     * @param pageable page size
+     * @return rows of [id, leadScore (-1 if none), createdDate, location, industry]
+     */
+    @Query("SELECT l.id, COALESCE(l.leadScore, -1), l.createdDate, l.location, l.industry FROM Lead l " +
+           "WHERE l.status = 'NEW' AND l.assignedTo IS NULL " +
+           "AND (COALESCE(l.leadScore, -1) < :leadScore OR (COALESCE(l.leadScore, -1) = :leadScore " +
+           "AND (l.createdDate > :createdDate OR (l.createdDate = :createdDate AND l.id > :id)))) " +
+           "ORDER BY COALESCE(l.leadScore, -1) DESC, l.createdDate ASC, l.id ASC")
+    List<Object[]> findClaimCandidatesAfter(@Param("leadScore") Integer leadScore,
+                                            @Param("createdDate") LocalDateTime createdDate,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+
+    /**
+     * Read the first page of unassigned NEW leads in the given industries to claim from, without locking them
+     * @param industries lower-cased industries to match
+     * @param pageable page size
+     * @return rows of [id, leadScore (-1 if none), createdDate, location, industry]
+     */
+    @Query("SELECT l.id, COALESCE(l.leadScore, -1), l.createdDate, l.location, l.industry FROM Lead l " +
+           "WHERE l.status = 'NEW' AND l.assignedTo IS NULL AND LOWER(l.industry) IN :industries " +
+           "ORDER BY COALESCE(l.leadScore, -1) DESC, l.createdDate ASC, l.id ASC")
+    List<Object[]> findClaimCandidatesInIndustries(@Param("industries") Collection<String> industries,
+                                                   Pageable pageable);
+
+    /**
+     * Read the next page of unassigned NEW leads in the given industries to claim from
+     * @param industries lower-cased industries to match
+     * @param leadScore score of the previous page's last row
+     * @param createdDate creation date of the previous page's last row
+     * @param id ID of the previous page's last row
+     * @param pageable page size
+     * @return rows of [id, leadScore (-1 if none), createdDate, location, industry]
+     */
+    @Query("SELECT l.id, COALESCE(l.leadScore, -1), l.createdDate, l.location, l.industry FROM Lead l " +
+           "WHERE l.status = 'NEW' AND l.assignedTo IS NULL AND LOWER(l.industry) IN :industries " +
+           "AND (COALESCE(l.leadScore, -1) < :leadScore OR (COALESCE(l.leadScore, -1) = :leadScore " +
+           "AND (l.createdDate > :createdDate OR (l.createdDate = :createdDate AND l.id > :id)))) " +
+           "ORDER BY COALESCE(l.leadScore, -1) DESC, l.createdDate ASC, l.id ASC")
+    List<Object[]> findClaimCandidatesInIndustriesAfter(@Param("industries") Collection<String> industries,
+                                                        @Param("leadScore") Integer leadScore,
+                                                        @Param("createdDate") LocalDateTime createdDate,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
+
+    /**
+     * Lock one lead for claiming if it is still unassigned and NEW, skipping it if another claimer holds it.
+     * Issues SELECT ... FOR UPDATE SKIP LOCKED, so concurrent claimers never wait on each other.
+     * @param id the lead ID
+     * @return the locked lead, or empty if it was taken or is locked
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+    @Query("SELECT l FROM Lead l WHERE l.id = :id AND l.status = 'NEW' AND l.assignedTo IS NULL")
+    Optional<Lead> lockClaimable(@Param("id") Long id);
+
     /**
      * Find leads assigned to user with specific statuses
      * @param assignedTo the user the lead is assigned to
@@ -94,6 +179,44 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     @Query("SELECT l FROM Lead l WHERE l.assignedTo = :assignedTo AND l.status IN :statuses ORDER BY l.leadScore DESC, l.createdDate DESC")
     List<Lead> findByAssignedToAndStatusIn(@Param("assignedTo") User assignedTo, @Param("statuses") List<String> statuses);
 
+    /**
+     * Count scored leads per score, lead source and industry
+     * @return rows of [leadScore, leadSource, industry, count]
+     */
+    @Query("SELECT l.leadScore, l.leadSource, l.industry, COUNT(l) FROM Lead l WHERE l.leadScore IS NOT NULL " +
+           "GROUP BY l.leadScore, l.leadSource, l.industry")
+    List<Object[]> countByScoreSourceAndIndustry();
+
+    /**
+     * Find a user's leads in my-leads order, best first.
+     * Unscored leads rank below every scored lead; the lead ID breaks ties so the order is total.
+     * @param assigneeId the assigned user ID
+     * @param pageable maximum number of leads to return
+     * @return leads ordered by score, creation date and ID, all descending
+     */
+    @Query("SELECT l FROM Lead l WHERE l.assignedTo.id = :assigneeId " +
+           "ORDER BY COALESCE(l.leadScore, -1) DESC, l.createdDate DESC, l.id DESC")
+    List<Lead> findTopAssigned(@Param("assigneeId") Long assigneeId, Pageable pageable);
+
+    /**
+     * Find the next page of a user's leads in my-leads order, continuing after the given lead
+     * @param assigneeId the assigned user ID
+     * @param leadScore score of the last lead already returned, or -1 if it was unscored
+     * @param createdDate creation date of the last lead already returned
+     * @param id ID of the last lead already returned
+     * @param pageable maximum number of leads to return
+     * @return leads ranked after the given one, in the order of {@link #findTopAssigned}
+     */
+    @Query("SELECT l FROM Lead l WHERE l.assignedTo.id = :assigneeId AND (" +
+           "COALESCE(l.leadScore, -1) < :leadScore OR (COALESCE(l.leadScore, -1) = :leadScore AND (" +
+           "l.createdDate < :createdDate OR (l.createdDate = :createdDate AND l.id < :id)))) " +
+           "ORDER BY COALESCE(l.leadScore, -1) DESC, l.createdDate DESC, l.id DESC")
+    List<Lead> findAssignedAfter(@Param("assigneeId") Long assigneeId,
+                                 @Param("leadScore") int leadScore,
+                                 @Param("createdDate") LocalDateTime createdDate,
+                                 @Param("id") Long id,
+                                 Pageable pageable);
+
     /**
      * Find high-value leads (potential value >= $1M)
      * @param threshold the minimum potential value (1000000)
@@ -116,6 +239,150 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
      */
     long countByAssignedTo(User assignedTo);
 
+    /**
+     * Count leads per assigned user for the given statuses in one grouped query
+     * @param statuses statuses to count
+     * @return rows of [assigned user ID, lead count]
+     */
+    @Query("SELECT l.assignedTo.id, COUNT(l) FROM Lead l WHERE l.assignedTo IS NOT NULL AND l.status IN :statuses " +
+           "GROUP BY l.assignedTo.id")
+    List<Object[]> countByAssigneeAndStatusIn(@Param("statuses") Collection<String> statuses);
+
+    /**
+     * Count leads per assignee for the given statuses, along with whether the assignee is still active
+     * @param statuses statuses to count
+     * @return rows of [assigned user ID, assignee active flag, lead count]
+     */
+    @Query("SELECT l.assignedTo.id, l.assignedTo.isActive, COUNT(l) FROM Lead l " +
+           "WHERE l.assignedTo IS NOT NULL AND l.status IN :statuses " +
+           "GROUP BY l.assignedTo.id, l.assignedTo.isActive")
+    List<Object[]> countByAssigneeWithActiveFlag(@Param("statuses") Collection<String> statuses);
+
+    /**
+     * Find IDs of a user's leads to hand over, untouched ASSIGNED leads before IN_PROGRESS ones
+     * @param assigneeId the current assignee
+     * @param statuses statuses eligible for reassignment
+     * @param pageable maximum number of IDs to return
+     * @return lead IDs
+     */
+    @Query("SELECT l.id FROM Lead l WHERE l.assignedTo.id = :assigneeId AND l.status IN :statuses " +
+           "ORDER BY CASE WHEN l.status = 'ASSIGNED' THEN 0 ELSE 1 END, l.leadScore ASC, l.id ASC")
+    List<Long> findIdsForReassignment(@Param("assigneeId") Long assigneeId,
+                                      @Param("statuses") Collection<String> statuses,
+                                      Pageable pageable);
+
+    /**
+     * Move leads from one assignee to another in a single statement.
+     * Leads that changed assignee or left the given statuses in the meantime are left untouched.
+     * @param ids the lead IDs to move
+     * @param fromUserId the expected current assignee
+     * @param assignedTo the new assignee
+     * @param statuses statuses the leads must still be in
+     * @param updatedDate the update timestamp to stamp on each row
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Lead l SET l.assignedTo = :assignedTo, l.updatedDate = :updatedDate " +
+           "WHERE l.id IN :ids AND l.assignedTo.id = :fromUserId AND l.status IN :statuses")
+    int reassignLeads(@Param("ids") Collection<Long> ids,
+                      @Param("fromUserId") Long fromUserId,
+                      @Param("assignedTo") User assignedTo,
+                      @Param("statuses") Collection<String> statuses,
+                      @Param("updatedDate") LocalDateTime updatedDate);
+
+    /**
+     * Lock leads by ID for a bulk workflow operation, waiting for rows other transactions hold.
+     * Rows are locked in ID order so concurrent bulk operations on overlapping leads cannot deadlock.
+     * @param ids the lead IDs
+     * @return the leads found, in ID order
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Lead l WHERE l.id IN :ids ORDER BY l.id")
+    List<Lead> lockAllById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Move an assignee's leads to a new status and assignee in a single statement.
+     * Leads that changed assignee or left the given statuses in the meantime are left untouched.
+     * @param ids the lead IDs
+     * @param fromUserId the expected current assignee
+     * @param fromStatuses statuses the leads must still be in
+     * @param status the new status
+     * @param assignedTo the assignee after the change
+     * @param updatedDate the update timestamp to stamp on each row
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Lead l SET l.status = :status, l.assignedTo = :assignedTo, l.updatedDate = :updatedDate " +
+           "WHERE l.id IN :ids AND l.assignedTo.id = :fromUserId AND l.status IN :fromStatuses")
+    int transitionLeads(@Param("ids") Collection<Long> ids,
+                        @Param("fromUserId") Long fromUserId,
+                        @Param("fromStatuses") Collection<String> fromStatuses,
+                        @Param("status") String status,
+                        @Param("assignedTo") User assignedTo,
+                        @Param("updatedDate") LocalDateTime updatedDate);
+
+    /**
+     * Stream the last update time of every lead in the given statuses, for loading SLA timers.
+     * Served from idx_leads_status_updated without reading the table; must run in a transaction.
+     * @param statuses statuses to read
+     * @return rows of [id, updatedDate]
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT l.id, l.updatedDate FROM Lead l WHERE l.status IN :statuses")
+    Stream<Object[]> streamUpdatedDates(@Param("statuses") Collection<String> statuses);
+
+    /**
+     * Find the IDs of the next leads in ID order, served from the primary key index
+     * @param afterId only leads with a higher ID are returned
+     * @param pageable maximum number of IDs
+     * @return lead IDs in ascending order
+     */
+    @Query("SELECT l.id FROM Lead l WHERE l.id > :afterId ORDER BY l.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Lock a range of leads and read their scoring inputs, without loading the entities.
+     * Rows are locked in ID order, as in {@link #lockAllById}; the range is bounded by ID rather
+     * than by a row limit because Oracle rejects FOR UPDATE together with a row limit.
+     * @param afterId only leads with a higher ID are returned
+     * @param lastId only leads with this ID or a lower one are returned
+     * @return rows of [id, potentialValue, leadSource, email, phone, leadScore]
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l.id, l.potentialValue, l.leadSource, l.email, l.phone, l.leadScore FROM Lead l " +
+           "WHERE l.id > :afterId AND l.id <= :lastId ORDER BY l.id")
+    List<Object[]> lockScoringInputsBetween(@Param("afterId") Long afterId, @Param("lastId") Long lastId);
+
+    /**
+     * Find leads by ID together with their assignees in a single query
+     * @param ids the lead IDs
+     * @return leads found, in no particular order
+     */
+    @Query("SELECT l FROM Lead l LEFT JOIN FETCH l.assignedTo WHERE l.id IN :ids")
+    List<Lead> findAllWithAssigneeById(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find which of the given leads carry an update timestamp, i.e. which ones a conditional bulk UPDATE changed
+     * @param ids the lead IDs
+     * @param updatedDate the update timestamp the UPDATE stamped
+     * @return IDs of the matching leads
+     */
+    @Query("SELECT l.id FROM Lead l WHERE l.id IN :ids AND l.updatedDate = :updatedDate")
+    List<Long> findIdsUpdatedAt(@Param("ids") Collection<Long> ids, @Param("updatedDate") LocalDateTime updatedDate);
+
+    /**
+     * Set the same score on several leads in a single statement
+     * @param ids the lead IDs
+     * @param leadScore the new score
+     * @param updatedDate the update timestamp to stamp on each row
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Lead l SET l.leadScore = :leadScore, l.updatedDate = :updatedDate WHERE l.id IN :ids")
+    int updateLeadScores(@Param("ids") Collection<Long> ids,
+                         @Param("leadScore") Integer leadScore,
+                         @Param("updatedDate") LocalDateTime updatedDate);
+
     /**
      * Find leads with pagination and filtering
      * @param status optional status filter
@@ -133,5 +400,19 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
                                    @Param("assignedTo") User assignedTo,
                                    @Param("leadSource") String leadSource,
                                    Pageable pageable);
-}
 
+    /**
+     * Assign a set of NEW leads to a user in a single statement.
+     * Leads that are no longer NEW are left untouched.
+     * @param ids the lead IDs to assign
+     * @param assignedTo the user to assign the leads to
+     * @param updatedDate the update timestamp to stamp on each row
+     * @return number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Lead l SET l.assignedTo = :assignedTo, l.status = 'ASSIGNED', l.updatedDate = :updatedDate " +
+           "WHERE l.id IN :ids AND l.status = 'NEW'")
+    int assignNewLeads(@Param("ids") Collection<Long> ids,
+                       @Param("assignedTo") User assignedTo,
+                       @Param("updatedDate") LocalDateTime updatedDate);
+}
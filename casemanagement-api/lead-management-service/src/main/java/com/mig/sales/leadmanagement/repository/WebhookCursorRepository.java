@@ -0,0 +1,13 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.WebhookCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for WebhookCursor entity
+ * Holds the replay positions of webhook endpoints that fell behind
+ */
+@Repository
+public interface WebhookCursorRepository extends JpaRepository<WebhookCursor, String> {
+}
@@ -0,0 +1,291 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of each assignee's best leads, serving the first pages of my-leads without a query.
+ *
+ * Every assignee read so far has a shelf of up to top-k lead snapshots in my-leads order:
+ * score descending with unscored leads last, then creation date and ID descending. A shelf
+ * always holds an exact prefix of that order and knows whether it holds all of the
+ * assignee's leads, so a page it covers is served from memory and anything past it falls
+ * back to a keyset query. Shelves are loaded with one query on first read, and reloaded
+ * when removals have left one too short for the page asked for.
+ *
+ * {@link LeadService} reports every write once its transaction commits. Single-lead writes
+ * move the lead between shelves; bulk writes that do not load the leads drop the shelves
+ * they may have changed instead.
+ */
+@Service
+public class AssigneeTopLeadsIndex {
+
+    /**
+     * My-leads order, best first; matches the ORDER BY of {@link LeadRepository#findTopAssigned}
+     */
+    static final Comparator<Lead> MY_LEADS_ORDER = Comparator
+            .comparingInt(AssigneeTopLeadsIndex::rankScore)
+            .thenComparing(Lead::getCreatedDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Lead::getId)
+            .reversed();
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Value("${lead.my-leads.top-k:100}")
+    private int topK = 100;
+
+    private final Map<Long, Shelf> shelves = new ConcurrentHashMap<>();
+
+    /** Assignee of every lead on a shelf; guarded by this */
+    private final Map<Long, Long> shelvedAssignees = new HashMap<>();
+
+    /** Bumped on every change so a shelf loaded while a write commits is not kept; guarded by this */
+    private long changeCount;
+
+    /**
+     * Find a page of an assignee's leads in my-leads order
+     * @param assignee assigned user
+     * @param after last lead of the previous page, or null for the first page;
+     *              only its ID, score and creation date are read
+     * @param size page size
+     * @return detached copies of the leads, assigned to the given user
+     */
+    public List<Lead> findPage(User assignee, Lead after, int size) {
+        Long assigneeId = assignee.getId();
+        Shelf shelf = shelves.get(assigneeId);
+        List<Lead> page = shelf != null ? shelf.page(after, size) : null;
+        if (page == null && (shelf == null || shelf.isDepleted(topK))) {
+            shelf = load(assigneeId);
+            page = shelf.page(after, size);
+        }
+        if (page == null) {
+            page = after == null
+                    ? leadRepository.findTopAssigned(assigneeId, Pageable.ofSize(size))
+                    : leadRepository.findAssignedAfter(assigneeId, rankScore(after), after.getCreatedDate(),
+                            after.getId(), Pageable.ofSize(size));
+        }
+        List<Lead> copies = new ArrayList<>(page.size());
+        for (Lead lead : page) {
+            copies.add(snapshot(lead, assignee));
+        }
+        return copies;
+    }
+
+    /**
+     * Record a created or updated lead once the current transaction commits
+     * @param lead saved lead, with its current assignee, status and score
+     */
+    public void leadSaved(Lead lead) {
+        Lead snapshot = snapshot(lead, null);
+        Long assigneeId = lead.getAssignedTo() != null ? lead.getAssignedTo().getId() : null;
+        TransactionCallbacks.afterCommit(() -> shelve(snapshot, assigneeId));
+    }
+
+    /**
+     * Record a deleted lead once the current transaction commits
+     * @param leadId ID of the deleted lead
+     */
+    public void leadDeleted(Long leadId) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                changeCount++;
+                unshelve(leadId);
+            }
+        });
+    }
+
+    /**
+     * Record leads a bulk update moved to, or changed under, an assignee once the current transaction commits.
+     * The leads leave their old shelves and the assignee's shelf is reloaded on its next read.
+     * @param leadIds IDs of the updated leads
+     * @param assigneeId ID of the assignee after the update
+     */
+    public void leadsUpdated(Collection<Long> leadIds, Long assigneeId) {
+        List<Long> ids = new ArrayList<>(leadIds);
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                changeCount++;
+                ids.forEach(this::unshelve);
+                drop(assigneeId);
+            }
+        });
+    }
+
+    /**
+     * Record a bulk score update once the current transaction commits.
+     * Any lead may have moved into any shelf, so every shelf is reloaded on its next read.
+     */
+    public void scoresChanged() {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                changeCount++;
+                shelves.clear();
+                shelvedAssignees.clear();
+            }
+        });
+    }
+
+    private Shelf load(Long assigneeId) {
+        long seen;
+        synchronized (this) {
+            seen = changeCount;
+        }
+        List<Lead> top = leadRepository.findTopAssigned(assigneeId, Pageable.ofSize(topK + 1));
+        Shelf shelf = new Shelf(top.size() <= topK);
+        for (int i = 0; i < Math.min(top.size(), topK); i++) {
+            shelf.add(snapshot(top.get(i), null));
+        }
+        synchronized (this) {
+            if (changeCount == seen) {
+                drop(assigneeId);
+                shelves.put(assigneeId, shelf);
+                shelf.ids().forEach(id -> shelvedAssignees.put(id, assigneeId));
+            }
+        }
+        return shelf;
+    }
+
+    private synchronized void shelve(Lead snapshot, Long assigneeId) {
+        changeCount++;
+        unshelve(snapshot.getId());
+        Shelf shelf = assigneeId != null ? shelves.get(assigneeId) : null;
+        if (shelf != null && shelf.offer(snapshot)) {
+            shelvedAssignees.put(snapshot.getId(), assigneeId);
+            Lead evicted = shelf.trimTo(topK);
+            if (evicted != null) {
+                shelvedAssignees.remove(evicted.getId());
+            }
+        }
+    }
+
+    private void unshelve(Long leadId) {
+        Long assigneeId = shelvedAssignees.remove(leadId);
+        Shelf shelf = assigneeId != null ? shelves.get(assigneeId) : null;
+        if (shelf != null) {
+            shelf.remove(leadId);
+        }
+    }
+
+    private void drop(Long assigneeId) {
+        Shelf shelf = shelves.remove(assigneeId);
+        if (shelf != null) {
+            shelf.ids().forEach(shelvedAssignees::remove);
+        }
+    }
+
+    private static int rankScore(Lead lead) {
+        return lead.getLeadScore() != null ? lead.getLeadScore() : -1;
+    }
+
+    private static Lead snapshot(Lead lead, User assignee) {
+        Lead copy = new Lead();
+        copy.setId(lead.getId());
+        copy.setLeadName(lead.getLeadName());
+        copy.setCompany(lead.getCompany());
+        copy.setEmail(lead.getEmail());
+        copy.setPhone(lead.getPhone());
+        copy.setStatus(lead.getStatus());
+        copy.setAssignedTo(assignee);
+        copy.setPotentialValue(lead.getPotentialValue());
+        copy.setLeadSource(lead.getLeadSource());
+        copy.setLeadScore(lead.getLeadScore());
+        copy.setCreatedDate(lead.getCreatedDate());
+        copy.setUpdatedDate(lead.getUpdatedDate());
+        copy.setDescription(lead.getDescription());
+        copy.setIndustry(lead.getIndustry());
+        copy.setCompanySize(lead.getCompanySize());
+        copy.setLocation(lead.getLocation());
+        copy.setPxCreatedDateTime(lead.getPxCreatedDateTime());
+        copy.setPxUpdatedDateTime(lead.getPxUpdatedDateTime());
+        copy.setPxCreatedBy(lead.getPxCreatedBy());
+        copy.setPxUpdatedBy(lead.getPxUpdatedBy());
+        return copy;
+    }
+
+    /**
+     * One assignee's best leads; snapshots are never modified once shelved
+     */
+    private static final class Shelf {
+
+        private final TreeSet<Lead> leads = new TreeSet<>(MY_LEADS_ORDER);
+        private final Map<Long, Lead> byId = new HashMap<>();
+
+        /** True while the shelf holds every lead of the assignee */
+        private boolean complete;
+
+        Shelf(boolean complete) {
+            this.complete = complete;
+        }
+
+        synchronized List<Lead> page(Lead after, int size) {
+            List<Lead> page = new ArrayList<>(size);
+            for (Lead lead : after == null ? leads : leads.tailSet(after, false)) {
+                page.add(lead);
+                if (page.size() == size) {
+                    return page;
+                }
+            }
+            return complete ? page : null;
+        }
+
+        synchronized boolean isDepleted(int topK) {
+            return !complete && leads.size() < topK;
+        }
+
+        synchronized void add(Lead lead) {
+            leads.add(lead);
+            byId.put(lead.getId(), lead);
+        }
+
+        /**
+         * Shelve a lead if it belongs to the prefix this shelf holds
+         */
+        synchronized boolean offer(Lead lead) {
+            if (!complete && (leads.isEmpty() || MY_LEADS_ORDER.compare(lead, leads.last()) > 0)) {
+                return false;
+            }
+            add(lead);
+            return true;
+        }
+
+        /**
+         * Evict the worst lead if the shelf holds more than topK
+         * @return the evicted lead, or null
+         */
+        synchronized Lead trimTo(int topK) {
+            if (leads.size() <= topK) {
+                return null;
+            }
+            complete = false;
+            Lead evicted = leads.pollLast();
+            byId.remove(evicted.getId());
+            return evicted;
+        }
+
+        synchronized void remove(Long leadId) {
+            Lead lead = byId.remove(leadId);
+            if (lead != null) {
+                leads.remove(lead);
+            }
+        }
+
+        synchronized List<Long> ids() {
+            return new ArrayList<>(byId.keySet());
+        }
+    }
+}
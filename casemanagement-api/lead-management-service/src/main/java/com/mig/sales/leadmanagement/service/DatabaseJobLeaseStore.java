@@ -0,0 +1,44 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.JobLease;
+import com.mig.sales.leadmanagement.repository.JobLeaseRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps job leases in the JOB_LEASES table (lead.jobs.lease-store=database, the default).
+ * A lease is taken with one conditional UPDATE, and a job's first lease with an INSERT
+ * that loses cleanly to a concurrent one on the primary key, so no node holds a lock.
+ */
+@Component
+@ConditionalOnProperty(name = "lead.jobs.lease-store", havingValue = "database", matchIfMissing = true)
+public class DatabaseJobLeaseStore implements JobLeaseStore {
+
+    @Autowired
+    private JobLeaseRepository jobLeaseRepository;
+
+    @Override
+    public boolean acquire(String jobName, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+        if (jobLeaseRepository.takeOver(jobName, owner, now, expiresAt) == 1) {
+            return true;
+        }
+        if (jobLeaseRepository.existsById(jobName)) {
+            return false;
+        }
+        try {
+            jobLeaseRepository.saveAndFlush(new JobLease(jobName, owner, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void release(String jobName, String owner, LocalDateTime now) {
+        jobLeaseRepository.release(jobName, owner, now);
+    }
+}
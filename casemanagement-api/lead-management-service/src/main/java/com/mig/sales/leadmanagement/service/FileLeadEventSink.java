@@ -0,0 +1,42 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends relayed events to a local file, one JSON object per line (lead.outbox.sink=file)
+ */
+@Component
+@ConditionalOnProperty(name = "lead.outbox.sink", havingValue = "file")
+public class FileLeadEventSink implements LeadEventSink {
+
+    @Value("${lead.outbox.file:lead-events.jsonl}")
+    private String file = "lead-events.jsonl";
+
+    @Override
+    public synchronized void publish(List<LeadOutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (LeadOutboxEvent event : events) {
+            lines.append(LeadEventSink.toJson(event)).append('\n');
+        }
+        Path path = Paths.get(file);
+        try {
+            Files.write(path, lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE,
+                    StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot append lead events to " + path, e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.JobLease;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps job leases in memory, for tests and single-node runs (lead.jobs.lease-store=memory)
+ */
+@Component
+@ConditionalOnProperty(name = "lead.jobs.lease-store", havingValue = "memory")
+public class InMemoryJobLeaseStore implements JobLeaseStore {
+
+    private final Map<String, JobLease> leases = new HashMap<>();
+
+    @Override
+    public synchronized boolean acquire(String jobName, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+        JobLease lease = leases.get(jobName);
+        if (lease != null && !lease.getOwner().equals(owner) && !lease.getExpiresAt().isBefore(now)) {
+            return false;
+        }
+        leases.put(jobName, new JobLease(jobName, owner, expiresAt));
+        return true;
+    }
+
+    @Override
+    public synchronized void release(String jobName, String owner, LocalDateTime now) {
+        JobLease lease = leases.get(jobName);
+        if (lease != null && lease.getOwner().equals(owner)) {
+            lease.setExpiresAt(now);
+        }
+    }
+}
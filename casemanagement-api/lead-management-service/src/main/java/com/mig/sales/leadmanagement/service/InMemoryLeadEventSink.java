@@ -0,0 +1,34 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps relayed events in memory, for tests and local runs (lead.outbox.sink=memory)
+ */
+@Component
+@ConditionalOnProperty(name = "lead.outbox.sink", havingValue = "memory")
+public class InMemoryLeadEventSink implements LeadEventSink {
+
+    private final List<LeadOutboxEvent> events = new ArrayList<>();
+
+    @Override
+    public synchronized void publish(List<LeadOutboxEvent> batch) {
+        events.addAll(batch);
+    }
+
+    /**
+     * @return copy of every event delivered so far, in delivery order
+     */
+    public synchronized List<LeadOutboxEvent> getEvents() {
+        return new ArrayList<>(events);
+    }
+
+    public synchronized void clear() {
+        events.clear();
+    }
+}
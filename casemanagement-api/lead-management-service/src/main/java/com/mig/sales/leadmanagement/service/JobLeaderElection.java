@@ -0,0 +1,172 @@
+package com.mig.sales.leadmanagement.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects one node per scheduled job through leases in a {@link JobLeaseStore}.
+ *
+ * A node asks for a job's lease the first time it runs the job and renews every lease it
+ * knows of on a fixed delay well inside the lease time-to-live. The node holding a lease
+ * runs the job; the others skip it. A node that dies stops renewing, and once its lease
+ * expires the next renewal on another node takes the job over. A node that shuts down
+ * releases its leases so the takeover is immediate. A node counts itself leader only for
+ * three quarters of the lease after a successful renewal, so a node that cannot reach the
+ * store stops running jobs before another node may start them. Node clocks are assumed to
+ * agree to well within that margin.
+ *
+ * Leases are renewed on a thread of their own rather than the shared scheduler, so a long
+ * job run cannot delay the renewal of its own lease. Jobs that run in several transactions
+ * should still check {@link #isLeader} between them and stop once it turns false.
+ */
+@Service
+public class JobLeaderElection {
+
+    private static final Logger log = LoggerFactory.getLogger(JobLeaderElection.class);
+
+    @Autowired
+    private JobLeaseStore jobLeaseStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${lead.jobs.lease-ttl-ms:30000}")
+    private long leaseTtlMillis = 30000;
+
+    @Value("${lead.jobs.lease-renew-ms:10000}")
+    private long leaseRenewMillis = 10000;
+
+    private ScheduledExecutorService renewer;
+
+    private final String owner = hostName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    /** Source of the current time; replaced in tests */
+    Clock clock = Clock.systemDefaultZone();
+
+    private final Set<String> jobs = ConcurrentHashMap.newKeySet();
+
+    /** Jobs this node leads, with the time it stops counting itself leader unless renewed */
+    private final Map<String, LocalDateTime> leaderUntil = new ConcurrentHashMap<>();
+
+    /**
+     * @param jobName job name; asks for its lease the first time
+     * @return true if this node should run the job now
+     */
+    public boolean isLeader(String jobName) {
+        if (jobs.add(jobName)) {
+            Gauge.builder("lead.jobs.leader", this, election -> election.holds(jobName) ? 1 : 0)
+                    .tag("job", jobName).description("1 on the node running the job").register(meterRegistry);
+            renew(jobName);
+        }
+        return holds(jobName);
+    }
+
+    @PostConstruct
+    void startRenewing() {
+        renewer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "job-lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        renewer.scheduleWithFixedDelay(this::renewLeases, leaseRenewMillis, leaseRenewMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renew the leases this node holds and take over expired ones
+     */
+    public void renewLeases() {
+        for (String jobName : jobs) {
+            renew(jobName);
+        }
+    }
+
+    /**
+     * Give up every lease this node holds, so other nodes take its jobs over at once
+     */
+    @PreDestroy
+    public void releaseLeases() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        for (String jobName : leaderUntil.keySet()) {
+            leaderUntil.remove(jobName);
+            try {
+                jobLeaseStore.release(jobName, owner, now);
+            } catch (RuntimeException e) {
+                log.warn("Could not release the lease on job {}; it expires on its own", jobName, e);
+            }
+        }
+    }
+
+    /**
+     * @return this node's name in the lease store
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return names of the jobs this node currently runs
+     */
+    public Set<String> getLeaderJobs() {
+        Set<String> held = new TreeSet<>();
+        for (String jobName : leaderUntil.keySet()) {
+            if (holds(jobName)) {
+                held.add(jobName);
+            }
+        }
+        return held;
+    }
+
+    private boolean holds(String jobName) {
+        LocalDateTime until = leaderUntil.get(jobName);
+        return until != null && LocalDateTime.now(clock).isBefore(until);
+    }
+
+    private void renew(String jobName) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        boolean held;
+        try {
+            held = jobLeaseStore.acquire(jobName, owner, now, now.plusNanos(leaseTtlMillis * 1_000_000));
+        } catch (RuntimeException e) {
+            log.warn("Could not renew the lease on job {}", jobName, e);
+            held = false;
+        }
+        if (held) {
+            if (leaderUntil.put(jobName, now.plusNanos(leaseTtlMillis * 750_000)) == null) {
+                log.info("Node {} now runs job {}", owner, jobName);
+            }
+        } else if (leaderUntil.remove(jobName) != null) {
+            log.info("Node {} no longer runs job {}", owner, jobName);
+        }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.mig.sales.leadmanagement.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Shared record of which node holds each scheduled job's lease, selected with lead.jobs.lease-store
+ */
+public interface JobLeaseStore {
+
+    /**
+     * Take or renew a lease, atomically with respect to other nodes
+     * @param jobName job name
+     * @param owner node asking for the lease
+     * @param now current time; a lease that expired before it may be taken over
+     * @param expiresAt expiry of the lease if granted
+     * @return true if the owner holds the lease until expiresAt
+     */
+    boolean acquire(String jobName, String owner, LocalDateTime now, LocalDateTime expiresAt);
+
+    /**
+     * Give up a lease, if the owner holds it
+     * @param jobName job name
+     * @param owner node holding the lease
+     * @param now current time
+     */
+    void release(String jobName, String owner, LocalDateTime now);
+}
@@ -0,0 +1,184 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental feed of lead changes, read from the outbox written by {@link LeadOutbox}.
+ *
+ * The watermark is an outbox event ID, so a page is a range scan of the outbox primary
+ * key and costs the same however many leads there are. Deleted leads come back as
+ * tombstones from their DELETED events, which are kept for lead.outbox.retention-days.
+ *
+ * Event IDs are drawn just before commit, so a lower ID can become visible shortly after a
+ * higher one. Pages stop before the first event younger than the settle window, which keeps
+ * the watermark from passing an event whose transaction has not committed yet.
+ */
+@Service
+@Transactional(readOnly = true)
+public class LeadChangeFeed {
+
+    @Autowired
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Value("${lead.changes.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Minimum age of an event before the watermark may pass it; must exceed the time between drawing
+     * event IDs and committing
+     */
+    @Value("${lead.changes.settle-ms:5000}")
+    private long settleMillis = 5000;
+
+    /**
+     * @return true if the feed is recording changes
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the leads changed after a watermark.
+     * Without a watermark, returns no changes and the watermark to start from: take it before
+     * loading the full lead list, then poll from it.
+     * @param since watermark returned by the previous call, or null to start
+     * @param limit maximum number of change events to read
+     * @return the changed leads, one entry per lead, and the next watermark
+     * @throws BusinessException if the feed is disabled, or if events after the watermark have been
+     *         purged and the client must reload the full list
+     */
+    public ChangesPage getChanges(Long since, int limit) {
+        if (!enabled) {
+            throw new BusinessException("The lead change feed is disabled");
+        }
+        LocalDateTime settled = LocalDateTime.now().minusNanos(settleMillis * 1_000_000);
+        if (since == null) {
+            return new ChangesPage(new ArrayList<>(), startingWatermark(limit, settled), false);
+        }
+        if (since < 0) {
+            throw new BusinessException("Watermark must not be negative");
+        }
+
+        List<LeadOutboxEvent> events = leadOutboxRepository.findAfter(since, PageRequest.of(0, limit + 1));
+        if (!events.isEmpty() && since > 0 && events.get(0).getId() > since + 1) {
+            Long oldest = leadOutboxRepository.findMinId();
+            if (oldest != null && oldest > since + 1) {
+                throw new BusinessException("Changes after watermark " + since
+                        + " are no longer retained; reload the leads and start again without a watermark");
+            }
+        }
+        boolean hasMore = events.size() > limit;
+        int end = Math.min(events.size(), limit);
+        for (int i = 0; i < end; i++) {
+            if (!events.get(i).getCreatedDate().isBefore(settled)) {
+                end = i;
+                hasMore = false;
+                break;
+            }
+        }
+        events = events.subList(0, end);
+
+        // Keep each lead's last event, in the order of those events
+        Map<Long, LeadOutboxEvent> lastEvents = new LinkedHashMap<>();
+        for (LeadOutboxEvent event : events) {
+            lastEvents.remove(event.getLeadId());
+            lastEvents.put(event.getLeadId(), event);
+        }
+        List<Long> liveIds = new ArrayList<>();
+        for (LeadOutboxEvent event : lastEvents.values()) {
+            if (!LeadOutbox.DELETED.equals(event.getEventType())) {
+                liveIds.add(event.getLeadId());
+            }
+        }
+        Map<Long, Lead> leads = new HashMap<>();
+        for (int from = 0; from < liveIds.size(); from += LeadService.IN_LIST_CHUNK_SIZE) {
+            List<Long> chunk = liveIds.subList(from, Math.min(from + LeadService.IN_LIST_CHUNK_SIZE, liveIds.size()));
+            for (Lead lead : leadRepository.findAllWithAssigneeById(chunk)) {
+                leads.put(lead.getId(), lead);
+            }
+        }
+
+        List<LeadChange> changes = new ArrayList<>(lastEvents.size());
+        for (LeadOutboxEvent event : lastEvents.values()) {
+            // A lead missing here was deleted by a later event the next page will bring
+            changes.add(new LeadChange(event.getLeadId(), event.getId(), event.getEventType(),
+                    leads.get(event.getLeadId())));
+        }
+        long watermark = events.isEmpty() ? since : events.get(events.size() - 1).getId();
+        return new ChangesPage(changes, watermark, hasMore);
+    }
+
+    /**
+     * Newest watermark that no uncommitted event can fall behind, found by reading the latest events backwards
+     */
+    private long startingWatermark(int limit, LocalDateTime settled) {
+        List<LeadOutboxEvent> latest = leadOutboxRepository.findLatest(PageRequest.of(0, limit));
+        for (LeadOutboxEvent event : latest) {
+            if (event.getCreatedDate().isBefore(settled)) {
+                return event.getId();
+            }
+        }
+        return latest.isEmpty() ? 0L : latest.get(latest.size() - 1).getId() - 1;
+    }
+
+    /**
+     * Page of changes
+     */
+    public static class ChangesPage {
+        private final List<LeadChange> changes;
+        private final long watermark;
+        private final boolean hasMore;
+
+        public ChangesPage(List<LeadChange> changes, long watermark, boolean hasMore) {
+            this.changes = changes;
+            this.watermark = watermark;
+            this.hasMore = hasMore;
+        }
+
+        public List<LeadChange> getChanges() { return changes; }
+        public long getWatermark() { return watermark; }
+        public boolean isHasMore() { return hasMore; }
+    }
+
+    /**
+     * Latest change to one lead; the lead is null for a tombstone
+     */
+    public static class LeadChange {
+        private final Long leadId;
+        private final Long eventId;
+        private final String eventType;
+        private final Lead lead;
+
+        public LeadChange(Long leadId, Long eventId, String eventType, Lead lead) {
+            this.leadId = leadId;
+            this.eventId = eventId;
+            this.eventType = eventType;
+            this.lead = lead;
+        }
+
+        public Long getLeadId() { return leadId; }
+        public Long getEventId() { return eventId; }
+        public String getEventType() { return eventType; }
+        public Lead getLead() { return lead; }
+        public boolean isDeleted() { return lead == null; }
+    }
+}
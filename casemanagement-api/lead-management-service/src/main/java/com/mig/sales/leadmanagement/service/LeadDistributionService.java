@@ -1,14 +1,32 @@
 package com.mig.sales.leadmanagement.service;
 
+import com.mig.sales.leadmanagement.entity.DistributionCursor;
 import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadHistory;
 import com.mig.sales.leadmanagement.entity.User;
 import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.exception.ResourceNotFoundException;
+import com.mig.sales.leadmanagement.exception.UnauthorizedException;
+import com.mig.sales.leadmanagement.repository.DistributionCursorRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service for lead distribution operations
@@ -17,6 +35,18 @@ import java.util.List;
 @Transactional
 public class LeadDistributionService {
 
+    private static final Logger log = LoggerFactory.getLogger(LeadDistributionService.class);
+
+    /**
+     * Number of NEW leads read per page while looking for one a claiming rep is eligible for
+     */
+    static final int CLAIM_PAGE_SIZE = 100;
+
+    /**
+     * Name of the persistent cursor used by {@link #distributeLeads()}
+     */
+    static final String ROUND_ROBIN_CURSOR = "round-robin";
+
     @Autowired
     private LeadService leadService;
 
@@ -26,12 +56,23 @@ public class LeadDistributionService {
     @Autowired
     private LeadHistoryService leadHistoryService;
 
+    @Autowired
+    private DistributionCursorRepository distributionCursorRepository;
+
     /**
-     * Distribute new leads to sales team using round-robin algorithm
+     * Distribute new leads to sales team using round-robin algorithm.
+     * The rotation resumes after the rep who received the previous lead, across calls
+     * and nodes, so frequent small runs do not favour the first reps in the list.
+     * Reps are rotated in user ID order; reps added or removed since the last run
+     * simply join or leave the cycle at their ID.
      * @return number of leads distributed
      */
     @CacheEvict(value = "leads", allEntries = true)
     public int distributeLeads() {
+        // Lock the shared cursor first so concurrent runs take turns
+        DistributionCursor cursor = distributionCursorRepository.lockByName(ROUND_ROBIN_CURSOR)
+                .orElseGet(() -> new DistributionCursor(ROUND_ROBIN_CURSOR));
+
         // Get all new leads
         List<Lead> newLeads = leadService.findNewLeadsForDistribution();
         
@@ -39,87 +80,187 @@ public class LeadDistributionService {
             return 0;
         }
 
-        // Get all active sales persons
-        List<User> salesPersons = userService.findActiveSalesPersons();
+        // Get all active sales persons, in rotation order
+        List<User> salesPersons = new ArrayList<>(userService.findActiveSalesPersons());
         
         if (salesPersons.isEmpty()) {
             throw new BusinessException("No active sales persons found for lead distribution");
         }
+        salesPersons.sort(Comparator.comparing(User::getId));
 
         // Distribute leads using round-robin algorithm
-        int salesPersonIndex = 0;
-        int distributedCount = 0;
-        
+        int salesPersonIndex = rotationStart(salesPersons, cursor.getLastUserId());
+        Map<Long, List<Lead>> plan = new LinkedHashMap<>();
+        User assignedUser = null;
         for (Lead lead : newLeads) {
-            User assignedUser = salesPersons.get(salesPersonIndex % salesPersons.size());
-            
-            // Assign lead to user
-            lead.setAssignedTo(assignedUser);
-            lead.setStatus("ASSIGNED");
-            leadService.updateLead(lead);
-            
-            // Log distribution activity
-            leadHistoryService.logActivity(lead, assignedUser, 
-                    "Lead distributed to " + assignedUser.getUsername(), 
-                    "Distributed", "SYSTEM", "NEW", "ASSIGNED");
-            
+            assignedUser = salesPersons.get(salesPersonIndex % salesPersons.size());
+            plan.computeIfAbsent(assignedUser.getId(), id -> new ArrayList<>()).add(lead);
             salesPersonIndex++;
-            distributedCount++;
         }
 
+        Map<Long, User> usersById = salesPersons.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        int distributedCount = applyAssignments(plan, usersById, "Lead distributed to ", "Distributed", "SYSTEM").size();
+
+        // Advance the cursor once for the whole run
+        cursor.setLastUserId(assignedUser.getId());
+        cursor.setAssignedCount(cursor.getAssignedCount() + distributedCount);
+        cursor.setUpdatedDate(LocalDateTime.now());
+        distributionCursorRepository.save(cursor);
+
         return distributedCount;
     }
 
+    /**
+     * Find where a rotation resumes
+     * @param salesPersons reps sorted by user ID
+     * @param lastUserId user who received the previous lead, or null for a fresh rotation
+     * @return index of the first rep with a higher user ID, wrapping to 0
+     */
+    static int rotationStart(List<User> salesPersons, Long lastUserId) {
+        if (lastUserId == null) {
+            return 0;
+        }
+        int low = 0;
+        int high = salesPersons.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (salesPersons.get(mid).getId() <= lastUserId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low == salesPersons.size() ? 0 : low;
+    }
+
+    /**
+     * Distribute new leads using territory and industry routing rules
+     * Each lead goes to the least-loaded rep whose territories and industries match
+     * the lead's location and industry; see {@link LeadRoutingIndex}.
+     * @return number of leads distributed
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public int distributeLeadsByRules() {
+        List<Lead> newLeads = leadService.findNewLeadsForDistribution();
+
+        if (newLeads.isEmpty()) {
+            return 0;
+        }
+
+        List<User> salesPersons = userService.findActiveSalesPersons();
+
+        if (salesPersons.isEmpty()) {
+            throw new BusinessException("No active sales persons found for lead distribution");
+        }
+
+        LeadRoutingIndex index = LeadRoutingIndex.build(salesPersons, leadService.countOpenLeadsByAssignee());
+        Map<Long, List<Lead>> plan = new LinkedHashMap<>();
+        for (Lead lead : newLeads) {
+            int rep = index.route(lead.getLocation(), lead.getIndustry());
+            plan.computeIfAbsent(index.repIdAt(rep), id -> new ArrayList<>()).add(lead);
+        }
+
+        Map<Long, User> usersById = salesPersons.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return applyAssignments(plan, usersById, "Lead routed to ", "Routed", "SYSTEM").size();
+    }
+
     /**
      * Distribute specific leads to specific users
+     * Leads and users are loaded with IN-list queries, validated in memory and
+     * assigned with one batched UPDATE per target user.
      * @param leadIds list of lead IDs to distribute
      * @param userIds list of user IDs to distribute to
-     * @return number of leads distributed
+     * @return per-lead distribution outcome
+     * @throws ResourceNotFoundException if any of the users does not exist
      */
     @CacheEvict(value = "leads", allEntries = true)
-    public int distributeSpecificLeads(List<Long> leadIds, List<Long> userIds) {
+    public DistributionResult distributeSpecificLeads(List<Long> leadIds, List<Long> userIds) {
+        DistributionResult result = new DistributionResult();
         if (leadIds.isEmpty() || userIds.isEmpty()) {
-            return 0;
+            return result;
         }
 
-        // Get users
-        List<User> users = userIds.stream()
-                .map(userService::findById)
-                .toList();
+        // Get users, preserving the requested rotation order
+        Map<Long, User> usersById = userService.findAllByIds(new LinkedHashSet<>(userIds)).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        List<Long> missingUsers = userIds.stream().filter(id -> !usersById.containsKey(id)).distinct().toList();
+        if (!missingUsers.isEmpty()) {
+            throw new ResourceNotFoundException("Users not found with ids: " + missingUsers);
+        }
+        List<User> users = userIds.stream().map(usersById::get).toList();
 
-        int distributedCount = 0;
-        int userIndex = 0;
+        // Get leads
+        Set<Long> requestedLeadIds = new LinkedHashSet<>(leadIds);
+        Map<Long, Lead> leadsById = leadService.findAllByIds(requestedLeadIds).stream()
+                .collect(Collectors.toMap(Lead::getId, Function.identity()));
 
-        for (Long leadId : leadIds) {
-            try {
-                Lead lead = leadService.findById(leadId);
-                
-                if (!"NEW".equals(lead.getStatus())) {
-                    continue; // Skip leads that are not new
-                }
+        // Plan assignments in memory
+        Map<Long, List<Lead>> plan = new LinkedHashMap<>();
+        int userIndex = 0;
+        for (Long leadId : requestedLeadIds) {
+            Lead lead = leadsById.get(leadId);
+            if (lead == null) {
+                result.notFound.add(leadId);
+                continue;
+            }
+            if (!"NEW".equals(lead.getStatus())) {
+                result.skippedNotNew.add(leadId);
+                continue;
+            }
+            User assignedUser = users.get(userIndex % users.size());
+            plan.computeIfAbsent(assignedUser.getId(), id -> new ArrayList<>()).add(lead);
+            userIndex++;
+        }
 
-                User assignedUser = users.get(userIndex % users.size());
-                
-                // Assign lead to user
-                lead.setAssignedTo(assignedUser);
-                lead.setStatus("ASSIGNED");
-                leadService.updateLead(lead);
-                
-                // Log distribution activity
-                leadHistoryService.logActivity(lead, assignedUser, 
-                        "Lead manually distributed to " + assignedUser.getUsername(), 
-                        "Manually Distributed", "USER_ACTION", "NEW", "ASSIGNED");
-                
-                userIndex++;
-                distributedCount++;
-                
-            } catch (Exception e) {
-                // Log error but continue with other leads
-                System.err.println("Error distributing lead " + leadId + ": " + e.getMessage());
+        // Apply assignments and log history in batches; leads that left NEW meanwhile are skipped
+        Map<Long, Long> assigned = applyAssignments(plan, usersById,
+                "Lead manually distributed to ", "Manually Distributed", "USER_ACTION");
+        for (Long leadId : requestedLeadIds) {
+            if (assigned.containsKey(leadId)) {
+                result.assigned.put(leadId, assigned.get(leadId));
+            } else if (leadsById.containsKey(leadId) && "NEW".equals(leadsById.get(leadId).getStatus())) {
+                result.skippedNotNew.add(leadId);
             }
         }
 
-        return distributedCount;
+        return result;
+    }
+
+    /**
+     * Claim the highest-scoring unassigned NEW lead the sales person is eligible for.
+     * Candidates are read page by page without locks until one matches the rep's territory
+     * and industry tags, as in {@link #distributeLeadsByRules()}; only that lead is then
+     * locked, with SKIP LOCKED, so concurrent claimers each get a different lead without
+     * waiting on one another. A candidate taken meanwhile is passed over for the next one.
+     * @param salesPerson the claiming sales person
+     * @return claimed lead, or empty if no eligible lead is available
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public Optional<Lead> claimNextLead(User salesPerson) {
+        if (!"SALES_PERSON".equals(salesPerson.getRole())) {
+            throw new UnauthorizedException("Only sales persons can claim leads");
+        }
+
+        LeadRoutingIndex eligibility = LeadRoutingIndex.build(List.of(salesPerson), Map.of());
+        Set<String> industries = LeadRoutingIndex.parseTags(salesPerson.getIndustries());
+        Object[] after = null;
+        List<Object[]> page;
+        do {
+            page = leadService.findClaimCandidates(industries, after, CLAIM_PAGE_SIZE);
+            for (Object[] candidate : page) {
+                if (!eligibility.isEligible(0, (String) candidate[3], (String) candidate[4])) {
+                    continue;
+                }
+                Optional<Lead> locked = leadService.lockClaimable((Long) candidate[0]);
+                if (locked.isPresent()) {
+                    return Optional.of(leadService.assignLeadToUser(locked.get().getId(), salesPerson));
+                }
+            }
+            after = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == CLAIM_PAGE_SIZE);
+        return Optional.empty();
     }
 
     /**
@@ -135,10 +276,8 @@ public class LeadDistributionService {
         User newUser = userService.findById(newUserId);
         
         User oldUser = lead.getAssignedTo();
-        lead.setAssignedTo(newUser);
-        lead.setUpdatedDate(java.time.LocalDateTime.now());
         
-        Lead updatedLead = leadService.updateLead(lead);
+        Lead updatedLead = leadService.reassignLead(leadId, newUser);
         
         // Log reassignment
         leadHistoryService.logActivity(updatedLead, currentUser, 
@@ -149,6 +288,41 @@ public class LeadDistributionService {
         return updatedLead;
     }
 
+    /**
+     * Apply planned NEW-to-ASSIGNED transitions with one batched UPDATE per user and log history in one batch.
+     * Leads that left NEW after they were planned are not assigned, and get no history.
+     * @param plan leads to assign, grouped by user ID
+     * @param usersById users referenced by the plan
+     * @param commentPrefix history comment, followed by the username
+     * @param action history action
+     * @param actionType history action type
+     * @return lead ID to user ID of the leads actually assigned
+     */
+    private Map<Long, Long> applyAssignments(Map<Long, List<Lead>> plan, Map<Long, User> usersById,
+                                             String commentPrefix, String action, String actionType) {
+        List<LeadHistory> activities = new ArrayList<>();
+        Map<Long, Long> assigned = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<Lead>> entry : plan.entrySet()) {
+            User assignedUser = usersById.get(entry.getKey());
+            List<Lead> leads = entry.getValue();
+            Set<Long> updated = new HashSet<>(
+                    leadService.assignNewLeads(leads.stream().map(Lead::getId).toList(), assignedUser));
+            if (updated.size() != leads.size()) {
+                log.warn("Expected to assign {} leads to {} but updated {}; some leads changed status concurrently",
+                        leads.size(), assignedUser.getUsername(), updated.size());
+            }
+            for (Lead lead : leads) {
+                if (updated.contains(lead.getId())) {
+                    activities.add(leadHistoryService.newActivity(lead, assignedUser,
+                            commentPrefix + assignedUser.getUsername(), action, actionType, "NEW", "ASSIGNED"));
+                    assigned.put(lead.getId(), assignedUser.getId());
+                }
+            }
+        }
+        leadHistoryService.logActivities(activities);
+        return assigned;
+    }
+
     /**
      * Get distribution statistics
      * @return distribution statistics
@@ -187,5 +361,19 @@ public class LeadDistributionService {
         public long getAssignedLeadsCount() { return assignedLeadsCount; }
         public long getTotalLeadsCount() { return totalLeadsCount; }
     }
-}
 
+    /**
+     * Per-lead outcome of a manual distribution
+     */
+    public static class DistributionResult {
+        private final Map<Long, Long> assigned = new LinkedHashMap<>();
+        private final List<Long> skippedNotNew = new ArrayList<>();
+        private final List<Long> notFound = new ArrayList<>();
+
+        /** Lead ID to assigned user ID, in request order */
+        public Map<Long, Long> getAssigned() { return assigned; }
+        public List<Long> getSkippedNotNew() { return skippedNotNew; }
+        public List<Long> getNotFound() { return notFound; }
+        public int getAssignedCount() { return assigned.size(); }
+    }
+}
@@ -0,0 +1,49 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Destination for lead change events relayed from the outbox, selected with lead.outbox.sink
+ */
+public interface LeadEventSink {
+
+    /** Serializes events as JSON with ISO-8601 timestamps */
+    ObjectMapper EVENT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    /**
+     * Deliver a batch of events. Returning normally means every event was delivered;
+     * on an exception the whole batch is delivered again later, so sinks must tolerate repeats.
+     * @param events events in ID order
+     * @throws RuntimeException if the batch could not be delivered
+     */
+    void publish(List<LeadOutboxEvent> events);
+
+    /**
+     * @return delivery time of the oldest delivered event the sink may still resend, so the
+     *         purge keeps it; null if the sink never reads delivered events
+     */
+    default LocalDateTime oldestRetainedPublishedDate() {
+        return null;
+    }
+
+    /**
+     * @param value event or batch of events
+     * @return JSON text
+     */
+    static String toJson(Object value) {
+        try {
+            return EVENT_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize lead events", e);
+        }
+    }
+}
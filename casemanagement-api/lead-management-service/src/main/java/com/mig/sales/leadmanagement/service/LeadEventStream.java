@@ -0,0 +1,465 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes lead change events and distribution stats to Server-Sent Events subscribers.
+ *
+ * One scheduled poller tails the outbox written by {@link LeadOutbox}, so every node streams
+ * every node's changes. Each event is serialized into an SSE frame once and the same frame
+ * is queued for every subscriber whose filter matches it. Sales managers see every lead;
+ * other users only see changes to leads assigned to them. Managers may also ask for a
+ * "stats" event: the distribution stats when they subscribe, then the fields that changed,
+ * checked every few seconds.
+ *
+ * Connections are servlet async requests and hold no thread; a small shared pool writes
+ * queued frames, one task per subscriber at a time. A subscriber whose bounded queue fills
+ * up is disconnected. A write the client stops reading blocks its thread until the
+ * connector's write timeout, so a subscriber whose write takes longer than
+ * lead.stream.write-timeout-ms is disconnected as well and the pool gets a thread in place
+ * of the blocked one until the write returns.
+ *
+ * Event IDs are drawn just before commit, so the poller keeps reading past an ID gap until
+ * the event after it is older than the settle window, and never sends an event twice.
+ */
+@Service
+public class LeadEventStream {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadEventStream.class);
+
+    /** Frames written per send task before the subscriber goes to the back of the pool's queue */
+    private static final int FRAMES_PER_TASK = 64;
+
+    private static final Set<ResponseBodyEmitter.DataWithMediaType> HEARTBEAT =
+            SseEmitter.event().comment("keepalive").build();
+
+    @Autowired
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Autowired
+    private LeadDistributionService leadDistributionService;
+
+    @Value("${lead.changes.enabled:false}")
+    private boolean enabled;
+
+    @Value("${lead.changes.settle-ms:5000}")
+    private long settleMillis = 5000;
+
+    /** Frames queued per subscriber before it is disconnected */
+    @Value("${lead.stream.buffer-size:256}")
+    private int bufferSize = 256;
+
+    @Value("${lead.stream.max-subscribers:1000}")
+    private int maxSubscribers = 1000;
+
+    /** Connection lifetime; clients reconnect after it */
+    @Value("${lead.stream.timeout-ms:1800000}")
+    private long timeoutMillis = 1800000;
+
+    @Value("${lead.stream.send-threads:4}")
+    private int sendThreads = 4;
+
+    @Value("${lead.stream.poll-batch-size:500}")
+    private int pollBatchSize = 500;
+
+    /** Time one frame's write may take before the subscriber is disconnected */
+    @Value("${lead.stream.write-timeout-ms:5000}")
+    private long writeTimeoutMillis = 5000;
+
+    /** Threads added to the send pool in place of threads blocked in a timed-out write */
+    @Value("${lead.stream.max-blocked-writers:16}")
+    private int maxBlockedWriters = 16;
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong nextSubscriberId = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private ThreadPoolExecutor sendPool;
+    private int blockedWriters;
+
+    /** Guards lastStats, so a new subscriber's snapshot is queued before any change to it */
+    private final Object statsLock = new Object();
+    /** Stats last sent; null while nobody subscribes to them */
+    private LeadDistributionService.DistributionStats lastStats;
+
+    // Tail position, touched only by the poller
+    /** Every event up to here was streamed or skipped for good; null until the first poll */
+    private Long watermark;
+    /** Events above the watermark already streamed, with their creation times */
+    private final TreeMap<Long, LocalDateTime> streamedAboveWatermark = new TreeMap<>();
+
+    @PostConstruct
+    void startSendPool() {
+        sendPool = new ThreadPoolExecutor(sendThreads, sendThreads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    }
+
+    @PreDestroy
+    void stopSendPool() {
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.close();
+        }
+        sendPool.shutdownNow();
+    }
+
+    /**
+     * Open a stream of the lead changes matching a filter, starting with the next change.
+     * Users other than sales managers only receive changes to their own leads and no stats.
+     * @param user the subscribing user
+     * @param requested which changes to send
+     * @return emitter to return from the controller
+     * @throws BusinessException if the change feed is disabled or the subscriber limit is reached
+     */
+    public SseEmitter subscribe(User user, Filter requested) {
+        if (!enabled) {
+            throw new BusinessException("The lead change feed is disabled");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            throw new BusinessException("Too many lead stream subscribers; try again later");
+        }
+        Filter filter = ManagerLoadIndex.MANAGER_ROLE.equals(user.getRole()) ? requested
+                : new Filter(requested.eventTypes, requested.statuses, user.getId(), false);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Long id = nextSubscriberId.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, emitter, filter);
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        synchronized (statsLock) {
+            subscribers.put(id, subscriber);
+            if (filter.stats && lastStats != null) {
+                subscriber.offer(statsFrame(statsDelta(null, lastStats)));
+            }
+        }
+        return emitter;
+    }
+
+    /**
+     * Read new outbox events and queue them for the subscribers they match
+     */
+    @Scheduled(fixedDelayString = "${lead.stream.poll-ms:250}")
+    public void poll() {
+        if (!enabled) {
+            return;
+        }
+        if (watermark == null) {
+            List<LeadOutboxEvent> latest = leadOutboxRepository.findLatest(PageRequest.of(0, 1));
+            watermark = latest.isEmpty() ? 0L : latest.get(0).getId();
+            return;
+        }
+        List<LeadOutboxEvent> fresh = new ArrayList<>();
+        for (LeadOutboxEvent event : leadOutboxRepository.findAfter(watermark, PageRequest.of(0, pollBatchSize))) {
+            if (streamedAboveWatermark.putIfAbsent(event.getId(), event.getCreatedDate()) == null) {
+                fresh.add(event);
+            }
+        }
+        publish(fresh);
+
+        // Move past streamed events, and past gaps whose next event is too old for the gap to fill
+        LocalDateTime settled = LocalDateTime.now().minusNanos(settleMillis * 1_000_000);
+        while (!streamedAboveWatermark.isEmpty()) {
+            Map.Entry<Long, LocalDateTime> first = streamedAboveWatermark.firstEntry();
+            if (first.getKey() != watermark + 1 && !first.getValue().isBefore(settled)) {
+                break;
+            }
+            watermark = first.getKey();
+            streamedAboveWatermark.pollFirstEntry();
+        }
+    }
+
+    /**
+     * Send a comment to every subscriber so idle connections stay open and dead ones are noticed
+     */
+    @Scheduled(fixedDelayString = "${lead.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.offer(HEARTBEAT);
+        }
+    }
+
+    /**
+     * Send the distribution stats fields that changed since the last check to stats subscribers
+     */
+    @Scheduled(fixedDelayString = "${lead.stream.stats-ms:5000}")
+    public void pushStats() {
+        if (!enabled) {
+            return;
+        }
+        if (subscribers.values().stream().noneMatch(subscriber -> subscriber.filter.stats)) {
+            synchronized (statsLock) {
+                lastStats = null;
+            }
+            return;
+        }
+        LeadDistributionService.DistributionStats stats = leadDistributionService.getDistributionStats();
+        synchronized (statsLock) {
+            Map<String, Object> delta = statsDelta(lastStats, stats);
+            lastStats = stats;
+            if (delta.isEmpty()) {
+                return;
+            }
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = statsFrame(delta);
+            for (Subscriber subscriber : subscribers.values()) {
+                if (subscriber.filter.stats) {
+                    subscriber.offer(frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * Disconnect subscribers whose current write has taken longer than the write timeout
+     */
+    @Scheduled(fixedDelayString = "${lead.stream.write-check-ms:1000}")
+    public void disconnectBlockedWriters() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.markBlocked(now)) {
+                evictedCount.incrementAndGet();
+                log.info("Disconnecting lead stream subscriber {}: write blocked for over {} ms",
+                        subscriber.id, writeTimeoutMillis);
+                subscriber.close();
+            }
+        }
+    }
+
+    /**
+     * @return number of open streams
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * @return number of streams disconnected for falling behind or blocking a write
+     */
+    public long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    /**
+     * Serialize each event once and queue it for every matching subscriber
+     * @param events events in ID order
+     */
+    void publish(List<LeadOutboxEvent> events) {
+        if (events.isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+        for (LeadOutboxEvent event : events) {
+            Set<ResponseBodyEmitter.DataWithMediaType> frame = null;
+            for (Subscriber subscriber : subscribers.values()) {
+                if (subscriber.filter.matches(event)) {
+                    if (frame == null) {
+                        frame = SseEmitter.event()
+                                .id(String.valueOf(event.getId()))
+                                .name(event.getEventType())
+                                .data(LeadEventSink.toJson(event))
+                                .build();
+                    }
+                    subscriber.offer(frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param previous stats last sent, or null for a full snapshot
+     * @param current stats now
+     * @return the fields of current that differ from previous, by name
+     */
+    static Map<String, Object> statsDelta(LeadDistributionService.DistributionStats previous,
+                                          LeadDistributionService.DistributionStats current) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+        if (previous == null || previous.getActiveSalesPersons() != current.getActiveSalesPersons()) {
+            delta.put("activeSalesPersons", current.getActiveSalesPersons());
+        }
+        if (previous == null || previous.getNewLeadsCount() != current.getNewLeadsCount()) {
+            delta.put("newLeadsCount", current.getNewLeadsCount());
+        }
+        if (previous == null || previous.getAssignedLeadsCount() != current.getAssignedLeadsCount()) {
+            delta.put("assignedLeadsCount", current.getAssignedLeadsCount());
+        }
+        if (previous == null || previous.getTotalLeadsCount() != current.getTotalLeadsCount()) {
+            delta.put("totalLeadsCount", current.getTotalLeadsCount());
+        }
+        return delta;
+    }
+
+    private static Set<ResponseBodyEmitter.DataWithMediaType> statsFrame(Map<String, Object> delta) {
+        return SseEmitter.event().name("stats").data(LeadEventSink.toJson(delta)).build();
+    }
+
+    /**
+     * Resize the send pool so that threads blocked in timed-out writes do not count against it
+     * @param change blocked writers added (positive) or returned (negative)
+     */
+    private synchronized void blockedWritersChanged(int change) {
+        blockedWriters += change;
+        int size = sendThreads + Math.min(blockedWriters, maxBlockedWriters);
+        if (size > sendPool.getMaximumPoolSize()) {
+            sendPool.setMaximumPoolSize(size);
+            sendPool.setCorePoolSize(size);
+        } else {
+            sendPool.setCorePoolSize(size);
+            sendPool.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * Which changes a subscriber receives; an empty set or null matches everything
+     */
+    public static final class Filter {
+        private final Set<String> eventTypes;
+        private final Set<String> statuses;
+        private final Long assignedTo;
+        private final boolean stats;
+
+        /**
+         * @param eventTypes event types to send
+         * @param statuses statuses to send changes into; changes that leave the status as it was are not sent
+         * @param assignedTo only send changes that leave the lead assigned to this user
+         * @param stats whether to also send distribution stats
+         */
+        public Filter(Collection<String> eventTypes, Collection<String> statuses, Long assignedTo, boolean stats) {
+            this.eventTypes = eventTypes != null ? Set.copyOf(eventTypes) : Set.of();
+            this.statuses = statuses != null ? Set.copyOf(statuses) : Set.of();
+            this.assignedTo = assignedTo;
+            this.stats = stats;
+        }
+
+        boolean matches(LeadOutboxEvent event) {
+            return (eventTypes.isEmpty() || eventTypes.contains(event.getEventType()))
+                    && (statuses.isEmpty() || statuses.contains(event.getStatus()))
+                    && (assignedTo == null || assignedTo.equals(event.getAssignedTo()));
+        }
+    }
+
+    /**
+     * One open stream: its bounded queue of frames and at most one send task at a time
+     */
+    private final class Subscriber {
+        private final Long id;
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+        /** When the write in progress started, or 0 between writes */
+        private volatile long writeStartedNanos;
+        /** Whether the write in progress timed out and a thread was added in place of its own */
+        private boolean blocked;
+
+        Subscriber(Long id, SseEmitter emitter, Filter filter) {
+            this.id = id;
+            this.emitter = emitter;
+            this.filter = filter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                evictedCount.incrementAndGet();
+                log.info("Disconnecting lead stream subscriber {}: {} frames behind", id, bufferSize);
+                close();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                sendPool.execute(this::send);
+            }
+        }
+
+        private void send() {
+            try {
+                for (int i = 0; i < FRAMES_PER_TASK; i++) {
+                    Set<ResponseBodyEmitter.DataWithMediaType> frame = queue.poll();
+                    if (frame == null || closed) {
+                        break;
+                    }
+                    writeStartedNanos = System.nanoTime() | 1;
+                    try {
+                        emitter.send(frame);
+                    } finally {
+                        writeFinished();
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Lead stream subscriber {} went away", id, e);
+                close();
+            } finally {
+                sending.set(false);
+            }
+            if (closed) {
+                // Completes a close that came while the write held the emitter
+                emitter.complete();
+            } else if (!queue.isEmpty() && sending.compareAndSet(false, true)) {
+                // Frames queued while this task was finishing, or more than one task's worth
+                sendPool.execute(this::send);
+            }
+        }
+
+        /**
+         * @return true if the write in progress has just passed the write timeout
+         */
+        synchronized boolean markBlocked(long nowNanos) {
+            long started = writeStartedNanos;
+            if (blocked || started == 0 || nowNanos - started <= writeTimeoutMillis * 1_000_000) {
+                return false;
+            }
+            blocked = true;
+            blockedWritersChanged(1);
+            return true;
+        }
+
+        private synchronized void writeFinished() {
+            writeStartedNanos = 0;
+            if (blocked) {
+                blocked = false;
+                blockedWritersChanged(-1);
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(id);
+            queue.clear();
+            // A write in progress holds the emitter until it returns; its send task completes it then
+            if (writeStartedNanos == 0) {
+                emitter.complete();
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.mig.sales.leadmanagement.service;
 import com.mig.sales.leadmanagement.entity.Lead;
 import com.mig.sales.leadmanagement.entity.LeadHistory;
 import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
 import com.mig.sales.leadmanagement.repository.LeadHistoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -11,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -20,11 +22,19 @@ import java.util.List;
 @Transactional
 public class LeadHistoryService {
 
+    /** Largest page of the cross-lead history queries, which would otherwise read the whole table */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final List<String> OUTCOME_STATUSES = List.of("CONVERTED", "REJECTED");
+
     @Autowired
     private LeadHistoryRepository leadHistoryRepository;
 
+    @Autowired
+    private LeadHistoryWriter leadHistoryWriter;
+
     /**
-     * Log activity for a lead
+     * Log activity for a lead; written when the transaction commits (see {@link LeadHistoryWriter})
      * @param lead the lead
      * @param user the user performing the action
      * @param commentText comment text
@@ -32,10 +42,28 @@ public class LeadHistoryService {
      * @param actionType type of action (SYSTEM, USER_ACTION, WORKFLOW)
      * @param oldStatus previous status
      * @param newStatus new status
-     * @return logged activity
+     * @return logged activity, with its ID set once written
      */
     public LeadHistory logActivity(Lead lead, User user, String commentText, String action, 
                                  String actionType, String oldStatus, String newStatus) {
+        LeadHistory history = newActivity(lead, user, commentText, action, actionType, oldStatus, newStatus);
+        leadHistoryWriter.write(Collections.singletonList(history));
+        return history;
+    }
+
+    /**
+     * Build an unsaved activity record, for use with {@link #logActivities(List)}
+     * @param lead the lead
+     * @param user the user performing the action
+     * @param commentText comment text
+     * @param action action description
+     * @param actionType type of action (SYSTEM, USER_ACTION, WORKFLOW)
+     * @param oldStatus previous status
+     * @param newStatus new status
+     * @return unsaved activity
+     */
+    public LeadHistory newActivity(Lead lead, User user, String commentText, String action,
+                                   String actionType, String oldStatus, String newStatus) {
         LeadHistory history = new LeadHistory();
         history.setLead(lead);
         history.setUser(user);
@@ -45,12 +73,21 @@ public class LeadHistoryService {
         history.setOldStatus(oldStatus);
         history.setNewStatus(newStatus);
         history.setTimestamp(LocalDateTime.now());
-        
-        return leadHistoryRepository.save(history);
+        return history;
     }
 
     /**
-     * Add comment to lead
+     * Log a batch of activities, written with the rest of the transaction's activities in one JDBC batch
+     * @param activities activities built with {@link #newActivity}
+     * @return logged activities, with their IDs set once written
+     */
+    public List<LeadHistory> logActivities(List<LeadHistory> activities) {
+        leadHistoryWriter.write(activities);
+        return activities;
+    }
+
+    /**
+     * Add comment to lead. Saved at once, so the comment is returned with its ID.
      * @param lead the lead
      * @param user the user adding the comment
      * @param commentText comment text
@@ -58,7 +95,7 @@ public class LeadHistoryService {
      * @return logged comment
      */
     public LeadHistory addComment(Lead lead, User user, String commentText, String action) {
-        return logActivity(lead, user, commentText, action, "USER_ACTION", null, null);
+        return leadHistoryRepository.save(newActivity(lead, user, commentText, action, "USER_ACTION", null, null));
     }
 
     /**
@@ -81,12 +118,17 @@ public class LeadHistoryService {
     }
 
     /**
-     * Find lead history by user
+     * Find a page of the history records a user made, across all leads, newest first
      * @param user the user
-     * @return list of lead history records
+     * @param after last record of the previous page, or null for the first page;
+     *              only its timestamp and ID are read
+     * @param size page size, at most {@link #MAX_PAGE_SIZE}
+     * @return lead history records ordered by timestamp and ID, both descending
      */
-    public List<LeadHistory> findByUser(User user) {
-        return leadHistoryRepository.findByUserOrderByTimestampDesc(user);
+    public List<LeadHistory> findByUser(User user, LeadHistory after, int size) {
+        return after == null
+                ? leadHistoryRepository.findLatestByUser(user, page(size))
+                : leadHistoryRepository.findByUserAfter(user, after.getTimestamp(), after.getId(), page(size));
     }
 
     /**
@@ -100,31 +142,49 @@ public class LeadHistoryService {
     }
 
     /**
-     * Find lead history by action
+     * Find a page of the history records with an action, across all leads, newest first
      * @param action the action
-     * @return list of lead history records
+     * @param after last record of the previous page, or null for the first page;
+     *              only its timestamp and ID are read
+     * @param size page size, at most {@link #MAX_PAGE_SIZE}
+     * @return lead history records ordered by timestamp and ID, both descending
      */
-    public List<LeadHistory> findByAction(String action) {
-        return leadHistoryRepository.findByAction(action);
+    public List<LeadHistory> findByAction(String action, LeadHistory after, int size) {
+        return after == null
+                ? leadHistoryRepository.findLatestByAction(action, page(size))
+                : leadHistoryRepository.findByActionAfter(action, after.getTimestamp(), after.getId(), page(size));
     }
 
     /**
-     * Find lead history by action type
+     * Find a page of the history records with an action type, across all leads, newest first
      * @param actionType the action type
-     * @return list of lead history records
+     * @param after last record of the previous page, or null for the first page;
+     *              only its timestamp and ID are read
+     * @param size page size, at most {@link #MAX_PAGE_SIZE}
+     * @return lead history records ordered by timestamp and ID, both descending
      */
-    public List<LeadHistory> findByActionType(String actionType) {
-        return leadHistoryRepository.findByActionType(actionType);
+    public List<LeadHistory> findByActionType(String actionType, LeadHistory after, int size) {
+        return after == null
+                ? leadHistoryRepository.findLatestByActionType(actionType, page(size))
+                : leadHistoryRepository.findByActionTypeAfter(actionType, after.getTimestamp(), after.getId(),
+                        page(size));
     }
 
     /**
-     * Find lead history by date range
-     * @param startDate start date
-     * @param endDate end date
-     * @return list of lead history records within the date range
+     * Find a page of the history records in a date range, across all leads, newest first
+     * @param startDate start date, inclusive
+     * @param endDate end date, inclusive
+     * @param after last record of the previous page, or null for the first page;
+     *              only its timestamp and ID are read
+     * @param size page size, at most {@link #MAX_PAGE_SIZE}
+     * @return lead history records ordered by timestamp and ID, both descending
      */
-    public List<LeadHistory> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return leadHistoryRepository.findByTimestampBetween(startDate, endDate);
+    public List<LeadHistory> findByDateRange(LocalDateTime startDate, LocalDateTime endDate, LeadHistory after,
+                                             int size) {
+        return after == null
+                ? leadHistoryRepository.findLatestInRange(startDate, endDate, page(size))
+                : leadHistoryRepository.findInRangeAfter(startDate, endDate, after.getTimestamp(), after.getId(),
+                        page(size));
     }
 
     /**
@@ -186,5 +246,21 @@ public class LeadHistoryService {
     public List<LeadHistory> findByLeadAndActionType(Lead lead, String actionType) {
         return leadHistoryRepository.findByLeadAndActionType(lead, actionType);
     }
-}
 
+    /**
+     * Read the scoring inputs and latest outcome of the next leads in ID order that were converted or rejected
+     * @param afterLeadId only leads with a higher ID are returned
+     * @param limit maximum number of rows
+     * @return rows of [leadId, potentialValue, leadSource, email, phone, CONVERTED or REJECTED]
+     */
+    public List<Object[]> findOutcomesAfter(Long afterLeadId, int limit) {
+        return leadHistoryRepository.findOutcomesAfter(afterLeadId, OUTCOME_STATUSES, Pageable.ofSize(limit));
+    }
+
+    private static Pageable page(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BusinessException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return Pageable.ofSize(size);
+    }
+}
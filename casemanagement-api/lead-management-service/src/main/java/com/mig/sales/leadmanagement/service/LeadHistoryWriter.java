@@ -0,0 +1,81 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.repository.LeadHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes lead history entries off the per-change path.
+ *
+ * Entries are buffered for the transaction that logs them and inserted together just
+ * before it commits, so a request that logs several entries sends one JDBC batch, and IDs
+ * come from LEAD_HISTORY_SEQ in blocks rather than one round trip per entry. The entries
+ * commit or roll back with the change they record; those of a transaction that rolls back
+ * are never written.
+ */
+@Service
+public class LeadHistoryWriter {
+
+    @Autowired
+    private LeadHistoryRepository leadHistoryRepository;
+
+    /**
+     * Write history entries when the current transaction commits, or at once if there is none
+     * @param activities unsaved entries; IDs are set once they are written
+     */
+    public void write(List<LeadHistory> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            leadHistoryRepository.saveAll(activities);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<LeadHistory> buffer = (List<LeadHistory>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new BufferSynchronization(buffer));
+        }
+        buffer.addAll(activities);
+    }
+
+    /**
+     * Writes one transaction's entries before it commits, and keeps the buffer out of nested transactions
+     */
+    private final class BufferSynchronization implements TransactionSynchronization {
+
+        private final List<LeadHistory> buffer;
+
+        BufferSynchronization(List<LeadHistory> buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(LeadHistoryWriter.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(LeadHistoryWriter.this, buffer);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            leadHistoryRepository.saveAll(buffer);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LeadHistoryWriter.this);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes lead change events to the LEAD_OUTBOX table in the transaction that makes the change.
+ *
+ * Events are buffered for the transaction and inserted just before it commits, after the
+ * lead changes are flushed. The lead's row lock is held by then, so of two transactions
+ * changing the same lead, the one that commits first also draws the lower event ID, and
+ * {@link LeadOutboxRelay} delivering in ID order keeps each lead's events in order. Events
+ * of a transaction that rolls back are never written.
+ *
+ * {@link LeadService} records every lead write, including those made on behalf of
+ * {@link LeadDistributionService} and {@link WorkflowService}. Nothing is written while
+ * neither a sink nor the {@link LeadChangeFeed} is configured.
+ */
+@Service
+public class LeadOutbox {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String STATUS_CHANGED = "STATUS_CHANGED";
+    public static final String ASSIGNED = "ASSIGNED";
+    public static final String REASSIGNED = "REASSIGNED";
+    public static final String SCORED = "SCORED";
+    public static final String DELETED = "DELETED";
+
+    static final String NO_SINK = "none";
+
+    @Autowired
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${lead.outbox.sink:none}")
+    private String sink = NO_SINK;
+
+    @Value("${lead.changes.enabled:false}")
+    private boolean changeFeedEnabled;
+
+    /**
+     * @return true if events are written
+     */
+    public boolean isEnabled() {
+        return !NO_SINK.equals(sink) || changeFeedEnabled;
+    }
+
+    /**
+     * Record a change to one lead
+     * @param lead saved lead, with its new status, assignee and score
+     * @param eventType event type
+     */
+    public void leadChanged(Lead lead, String eventType) {
+        if (isEnabled()) {
+            add(Collections.singletonList(event(lead.getId(), eventType, lead.getStatus(),
+                    lead.getAssignedTo() != null ? lead.getAssignedTo().getId() : null, lead.getLeadScore())));
+        }
+    }
+
+    /**
+     * Record the same change to several leads
+     * @param leadIds IDs of the leads the change was applied to
+     * @param eventType event type
+     * @param status new status, or null if the change kept it
+     * @param assignedTo new assignee ID, or null if the change kept it
+     * @param leadScore new score, or null if the change kept it
+     */
+    public void leadsChanged(Collection<Long> leadIds, String eventType, String status, Long assignedTo,
+                             Integer leadScore) {
+        if (isEnabled() && !leadIds.isEmpty()) {
+            List<LeadOutboxEvent> events = new ArrayList<>(leadIds.size());
+            for (Long leadId : leadIds) {
+                events.add(event(leadId, eventType, status, assignedTo, leadScore));
+            }
+            add(events);
+        }
+    }
+
+    /**
+     * Record a deleted lead
+     * @param leadId ID of the deleted lead
+     */
+    public void leadDeleted(Long leadId) {
+        if (isEnabled()) {
+            add(Collections.singletonList(event(leadId, DELETED, null, null, null)));
+        }
+    }
+
+    private void add(List<LeadOutboxEvent> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            leadOutboxRepository.saveAll(events);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<LeadOutboxEvent> buffer = (List<LeadOutboxEvent>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new BufferSynchronization(buffer));
+        }
+        buffer.addAll(events);
+    }
+
+    private static LeadOutboxEvent event(Long leadId, String eventType, String status, Long assignedTo,
+                                         Integer leadScore) {
+        LeadOutboxEvent event = new LeadOutboxEvent();
+        event.setLeadId(leadId);
+        event.setEventType(eventType);
+        event.setStatus(status);
+        event.setAssignedTo(assignedTo);
+        event.setLeadScore(leadScore);
+        event.setCreatedDate(LocalDateTime.now());
+        return event;
+    }
+
+    /**
+     * Writes one transaction's events before it commits, and keeps the buffer out of nested transactions
+     */
+    private final class BufferSynchronization implements TransactionSynchronization {
+
+        private final List<LeadOutboxEvent> buffer;
+
+        BufferSynchronization(List<LeadOutboxEvent> buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(LeadOutbox.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(LeadOutbox.this, buffer);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Take the lead row locks before drawing event IDs
+            entityManager.flush();
+            // Stamp the time the IDs are drawn, which the change feed's settle window is measured from
+            LocalDateTime now = LocalDateTime.now();
+            for (LeadOutboxEvent event : buffer) {
+                event.setCreatedDate(now);
+            }
+            leadOutboxRepository.saveAll(buffer);
+            entityManager.flush();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LeadOutbox.this);
+        }
+    }
+}
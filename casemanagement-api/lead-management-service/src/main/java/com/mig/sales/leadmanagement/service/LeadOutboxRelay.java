@@ -0,0 +1,146 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Delivers outbox events to the configured {@link LeadEventSink} in ID order.
+ *
+ * The relay runs on one node at a time. Each batch is read, handed to the sink outside any
+ * transaction, and then marked published in a short transaction of its own, so a slow sink
+ * holds neither row locks nor a pooled connection. A crash or sink failure leaves the batch
+ * unpublished and it is delivered again, as may a batch in flight while the job moves to
+ * another node, so delivery is at least once. Undelivered events are read by status rather than after the last
+ * delivered ID, so an event whose transaction committed late is not skipped; a lead's own
+ * events cannot commit out of ID order (see {@link LeadOutbox}).
+ */
+@Service
+public class LeadOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadOutboxRelay.class);
+
+    private static final String RELAY_JOB = "outbox-relay";
+
+    @Autowired
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Autowired(required = false)
+    private LeadEventSink leadEventSink;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Value("${lead.outbox.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${lead.outbox.retention-days:7}")
+    private int retentionDays = 7;
+
+    /**
+     * Scheduled delivery; runs on one node only, so relays do not queue up on each other's locks
+     */
+    @Scheduled(fixedDelayString = "${lead.outbox.relay-interval-ms:1000}")
+    public void scheduledRelay() {
+        if (leadEventSink != null) {
+            scheduledJobRunner.runAsLeader(RELAY_JOB, false, () -> relay(() -> scheduledJobRunner.isLeader(RELAY_JOB)));
+        }
+    }
+
+    /**
+     * Deliver every pending event; stops at the first failed batch and tries again on the next run
+     * @return number of events delivered
+     */
+    public int relay() {
+        return relay(() -> true);
+    }
+
+    /**
+     * Deliver pending events while a condition holds
+     * @param leading checked before each batch after the first
+     * @return number of events delivered
+     */
+    int relay(BooleanSupplier leading) {
+        if (leadEventSink == null) {
+            return 0;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int delivered = 0;
+        try {
+            while (true) {
+                int count = relayBatch(transaction);
+                if (count == 0) {
+                    break;
+                }
+                delivered += count;
+                if (count < batchSize) {
+                    break;
+                }
+                if (!leading.getAsBoolean()) {
+                    log.info("Stopped relaying lead events after {}: this node no longer runs the relay", delivered);
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Lead event delivery failed after {} events; {} pending", delivered,
+                    leadOutboxRepository.countByPublishedDateIsNull(), e);
+        }
+        return delivered;
+    }
+
+    /**
+     * Scheduled purge; runs on one node only
+     */
+    @Scheduled(cron = "${lead.outbox.purge-cron:0 0 * * * *}")
+    public void scheduledPurge() {
+        scheduledJobRunner.runAsLeader("outbox-purge", true, this::purge);
+    }
+
+    /**
+     * Delete events delivered longer ago than the retention period, or, with no sink
+     * configured, events recorded longer ago than that. Events the sink may still resend
+     * are kept past the retention period.
+     */
+    public void purge() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        LocalDateTime retained = LocalDateTime.now().minusDays(retentionDays);
+        LocalDateTime stillNeeded = leadEventSink != null ? leadEventSink.oldestRetainedPublishedDate() : null;
+        LocalDateTime cutoff = stillNeeded != null && stillNeeded.isBefore(retained) ? stillNeeded : retained;
+        Integer deleted = transaction.execute(status -> leadEventSink != null
+                ? leadOutboxRepository.deletePublishedBefore(cutoff)
+                : leadOutboxRepository.deleteCreatedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} delivered lead events", deleted);
+        }
+    }
+
+    private int relayBatch(TransactionTemplate transaction) {
+        List<LeadOutboxEvent> events = leadOutboxRepository.findUnpublished(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        leadEventSink.publish(events);
+        List<Long> ids = new ArrayList<>(events.size());
+        for (LeadOutboxEvent event : events) {
+            ids.add(event.getId());
+        }
+        transaction.executeWithoutResult(status -> leadOutboxRepository.markPublished(ids, LocalDateTime.now()));
+        return events.size();
+    }
+}
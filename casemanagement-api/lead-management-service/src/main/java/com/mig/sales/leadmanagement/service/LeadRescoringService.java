@@ -0,0 +1,268 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.scoring.ScoringBatch;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Service for rescoring every lead after the scoring rules change.
+ *
+ * Leads are read in ID order in fixed-size chunks, as projections rather than entities,
+ * and stay locked until their chunk commits, so a lead edited meanwhile waits rather than
+ * having its fresh score overwritten with one computed from the old inputs.
+ * Each chunk is converted into a columnar {@link ScoringBatch} in parallel on a dedicated
+ * fork-join pool and scored in one pass, and only the leads
+ * whose score changed are written: one UPDATE per distinct new score and one batch of
+ * history rows per chunk, in a transaction of its own. A run can be resumed after the
+ * last lead it processed and can be throttled to a maximum number of leads per second.
+ */
+@Service
+public class LeadRescoringService {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadRescoringService.class);
+
+    @Autowired
+    private LeadService leadService;
+
+    @Autowired
+    private LeadScoringService leadScoringService;
+
+    @Autowired
+    private LeadHistoryService leadHistoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private LeadScoreHistogram leadScoreHistogram;
+
+    /**
+     * Leads read, scored and written per transaction
+     */
+    @Value("${lead.rescoring.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    /**
+     * Scoring threads; 0 means one per available processor
+     */
+    @Value("${lead.rescoring.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * Upper bound on leads scanned per second; 0 means unthrottled
+     */
+    @Value("${lead.rescoring.max-leads-per-second:0}")
+    private int maxLeadsPerSecond;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private ForkJoinPool scoringPool;
+
+    @PostConstruct
+    void startScoringPool() {
+        scoringPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stopScoringPool() {
+        scoringPool.shutdown();
+    }
+
+    /**
+     * Rescore all leads with the current scoring rules
+     * @param afterId resume after this lead ID, or null to start from the beginning
+     * @param requestedBy user recorded on the history rows
+     * @return counts, the last processed lead ID and a histogram of score changes
+     * @throws BusinessException if a run is already in progress, or if the run fails part way;
+     *         the message then names the lead ID to resume after
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public RescoreResult rescoreAll(Long afterId, User requestedBy) {
+        return rescoreAll(afterId, requestedBy, () -> true);
+    }
+
+    /**
+     * Rescore all leads while a condition holds, e.g. while this node runs the scheduled job
+     * @param afterId resume after this lead ID, or null to start from the beginning
+     * @param requestedBy user recorded on the history rows, or null for the system
+     * @param keepGoing checked before each chunk after the first; the run stops, not completed, once it is false
+     * @return counts, the last processed lead ID and a histogram of score changes
+     * @throws BusinessException as for {@link #rescoreAll(Long, User)}
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public RescoreResult rescoreAll(Long afterId, User requestedBy, BooleanSupplier keepGoing) {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("A rescoring run is already in progress");
+        }
+
+        RescoreResult result = new RescoreResult(afterId);
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            long startNanos = System.nanoTime();
+            long cursor = afterId != null ? afterId : 0L;
+            while (true) {
+                long from = cursor;
+                Integer scanned = transaction.execute(status -> rescoreChunk(from, requestedBy, result));
+                if (scanned == null || scanned == 0) {
+                    break;
+                }
+                cursor = result.lastProcessedId;
+                if (scanned < chunkSize) {
+                    break;
+                }
+                throttle(result.scannedCount, startNanos);
+                if (!keepGoing.getAsBoolean()) {
+                    log.info("Rescoring stopped after lead {}: resume with afterId={}",
+                            result.lastProcessedId, result.lastProcessedId);
+                    return result;
+                }
+            }
+            result.completed = true;
+            log.info("Rescored {} leads, {} changed", result.scannedCount, result.changedCount);
+            return result;
+        } catch (RuntimeException e) {
+            log.error("Rescoring stopped after lead {}", result.lastProcessedId, e);
+            throw new BusinessException("Rescoring stopped after lead " + result.lastProcessedId
+                    + "; resume with afterId=" + result.lastProcessedId, e);
+        } finally {
+            if (result.changedCount > 0) {
+                rebuildHistogram();
+            }
+            running.set(false);
+        }
+    }
+
+    /**
+     * Rebuild the score histogram after chunks were committed; a failure only leaves it stale
+     */
+    private void rebuildHistogram() {
+        try {
+            leadScoreHistogram.rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the score histogram after rescoring", e);
+        }
+    }
+
+    /**
+     * Lock and score one chunk of leads and write the changed ones
+     * @return number of leads read
+     */
+    private int rescoreChunk(long afterId, User requestedBy, RescoreResult result) {
+        List<Object[]> rows = leadService.lockScoringInputsAfter(afterId, chunkSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        ScoringBatch batch = leadScoringService.newBatch(rows.size());
+        scoringPool.submit(() -> IntStream.range(0, rows.size()).parallel().forEach(i -> {
+            Object[] row = rows.get(i);
+            batch.set(i, (BigDecimal) row[1], (String) row[2], (String) row[3], (String) row[4]);
+        })).join();
+        int[] scores = batch.score();
+
+        Map<Integer, List<Long>> idsByScore = new LinkedHashMap<>();
+        List<LeadHistory> activities = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Long leadId = (Long) rows.get(i)[0];
+            Integer oldScore = (Integer) rows.get(i)[5];
+            int newScore = scores[i];
+            if (oldScore != null && oldScore == newScore) {
+                continue;
+            }
+            result.recordChange(oldScore, newScore);
+            idsByScore.computeIfAbsent(newScore, score -> new ArrayList<>()).add(leadId);
+            activities.add(leadHistoryService.newActivity(leadService.getReference(leadId), requestedBy,
+                    "Lead score recalculated from " + oldScore + " to " + newScore,
+                    "Score Recalculated", "SYSTEM", null, null));
+        }
+
+        for (Map.Entry<Integer, List<Long>> entry : idsByScore.entrySet()) {
+            leadService.updateLeadScores(entry.getValue(), entry.getKey());
+        }
+        leadHistoryService.logActivities(activities);
+
+        result.scannedCount += rows.size();
+        result.lastProcessedId = (Long) rows.get(rows.size() - 1)[0];
+        return rows.size();
+    }
+
+    /**
+     * Sleep until the scanned count is back under the configured rate
+     */
+    private void throttle(long scanned, long startNanos) {
+        if (maxLeadsPerSecond <= 0) {
+            return;
+        }
+        long dueNanos = scanned * TimeUnit.SECONDS.toNanos(1) / maxLeadsPerSecond;
+        long aheadNanos = dueNanos - (System.nanoTime() - startNanos);
+        if (aheadNanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(aheadNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException("Rescoring interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Outcome of a rescoring run
+     */
+    public static class RescoreResult {
+        private final Long startedAfterId;
+        private Long lastProcessedId;
+        private long scannedCount;
+        private long changedCount;
+        private long previouslyUnscoredCount;
+        private final Map<Integer, Long> scoreDeltas = new TreeMap<>();
+        private boolean completed;
+
+        RescoreResult(Long startedAfterId) {
+            this.startedAfterId = startedAfterId;
+            this.lastProcessedId = startedAfterId;
+        }
+
+        void recordChange(Integer oldScore, int newScore) {
+            changedCount++;
+            if (oldScore == null) {
+                previouslyUnscoredCount++;
+            } else {
+                scoreDeltas.merge(newScore - oldScore, 1L, Long::sum);
+            }
+        }
+
+        public Long getStartedAfterId() { return startedAfterId; }
+        /** Pass as afterId to resume an interrupted run */
+        public Long getLastProcessedId() { return lastProcessedId; }
+        public long getScannedCount() { return scannedCount; }
+        public long getChangedCount() { return changedCount; }
+        /** Changed leads that had no score before */
+        public long getPreviouslyUnscoredCount() { return previouslyUnscoredCount; }
+        /** Number of leads per score change (new score minus old score), excluding unchanged leads */
+        public Map<Integer, Long> getScoreDeltas() { return scoreDeltas; }
+        public boolean isCompleted() { return completed; }
+    }
+}
@@ -0,0 +1,228 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.User;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Precomputed eligibility index for territory and industry based lead routing.
+ *
+ * Every territory and industry tag maps to a bitset of the reps that cover it. Reps
+ * without tags in a dimension cover every value of that dimension and are folded into
+ * each bitset at build time, so finding the eligible reps for a lead is a word-wise AND
+ * of a territory bitset and an industry bitset. Among eligible reps the least-loaded
+ * one wins; a lead no rep is eligible for falls back to the least-loaded rep overall.
+ *
+ * Loads are updated as leads are routed, so one index should be built per distribution
+ * run. Instances are not thread-safe.
+ */
+public final class LeadRoutingIndex {
+
+    private static final char TAG_SEPARATOR = ',';
+
+    private final long[] repIds;
+    private final long[] loads;
+    private final int words;
+
+    private final Map<String, long[]> territoryBits;
+    private final Map<String, long[]> industryBits;
+    private final long[] anyTerritoryBits;
+    private final long[] anyIndustryBits;
+    private final long[] allBits;
+
+    /** Reused accumulator for locations with several comma-separated parts */
+    private final long[] territoryScratch;
+
+    private LeadRoutingIndex(int repCount) {
+        this.repIds = new long[repCount];
+        this.loads = new long[repCount];
+        this.words = (repCount + 63) >>> 6;
+        this.territoryBits = new HashMap<>();
+        this.industryBits = new HashMap<>();
+        this.anyTerritoryBits = new long[words];
+        this.anyIndustryBits = new long[words];
+        this.allBits = new long[words];
+        this.territoryScratch = new long[words];
+    }
+
+    /**
+     * Build an index over the given reps
+     * @param reps active sales persons, tagged through {@link User#getTerritories()} and {@link User#getIndustries()}
+     * @param openLeadCounts current number of open leads per user ID; missing users count as zero
+     * @return routing index
+     */
+    public static LeadRoutingIndex build(List<User> reps, Map<Long, Long> openLeadCounts) {
+        LeadRoutingIndex index = new LeadRoutingIndex(reps.size());
+        for (int rep = 0; rep < reps.size(); rep++) {
+            User user = reps.get(rep);
+            index.repIds[rep] = user.getId();
+            index.loads[rep] = openLeadCounts.getOrDefault(user.getId(), 0L);
+            set(index.allBits, rep);
+            index.addTags(index.territoryBits, index.anyTerritoryBits, user.getTerritories(), rep);
+            index.addTags(index.industryBits, index.anyIndustryBits, user.getIndustries(), rep);
+        }
+        index.foldWildcards(index.territoryBits, index.anyTerritoryBits);
+        index.foldWildcards(index.industryBits, index.anyIndustryBits);
+        return index;
+    }
+
+    /**
+     * Route a lead to the least-loaded eligible rep and count it against that rep
+     * @param location lead location; each comma-separated part is matched as a territory
+     * @param industry lead industry
+     * @return index of the chosen rep, or -1 if the index has no reps
+     */
+    public int route(String location, String industry) {
+        if (repIds.length == 0) {
+            return -1;
+        }
+        int rep = leastLoaded(matchTerritory(location), matchIndustry(industry));
+        if (rep < 0) {
+            rep = leastLoaded(allBits, allBits);
+        }
+        loads[rep]++;
+        return rep;
+    }
+
+    /**
+     * Check whether a rep's tags match a lead, without routing it or falling back
+     * @param rep rep index
+     * @param location lead location
+     * @param industry lead industry
+     * @return true if the rep covers both the lead's territory and industry
+     */
+    public boolean isEligible(int rep, String location, String industry) {
+        int word = rep >>> 6;
+        long bit = 1L << rep;
+        return (matchTerritory(location)[word] & matchIndustry(industry)[word] & bit) != 0;
+    }
+
+    /**
+     * @param rep rep index returned by {@link #route}
+     * @return user ID of the rep
+     */
+    public long repIdAt(int rep) {
+        return repIds[rep];
+    }
+
+    /**
+     * @param rep rep index returned by {@link #route}
+     * @return open leads currently counted against the rep
+     */
+    public long loadAt(int rep) {
+        return loads[rep];
+    }
+
+    /**
+     * @return number of reps in the index
+     */
+    public int size() {
+        return repIds.length;
+    }
+
+    /**
+     * Parse a comma-separated tag list the way the index matches it
+     * @param tags comma-separated tags, may be null
+     * @return trimmed, lower-cased tags; empty means "any"
+     */
+    public static Set<String> parseTags(String tags) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tag : tags.split(String.valueOf(TAG_SEPARATOR))) {
+                String normalized = normalize(tag);
+                if (!normalized.isEmpty()) {
+                    parsed.add(normalized);
+                }
+            }
+        }
+        return parsed;
+    }
+
+    private long[] matchTerritory(String location) {
+        if (location == null) {
+            return anyTerritoryBits;
+        }
+        String normalized = normalize(location);
+        if (normalized.indexOf(TAG_SEPARATOR) < 0) {
+            return territoryBits.getOrDefault(normalized, anyTerritoryBits);
+        }
+
+        // "Austin, TX" matches reps tagged "austin, tx", "austin" or "tx"
+        System.arraycopy(anyTerritoryBits, 0, territoryScratch, 0, words);
+        or(territoryScratch, territoryBits.get(normalized));
+        int start = 0;
+        while (start <= normalized.length()) {
+            int end = normalized.indexOf(TAG_SEPARATOR, start);
+            if (end < 0) {
+                end = normalized.length();
+            }
+            String part = normalized.substring(start, end).trim();
+            if (!part.isEmpty()) {
+                or(territoryScratch, territoryBits.get(part));
+            }
+            start = end + 1;
+        }
+        return territoryScratch;
+    }
+
+    private long[] matchIndustry(String industry) {
+        return industry == null
+                ? anyIndustryBits
+                : industryBits.getOrDefault(normalize(industry), anyIndustryBits);
+    }
+
+    private int leastLoaded(long[] a, long[] b) {
+        int best = -1;
+        long bestLoad = Long.MAX_VALUE;
+        for (int w = 0; w < words; w++) {
+            long bits = a[w] & b[w];
+            while (bits != 0) {
+                int rep = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (loads[rep] < bestLoad) {
+                    bestLoad = loads[rep];
+                    best = rep;
+                }
+                bits &= bits - 1;
+            }
+        }
+        return best;
+    }
+
+    private void addTags(Map<String, long[]> bitsByTag, long[] anyBits, String tags, int rep) {
+        Set<String> parsed = parseTags(tags);
+        for (String tag : parsed) {
+            set(bitsByTag.computeIfAbsent(tag, t -> new long[words]), rep);
+        }
+        if (parsed.isEmpty()) {
+            set(anyBits, rep);
+        }
+    }
+
+    private void foldWildcards(Map<String, long[]> bitsByTag, long[] anyBits) {
+        for (long[] bits : bitsByTag.values()) {
+            or(bits, anyBits);
+        }
+    }
+
+    private static void set(long[] bits, int rep) {
+        bits[rep >>> 6] |= 1L << rep;
+    }
+
+    private static void or(long[] target, long[] source) {
+        if (source == null) {
+            return;
+        }
+        for (int w = 0; w < target.length; w++) {
+            target[w] |= source[w];
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,293 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory histogram of lead scores, overall and per lead source and industry.
+ *
+ * Every histogram is an int array with one bucket per score from 0 to 100, so percentile
+ * and distribution queries copy and walk at most 101 counts and never touch the database.
+ * The histograms are built from one grouped query at startup, and {@link LeadService}
+ * reports created, rescored, re-tagged and deleted leads once their transaction commits.
+ * Bulk rescoring rebuilds them when it finishes, while live changes keep arriving: changes
+ * committed while the rebuild's query runs are replayed onto its result, so none is lost.
+ * Unscored leads are not counted.
+ */
+@Service
+public class LeadScoreHistogram {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadScoreHistogram.class);
+
+    /** One bucket per possible score */
+    static final int BUCKETS = 101;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    // All three are guarded by this
+    private int[] all = new int[BUCKETS];
+    private Map<String, int[]> bySource = new HashMap<>();
+    private Map<String, int[]> byIndustry = new HashMap<>();
+
+    /** Changes committed since the running rebuild started its query, or null outside a rebuild; guarded by this */
+    private List<Change> changesDuringRebuild;
+
+    /** Keeps rebuilds from overlapping */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Replace the histograms with counts read from the database.
+     * Changes committed while the query runs are applied to the current histograms as usual
+     * and replayed onto the rebuilt ones before they replace them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<>();
+            }
+            int[] newAll = new int[BUCKETS];
+            Map<String, int[]> newBySource = new HashMap<>();
+            Map<String, int[]> newByIndustry = new HashMap<>();
+            long total = 0;
+            try {
+                for (Object[] row : leadRepository.countByScoreSourceAndIndustry()) {
+                    int bucket = bucket((Integer) row[0]);
+                    int count = ((Long) row[3]).intValue();
+                    newAll[bucket] += count;
+                    counts(newBySource, (String) row[1])[bucket] += count;
+                    counts(newByIndustry, (String) row[2])[bucket] += count;
+                    total += count;
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+                throw e;
+            }
+            int replayed;
+            synchronized (this) {
+                all = newAll;
+                bySource = newBySource;
+                byIndustry = newByIndustry;
+                replayed = changesDuringRebuild.size();
+                for (Change change : changesDuringRebuild) {
+                    apply(change.score, change.source, change.industry, change.delta);
+                }
+                changesDuringRebuild = null;
+            }
+            log.info("Built score histogram over {} scored leads, replaying {} concurrent changes", total, replayed);
+        }
+    }
+
+    /**
+     * Count a new lead once the current transaction commits
+     * @param lead saved lead
+     */
+    public void leadAdded(Lead lead) {
+        Integer score = lead.getLeadScore();
+        String source = lead.getLeadSource();
+        String industry = lead.getIndustry();
+        TransactionCallbacks.afterCommit(() -> add(score, source, industry, 1));
+    }
+
+    /**
+     * Stop counting a deleted lead once the current transaction commits
+     * @param lead deleted lead
+     */
+    public void leadRemoved(Lead lead) {
+        Integer score = lead.getLeadScore();
+        String source = lead.getLeadSource();
+        String industry = lead.getIndustry();
+        TransactionCallbacks.afterCommit(() -> add(score, source, industry, -1));
+    }
+
+    /**
+     * Move a lead between buckets once the current transaction commits
+     * @param oldScore score before the change
+     * @param oldSource lead source before the change
+     * @param oldIndustry industry before the change
+     * @param lead saved lead
+     */
+    public void leadChanged(Integer oldScore, String oldSource, String oldIndustry, Lead lead) {
+        Integer score = lead.getLeadScore();
+        String source = lead.getLeadSource();
+        String industry = lead.getIndustry();
+        if (Objects.equals(oldScore, score) && Objects.equals(oldSource, source)
+                && Objects.equals(oldIndustry, industry)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                add(oldScore, oldSource, oldIndustry, -1);
+                add(score, source, industry, 1);
+            }
+        });
+    }
+
+    /**
+     * Percentile rank of a score: the percentage of leads scoring lower, plus half of those scoring the same
+     * @param score score to rank
+     * @param source only compare with leads from this source, or null
+     * @param industry only compare with leads in this industry, or null
+     * @return percentile rank from 0 to 100, or null if no matching lead is scored
+     */
+    public Double percentileOf(int score, String source, String industry) {
+        int[] counts = snapshot(source, industry);
+        int bucket = bucket(score);
+        long below = 0;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (i < bucket) {
+                below += counts[i];
+            }
+            total += counts[i];
+        }
+        return total == 0 ? null : 100.0 * (below + counts[bucket] / 2.0) / total;
+    }
+
+    /**
+     * Distribution of scores in bands of equal width, with quartiles and the 90th percentile
+     * @param source only count leads from this source, or null
+     * @param industry only count leads in this industry, or null
+     * @param bandWidth scores per band; the first band starts at 0
+     * @return distribution
+     */
+    public ScoreDistribution getDistribution(String source, String industry, int bandWidth) {
+        if (bandWidth < 1 || bandWidth > BUCKETS) {
+            throw new BusinessException("Band width must be between 1 and " + BUCKETS);
+        }
+        int[] counts = snapshot(source, industry);
+        long[] bands = new long[(BUCKETS + bandWidth - 1) / bandWidth];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            bands[i / bandWidth] += counts[i];
+            total += counts[i];
+        }
+        return new ScoreDistribution(source, industry, total, bandWidth, bands,
+                scoreAt(counts, total, 25), scoreAt(counts, total, 50),
+                scoreAt(counts, total, 75), scoreAt(counts, total, 90));
+    }
+
+    private synchronized void add(Integer score, String source, String industry, int delta) {
+        if (score == null) {
+            return;
+        }
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(new Change(score, source, industry, delta));
+        }
+        apply(score, source, industry, delta);
+    }
+
+    private void apply(int score, String source, String industry, int delta) {
+        int bucket = bucket(score);
+        all[bucket] += delta;
+        counts(bySource, source)[bucket] += delta;
+        counts(byIndustry, industry)[bucket] += delta;
+    }
+
+    private synchronized int[] snapshot(String source, String industry) {
+        if (source != null && industry != null) {
+            throw new BusinessException("Filter by lead source or by industry, not both");
+        }
+        int[] counts = source != null ? bySource.get(source)
+                : industry != null ? byIndustry.get(industry)
+                : all;
+        return counts != null ? counts.clone() : new int[BUCKETS];
+    }
+
+    /**
+     * Lowest score at or below which the given percentage of leads fall
+     */
+    private static Integer scoreAt(int[] counts, long total, int percent) {
+        if (total == 0) {
+            return null;
+        }
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative * 100 >= total * percent) {
+                return i;
+            }
+        }
+        return BUCKETS - 1;
+    }
+
+    private static int[] counts(Map<String, int[]> histograms, String key) {
+        return histograms.computeIfAbsent(key, k -> new int[BUCKETS]);
+    }
+
+    private static int bucket(int score) {
+        return Math.max(0, Math.min(BUCKETS - 1, score));
+    }
+
+    /**
+     * A count change committed during a rebuild
+     */
+    private static final class Change {
+        private final int score;
+        private final String source;
+        private final String industry;
+        private final int delta;
+
+        Change(int score, String source, String industry, int delta) {
+            this.score = score;
+            this.source = source;
+            this.industry = industry;
+            this.delta = delta;
+        }
+    }
+
+    /**
+     * Score distribution of the leads matching a filter
+     */
+    public static class ScoreDistribution {
+        private final String leadSource;
+        private final String industry;
+        private final long total;
+        private final int bandWidth;
+        private final long[] bands;
+        private final Integer p25;
+        private final Integer median;
+        private final Integer p75;
+        private final Integer p90;
+
+        public ScoreDistribution(String leadSource, String industry, long total, int bandWidth, long[] bands,
+                                 Integer p25, Integer median, Integer p75, Integer p90) {
+            this.leadSource = leadSource;
+            this.industry = industry;
+            this.total = total;
+            this.bandWidth = bandWidth;
+            this.bands = bands;
+            this.p25 = p25;
+            this.median = median;
+            this.p75 = p75;
+            this.p90 = p90;
+        }
+
+        public String getLeadSource() { return leadSource; }
+        public String getIndustry() { return industry; }
+        public long getTotal() { return total; }
+        public int getBandWidth() { return bandWidth; }
+        /** Lead counts per band; band i covers scores from i * bandWidth */
+        public long[] getBands() { return bands; }
+        public Integer getP25() { return p25; }
+        public Integer getMedian() { return median; }
+        public Integer getP75() { return p75; }
+        public Integer getP90() { return p90; }
+    }
+}
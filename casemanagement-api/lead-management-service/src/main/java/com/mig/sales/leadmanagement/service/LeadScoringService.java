@@ -1,67 +1,95 @@
 package com.mig.sales.leadmanagement.service;
 
 import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.LeadScorer;
+import com.mig.sales.scoring.ScoringBatch;
+import com.mig.sales.scoring.ScoringRules;
+import com.mig.sales.scoring.ShadowScoring;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service for calculating lead scores based on business rules
+ * The rules come from lead.scoring configuration and are compiled once at startup by
+ * the shared lead-scoring module; see {@link CompiledScoringRules}. {@link ScoringRulesReloader} can swap in a new
+ * rule set, or a candidate set to run in shadow, while the service is running.
+ * A model trained by {@link ScoringModelTrainingService} can take the place of the
+ * rules as the live or candidate scorer; the high-value threshold always comes from the rules.
  */
 @Service
 public class LeadScoringService {
 
+    private volatile CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+
+    // Live scorer: the rules above unless a model has been activated
+    private volatile LeadScorer scorer = rules;
+
+    // Candidate scorer run alongside the live one; null when shadow scoring is off
+    private volatile ShadowScoring shadow;
+
+    /**
+     * Compile the configured scoring rules; without them the default rules apply
+     * @param scoringRules rules bound from lead.scoring
+     */
+    @Autowired(required = false)
+    public void setScoringRules(ScoringRules scoringRules) {
+        activate(CompiledScoringRules.compile(scoringRules));
+    }
+
     /**
      * Calculate lead score based on multiple criteria
      * @param lead the lead to score
      * @return calculated score (0-100)
      */
     public int calculateScore(Lead lead) {
-        int score = 0;
-
-        // Rule 1: Potential Value
-        if (lead.getPotentialValue() != null) {
-            if (lead.getPotentialValue().compareTo(new BigDecimal("500000")) > 0) {
-                score += 50;
-            } else if (lead.getPotentialValue().compareTo(new BigDecimal("100000")) >= 0) {
-                score += 20;
-            } else {
-                score += 5;
-            }
-        }
+        int score = scorer.score(lead.getPotentialValue(), lead.getLeadSource(), lead.getEmail(), lead.getPhone());
 
-        // Rule 2: Lead Source
-        if (lead.getLeadSource() != null) {
-            switch (lead.getLeadSource()) {
-                case "Partner Referral":
-                    score += 30;
-                    break;
-                case "Webinar":
-                    score += 15;
-                    break;
-                case "Website Signup":
-                    score += 10;
-                    break;
-                case "Cold Call":
-                    score += 5;
-                    break;
-                default:
-                    score += 0;
-                    break;
-            }
+        ShadowScoring current = shadow;
+        if (current != null && ThreadLocalRandom.current().nextDouble() < current.getSampleRate()) {
+            current.record(score, current.getCandidate().score(
+                    lead.getPotentialValue(), lead.getLeadSource(), lead.getEmail(), lead.getPhone()));
         }
+        return score;
+    }
+
+    /**
+     * Calculate a lead score from its scoring attributes, for callers that have not loaded the lead
+     * @param potentialValue potential value
+     * @param leadSource lead source
+     * @param email email address
+     * @param phone phone number
+     * @return calculated score (0-100)
+     */
+    public int calculateScore(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        return scorer.score(potentialValue, leadSource, email, phone);
+    }
 
-        // Rule 3: Data Completeness
-        boolean hasEmail = lead.getEmail() != null && !lead.getEmail().trim().isEmpty();
-        boolean hasPhone = lead.getPhone() != null && !lead.getPhone().trim().isEmpty();
-        if (hasEmail && hasPhone) {
-            score += 15;
-        } else if (hasEmail || hasPhone) {
-            score += 5;
+    /**
+     * Score many leads in one pass with the live scorer; see {@link ScoringBatch}
+     * @param leads the leads to score
+     * @return scores in the order of the leads (0-100)
+     */
+    public int[] scoreAll(List<Lead> leads) {
+        ScoringBatch batch = newBatch(leads.size());
+        for (int i = 0; i < leads.size(); i++) {
+            Lead lead = leads.get(i);
+            batch.set(i, lead.getPotentialValue(), lead.getLeadSource(), lead.getEmail(), lead.getPhone());
         }
+        return batch.score();
+    }
 
-        // Ensure score is within 0-100 range
-        return Math.min(Math.max(score, 0), 100);
+    /**
+     * Create an empty batch bound to the live scorer, for callers that have not loaded the leads
+     * @param size number of leads in the batch
+     * @return batch to fill with {@link ScoringBatch#set} and score
+     */
+    public ScoringBatch newBatch(int size) {
+        return scorer.newBatch(size);
     }
 
     /**
@@ -70,8 +98,56 @@ public class LeadScoringService {
      * @return true if high-value, false otherwise
      */
     public boolean isHighValueLead(Lead lead) {
-        return lead.getPotentialValue() != null && 
-               lead.getPotentialValue().compareTo(new BigDecimal("1000000")) >= 0;
+        return rules.isHighValue(lead.getPotentialValue());
+    }
+
+    /**
+     * Replace the live scorer; leads scored afterwards use it. Rules also replace the high-value threshold.
+     * @param leadScorer the new rules or model
+     */
+    public void activate(LeadScorer leadScorer) {
+        if (leadScorer instanceof CompiledScoringRules) {
+            this.rules = (CompiledScoringRules) leadScorer;
+        }
+        this.scorer = leadScorer;
+    }
+
+    /**
+     * @return version of the live rules or model
+     */
+    public String getActiveVersion() {
+        return scorer.getVersion();
+    }
+
+    /**
+     * @return the heuristic scoring rules, which stay in force for the high-value threshold while a model is live
+     */
+    public CompiledScoringRules getRules() {
+        return rules;
+    }
+
+    /**
+     * Start scoring a sample of leads with a candidate scorer as well, discarding earlier shadow statistics
+     * @param candidate candidate rules or model
+     * @param sampleRate fraction of scored leads to compare, from 0 to 1
+     */
+    public void startShadow(LeadScorer candidate, double sampleRate) {
+        this.shadow = new ShadowScoring(candidate, sampleRate);
+    }
+
+    /**
+     * Stop shadow scoring
+     */
+    public void stopShadow() {
+        this.shadow = null;
+    }
+
+    /**
+     * @return differences recorded by shadow scoring, or null if it is off
+     */
+    public ShadowScoring.Report getShadowReport() {
+        ShadowScoring current = shadow;
+        return current != null ? current.report(getActiveVersion()) : null;
     }
 
     /**
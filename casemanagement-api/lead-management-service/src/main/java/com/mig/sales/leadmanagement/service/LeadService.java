@@ -5,17 +5,27 @@ import com.mig.sales.leadmanagement.entity.User;
 import com.mig.sales.leadmanagement.repository.LeadRepository;
 import com.mig.sales.leadmanagement.exception.ResourceNotFoundException;
 import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.exception.UnauthorizedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Service for lead management operations
@@ -24,6 +34,16 @@ import java.util.List;
 @Transactional
 public class LeadService {
 
+    /**
+     * Maximum number of IDs bound into a single IN list (Oracle caps IN lists at 1000)
+     */
+    static final int IN_LIST_CHUNK_SIZE = 1000;
+
+    /**
+     * Statuses that count towards a sales person's open workload
+     */
+    public static final List<String> OPEN_STATUSES = List.of("ASSIGNED", "IN_PROGRESS");
+
     @Autowired
     private LeadRepository leadRepository;
 
@@ -33,6 +53,21 @@ public class LeadService {
     @Autowired
     private LeadHistoryService leadHistoryService;
 
+    @Autowired
+    private AssigneeTopLeadsIndex assigneeTopLeadsIndex;
+
+    @Autowired
+    private LeadScoreHistogram leadScoreHistogram;
+
+    @Autowired
+    private ManagerLoadIndex managerLoadIndex;
+
+    @Autowired
+    private LeadSlaTimers leadSlaTimers;
+
+    @Autowired
+    private LeadOutbox leadOutbox;
+
     /**
      * Create a new lead
      * @param lead the lead to create
@@ -50,6 +85,9 @@ public class LeadService {
         lead.setLeadScore(score);
 
         Lead savedLead = leadRepository.save(lead);
+        assigneeTopLeadsIndex.leadSaved(savedLead);
+        leadScoreHistogram.leadAdded(savedLead);
+        leadOutbox.leadChanged(savedLead, LeadOutbox.CREATED);
 
         // Log lead creation
         leadHistoryService.logActivity(savedLead, null, "Lead created", "Created", "SYSTEM", null, "NEW");
@@ -69,6 +107,20 @@ public class LeadService {
                 .orElseThrow(() -> new ResourceNotFoundException("Lead not found with id: " + id));
     }
 
+    /**
+     * Find leads by IDs using chunked IN-list queries
+     * IDs that do not exist are simply absent from the result.
+     * @param ids lead IDs
+     * @return list of leads found
+     */
+    public List<Lead> findAllByIds(Collection<Long> ids) {
+        List<Lead> leads = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunk(ids)) {
+            leads.addAll(leadRepository.findAllById(chunk));
+        }
+        return leads;
+    }
+
     /**
      * Find all leads
      * @return list of all leads ordered by score
@@ -110,6 +162,20 @@ public class LeadService {
         return leadRepository.findByAssignedTo(user);
     }
 
+    /**
+     * Find a page of the leads assigned to a user, best first.
+     * Pages within the assignee's top leads are served from {@link AssigneeTopLeadsIndex} without a query.
+     * @param user assigned user
+     * @param after last lead of the previous page, or null for the first page;
+     *              only its ID, score and creation date are read
+     * @param size page size
+     * @return leads ordered by score, creation date and ID, all descending
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Lead> findMyLeads(User user, Lead after, int size) {
+        return assigneeTopLeadsIndex.findPage(user, after, size);
+    }
+
     /**
      * Find leads assigned to user with specific statuses
      * @param user assigned user
@@ -130,6 +196,38 @@ public class LeadService {
         return leadRepository.findNewLeadsForDistribution();
     }
 
+    /**
+     * Read a page of unassigned NEW leads to claim from, best first, without locking them
+     * @param industries lower-cased industries to restrict to, or empty for any industry
+     * @param after last row of the previous page, or null for the first page
+     * @param size page size
+     * @return rows of [id, leadScore (-1 if none), createdDate, location, industry]
+     */
+    public List<Object[]> findClaimCandidates(Collection<String> industries, Object[] after, int size) {
+        Pageable pageable = Pageable.ofSize(size);
+        if (after == null) {
+            return industries.isEmpty()
+                    ? leadRepository.findClaimCandidates(pageable)
+                    : leadRepository.findClaimCandidatesInIndustries(industries, pageable);
+        }
+        Integer leadScore = (Integer) after[1];
+        LocalDateTime createdDate = (LocalDateTime) after[2];
+        Long id = (Long) after[0];
+        return industries.isEmpty()
+                ? leadRepository.findClaimCandidatesAfter(leadScore, createdDate, id, pageable)
+                : leadRepository.findClaimCandidatesInIndustriesAfter(industries, leadScore, createdDate, id, pageable);
+    }
+
+    /**
+     * Lock a lead for a claim if it is still unassigned and NEW, skipping it if a concurrent claimer holds it.
+     * Must run inside the claiming transaction; the lock is held until it commits.
+     * @param id lead ID
+     * @return the locked lead, or empty if it was taken or is locked
+     */
+    public Optional<Lead> lockClaimable(Long id) {
+        return leadRepository.lockClaimable(id);
+    }
+
     /**
      * Find high-value leads
      * @return list of high-value leads
@@ -140,7 +238,8 @@ public class LeadService {
     }
 
     /**
-     * Update lead
+     * Update lead.
+     * The status is left as it is; it only changes through {@link #transition}.
      * @param lead lead to update
      * @return updated lead
      */
@@ -148,16 +247,15 @@ public class LeadService {
     public Lead updateLead(Lead lead) {
         Lead existingLead = findById(lead.getId());
         
-        // Track status change
-        String oldStatus = existingLead.getStatus();
-        String newStatus = lead.getStatus();
+        String oldSource = existingLead.getLeadSource();
+        String oldIndustry = existingLead.getIndustry();
+        User oldAssignee = existingLead.getAssignedTo();
         
         // Update fields
         existingLead.setLeadName(lead.getLeadName());
         existingLead.setCompany(lead.getCompany());
         existingLead.setEmail(lead.getEmail());
         existingLead.setPhone(lead.getPhone());
-        existingLead.setStatus(lead.getStatus());
         existingLead.setAssignedTo(lead.getAssignedTo());
         existingLead.setPotentialValue(lead.getPotentialValue());
         existingLead.setLeadSource(lead.getLeadSource());
@@ -168,32 +266,106 @@ public class LeadService {
         existingLead.setUpdatedDate(LocalDateTime.now());
 
         Lead savedLead = leadRepository.save(existingLead);
+        assigneeTopLeadsIndex.leadSaved(savedLead);
+        leadSlaTimers.leadSaved(savedLead);
+        leadScoreHistogram.leadChanged(savedLead.getLeadScore(), oldSource, oldIndustry, savedLead);
+        escalationMoved(savedLead, oldAssignee);
+        leadOutbox.leadChanged(savedLead, LeadOutbox.UPDATED);
 
-        // Log status change if different
-        if (!oldStatus.equals(newStatus)) {
-            leadHistoryService.logActivity(savedLead, null, "Status changed from " + oldStatus + " to " + newStatus, 
-                    "Status Changed", "USER_ACTION", oldStatus, newStatus);
+        return savedLead;
+    }
+
+    /**
+     * Move a lead to another assignee, keeping its status
+     * @param leadId lead ID
+     * @param newAssignee user to assign the lead to
+     * @return updated lead
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public Lead reassignLead(Long leadId, User newAssignee) {
+        Lead lead = findById(leadId);
+        User oldAssignee = lead.getAssignedTo();
+        lead.setAssignedTo(newAssignee);
+        lead.setUpdatedDate(LocalDateTime.now());
+
+        Lead savedLead = leadRepository.save(lead);
+        assigneeTopLeadsIndex.leadSaved(savedLead);
+        leadSlaTimers.leadSaved(savedLead);
+        escalationMoved(savedLead, oldAssignee);
+        leadOutbox.leadChanged(savedLead, LeadOutbox.REASSIGNED);
+        return savedLead;
+    }
+
+    /**
+     * Tell {@link ManagerLoadIndex} when an escalated lead changes hands outside the workflow
+     * @param savedLead saved lead, with its new assignee
+     * @param oldAssignee assignee before the change, or null
+     */
+    private void escalationMoved(Lead savedLead, User oldAssignee) {
+        if (!LeadStatusMachine.Status.PRE_CONVERSION.name().equals(savedLead.getStatus())) {
+            return;
+        }
+        Long oldId = oldAssignee != null ? oldAssignee.getId() : null;
+        Long newId = savedLead.getAssignedTo() != null ? savedLead.getAssignedTo().getId() : null;
+        if (Objects.equals(oldId, newId)) {
+            return;
+        }
+        if (oldId != null) {
+            managerLoadIndex.leadsResolved(oldId, 1);
+        }
+        if (newId != null) {
+            managerLoadIndex.leadsAssigned(newId, 1);
+        }
+    }
+
+    /**
+     * Move a lead to a new status through {@link LeadStatusMachine}.
+     * Does not log history; callers log the activity in their own words.
+     * @param lead loaded lead
+     * @param action action to take
+     * @param actor user taking the action, or null for the system
+     * @param newAssignee user to assign the lead to along with the change, or null to keep the assignee
+     * @return updated lead
+     * @throws UnauthorizedException if the actor's role or ownership does not allow the action
+     * @throws BusinessException if the lead's status or value does not allow the action
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public Lead transition(Lead lead, LeadStatusMachine.Action action, User actor, User newAssignee) {
+        LeadStatusMachine.require(lead, action, actor, leadScoringService.isHighValueLead(lead));
+        if (LeadStatusMachine.Status.PRE_CONVERSION.name().equals(lead.getStatus()) && lead.getAssignedTo() != null) {
+            managerLoadIndex.leadsResolved(lead.getAssignedTo().getId(), 1);
         }
 
+        if (newAssignee != null) {
+            lead.setAssignedTo(newAssignee);
+        }
+        lead.setStatus(action.getTarget().name());
+        lead.setUpdatedDate(LocalDateTime.now());
+
+        Lead savedLead = leadRepository.save(lead);
+        assigneeTopLeadsIndex.leadSaved(savedLead);
+        leadSlaTimers.leadSaved(savedLead);
+        leadOutbox.leadChanged(savedLead,
+                action == LeadStatusMachine.Action.ASSIGN ? LeadOutbox.ASSIGNED : LeadOutbox.STATUS_CHANGED);
         return savedLead;
     }
 
     /**
-     * Update lead status
+     * Update lead status, if the state machine allows it as a plain status update
      * @param leadId lead ID
      * @param newStatus new status
      * @param user user making the change
      * @return updated lead
+     * @throws BusinessException if the status is unknown or cannot be reached directly from the current one
+     * @throws UnauthorizedException if the user's role or ownership does not allow the change
      */
     @CacheEvict(value = "leads", allEntries = true)
     public Lead updateLeadStatus(Long leadId, String newStatus, User user) {
         Lead lead = findById(leadId);
         String oldStatus = lead.getStatus();
-        
-        lead.setStatus(newStatus);
-        lead.setUpdatedDate(LocalDateTime.now());
-        
-        Lead savedLead = leadRepository.save(lead);
+        LeadStatusMachine.Action action = LeadStatusMachine.statusUpdate(oldStatus, newStatus);
+
+        Lead savedLead = transition(lead, action, user, null);
 
         // Log status change
         leadHistoryService.logActivity(savedLead, user, "Status changed from " + oldStatus + " to " + newStatus, 
@@ -203,21 +375,18 @@ public class LeadService {
     }
 
     /**
-     * Assign lead to user
+     * Assign a NEW lead to user
      * @param leadId lead ID
      * @param user user to assign to
      * @return updated lead
+     * @throws BusinessException if the lead is no longer NEW
      */
     @CacheEvict(value = "leads", allEntries = true)
     public Lead assignLeadToUser(Long leadId, User user) {
         Lead lead = findById(leadId);
         String oldStatus = lead.getStatus();
         
-        lead.setAssignedTo(user);
-        lead.setStatus("ASSIGNED");
-        lead.setUpdatedDate(LocalDateTime.now());
-        
-        Lead savedLead = leadRepository.save(lead);
+        Lead savedLead = transition(lead, LeadStatusMachine.Action.ASSIGN, null, user);
 
         // Log assignment
         leadHistoryService.logActivity(savedLead, user, "Lead assigned to " + user.getUsername(), 
@@ -226,6 +395,27 @@ public class LeadService {
         return savedLead;
     }
 
+    /**
+     * Assign NEW leads to a user with batched UPDATE statements.
+     * Does not evict the cache or log history; callers doing bulk work handle both once.
+     * @param leadIds IDs of leads to assign
+     * @param user user to assign to
+     * @return IDs of the leads actually assigned (leads no longer NEW are skipped)
+     */
+    public List<Long> assignNewLeads(Collection<Long> leadIds, User user) {
+        LocalDateTime now = bulkUpdateTime();
+        List<Long> assigned = new ArrayList<>(leadIds.size());
+        for (List<Long> chunk : chunk(leadIds)) {
+            int chunkUpdated = leadRepository.assignNewLeads(chunk, user, now);
+            assigned.addAll(changedIds(chunk, chunkUpdated, now));
+        }
+        leadOutbox.leadsChanged(assigned, LeadOutbox.ASSIGNED, LeadStatusMachine.Status.ASSIGNED.name(),
+                user.getId(), null);
+        assigneeTopLeadsIndex.leadsUpdated(assigned, user.getId());
+        leadSlaTimers.leadsUpdated(assigned, true, now);
+        return assigned;
+    }
+
     /**
      * Recalculate lead score
      * @param leadId lead ID
@@ -241,6 +431,9 @@ public class LeadService {
         lead.setUpdatedDate(LocalDateTime.now());
         
         Lead savedLead = leadRepository.save(lead);
+        assigneeTopLeadsIndex.leadSaved(savedLead);
+        leadScoreHistogram.leadChanged(oldScore, savedLead.getLeadSource(), savedLead.getIndustry(), savedLead);
+        leadOutbox.leadChanged(savedLead, LeadOutbox.SCORED);
 
         // Log score recalculation
         leadHistoryService.logActivity(savedLead, null, "Lead score recalculated from " + oldScore + " to " + newScore, 
@@ -257,6 +450,13 @@ public class LeadService {
     public void deleteLead(Long id) {
         Lead lead = findById(id);
         leadRepository.delete(lead);
+        assigneeTopLeadsIndex.leadDeleted(id);
+        leadSlaTimers.leadDeleted(id);
+        leadOutbox.leadDeleted(id);
+        if (LeadStatusMachine.Status.PRE_CONVERSION.name().equals(lead.getStatus()) && lead.getAssignedTo() != null) {
+            managerLoadIndex.leadsResolved(lead.getAssignedTo().getId(), 1);
+        }
+        leadScoreHistogram.leadRemoved(lead);
     }
 
     /**
@@ -268,6 +468,142 @@ public class LeadService {
         return leadRepository.countByStatus(status);
     }
 
+    /**
+     * Count open (ASSIGNED or IN_PROGRESS) leads per assigned user
+     * @return map of user ID to open lead count; users without open leads are absent
+     */
+    public Map<Long, Long> countOpenLeadsByAssignee() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : leadRepository.countByAssigneeAndStatusIn(OPEN_STATUSES)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    /**
+     * Count open leads per assignee, including assignees that have since been deactivated
+     * @return rows of [assigned user ID, assignee active flag, open lead count]
+     */
+    public List<Object[]> countOpenLeadsByAssigneeWithActiveFlag() {
+        return leadRepository.countByAssigneeWithActiveFlag(OPEN_STATUSES);
+    }
+
+    /**
+     * Find IDs of an assignee's open leads to hand over, untouched and lowest-scoring first
+     * @param assigneeId current assignee
+     * @param limit maximum number of IDs
+     * @return lead IDs
+     */
+    public List<Long> findOpenLeadIdsForReassignment(Long assigneeId, int limit) {
+        return leadRepository.findIdsForReassignment(assigneeId, OPEN_STATUSES, Pageable.ofSize(limit));
+    }
+
+    /**
+     * Move open leads between assignees with batched UPDATE statements.
+     * Does not evict the cache or log history; callers doing bulk work handle both once.
+     * @param leadIds IDs of leads to move
+     * @param fromUserId expected current assignee; leads assigned elsewhere in the meantime are skipped
+     * @param toUser new assignee
+     * @return IDs of the leads actually moved
+     */
+    public List<Long> reassignOpenLeads(Collection<Long> leadIds, Long fromUserId, User toUser) {
+        LocalDateTime now = bulkUpdateTime();
+        List<Long> moved = new ArrayList<>(leadIds.size());
+        for (List<Long> chunk : chunk(leadIds)) {
+            int chunkUpdated = leadRepository.reassignLeads(chunk, fromUserId, toUser, OPEN_STATUSES, now);
+            moved.addAll(changedIds(chunk, chunkUpdated, now));
+        }
+        leadOutbox.leadsChanged(moved, LeadOutbox.REASSIGNED, null, toUser.getId(), null);
+        assigneeTopLeadsIndex.leadsUpdated(moved, toUser.getId());
+        leadSlaTimers.leadsUpdated(moved, true, now);
+        return moved;
+    }
+
+    /**
+     * Lock leads for a bulk workflow operation using chunked IN-list queries.
+     * IDs are sorted before chunking and each chunk locks in ID order, so every caller takes
+     * row locks in the same global order and overlapping bulk operations cannot deadlock.
+     * @param ids lead IDs
+     * @return leads found, in ID order; missing IDs are skipped
+     */
+    public List<Lead> lockAllByIds(Collection<Long> ids) {
+        List<Lead> leads = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunk(ids.stream().filter(Objects::nonNull).sorted().distinct().toList())) {
+            leads.addAll(leadRepository.lockAllById(chunk));
+        }
+        return leads;
+    }
+
+    /**
+     * Take the same state machine action on several of an assignee's leads with batched UPDATE statements.
+     * Callers check each lead against {@link LeadStatusMachine} first; the UPDATE re-checks status and assignee.
+     * Does not evict the cache or log history; callers doing bulk work handle both once.
+     * @param leadIds IDs of the checked leads
+     * @param action action to take
+     * @param fromUserId current assignee of the leads
+     * @param toUser assignee after the change
+     * @return number of leads actually updated
+     */
+    public int transitionLeads(Collection<Long> leadIds, LeadStatusMachine.Action action, Long fromUserId, User toUser) {
+        LocalDateTime now = bulkUpdateTime();
+        int updated = 0;
+        for (List<Long> chunk : chunk(leadIds)) {
+            int chunkUpdated = leadRepository.transitionLeads(chunk, fromUserId, action.getSourceNames(),
+                    action.getTarget().name(), toUser, now);
+            leadOutbox.leadsChanged(updatedIds(chunk, chunkUpdated, now), LeadOutbox.STATUS_CHANGED,
+                    action.getTarget().name(), toUser.getId(), null);
+            updated += chunkUpdated;
+        }
+        assigneeTopLeadsIndex.leadsUpdated(leadIds, toUser.getId());
+        leadSlaTimers.leadsUpdated(leadIds, OPEN_STATUSES.contains(action.getTarget().name()), now);
+        return updated;
+    }
+
+    /**
+     * Lock the next leads in ID order and read their scoring inputs. The rows stay locked until the
+     * caller's transaction ends, so scores written from these inputs cannot overwrite a concurrent update.
+     * @param afterId only leads with a higher ID are returned
+     * @param limit number of leads to lock; leads inserted into the range meanwhile are included too
+     * @return rows of [id, potentialValue, leadSource, email, phone, leadScore]
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Object[]> lockScoringInputsAfter(Long afterId, int limit) {
+        List<Long> ids = leadRepository.findIdsAfter(afterId, Pageable.ofSize(limit));
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return leadRepository.lockScoringInputsBetween(afterId, ids.get(ids.size() - 1));
+    }
+
+    /**
+     * Set the same score on several leads with batched UPDATE statements.
+     * Does not evict the cache or log history; callers doing bulk work handle both once.
+     * @param leadIds IDs of leads to update
+     * @param leadScore new score
+     * @return number of leads updated
+     */
+    public int updateLeadScores(Collection<Long> leadIds, int leadScore) {
+        LocalDateTime now = bulkUpdateTime();
+        int updated = 0;
+        for (List<Long> chunk : chunk(leadIds)) {
+            int chunkUpdated = leadRepository.updateLeadScores(chunk, leadScore, now);
+            leadOutbox.leadsChanged(updatedIds(chunk, chunkUpdated, now), LeadOutbox.SCORED,
+                    null, null, leadScore);
+            updated += chunkUpdated;
+        }
+        assigneeTopLeadsIndex.scoresChanged();
+        return updated;
+    }
+
+    /**
+     * Get a lead reference without loading it, e.g. to attach history rows after a bulk update
+     * @param id lead ID
+     * @return lead reference
+     */
+    public Lead getReference(Long id) {
+        return leadRepository.getReferenceById(id);
+    }
+
     /**
      * Count leads by assigned user
      * @param user assigned user
@@ -276,5 +612,52 @@ public class LeadService {
     public long countByAssignedTo(User user) {
         return leadRepository.countByAssignedTo(user);
     }
-}
 
+    /**
+     * Update time for bulk UPDATE statements, at the microsecond precision of the timestamp columns,
+     * so the updated rows can be found again by it
+     */
+    private static LocalDateTime bulkUpdateTime() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    /**
+     * IDs of the leads a conditional bulk UPDATE actually changed, for the outbox
+     * @param chunk IDs the UPDATE was given
+     * @param updated number of rows it updated
+     * @param updatedDate update time it stamped
+     * @return the changed IDs; empty while the outbox is disabled
+     */
+    private List<Long> updatedIds(List<Long> chunk, int updated, LocalDateTime updatedDate) {
+        if (!leadOutbox.isEnabled()) {
+            return Collections.emptyList();
+        }
+        return changedIds(chunk, updated, updatedDate);
+    }
+
+    /**
+     * IDs of the leads a conditional bulk UPDATE actually changed
+     * @param chunk IDs the UPDATE was given
+     * @param updated number of rows it updated
+     * @param updatedDate update time it stamped
+     * @return the changed IDs
+     */
+    private List<Long> changedIds(List<Long> chunk, int updated, LocalDateTime updatedDate) {
+        if (updated == 0) {
+            return Collections.emptyList();
+        }
+        if (updated == chunk.size()) {
+            return chunk;
+        }
+        return leadRepository.findIdsUpdatedAt(chunk, updatedDate);
+    }
+
+    private static List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_LIST_CHUNK_SIZE) {
+            chunks.add(all.subList(from, Math.min(from + IN_LIST_CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,51 @@
+package com.mig.sales.leadmanagement.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Hands leads whose SLA timers expired to the workflow, one transaction per batch
+ */
+@Service
+public class LeadSlaScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadSlaScheduler.class);
+
+    @Autowired
+    private LeadSlaTimers leadSlaTimers;
+
+    @Autowired
+    private WorkflowService workflowService;
+
+    @Value("${lead.sla.batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * Advance the timers and handle every expired lead; a failed batch is retried after a delay
+     */
+    @Scheduled(fixedDelayString = "${lead.sla.tick-ms:1000}")
+    public void expireTimers() {
+        List<Long> batch;
+        while (!(batch = leadSlaTimers.takeExpired(batchSize)).isEmpty()) {
+            try {
+                WorkflowService.SlaBreachResult result = workflowService.handleSlaBreaches(batch);
+                if (!result.getEscalated().isEmpty() || !result.getFlagged().isEmpty()) {
+                    log.info("SLA breached by {} leads: {} escalated, {} flagged",
+                            result.getEscalated().size() + result.getFlagged().size(),
+                            result.getEscalated().size(), result.getFlagged().size());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to handle {} expired SLA timers; retrying in {}", batch.size(),
+                        LeadSlaTimers.RETRY_DELAY, e);
+                leadSlaTimers.retryLater(batch);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * SLA timers for open (ASSIGNED and IN_PROGRESS) leads, held in a {@link SlaTimingWheel}.
+ *
+ * Each open lead has one timer set to its last update plus the SLA. The timers are loaded
+ * at startup from one index-only query, and {@link LeadService} reports status changes and
+ * updates once their transaction commits. Timers are hints: {@link LeadSlaScheduler} hands
+ * expired ones to {@link WorkflowService#handleSlaBreaches}, which re-checks each lead under
+ * lock, so a timer that fires for a lead changed in the meantime costs a lookup, not a wrong
+ * escalation.
+ */
+@Service
+public class LeadSlaTimers {
+
+    private static final Logger log = LoggerFactory.getLogger(LeadSlaTimers.class);
+
+    /** Slots per wheel level; four levels of 256 one-second ticks reach past a hundred years */
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_LEVELS = 4;
+
+    /** Delay before leads of a failed batch are handed over again */
+    static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Value("${lead.sla.hours:48}")
+    private long slaHours = 48;
+
+    @Value("${lead.sla.tick-ms:1000}")
+    private long tickMillis = 1000;
+
+    /** Null until loaded, and while the SLA is disabled; guarded by this */
+    private SlaTimingWheel wheel;
+
+    /**
+     * Load a timer for every open lead. Timers reported while loading win or are corrected on expiry.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!isEnabled()) {
+            log.info("Lead SLA disabled");
+            return;
+        }
+        SlaTimingWheel loading = new SlaTimingWheel(tickMillis, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        synchronized (this) {
+            wheel = loading;
+        }
+        long slaMillis = getSla().toMillis();
+        try (Stream<Object[]> rows = leadRepository.streamUpdatedDates(LeadService.OPEN_STATUSES)) {
+            rows.forEach(row -> {
+                long deadline = toMillis((LocalDateTime) row[1]) + slaMillis;
+                synchronized (this) {
+                    loading.schedule((Long) row[0], deadline);
+                }
+            });
+        }
+        log.info("Loaded {} lead SLA timers", pendingCount());
+    }
+
+    /**
+     * @return true if open leads have an SLA
+     */
+    public boolean isEnabled() {
+        return slaHours > 0;
+    }
+
+    /**
+     * @return time a lead may stay open without an update
+     */
+    public Duration getSla() {
+        return Duration.ofHours(slaHours);
+    }
+
+    /**
+     * Set or cancel a lead's timer once the current transaction commits
+     * @param lead saved lead, with its current status and update time
+     */
+    public void leadSaved(Lead lead) {
+        Long leadId = lead.getId();
+        boolean open = LeadService.OPEN_STATUSES.contains(lead.getStatus());
+        LocalDateTime updatedDate = lead.getUpdatedDate();
+        TransactionCallbacks.afterCommit(() -> apply(Collections.singletonList(leadId), open, updatedDate));
+    }
+
+    /**
+     * Set or cancel the timers of leads changed by a bulk update once the current transaction commits
+     * @param leadIds IDs of the updated leads
+     * @param open whether the leads are open after the update
+     * @param updatedDate update time stamped on the leads
+     */
+    public void leadsUpdated(Collection<Long> leadIds, boolean open, LocalDateTime updatedDate) {
+        List<Long> ids = new ArrayList<>(leadIds);
+        TransactionCallbacks.afterCommit(() -> apply(ids, open, updatedDate));
+    }
+
+    /**
+     * Start another SLA period for leads flagged as overdue once the current transaction commits,
+     * so a lead nobody touches is flagged once per SLA period
+     * @param leadIds IDs of the flagged leads
+     * @param flaggedDate update time stamped on the leads when they were flagged
+     */
+    public void leadsFlagged(Collection<Long> leadIds, LocalDateTime flaggedDate) {
+        leadsUpdated(leadIds, true, flaggedDate);
+    }
+
+    /**
+     * Cancel a deleted lead's timer once the current transaction commits
+     * @param leadId ID of the deleted lead
+     */
+    public void leadDeleted(Long leadId) {
+        TransactionCallbacks.afterCommit(() -> apply(Collections.singletonList(leadId), false, null));
+    }
+
+    /**
+     * Advance the wheel to now and take up to max leads whose timers expired
+     * @param max maximum number of lead IDs
+     * @return lead IDs; their timers are removed
+     */
+    public synchronized List<Long> takeExpired(int max) {
+        return wheel != null ? wheel.advance(System.currentTimeMillis(), max) : Collections.emptyList();
+    }
+
+    /**
+     * Hand leads over again after a delay, when handling their expired timers failed
+     * @param leadIds lead IDs
+     */
+    public synchronized void retryLater(Collection<Long> leadIds) {
+        if (wheel == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + RETRY_DELAY.toMillis();
+        for (Long leadId : leadIds) {
+            wheel.schedule(leadId, deadline);
+        }
+    }
+
+    /**
+     * @return number of pending timers
+     */
+    public synchronized int pendingCount() {
+        return wheel != null ? wheel.size() : 0;
+    }
+
+    private synchronized void apply(List<Long> leadIds, boolean open, LocalDateTime updatedDate) {
+        if (wheel == null) {
+            return;
+        }
+        long deadline = open ? toMillis(updatedDate) + getSla().toMillis() : 0;
+        for (Long leadId : leadIds) {
+            if (open) {
+                wheel.schedule(leadId, deadline);
+            } else {
+                wheel.cancel(leadId);
+            }
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null
+                ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+    }
+}
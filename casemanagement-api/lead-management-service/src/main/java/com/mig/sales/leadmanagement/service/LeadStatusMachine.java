@@ -0,0 +1,227 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.exception.UnauthorizedException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Lead status state machine, compiled once into enum-indexed tables.
+ *
+ * Each {@link Action} names the statuses it starts from, the status it leads to and its
+ * guards: whether the acting user must be a manager, whether they must be the lead's
+ * assignee, and whether the lead must or must not be high-value. Checks are array
+ * lookups and field comparisons on a lead that is already loaded. An action taken by
+ * the system rather than a user (a null actor) skips the role and ownership guards.
+ *
+ * Every single-lead status write goes through {@link LeadService#transition}. Bulk workflow
+ * operations check each lead here and re-check the action's source statuses in their UPDATE;
+ * the bulk assignment UPDATE encodes {@link Action#ASSIGN} in its WHERE clause directly.
+ */
+public final class LeadStatusMachine {
+
+    /**
+     * Lead statuses, as stored in LEADS.STATUS
+     */
+    public enum Status {
+        NEW, ASSIGNED, IN_PROGRESS, PRE_CONVERSION, CONVERTED, REJECTED;
+
+        private static final Map<String, Status> BY_NAME = new HashMap<>();
+
+        static {
+            for (Status status : values()) {
+                BY_NAME.put(status.name(), status);
+            }
+        }
+
+        /**
+         * @param name stored status
+         * @return the status, or null if the name is not a known status
+         */
+        public static Status of(String name) {
+            return name != null ? BY_NAME.get(name) : null;
+        }
+    }
+
+    /**
+     * Requirement on the lead's value for an action
+     */
+    enum ValueGuard { ANY, HIGH_VALUE, STANDARD }
+
+    /**
+     * Actions that change a lead's status
+     */
+    public enum Action {
+        ASSIGN("assign", Status.ASSIGNED, false, false, ValueGuard.ANY, false, Status.NEW),
+        START_WORK("start work on", Status.IN_PROGRESS, false, true, ValueGuard.ANY, true, Status.ASSIGNED),
+        REQUEST_APPROVAL("request approval for", Status.IN_PROGRESS, false, true, ValueGuard.STANDARD, false,
+                Status.ASSIGNED, Status.IN_PROGRESS),
+        ESCALATE("escalate", Status.PRE_CONVERSION, false, true, ValueGuard.HIGH_VALUE, false,
+                Status.ASSIGNED, Status.IN_PROGRESS),
+        APPROVE("approve", Status.CONVERTED, true, true, ValueGuard.ANY, true,
+                Status.PRE_CONVERSION, Status.IN_PROGRESS),
+        REJECT("reject", Status.REJECTED, true, true, ValueGuard.ANY, true,
+                Status.PRE_CONVERSION, Status.IN_PROGRESS);
+
+        private final String verb;
+        private final Status target;
+        private final boolean managerOnly;
+        private final boolean assigneeOnly;
+        private final ValueGuard valueGuard;
+        private final boolean statusUpdate;
+        private final Status[] sources;
+        private final List<String> sourceNames;
+
+        /**
+         * @param statusUpdate whether a plain status update may take this action; actions that
+         *                     also reassign the lead are only taken by their own operations
+         */
+        Action(String verb, Status target, boolean managerOnly, boolean assigneeOnly, ValueGuard valueGuard,
+               boolean statusUpdate, Status... sources) {
+            this.verb = verb;
+            this.target = target;
+            this.managerOnly = managerOnly;
+            this.assigneeOnly = assigneeOnly;
+            this.valueGuard = valueGuard;
+            this.statusUpdate = statusUpdate;
+            this.sources = sources;
+            this.sourceNames = Arrays.stream(sources).map(Status::name).collect(Collectors.toUnmodifiableList());
+        }
+
+        public Status getTarget() { return target; }
+        /** Stored statuses the action starts from, for re-checking in a bulk UPDATE */
+        public List<String> getSourceNames() { return sourceNames; }
+    }
+
+    /**
+     * Outcome of a check
+     */
+    public enum Verdict { ALLOWED, INVALID_STATUS, NOT_MANAGER, NOT_ASSIGNEE, NOT_HIGH_VALUE, HIGH_VALUE }
+
+    private static final String MANAGER_ROLE = "SALES_MANAGER";
+
+    private static final Action[] USER_ACTIONS = EnumSet.complementOf(EnumSet.of(Action.ASSIGN)).toArray(new Action[0]);
+
+    /** allowed[status][action] */
+    private static final boolean[][] ALLOWED = new boolean[Status.values().length][Action.values().length];
+
+    /** Action a plain status update takes, indexed [from][to]; null if the update is not allowed */
+    private static final Action[][] STATUS_UPDATES = new Action[Status.values().length][Status.values().length];
+
+    static {
+        for (Action action : Action.values()) {
+            for (Status source : action.sources) {
+                ALLOWED[source.ordinal()][action.ordinal()] = true;
+                if (action.statusUpdate) {
+                    Action previous = STATUS_UPDATES[source.ordinal()][action.target.ordinal()];
+                    if (previous != null) {
+                        throw new IllegalStateException("Status update " + source + " -> " + action.target
+                                + " is ambiguous between " + previous + " and " + action);
+                    }
+                    STATUS_UPDATES[source.ordinal()][action.target.ordinal()] = action;
+                }
+            }
+        }
+    }
+
+    private LeadStatusMachine() {
+    }
+
+    /**
+     * Check whether a user may take an action on a lead
+     * @param lead loaded lead
+     * @param action action to take
+     * @param actor acting user, or null for the system
+     * @param highValue whether the lead is high-value
+     * @return ALLOWED, or the first guard that fails
+     */
+    public static Verdict check(Lead lead, Action action, User actor, boolean highValue) {
+        Status status = Status.of(lead.getStatus());
+        if (status == null || !ALLOWED[status.ordinal()][action.ordinal()]) {
+            return Verdict.INVALID_STATUS;
+        }
+        if (actor != null) {
+            if (action.managerOnly && !MANAGER_ROLE.equals(actor.getRole())) {
+                return Verdict.NOT_MANAGER;
+            }
+            if (action.assigneeOnly && (lead.getAssignedTo() == null
+                    || !lead.getAssignedTo().getId().equals(actor.getId()))) {
+                return Verdict.NOT_ASSIGNEE;
+            }
+        }
+        if (action.valueGuard == ValueGuard.HIGH_VALUE && !highValue) {
+            return Verdict.NOT_HIGH_VALUE;
+        }
+        if (action.valueGuard == ValueGuard.STANDARD && highValue) {
+            return Verdict.HIGH_VALUE;
+        }
+        return Verdict.ALLOWED;
+    }
+
+    /**
+     * Find the actions a user may take on a lead
+     * @param lead loaded lead
+     * @param actor acting user
+     * @param highValue whether the lead is high-value
+     * @return allowed actions, excluding {@link Action#ASSIGN}, which only the system takes
+     */
+    public static Set<Action> allowedActions(Lead lead, User actor, boolean highValue) {
+        Set<Action> allowed = EnumSet.noneOf(Action.class);
+        for (Action action : USER_ACTIONS) {
+            if (check(lead, action, actor, highValue) == Verdict.ALLOWED) {
+                allowed.add(action);
+            }
+        }
+        return allowed;
+    }
+
+    /**
+     * Check an action like {@link #check} and throw if it is not allowed
+     * @throws UnauthorizedException if a role or ownership guard fails
+     * @throws BusinessException if the lead's status or value does not allow the action
+     */
+    public static void require(Lead lead, Action action, User actor, boolean highValue) {
+        switch (check(lead, action, actor, highValue)) {
+            case ALLOWED:
+                return;
+            case NOT_MANAGER:
+                throw new UnauthorizedException("Only managers can " + action.verb + " this lead");
+            case NOT_ASSIGNEE:
+                throw new UnauthorizedException("User is not authorized to " + action.verb + " this lead");
+            case NOT_HIGH_VALUE:
+                throw new BusinessException("Lead does not meet high-value criteria for escalation");
+            case HIGH_VALUE:
+                throw new BusinessException("High-value leads must be escalated, not approved through standard process");
+            default:
+                throw new BusinessException("Cannot " + action.verb + " a lead in status " + lead.getStatus());
+        }
+    }
+
+    /**
+     * Find the action a plain status update takes
+     * @param from current status
+     * @param to requested status
+     * @return the action
+     * @throws BusinessException if the requested status is unknown or cannot be set directly from the current one
+     */
+    public static Action statusUpdate(String from, String to) {
+        Status target = Status.of(to);
+        if (target == null) {
+            throw new BusinessException("Unknown lead status: " + to);
+        }
+        Status source = Status.of(from);
+        Action action = source != null ? STATUS_UPDATES[source.ordinal()][target.ordinal()] : null;
+        if (action == null) {
+            throw new BusinessException("Cannot change lead status from " + from + " to " + to);
+        }
+        return action;
+    }
+}
@@ -0,0 +1,175 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import com.mig.sales.leadmanagement.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * In-memory count of escalated (PRE_CONVERSION) leads per manager, for spreading escalations.
+ *
+ * Active managers sit in a tree ordered by load and then ID, so the least-loaded manager
+ * is its first entry and claiming one is a removal and re-insertion, both O(log n). Loads
+ * are read with one grouped query at startup. An escalation counts against its manager as
+ * soon as the manager is claimed, so concurrent escalations spread out, and is given back
+ * if its transaction rolls back. Approvals, rejections and deletions of escalated leads,
+ * and escalated leads reassigned or unassigned through {@link LeadService}, are counted
+ * once they commit. {@link UserService} reports managers that are created, deactivated
+ * or reactivated.
+ */
+@Service
+public class ManagerLoadIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ManagerLoadIndex.class);
+
+    static final String MANAGER_ROLE = "SALES_MANAGER";
+
+    private static final List<String> ESCALATED_STATUSES = List.of(LeadStatusMachine.Status.PRE_CONVERSION.name());
+
+    private static final Comparator<ManagerLoad> LEAST_LOADED = Comparator
+            .comparingLong((ManagerLoad entry) -> entry.load)
+            .thenComparing(entry -> entry.manager.getId());
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // All three are guarded by this
+    /** Escalated leads per assignee, including inactive managers so a reactivated one keeps its count */
+    private Map<Long, Long> loads = new HashMap<>();
+    private Map<Long, ManagerLoad> activeManagers = new HashMap<>();
+    private TreeSet<ManagerLoad> byLoad = new TreeSet<>(LEAST_LOADED);
+
+    /**
+     * Replace the loads and the manager roster with what the database holds
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, Long> newLoads = new HashMap<>();
+        for (Object[] row : leadRepository.countByAssigneeAndStatusIn(ESCALATED_STATUSES)) {
+            newLoads.put((Long) row[0], (Long) row[1]);
+        }
+        List<User> managers = userRepository.findActiveUsersByRole(MANAGER_ROLE);
+        synchronized (this) {
+            loads = newLoads;
+            activeManagers = new HashMap<>();
+            byLoad = new TreeSet<>(LEAST_LOADED);
+            for (User manager : managers) {
+                put(new ManagerLoad(manager, newLoads.getOrDefault(manager.getId(), 0L)));
+            }
+        }
+        log.info("Loaded escalation loads for {} active managers", managers.size());
+    }
+
+    /**
+     * Claim the active manager with the fewest escalated leads for one more escalation.
+     * The escalation counts at once and is given back if the current transaction rolls back.
+     * @return the manager, or null if there is no active manager
+     */
+    public synchronized User claimLeastLoaded() {
+        ManagerLoad least = byLoad.pollFirst();
+        if (least == null) {
+            return null;
+        }
+        Long managerId = least.manager.getId();
+        activeManagers.remove(managerId);
+        loads.put(managerId, least.load + 1);
+        put(new ManagerLoad(least.manager, least.load + 1));
+        TransactionCallbacks.afterRollback(() -> adjust(managerId, -1));
+        return least.manager;
+    }
+
+    /**
+     * Record escalated leads that left a manager's queue once the current transaction commits
+     * @param managerId ID of the manager the leads were assigned to
+     * @param count number of leads approved, rejected or deleted
+     */
+    public void leadsResolved(Long managerId, int count) {
+        if (count > 0) {
+            TransactionCallbacks.afterCommit(() -> adjust(managerId, -count));
+        }
+    }
+
+    /**
+     * Record escalated leads that joined a manager's queue, other than through {@link #claimLeastLoaded()},
+     * once the current transaction commits
+     * @param managerId ID of the manager the leads are now assigned to
+     * @param count number of leads reassigned to the manager
+     */
+    public void leadsAssigned(Long managerId, int count) {
+        if (count > 0) {
+            TransactionCallbacks.afterCommit(() -> adjust(managerId, count));
+        }
+    }
+
+    /**
+     * Add, keep or drop a manager from the roster once the current transaction commits
+     * @param user saved user; users who are not managers are ignored
+     */
+    public void managerChanged(User user) {
+        if (!MANAGER_ROLE.equals(user.getRole())) {
+            return;
+        }
+        boolean active = Boolean.TRUE.equals(user.getIsActive());
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (this) {
+                ManagerLoad current = activeManagers.remove(user.getId());
+                if (current != null) {
+                    byLoad.remove(current);
+                }
+                if (active) {
+                    put(new ManagerLoad(user, loads.getOrDefault(user.getId(), 0L)));
+                }
+            }
+        });
+    }
+
+    /**
+     * @param managerId manager ID
+     * @return escalated leads currently counted against the manager
+     */
+    public synchronized long loadOf(Long managerId) {
+        return loads.getOrDefault(managerId, 0L);
+    }
+
+    private synchronized void adjust(Long managerId, long delta) {
+        long load = Math.max(0, loads.getOrDefault(managerId, 0L) + delta);
+        loads.put(managerId, load);
+        ManagerLoad current = activeManagers.remove(managerId);
+        if (current != null) {
+            byLoad.remove(current);
+            put(new ManagerLoad(current.manager, load));
+        }
+    }
+
+    private void put(ManagerLoad entry) {
+        activeManagers.put(entry.manager.getId(), entry);
+        byLoad.add(entry);
+    }
+
+    /**
+     * Tree entry; replaced rather than modified so the tree order stays valid
+     */
+    private static final class ManagerLoad {
+        private final User manager;
+        private final long load;
+
+        ManagerLoad(User manager, long load) {
+            this.manager = manager;
+            this.load = load;
+        }
+    }
+}
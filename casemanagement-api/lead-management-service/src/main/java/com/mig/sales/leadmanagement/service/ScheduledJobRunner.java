@@ -0,0 +1,133 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.JobRun;
+import com.mig.sales.leadmanagement.repository.JobRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs cluster-wide scheduled jobs on the node elected by {@link JobLeaderElection}.
+ *
+ * Each job keeps its own {@code @Scheduled} trigger on every node and hands its work to
+ * {@link #runAsLeader}, which skips it on the other nodes. Runs are timed in the
+ * lead.jobs.duration meter by job and outcome, and skipped runs are counted in
+ * lead.jobs.skipped. Jobs that run rarely also keep a history in JOB_RUNS; jobs that run
+ * every few seconds rely on the meters alone. A job that commits in several transactions
+ * checks {@link #isLeader} between them, so it stops once another node may have taken over.
+ */
+@Service
+public class ScheduledJobRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledJobRunner.class);
+
+    public static final String SUCCEEDED = "SUCCEEDED";
+    public static final String FAILED = "FAILED";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private JobLeaderElection jobLeaderElection;
+
+    @Autowired
+    private JobRunRepository jobRunRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${lead.jobs.history-days:30}")
+    private int historyDays = 30;
+
+    /**
+     * Run a job if this node holds its lease. A failure is logged and recorded, not rethrown.
+     * @param jobName job name, shared by all nodes
+     * @param recordHistory whether to store the run in JOB_RUNS
+     * @param task the job's work
+     * @return true if the job ran on this node
+     */
+    public boolean runAsLeader(String jobName, boolean recordHistory, Runnable task) {
+        if (!jobLeaderElection.isLeader(jobName)) {
+            Counter.builder("lead.jobs.skipped").tag("job", jobName)
+                    .description("Job runs skipped on nodes not holding the lease").register(meterRegistry).increment();
+            return false;
+        }
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        String error = null;
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            log.error("Job {} failed", jobName, e);
+            error = e.toString();
+        }
+        Timer.builder("lead.jobs.duration").tag("job", jobName).tag("outcome", error == null ? "success" : "failure")
+                .description("Job run time").register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (recordHistory) {
+            record(jobName, startedAt, error);
+        }
+        return true;
+    }
+
+    /**
+     * @param jobName job name
+     * @return true if this node still holds the job's lease
+     */
+    public boolean isLeader(String jobName) {
+        return jobLeaderElection.isLeader(jobName);
+    }
+
+    /**
+     * @param jobName job name, or null for all jobs
+     * @param limit maximum number of runs
+     * @return the latest recorded runs, newest first
+     */
+    public List<JobRun> findRecentRuns(String jobName, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        return jobName != null ? jobRunRepository.findLatestByJobName(jobName, page) : jobRunRepository.findLatest(page);
+    }
+
+    /**
+     * Delete run history older than lead.jobs.history-days
+     */
+    @Scheduled(cron = "${lead.jobs.history-purge-cron:0 30 3 * * *}")
+    public void purgeHistory() {
+        runAsLeader("job-history-purge", true, () -> {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            Integer deleted = transaction.execute(status ->
+                    jobRunRepository.deleteStartedBefore(LocalDateTime.now().minusDays(historyDays)));
+            log.info("Purged {} job runs", deleted);
+        });
+    }
+
+    private void record(String jobName, LocalDateTime startedAt, String error) {
+        JobRun run = new JobRun();
+        run.setJobName(jobName);
+        run.setOwner(jobLeaderElection.getOwner());
+        run.setStartedAt(startedAt);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setStatus(error == null ? SUCCEEDED : FAILED);
+        run.setErrorMessage(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        try {
+            jobRunRepository.save(run);
+        } catch (RuntimeException e) {
+            log.warn("Could not record a run of job {}", jobName, e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.mig.sales.leadmanagement.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Scheduled lead distribution and rescoring, each enabled by setting its cron and run on one
+ * node through {@link ScheduledJobRunner}.
+ *
+ * The jobs call their services through the Spring proxies, so the services' transactions and
+ * cache eviction apply as they do for the manager endpoints.
+ */
+@Service
+public class ScheduledLeadJobs {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduledLeadJobs.class);
+
+    static final String DISTRIBUTION_JOB = "lead-distribution";
+    static final String RESCORING_JOB = "lead-rescoring";
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Autowired
+    private LeadDistributionService leadDistributionService;
+
+    @Autowired
+    private LeadRescoringService leadRescoringService;
+
+    /** round-robin or rules, as for POST /leads/distribute */
+    @Value("${lead.distribution.strategy:round-robin}")
+    private String distributionStrategy = "round-robin";
+
+    /**
+     * Distribute new leads, enabled by setting lead.distribution.cron
+     */
+    @Scheduled(cron = "${lead.distribution.cron:-}")
+    public void scheduledDistribution() {
+        scheduledJobRunner.runAsLeader(DISTRIBUTION_JOB, true, () -> {
+            int distributed = "rules".equalsIgnoreCase(distributionStrategy)
+                    ? leadDistributionService.distributeLeadsByRules()
+                    : leadDistributionService.distributeLeads();
+            log.info("Scheduled distribution assigned {} leads", distributed);
+        });
+    }
+
+    /**
+     * Rescore every lead, enabled by setting lead.rescoring.cron; stops between chunks if
+     * another node takes the job over
+     */
+    @Scheduled(cron = "${lead.rescoring.cron:-}")
+    public void scheduledRescoring() {
+        scheduledJobRunner.runAsLeader(RESCORING_JOB, true, () ->
+                leadRescoringService.rescoreAll(null, null, () -> scheduledJobRunner.isLeader(RESCORING_JOB)));
+    }
+}
@@ -0,0 +1,212 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.LogisticModelTrainer;
+import com.mig.sales.scoring.LogisticScoringModel;
+import com.mig.sales.scoring.ScoringMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Service for training a lead scoring model from conversion history.
+ *
+ * Every lead whose latest outcome in LEAD_HISTORY is CONVERTED or REJECTED is an
+ * example, with its current scoring attributes. Leads are read in ID order in pages;
+ * a fixed share of them, chosen by lead ID, is held out of training. The model is
+ * fitted with {@link LogisticModelTrainer} and written to the configured model file.
+ * The held-out leads are then read again and scored by both the model and the
+ * heuristic rules, and the report compares their AUC. The model is not activated;
+ * point lead.scoring.shadow.rules-file or lead.scoring.rules-file at the file for that.
+ */
+@Service
+public class ScoringModelTrainingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringModelTrainingService.class);
+
+    @Autowired
+    private LeadHistoryService leadHistoryService;
+
+    @Autowired
+    private LeadScoringService leadScoringService;
+
+    /**
+     * File the trained model is written to; a file ending in .model can be loaded as scoring rules
+     */
+    @Value("${lead.scoring.model.output-file:lead-scoring.model}")
+    private String outputFile = "lead-scoring.model";
+
+    /**
+     * Percentage of leads held out of training to measure the model on
+     */
+    @Value("${lead.scoring.model.holdout-percent:20}")
+    private int holdoutPercent = 20;
+
+    /**
+     * Examples a lead source needs to get a weight of its own
+     */
+    @Value("${lead.scoring.model.min-source-count:30}")
+    private int minSourceCount = 30;
+
+    /**
+     * Leads read per query
+     */
+    @Value("${lead.scoring.model.page-size:5000}")
+    private int pageSize = 5000;
+
+    /**
+     * Train a model on the conversion history and write it to the model file
+     * @param version version label for the model, or null for one based on the current time
+     * @return sizes of the training and holdout sets and the AUC of the model and the heuristic rules
+     * @throws BusinessException if the history lacks converted or rejected leads, or the file cannot be written
+     */
+    public TrainingReport train(String version) {
+        String modelVersion = version != null && !version.isBlank() ? version
+                : "model-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        TrainingReport report = new TrainingReport(modelVersion, outputFile);
+
+        LogisticModelTrainer trainer = new LogisticModelTrainer();
+        trainer.setMinSourceCount(minSourceCount);
+        forEachOutcome((leadId, row, converted) -> {
+            if (isHoldout(leadId)) {
+                report.holdoutCount++;
+            } else {
+                trainer.add((BigDecimal) row[1], (String) row[2], (String) row[3], (String) row[4], converted);
+            }
+        });
+        report.trainingCount = trainer.size();
+        report.trainingConvertedCount = trainer.getConvertedCount();
+
+        LogisticScoringModel model;
+        try {
+            model = trainer.train(modelVersion);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Not enough conversion history to train a model: " + e.getMessage());
+        }
+        write(model);
+
+        if (report.holdoutCount > 0) {
+            evaluate(model, report);
+        }
+        log.info("Trained scoring model {} on {} leads; holdout AUC {} against {} for the rules",
+                modelVersion, report.trainingCount, report.modelAuc, report.heuristicAuc);
+        return report;
+    }
+
+    /**
+     * Score the held-out leads with the model and the heuristic rules
+     */
+    private void evaluate(LogisticScoringModel model, TrainingReport report) {
+        CompiledScoringRules rules = leadScoringService.getRules();
+        int[] modelScores = new int[(int) report.holdoutCount];
+        int[] heuristicScores = new int[modelScores.length];
+        boolean[] converted = new boolean[modelScores.length];
+        int[] count = new int[1];
+        forEachOutcome((leadId, row, outcome) -> {
+            if (isHoldout(leadId) && count[0] < converted.length) {
+                int i = count[0]++;
+                modelScores[i] = model.score((BigDecimal) row[1], (String) row[2], (String) row[3], (String) row[4]);
+                heuristicScores[i] = rules.score((BigDecimal) row[1], (String) row[2], (String) row[3], (String) row[4]);
+                converted[i] = outcome;
+            }
+        });
+
+        int scored = count[0];
+        boolean[] outcomes = Arrays.copyOf(converted, scored);
+        long convertedCount = 0;
+        for (boolean outcome : outcomes) {
+            if (outcome) {
+                convertedCount++;
+            }
+        }
+        report.holdoutConvertedCount = convertedCount;
+        if (convertedCount > 0 && convertedCount < scored) {
+            report.modelAuc = ScoringMetrics.auc(Arrays.copyOf(modelScores, scored), outcomes);
+            report.heuristicAuc = ScoringMetrics.auc(Arrays.copyOf(heuristicScores, scored), outcomes);
+        }
+    }
+
+    /**
+     * Write the model next to the target and move it into place, so the reloader never sees a partial file
+     */
+    private void write(LogisticScoringModel model) {
+        Path target = Paths.get(outputFile).toAbsolutePath();
+        try {
+            Path temporary = Files.createTempFile(target.getParent(), ".lead-scoring", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                model.write(writer);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new BusinessException("Could not write scoring model to " + outputFile, e);
+        }
+    }
+
+    private void forEachOutcome(OutcomeConsumer consumer) {
+        long afterId = 0L;
+        while (true) {
+            List<Object[]> rows = leadHistoryService.findOutcomesAfter(afterId, pageSize);
+            for (Object[] row : rows) {
+                consumer.accept((Long) row[0], row, "CONVERTED".equals(row[5]));
+            }
+            if (rows.size() < pageSize) {
+                return;
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    private boolean isHoldout(long leadId) {
+        return Math.floorMod(leadId, 100) < holdoutPercent;
+    }
+
+    private interface OutcomeConsumer {
+        void accept(long leadId, Object[] row, boolean converted);
+    }
+
+    /**
+     * Outcome of a training run
+     */
+    public static class TrainingReport {
+        private final String version;
+        private final String outputFile;
+        private long trainingCount;
+        private long trainingConvertedCount;
+        private long holdoutCount;
+        private long holdoutConvertedCount;
+        private Double modelAuc;
+        private Double heuristicAuc;
+
+        TrainingReport(String version, String outputFile) {
+            this.version = version;
+            this.outputFile = outputFile;
+        }
+
+        public String getVersion() { return version; }
+        public String getOutputFile() { return outputFile; }
+        public long getTrainingCount() { return trainingCount; }
+        public long getTrainingConvertedCount() { return trainingConvertedCount; }
+        public long getHoldoutCount() { return holdoutCount; }
+        public long getHoldoutConvertedCount() { return holdoutConvertedCount; }
+        /** AUC of the model on the holdout leads; null unless they include both outcomes */
+        public Double getModelAuc() { return modelAuc; }
+        /** AUC of the heuristic rules on the same leads */
+        public Double getHeuristicAuc() { return heuristicAuc; }
+    }
+}
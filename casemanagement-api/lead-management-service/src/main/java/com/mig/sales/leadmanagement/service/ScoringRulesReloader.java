@@ -0,0 +1,120 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.LeadScorer;
+import com.mig.sales.scoring.LogisticScoringModel;
+import com.mig.sales.scoring.ScoringRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Service that watches versioned scoring rule files and swaps them into {@link LeadScoringService}.
+ *
+ * A rules file is JSON with the same properties as {@link ScoringRules}, including a
+ * version label; settings it omits keep their default values. The live rules file
+ * replaces the running rules. The shadow rules file, if present, is scored next to
+ * them on a sample of leads so its effect can be reviewed before it goes live. Either
+ * file may instead be a model trained by {@link ScoringModelTrainingService}, recognised
+ * by the .model extension.
+ * Files are checked on a fixed delay and reloaded when their modification time
+ * changes. A file that fails to parse or compile is logged and ignored, and the
+ * rules already running stay in place.
+ */
+@Service
+public class ScoringRulesReloader {
+
+    private static final Logger log = LoggerFactory.getLogger(ScoringRulesReloader.class);
+
+    private static final ObjectMapper RULES_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private LeadScoringService leadScoringService;
+
+    @Value("${lead.scoring.rules-file:}")
+    private String rulesFile = "";
+
+    @Value("${lead.scoring.shadow.rules-file:}")
+    private String shadowRulesFile = "";
+
+    @Value("${lead.scoring.shadow.sample-rate:1.0}")
+    private double shadowSampleRate = 1.0;
+
+    private long rulesModified;
+    private long shadowRulesModified;
+
+    /**
+     * Reload rule files that changed since the last check
+     */
+    @Scheduled(fixedDelayString = "${lead.scoring.reload-interval-ms:10000}")
+    public synchronized void reload() {
+        if (!rulesFile.isEmpty()) {
+            long modified = lastModified(rulesFile);
+            if (modified != 0 && modified != rulesModified) {
+                LeadScorer scorer = load(rulesFile);
+                if (scorer != null) {
+                    leadScoringService.activate(scorer);
+                    log.info("Activated scoring {} from {}", scorer.getVersion(), rulesFile);
+                }
+                rulesModified = modified;
+            }
+        }
+
+        if (!shadowRulesFile.isEmpty()) {
+            long modified = lastModified(shadowRulesFile);
+            if (modified == 0 && shadowRulesModified != 0) {
+                leadScoringService.stopShadow();
+                log.info("Stopped shadow scoring; {} was removed", shadowRulesFile);
+            } else if (modified != 0 && modified != shadowRulesModified) {
+                LeadScorer candidate = load(shadowRulesFile);
+                if (candidate != null) {
+                    leadScoringService.startShadow(candidate, shadowSampleRate);
+                    log.info("Shadow scoring {} from {} on {} of leads",
+                            candidate.getVersion(), shadowRulesFile, shadowSampleRate);
+                }
+            }
+            shadowRulesModified = modified;
+        }
+    }
+
+    /**
+     * Read a model file, or read and compile a rules file on top of the default rules
+     * @param file path of the file
+     * @return model or compiled rules, or null if the file is invalid
+     */
+    LeadScorer load(String file) {
+        try {
+            if (file.endsWith(".model")) {
+                try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+                    return LogisticScoringModel.read(reader);
+                }
+            }
+            ScoringRules rules = RULES_MAPPER.readerForUpdating(ScoringRules.defaults())
+                    .readValue(Paths.get(file).toFile());
+            return CompiledScoringRules.compile(rules);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Ignoring scoring rules file {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static long lastModified(String file) {
+        Path path = Paths.get(file);
+        try {
+            return Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : 0;
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
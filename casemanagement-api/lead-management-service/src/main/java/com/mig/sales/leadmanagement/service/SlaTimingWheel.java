@@ -0,0 +1,235 @@
+package com.mig.sales.leadmanagement.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel holding one timer per lead.
+ *
+ * Level 0 has one slot per tick; each level above has slots as wide as a whole turn of
+ * the level below. A timer sits in the lowest level whose current turn reaches its
+ * deadline, and is moved down a level when the wheel reaches its slot, so scheduling and
+ * cancelling are O(1) and each timer is moved at most once per level. Slots are intrusive
+ * doubly-linked lists, and a map from lead ID to timer makes cancelling by lead O(1).
+ * Timers beyond the top level's turn wait in the top slot the wheel reaches last and
+ * are placed again from there. Deadlines are rounded up to whole ticks, so a timer never fires early.
+ *
+ * Instances are not thread-safe.
+ */
+public final class SlaTimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Slot[][] levels;
+
+    private final Map<Long, Timer> timers = new HashMap<>();
+
+    /** Timers that are due but not yet taken */
+    private final Slot due = new Slot();
+
+    private long currentTick;
+
+    /**
+     * @param tickMillis width of a level-0 slot
+     * @param wheelSize slots per level
+     * @param levelCount number of levels; the top level turns once every tickMillis * wheelSize^levelCount
+     * @param nowMillis current time
+     */
+    public SlaTimingWheel(long tickMillis, int wheelSize, int levelCount, long nowMillis) {
+        if (tickMillis < 1 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Tick, wheel size and level count must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = new Slot[levelCount][wheelSize];
+        for (Slot[] level : levels) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new Slot();
+            }
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    /**
+     * Set or move a lead's timer
+     * @param leadId lead ID
+     * @param deadlineMillis time the timer expires at; a deadline already passed expires on the next advance
+     */
+    public void schedule(Long leadId, long deadlineMillis) {
+        Timer timer = timers.get(leadId);
+        if (timer == null) {
+            timer = new Timer(leadId);
+            timers.put(leadId, timer);
+        } else {
+            unlink(timer);
+        }
+        timer.deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        place(timer);
+    }
+
+    /**
+     * Remove a lead's timer, if it has one
+     * @param leadId lead ID
+     * @return true if a timer was removed
+     */
+    public boolean cancel(Long leadId) {
+        Timer timer = timers.remove(leadId);
+        if (timer == null) {
+            return false;
+        }
+        unlink(timer);
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the given time and take up to max expired timers.
+     * Expired timers left over stay due and are taken by the next call.
+     * @param nowMillis current time; earlier times than the wheel's leave it where it is
+     * @param max maximum number of lead IDs to return
+     * @return IDs of leads whose timers expired; their timers are removed
+     */
+    public List<Long> advance(long nowMillis, int max) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            tick();
+        }
+        List<Long> expired = new ArrayList<>();
+        while (expired.size() < max && due.head != null) {
+            Timer timer = due.head;
+            due.remove(timer);
+            timers.remove(timer.leadId);
+            expired.add(timer.leadId);
+        }
+        return expired;
+    }
+
+    /**
+     * @return number of pending timers, due or not
+     */
+    public int size() {
+        return timers.size();
+    }
+
+    /**
+     * Cascade every level whose slot boundary the wheel just crossed, then expire level 0's slot
+     */
+    private void tick() {
+        long span = 1;
+        int top = 0;
+        while (top + 1 < levels.length && currentTick % (span * wheelSize) == 0) {
+            span *= wheelSize;
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Slot slot = levels[level][slotIndex(level, currentTick)];
+            for (Timer timer = slot.takeAll(); timer != null; ) {
+                Timer next = timer.next;
+                timer.prev = timer.next = null;
+                timer.slot = null;
+                place(timer);
+                timer = next;
+            }
+        }
+        Slot slot = levels[0][slotIndex(0, currentTick)];
+        for (Timer timer = slot.takeAll(); timer != null; ) {
+            Timer next = timer.next;
+            timer.prev = timer.next = null;
+            timer.slot = null;
+            if (timer.deadlineTick <= currentTick) {
+                addDue(timer);
+            } else {
+                place(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void place(Timer timer) {
+        if (timer.deadlineTick <= currentTick) {
+            addDue(timer);
+            return;
+        }
+        long span = 1;
+        for (int level = 0; level < levels.length; level++) {
+            if (timer.deadlineTick / span - currentTick / span < wheelSize) {
+                levels[level][slotIndex(level, timer.deadlineTick)].add(timer);
+                return;
+            }
+            span *= wheelSize;
+        }
+        // Beyond the top level's turn: wait in the slot just before the current one and try again from there
+        int top = levels.length - 1;
+        levels[top][(slotIndex(top, currentTick) + wheelSize - 1) % wheelSize].add(timer);
+    }
+
+    private int slotIndex(int level, long tick) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= wheelSize;
+        }
+        return (int) ((tick / span) % wheelSize);
+    }
+
+    private void addDue(Timer timer) {
+        due.add(timer);
+    }
+
+    private static void unlink(Timer timer) {
+        timer.slot.remove(timer);
+    }
+
+    /**
+     * Doubly-linked list of timers
+     */
+    private static final class Slot {
+        private Timer head;
+
+        void add(Timer timer) {
+            timer.slot = this;
+            timer.prev = null;
+            timer.next = head;
+            if (head != null) {
+                head.prev = timer;
+            }
+            head = timer;
+        }
+
+        void remove(Timer timer) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+            timer.prev = timer.next = null;
+            timer.slot = null;
+        }
+
+        /**
+         * Detach the whole list
+         * @return its first timer, still linked to the rest
+         */
+        Timer takeAll() {
+            Timer first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    private static final class Timer {
+        private final Long leadId;
+        private long deadlineTick;
+        private Slot slot;
+        private Timer prev;
+        private Timer next;
+
+        Timer(Long leadId) {
+            this.leadId = leadId;
+        }
+    }
+}
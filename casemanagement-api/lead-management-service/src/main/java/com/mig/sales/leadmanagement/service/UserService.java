@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +28,9 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ManagerLoadIndex managerLoadIndex;
+
     /**
      * Create a new user
      * @param user the user to create
@@ -43,7 +47,9 @@ public class UserService {
         user.setIsActive(true);
         user.setCreatedDate(LocalDateTime.now());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        managerLoadIndex.managerChanged(savedUser);
+        return savedUser;
     }
 
     /**
@@ -58,6 +64,16 @@ public class UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
 
+    /**
+     * Find users by IDs in a single query
+     * IDs that do not exist are simply absent from the result.
+     * @param ids user IDs
+     * @return list of users found
+     */
+    public List<User> findAllByIds(Collection<Long> ids) {
+        return userRepository.findAllById(ids);
+    }
+
     /**
      * Find user by username
      * @param username username
@@ -113,7 +129,9 @@ public class UserService {
         existingUser.setPhone(user.getPhone());
         existingUser.setIsActive(user.getIsActive());
         
-        return userRepository.save(existingUser);
+        User savedUser = userRepository.save(existingUser);
+        managerLoadIndex.managerChanged(savedUser);
+        return savedUser;
     }
 
     /**
@@ -145,6 +163,7 @@ public class UserService {
         User user = findById(userId);
         user.setIsActive(false);
         userRepository.save(user);
+        managerLoadIndex.managerChanged(user);
     }
 
     /**
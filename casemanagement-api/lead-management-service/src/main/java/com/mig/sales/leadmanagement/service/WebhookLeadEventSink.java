@@ -0,0 +1,488 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.entity.WebhookCursor;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import com.mig.sales.leadmanagement.repository.WebhookCursorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Posts relayed events to one or more HTTP endpoints as JSON arrays (lead.outbox.sink=webhook).
+ *
+ * A relay batch is split into requests of about lead.outbox.webhook-batch-size events,
+ * partitioned by lead, so a lead's events always travel in one request and in order and
+ * the requests can be sent concurrently. Each request body is serialized once and posted
+ * to every endpoint through one shared HTTP client, which pools connections per endpoint.
+ * At most lead.outbox.webhook-max-in-flight requests are outstanding per endpoint; each
+ * endpoint queues the rest and starts the next as one of its requests finishes, so a slow
+ * endpoint only slows itself down and the relay thread never waits on its cap. Connection
+ * errors, 408, 429 and 5xx responses are retried with exponential backoff and full jitter;
+ * other responses fail at once. An endpoint that has not taken the whole batch within
+ * lead.outbox.webhook-delivery-timeout-ms has failed it: its queued requests are dropped,
+ * its retries stop, and it falls behind as below.
+ *
+ * An endpoint that fails a batch another endpoint took falls behind instead of failing
+ * the batch: it gets a row in WEBHOOK_CURSORS and live batches skip it. Every
+ * lead.outbox.webhook-replay-interval-ms, one page of the events delivered since it fell
+ * behind is replayed to it in delivery order, which keeps each lead's events in order;
+ * once a page comes back short it is caught up and rejoins the live batches. The batch
+ * fails only if no endpoint took it, and the relay delivers it again later. Either way
+ * endpoints may see an event more than once.
+ *
+ * Meters, tagged by endpoint: lead.webhook.requests (by outcome), lead.webhook.events,
+ * lead.webhook.latency (per request), lead.webhook.lag (from an event's commit to its
+ * delivery), lead.webhook.in.flight and lead.webhook.behind (1 while replaying).
+ */
+@Component
+@ConditionalOnProperty(name = "lead.outbox.sink", havingValue = "webhook")
+public class WebhookLeadEventSink implements LeadEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(WebhookLeadEventSink.class);
+
+    /** Replay starts this long before an endpoint fell behind, so clock skew between nodes cannot skip an event */
+    private static final Duration CLOCK_SKEW_MARGIN = Duration.ofMinutes(1);
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Autowired
+    private WebhookCursorRepository webhookCursorRepository;
+
+    /** Comma-separated endpoint URLs */
+    @Value("${lead.outbox.webhook-url:}")
+    private String webhookUrls = "";
+
+    @Value("${lead.outbox.webhook-timeout-ms:10000}")
+    private long timeoutMillis = 10000;
+
+    @Value("${lead.outbox.webhook-batch-size:100}")
+    private int requestBatchSize = 100;
+
+    @Value("${lead.outbox.webhook-max-in-flight:4}")
+    private int maxInFlight = 4;
+
+    @Value("${lead.outbox.webhook-max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${lead.outbox.webhook-initial-backoff-ms:200}")
+    private long initialBackoffMillis = 200;
+
+    @Value("${lead.outbox.webhook-max-backoff-ms:10000}")
+    private long maxBackoffMillis = 10000;
+
+    /** Time an endpoint has to take a whole batch before it falls behind */
+    @Value("${lead.outbox.webhook-delivery-timeout-ms:30000}")
+    private long deliveryTimeoutMillis = 30000;
+
+    /** Events replayed per attempt to an endpoint that fell behind */
+    @Value("${lead.outbox.batch-size:500}")
+    private int replayPageSize = 500;
+
+    @Value("${lead.outbox.webhook-replay-interval-ms:30000}")
+    private long replayIntervalMillis = 30000;
+
+    /** Threads completing requests and running retries, shared by all endpoints */
+    @Value("${lead.outbox.webhook-threads:4}")
+    private int threads = 4;
+
+    private ExecutorService executor;
+    private HttpClient httpClient;
+    private List<Endpoint> endpoints;
+
+    @PostConstruct
+    void start() {
+        executor = Executors.newFixedThreadPool(threads);
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(executor)
+                .build();
+        endpoints = new ArrayList<>();
+        for (String url : webhookUrls.split(",")) {
+            if (!url.isBlank()) {
+                endpoints.add(new Endpoint(url.trim()));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalStateException("lead.outbox.webhook-url must name at least one endpoint");
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void publish(List<LeadOutboxEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<String, WebhookCursor> cursors = loadCursors();
+        List<Endpoint> live = new ArrayList<>();
+        for (Endpoint endpoint : endpoints) {
+            WebhookCursor cursor = cursors.get(endpoint.url);
+            if (cursor == null || replay(endpoint, cursor)) {
+                live.add(endpoint);
+            }
+        }
+        if (live.isEmpty()) {
+            throw new IllegalStateException("Every lead event webhook is behind; waiting for one to catch up");
+        }
+        Map<Endpoint, Throwable> failures = send(events, live);
+        if (failures.size() == live.size()) {
+            Throwable error = failures.values().iterator().next();
+            throw new IllegalStateException(error.getMessage(), error);
+        }
+        LocalDateTime behindSince = LocalDateTime.now().minus(CLOCK_SKEW_MARGIN);
+        for (Map.Entry<Endpoint, Throwable> failure : failures.entrySet()) {
+            Endpoint endpoint = failure.getKey();
+            log.warn("Lead event webhook {} fell behind; replaying from {}", endpoint.url, behindSince, failure.getValue());
+            WebhookCursor cursor = new WebhookCursor(endpoint.url, behindSince);
+            cursor.setLastError(truncate(failure.getValue().getMessage()));
+            cursor.setUpdatedDate(LocalDateTime.now());
+            webhookCursorRepository.save(cursor);
+            endpoint.behind = true;
+            endpoint.nextReplayNanos = System.nanoTime() + replayIntervalMillis * 1_000_000;
+        }
+    }
+
+    @Override
+    public LocalDateTime oldestRetainedPublishedDate() {
+        LocalDateTime oldest = null;
+        for (WebhookCursor cursor : loadCursors().values()) {
+            LocalDateTime position = cursor.getPublishedDate() != null ? cursor.getPublishedDate() : cursor.getBehindSince();
+            if (oldest == null || position.isBefore(oldest)) {
+                oldest = position;
+            }
+        }
+        return oldest;
+    }
+
+    /**
+     * @return cursors of the configured endpoints that are behind, by URL; read on every batch
+     *         because another node may have run the relay since
+     */
+    private Map<String, WebhookCursor> loadCursors() {
+        Map<String, WebhookCursor> all = new HashMap<>();
+        for (WebhookCursor cursor : webhookCursorRepository.findAll()) {
+            all.put(cursor.getEndpointUrl(), cursor);
+        }
+        // Cursors of endpoints no longer configured are ignored, so removing an endpoint releases its events
+        Map<String, WebhookCursor> cursors = new HashMap<>();
+        for (Endpoint endpoint : endpoints) {
+            WebhookCursor cursor = all.get(endpoint.url);
+            endpoint.behind = cursor != null;
+            if (cursor != null) {
+                cursors.put(endpoint.url, cursor);
+            }
+        }
+        return cursors;
+    }
+
+    /**
+     * Replay the next page of delivered events to an endpoint that is behind, if its retry is due
+     * @return true if the endpoint has caught up and takes live batches again
+     */
+    private boolean replay(Endpoint endpoint, WebhookCursor cursor) {
+        if (System.nanoTime() - endpoint.nextReplayNanos < 0) {
+            return false;
+        }
+        endpoint.nextReplayNanos = System.nanoTime() + replayIntervalMillis * 1_000_000;
+        PageRequest page = PageRequest.of(0, replayPageSize);
+        List<LeadOutboxEvent> events = cursor.getEventId() == null
+                ? leadOutboxRepository.findPublishedSince(cursor.getBehindSince(), page)
+                : leadOutboxRepository.findPublishedAfter(cursor.getPublishedDate(), cursor.getEventId(), page);
+        if (!events.isEmpty()) {
+            Throwable error = send(events, List.of(endpoint)).get(endpoint);
+            if (error != null) {
+                cursor.setLastError(truncate(error.getMessage()));
+                cursor.setUpdatedDate(LocalDateTime.now());
+                webhookCursorRepository.save(cursor);
+                return false;
+            }
+        }
+        if (events.size() < replayPageSize) {
+            // Everything delivered so far has reached it; the next live batch continues from here
+            webhookCursorRepository.delete(cursor);
+            endpoint.behind = false;
+            log.info("Lead event webhook {} caught up", endpoint.url);
+            return true;
+        }
+        LeadOutboxEvent last = events.get(events.size() - 1);
+        cursor.setPublishedDate(last.getPublishedDate());
+        cursor.setEventId(last.getId());
+        cursor.setLastError(null);
+        cursor.setUpdatedDate(LocalDateTime.now());
+        webhookCursorRepository.save(cursor);
+        // More to replay: try the next page with the next batch rather than after the interval
+        endpoint.nextReplayNanos = System.nanoTime();
+        return false;
+    }
+
+    /**
+     * Post events to endpoints, each at its own pace, and wait until each has taken them, failed or run out of time
+     * @return the first error of each endpoint that did not take every request
+     */
+    private Map<Endpoint, Throwable> send(List<LeadOutboxEvent> events, List<Endpoint> targets) {
+        List<Request> requests = partition(events);
+        Map<Endpoint, CompletableFuture<Void>> deliveries = new LinkedHashMap<>();
+        for (Endpoint endpoint : targets) {
+            deliveries.put(endpoint, new Delivery(endpoint, requests.size()).start(requests));
+        }
+        Map<Endpoint, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<Endpoint, CompletableFuture<Void>> delivery : deliveries.entrySet()) {
+            try {
+                delivery.getValue().join();
+            } catch (CompletionException e) {
+                failures.put(delivery.getKey(), e.getCause());
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Split events into requests of about the request batch size, keeping each lead's events together and in order
+     */
+    private List<Request> partition(List<LeadOutboxEvent> events) {
+        int count = (events.size() + requestBatchSize - 1) / requestBatchSize;
+        List<List<LeadOutboxEvent>> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            parts.add(new ArrayList<>());
+        }
+        for (LeadOutboxEvent event : events) {
+            parts.get(Math.floorMod(event.getLeadId().hashCode(), count)).add(event);
+        }
+        List<Request> requests = new ArrayList<>(count);
+        for (List<LeadOutboxEvent> part : parts) {
+            if (!part.isEmpty()) {
+                List<LocalDateTime> createdDates = new ArrayList<>(part.size());
+                for (LeadOutboxEvent event : part) {
+                    createdDates.add(event.getCreatedDate());
+                }
+                requests.add(new Request(LeadEventSink.toJson(part), createdDates));
+            }
+        }
+        return requests;
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static boolean isRetryable(int statusCode) {
+        return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Full jitter: a random delay up to the exponential backoff for the attempt
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * One batch's requests to one endpoint, started as the endpoint's in-flight cap allows
+     */
+    private final class Delivery {
+        private final Endpoint endpoint;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Delivery(Endpoint endpoint, int requestCount) {
+            this.endpoint = endpoint;
+            this.remaining = new AtomicInteger(requestCount);
+        }
+
+        /**
+         * @return completes once every request was taken, or exceptionally on the first failure or at the deadline
+         */
+        CompletableFuture<Void> start(List<Request> requests) {
+            CompletableFuture.delayedExecutor(deliveryTimeoutMillis, TimeUnit.MILLISECONDS, executor)
+                    .execute(() -> done.completeExceptionally(new IllegalStateException("Lead event webhook "
+                            + endpoint.uri + " did not take the batch within " + deliveryTimeoutMillis + " ms")));
+            for (Request request : requests) {
+                endpoint.submit(() -> post(request));
+            }
+            return done;
+        }
+
+        /**
+         * Runs holding one of the endpoint's permits, which is returned once the request finishes
+         */
+        private void post(Request request) {
+            if (done.isDone()) {
+                endpoint.release();
+                return;
+            }
+            CompletableFuture<Void> sent = new CompletableFuture<>();
+            sent.whenComplete((result, error) -> {
+                endpoint.release();
+                if (error != null) {
+                    done.completeExceptionally(error);
+                } else if (remaining.decrementAndGet() == 0) {
+                    done.complete(null);
+                }
+            });
+            attempt(request, 1, sent);
+        }
+
+        private void attempt(Request request, int attempt, CompletableFuture<Void> sent) {
+            HttpRequest httpRequest = HttpRequest.newBuilder(endpoint.uri)
+                    .timeout(Duration.ofMillis(timeoutMillis))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(request.body))
+                    .build();
+            long startNanos = System.nanoTime();
+            httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                endpoint.latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                if (error == null && response.statusCode() / 100 == 2) {
+                    endpoint.succeeded.increment();
+                    endpoint.delivered.increment(request.createdDates.size());
+                    LocalDateTime now = LocalDateTime.now();
+                    for (LocalDateTime createdDate : request.createdDates) {
+                        if (createdDate != null) {
+                            endpoint.lag.record(Duration.between(createdDate, now));
+                        }
+                    }
+                    sent.complete(null);
+                    return;
+                }
+                String problem = error != null ? error.toString() : "HTTP " + response.statusCode();
+                // Once the delivery is over, e.g. past its deadline, a retry could not change the outcome
+                if ((error == null && !isRetryable(response.statusCode())) || attempt >= maxAttempts || done.isDone()) {
+                    endpoint.failed.increment();
+                    sent.completeExceptionally(new IllegalStateException("Lead event webhook " + endpoint.uri
+                            + " failed after " + attempt + " attempts: " + problem, error));
+                    return;
+                }
+                endpoint.retried.increment();
+                CompletableFuture.delayedExecutor(backoffMillis(attempt), TimeUnit.MILLISECONDS, executor)
+                        .execute(() -> attempt(request, attempt + 1, sent));
+            });
+        }
+    }
+
+    /**
+     * One serialized request body, posted to every endpoint
+     */
+    private static final class Request {
+        private final String body;
+        private final List<LocalDateTime> createdDates;
+
+        Request(String body, List<LocalDateTime> createdDates) {
+            this.body = body;
+            this.createdDates = createdDates;
+        }
+    }
+
+    /**
+     * An endpoint's in-flight cap, replay state and meters
+     */
+    private final class Endpoint {
+        private final String url;
+        private final URI uri;
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        /** Requests waiting for a permit, across deliveries */
+        private final ConcurrentLinkedQueue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+        private final Counter succeeded;
+        private final Counter retried;
+        private final Counter failed;
+        private final Counter delivered;
+        private final Timer latency;
+        private final Timer lag;
+        private volatile boolean behind;
+        /** When this node may next replay to the endpoint while it is behind */
+        private long nextReplayNanos = System.nanoTime();
+
+        Endpoint(String url) {
+            this.url = url;
+            this.uri = URI.create(url);
+            this.succeeded = requests(url, "success");
+            this.retried = requests(url, "retry");
+            this.failed = requests(url, "failure");
+            this.delivered = Counter.builder("lead.webhook.events").tag("endpoint", url)
+                    .description("Lead events delivered").register(meterRegistry);
+            this.latency = Timer.builder("lead.webhook.latency").tag("endpoint", url)
+                    .description("Time per webhook request, including failed ones").register(meterRegistry);
+            this.lag = Timer.builder("lead.webhook.lag").tag("endpoint", url)
+                    .description("Time from an event's commit to its delivery").register(meterRegistry);
+            Gauge.builder("lead.webhook.behind", this, endpoint -> endpoint.behind ? 1 : 0)
+                    .tag("endpoint", url).description("Whether the endpoint is replaying missed events")
+                    .register(meterRegistry);
+            Gauge.builder("lead.webhook.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                    .tag("endpoint", url).description("Webhook requests outstanding").register(meterRegistry);
+        }
+
+        /**
+         * Run a request once a permit is free; it must call {@link #release} when it finishes
+         */
+        void submit(Runnable request) {
+            waiting.add(request);
+            startWaiting();
+        }
+
+        void release() {
+            inFlight.release();
+            startWaiting();
+        }
+
+        /**
+         * Start waiting requests while permits are free. Both submit and release change state before
+         * calling this, so whichever runs last sees a request and a permit together.
+         */
+        private void startWaiting() {
+            while (!waiting.isEmpty() && inFlight.tryAcquire()) {
+                Runnable request = waiting.poll();
+                if (request == null) {
+                    inFlight.release();
+                    continue;
+                }
+                request.run();
+            }
+        }
+
+        private Counter requests(String url, String outcome) {
+            return Counter.builder("lead.webhook.requests").tag("endpoint", url).tag("outcome", outcome)
+                    .description("Webhook requests by outcome").register(meterRegistry);
+        }
+    }
+}
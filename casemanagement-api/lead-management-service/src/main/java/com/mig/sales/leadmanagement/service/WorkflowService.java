@@ -1,15 +1,26 @@
 package com.mig.sales.leadmanagement.service;
 
 import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadHistory;
 import com.mig.sales.leadmanagement.entity.User;
 import com.mig.sales.leadmanagement.exception.BusinessException;
-import com.mig.sales.leadmanagement.exception.UnauthorizedException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Service for workflow operations (escalation, approval, etc.)
@@ -21,15 +32,18 @@ public class WorkflowService {
     @Autowired
     private LeadService leadService;
 
-    @Autowired
-    private UserService userService;
-
     @Autowired
     private LeadScoringService leadScoringService;
 
     @Autowired
     private LeadHistoryService leadHistoryService;
 
+    @Autowired
+    private ManagerLoadIndex managerLoadIndex;
+
+    @Autowired
+    private LeadSlaTimers leadSlaTimers;
+
     /**
      * Escalate high-value lead to manager
      * @param leadId lead ID
@@ -40,28 +54,15 @@ public class WorkflowService {
     public Lead escalateLead(Long leadId, User currentUser) {
         Lead lead = leadService.findById(leadId);
         
-        // Check if lead is high-value
-        if (!leadScoringService.isHighValueLead(lead)) {
-            throw new BusinessException("Lead does not meet high-value criteria for escalation");
-        }
-        
-        // Check if user is authorized to escalate (must be assigned to the lead)
-        if (lead.getAssignedTo() == null || !lead.getAssignedTo().getId().equals(currentUser.getId())) {
-            throw new UnauthorizedException("User is not authorized to escalate this lead");
-        }
+        // Check status, ownership and value before looking for a manager
+        LeadStatusMachine.require(lead, LeadStatusMachine.Action.ESCALATE, currentUser,
+                leadScoringService.isHighValueLead(lead));
         
-        // Find a manager to assign to
-        User manager = findManager();
-        if (manager == null) {
-            throw new BusinessException("No active manager found for lead escalation");
-        }
+        // Hand the lead to the manager with the fewest escalated leads
+        User manager = claimManager();
         
         String oldStatus = lead.getStatus();
-        lead.setStatus("PRE_CONVERSION");
-        lead.setAssignedTo(manager);
-        lead.setUpdatedDate(java.time.LocalDateTime.now());
-        
-        Lead updatedLead = leadService.updateLead(lead);
+        Lead updatedLead = leadService.transition(lead, LeadStatusMachine.Action.ESCALATE, currentUser, manager);
         
         // Log escalation
         leadHistoryService.logActivity(updatedLead, currentUser, 
@@ -81,20 +82,9 @@ public class WorkflowService {
     public Lead approveLead(Long leadId, User currentUser) {
         Lead lead = leadService.findById(leadId);
         
-        // Check if user is authorized to approve (must be manager and assigned to the lead)
-        if (!"SALES_MANAGER".equals(currentUser.getRole())) {
-            throw new UnauthorizedException("Only managers can approve lead conversions");
-        }
-        
-        if (lead.getAssignedTo() == null || !lead.getAssignedTo().getId().equals(currentUser.getId())) {
-            throw new UnauthorizedException("User is not authorized to approve this lead");
-        }
-        
+        // Must be a manager assigned to the lead, and the lead must be awaiting a decision
         String oldStatus = lead.getStatus();
-        lead.setStatus("CONVERTED");
-        lead.setUpdatedDate(java.time.LocalDateTime.now());
-        
-        Lead updatedLead = leadService.updateLead(lead);
+        Lead updatedLead = leadService.transition(lead, LeadStatusMachine.Action.APPROVE, currentUser, null);
         
         // Log approval
         leadHistoryService.logActivity(updatedLead, currentUser, 
@@ -115,20 +105,9 @@ public class WorkflowService {
     public Lead rejectLead(Long leadId, User currentUser, String reason) {
         Lead lead = leadService.findById(leadId);
         
-        // Check if user is authorized to reject (must be manager and assigned to the lead)
-        if (!"SALES_MANAGER".equals(currentUser.getRole())) {
-            throw new UnauthorizedException("Only managers can reject lead conversions");
-        }
-        
-        if (lead.getAssignedTo() == null || !lead.getAssignedTo().getId().equals(currentUser.getId())) {
-            throw new UnauthorizedException("User is not authorized to reject this lead");
-        }
-        
+        // Must be a manager assigned to the lead, and the lead must be awaiting a decision
         String oldStatus = lead.getStatus();
-        lead.setStatus("REJECTED");
-        lead.setUpdatedDate(java.time.LocalDateTime.now());
-        
-        Lead updatedLead = leadService.updateLead(lead);
+        Lead updatedLead = leadService.transition(lead, LeadStatusMachine.Action.REJECT, currentUser, null);
         
         // Log rejection
         leadHistoryService.logActivity(updatedLead, currentUser, 
@@ -148,21 +127,10 @@ public class WorkflowService {
     public Lead requestApproval(Long leadId, User currentUser) {
         Lead lead = leadService.findById(leadId);
         
-        // Check if user is authorized to request approval (must be assigned to the lead)
-        if (lead.getAssignedTo() == null || !lead.getAssignedTo().getId().equals(currentUser.getId())) {
-            throw new UnauthorizedException("User is not authorized to request approval for this lead");
-        }
-        
-        // Check if lead is not high-value (standard approval process)
-        if (leadScoringService.isHighValueLead(lead)) {
-            throw new BusinessException("High-value leads must be escalated, not approved through standard process");
-        }
-        
+        // Must be assigned to the lead, and high-value leads go through escalation instead.
+        // The lead stays IN_PROGRESS until a manager approves it.
         String oldStatus = lead.getStatus();
-        lead.setStatus("IN_PROGRESS"); // Keep in progress until manager approves
-        lead.setUpdatedDate(java.time.LocalDateTime.now());
-        
-        Lead updatedLead = leadService.updateLead(lead);
+        Lead updatedLead = leadService.transition(lead, LeadStatusMachine.Action.REQUEST_APPROVAL, currentUser, null);
         
         // Log approval request
         leadHistoryService.logActivity(updatedLead, currentUser, 
@@ -173,17 +141,194 @@ public class WorkflowService {
     }
 
     /**
-     * Find an active manager
-     * @return active manager or null if none found
+     * Approve several leads at once
+     * @param leadIds lead IDs
+     * @param currentUser current user approving the leads
+     * @return outcome per lead
      */
-    private User findManager() {
-        try {
-            return userService.findActiveUsersByRole("SALES_MANAGER").stream()
-                    .findFirst()
-                    .orElse(null);
-        } catch (Exception e) {
-            return null;
+    @CacheEvict(value = "leads", allEntries = true)
+    public BulkTransitionResult approveLeads(List<Long> leadIds, User currentUser) {
+        return transitionInBulk(leadIds, LeadStatusMachine.Action.APPROVE, currentUser, () -> currentUser,
+                manager -> "Lead conversion approved by manager", "Approved");
+    }
+
+    /**
+     * Reject several leads at once
+     * @param leadIds lead IDs
+     * @param currentUser current user rejecting the leads
+     * @param reason rejection reason, recorded on every lead
+     * @return outcome per lead
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public BulkTransitionResult rejectLeads(List<Long> leadIds, User currentUser, String reason) {
+        String comment = "Lead conversion rejected by manager. Reason: " + (reason != null ? reason : "No reason provided");
+        return transitionInBulk(leadIds, LeadStatusMachine.Action.REJECT, currentUser, () -> currentUser,
+                manager -> comment, "Rejected");
+    }
+
+    /**
+     * Escalate several high-value leads at once, each to the manager with the fewest escalated leads at that point
+     * @param leadIds lead IDs
+     * @param currentUser current user escalating the leads
+     * @return outcome per lead
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public BulkTransitionResult escalateLeads(List<Long> leadIds, User currentUser) {
+        return transitionInBulk(leadIds, LeadStatusMachine.Action.ESCALATE, currentUser, this::claimManager,
+                manager -> "Lead escalated to manager " + manager.getUsername() + " due to high value", "Escalated");
+    }
+
+    /**
+     * Lock the leads, check each against the state machine in memory, move the allowed ones
+     * with one batched UPDATE per target status and assignee, and log their history in one batch.
+     * @param assignee picks the assignee of each allowed lead after the change
+     * @param comment history comment for a lead given its assignee after the change
+     */
+    private BulkTransitionResult transitionInBulk(List<Long> leadIds, LeadStatusMachine.Action action,
+                                                  User currentUser, Supplier<User> assignee,
+                                                  Function<User, String> comment, String historyAction) {
+        Set<Long> ids = new LinkedHashSet<>(leadIds);
+        Map<Long, Lead> leadsById = new HashMap<>();
+        for (Lead lead : leadService.lockAllByIds(ids)) {
+            leadsById.put(lead.getId(), lead);
+        }
+
+        BulkTransitionResult result = new BulkTransitionResult(action.getTarget().name());
+        Map<Long, String> oldStatuses = new LinkedHashMap<>();
+        Map<Long, User> assignees = new LinkedHashMap<>();
+        Map<Long, List<Long>> idsByAssignee = new HashMap<>();
+        int escalatedCount = 0;
+        for (Long leadId : ids) {
+            Lead lead = leadsById.get(leadId);
+            if (lead == null) {
+                result.notFound.add(leadId);
+                continue;
+            }
+            LeadStatusMachine.Verdict verdict = LeadStatusMachine.check(lead, action, currentUser,
+                    leadScoringService.isHighValueLead(lead));
+            if (verdict == LeadStatusMachine.Verdict.ALLOWED) {
+                oldStatuses.put(leadId, lead.getStatus());
+                User newAssignee = assignee.get();
+                assignees.putIfAbsent(newAssignee.getId(), newAssignee);
+                idsByAssignee.computeIfAbsent(newAssignee.getId(), id -> new ArrayList<>()).add(leadId);
+                if (LeadStatusMachine.Status.PRE_CONVERSION.name().equals(lead.getStatus())) {
+                    escalatedCount++;
+                }
+            } else {
+                result.refused.put(leadId, verdict);
+            }
+        }
+        if (oldStatuses.isEmpty()) {
+            return result;
+        }
+
+        // The rows are locked, so every checked lead must still match its UPDATE
+        List<LeadHistory> activities = new ArrayList<>(oldStatuses.size());
+        for (User newAssignee : assignees.values()) {
+            List<Long> group = idsByAssignee.get(newAssignee.getId());
+            int updated = leadService.transitionLeads(group, action, currentUser.getId(), newAssignee);
+            if (updated != group.size()) {
+                throw new BusinessException("Leads changed during the bulk " + historyAction.toLowerCase()
+                        + "; no lead was updated");
+            }
+            String groupComment = comment.apply(newAssignee);
+            for (Long leadId : group) {
+                activities.add(leadHistoryService.newActivity(leadService.getReference(leadId), currentUser,
+                        groupComment, historyAction, "WORKFLOW", oldStatuses.get(leadId), result.status));
+            }
+        }
+        leadHistoryService.logActivities(activities);
+        managerLoadIndex.leadsResolved(currentUser.getId(), escalatedCount);
+        result.applied.addAll(oldStatuses.keySet());
+        return result;
+    }
+
+    /**
+     * Escalate or flag open leads whose SLA timers expired, in one transaction.
+     * Each lead is re-checked under lock: leads no longer open are skipped, and leads updated
+     * since their timer was set get a new one. High-value leads go to the least-loaded manager;
+     * the rest are flagged with a history entry and flagged again each further SLA period.
+     * Flagging stamps the lead's update time, so the timers every other node loaded for the
+     * lead find it updated under the lock and are reset instead of flagging it again.
+     * @param leadIds IDs of leads whose timers expired
+     * @return outcome per lead
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public SlaBreachResult handleSlaBreaches(Collection<Long> leadIds) {
+        Duration sla = leadSlaTimers.getSla();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime breachedBefore = now.minus(sla);
+        SlaBreachResult result = new SlaBreachResult();
+        List<LeadHistory> activities = new ArrayList<>();
+        for (Lead lead : leadService.lockAllByIds(leadIds)) {
+            String oldStatus = lead.getStatus();
+            if (!LeadService.OPEN_STATUSES.contains(oldStatus)) {
+                continue;
+            }
+            if (lead.getUpdatedDate() != null && lead.getUpdatedDate().isAfter(breachedBefore)) {
+                leadSlaTimers.leadSaved(lead);
+                continue;
+            }
+
+            String comment = "Lead exceeded the " + sla.toHours() + "-hour SLA in status " + oldStatus;
+            User manager = LeadStatusMachine.check(lead, LeadStatusMachine.Action.ESCALATE, null,
+                    leadScoringService.isHighValueLead(lead)) == LeadStatusMachine.Verdict.ALLOWED
+                    ? managerLoadIndex.claimLeastLoaded() : null;
+            if (manager != null) {
+                leadService.transition(lead, LeadStatusMachine.Action.ESCALATE, null, manager);
+                activities.add(leadHistoryService.newActivity(lead, null,
+                        comment + "; escalated to manager " + manager.getUsername(),
+                        "Escalated", "SYSTEM", oldStatus, lead.getStatus()));
+                result.escalated.add(lead.getId());
+            } else {
+                lead.setUpdatedDate(now);
+                activities.add(leadHistoryService.newActivity(lead, null, comment,
+                        "SLA Breached", "SYSTEM", oldStatus, oldStatus));
+                result.flagged.add(lead.getId());
+            }
+        }
+        if (!result.flagged.isEmpty()) {
+            leadSlaTimers.leadsFlagged(result.flagged, now);
+        }
+        if (!activities.isEmpty()) {
+            leadHistoryService.logActivities(activities);
+        }
+        return result;
+    }
+
+    /**
+     * Claim the active manager with the fewest escalated leads
+     * @return manager
+     * @throws BusinessException if there is no active manager
+     */
+    private User claimManager() {
+        User manager = managerLoadIndex.claimLeastLoaded();
+        if (manager == null) {
+            throw new BusinessException("No active manager found for lead escalation");
+        }
+        return manager;
+    }
+
+    /**
+     * Find the workflow actions a user may take on each of several leads, loading them in chunked IN-list queries
+     * @param leadIds lead IDs
+     * @param currentUser current user
+     * @return allowed actions per lead ID, in request order; IDs of missing leads are absent
+     */
+    public Map<Long, Set<LeadStatusMachine.Action>> getAllowedActions(List<Long> leadIds, User currentUser) {
+        Map<Long, Lead> leadsById = new HashMap<>();
+        for (Lead lead : leadService.findAllByIds(new LinkedHashSet<>(leadIds))) {
+            leadsById.put(lead.getId(), lead);
         }
+        Map<Long, Set<LeadStatusMachine.Action>> allowed = new LinkedHashMap<>();
+        for (Long leadId : leadIds) {
+            Lead lead = leadsById.get(leadId);
+            if (lead != null) {
+                allowed.put(leadId, LeadStatusMachine.allowedActions(lead, currentUser,
+                        leadScoringService.isHighValueLead(lead)));
+            }
+        }
+        return allowed;
     }
 
     /**
@@ -194,26 +339,23 @@ public class WorkflowService {
      */
     public boolean canEscalateLead(Long leadId, User currentUser) {
         try {
-            Lead lead = leadService.findById(leadId);
-            
-            // Check if lead is high-value
-            if (!leadScoringService.isHighValueLead(lead)) {
-                return false;
-            }
-            
-            // Check if user is assigned to the lead
-            if (lead.getAssignedTo() == null || !lead.getAssignedTo().getId().equals(currentUser.getId())) {
-                return false;
-            }
-            
-            // Check if lead is in a state that can be escalated
-            return "IN_PROGRESS".equals(lead.getStatus()) || "ASSIGNED".equals(lead.getStatus());
-            
+            return canEscalateLead(leadService.findById(leadId), currentUser);
         } catch (Exception e) {
             return false;
         }
     }
 
+    /**
+     * Check if an already loaded lead can be escalated, without touching the database
+     * @param lead lead
+     * @param currentUser current user
+     * @return true if lead can be escalated
+     */
+    public boolean canEscalateLead(Lead lead, User currentUser) {
+        return LeadStatusMachine.check(lead, LeadStatusMachine.Action.ESCALATE, currentUser,
+                leadScoringService.isHighValueLead(lead)) == LeadStatusMachine.Verdict.ALLOWED;
+    }
+
     /**
      * Check if lead can be approved
      * @param leadId lead ID
@@ -222,24 +364,53 @@ public class WorkflowService {
      */
     public boolean canApproveLead(Long leadId, User currentUser) {
         try {
-            Lead lead = leadService.findById(leadId);
-            
-            // Check if user is a manager
-            if (!"SALES_MANAGER".equals(currentUser.getRole())) {
-                return false;
-            }
-            
-            // Check if user is assigned to the lead
-            if (lead.getAssignedTo() == null || !lead.getAssignedTo().getId().equals(currentUser.getId())) {
-                return false;
-            }
-            
-            // Check if lead is in a state that can be approved
-            return "PRE_CONVERSION".equals(lead.getStatus()) || "IN_PROGRESS".equals(lead.getStatus());
-            
+            return canApproveLead(leadService.findById(leadId), currentUser);
         } catch (Exception e) {
             return false;
         }
     }
-}
 
+    /**
+     * Check if an already loaded lead can be approved, without touching the database
+     * @param lead lead
+     * @param currentUser current user
+     * @return true if lead can be approved
+     */
+    public boolean canApproveLead(Lead lead, User currentUser) {
+        return LeadStatusMachine.check(lead, LeadStatusMachine.Action.APPROVE, currentUser,
+                leadScoringService.isHighValueLead(lead)) == LeadStatusMachine.Verdict.ALLOWED;
+    }
+
+    /**
+     * Per-lead outcome of a bulk workflow operation
+     */
+    public static class BulkTransitionResult {
+        private final String status;
+        private final List<Long> applied = new ArrayList<>();
+        private final Map<Long, LeadStatusMachine.Verdict> refused = new LinkedHashMap<>();
+        private final List<Long> notFound = new ArrayList<>();
+
+        BulkTransitionResult(String status) {
+            this.status = status;
+        }
+
+        /** Status the applied leads moved to */
+        public String getStatus() { return status; }
+        public List<Long> getApplied() { return applied; }
+        /** Leads left unchanged, with the guard each one failed */
+        public Map<Long, LeadStatusMachine.Verdict> getRefused() { return refused; }
+        public List<Long> getNotFound() { return notFound; }
+        public int getAppliedCount() { return applied.size(); }
+    }
+
+    /**
+     * Outcome of handling expired SLA timers; leads that needed neither are left out
+     */
+    public static class SlaBreachResult {
+        private final List<Long> escalated = new ArrayList<>();
+        private final List<Long> flagged = new ArrayList<>();
+
+        public List<Long> getEscalated() { return escalated; }
+        public List<Long> getFlagged() { return flagged; }
+    }
+}
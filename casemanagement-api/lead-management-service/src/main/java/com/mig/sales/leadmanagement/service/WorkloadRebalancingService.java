@@ -0,0 +1,319 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service for rebalancing open leads across the sales team.
+ *
+ * Leads stay assigned to a rep after {@link UserService#deactivateUser(Long)}, and
+ * round-robin distribution ignores existing workload, so open leads pile up on
+ * inactive or overloaded reps. A rebalancing run reads open lead counts per assignee
+ * with one grouped query, plans the fewest moves that bring every active rep within
+ * the allowed load, and applies them in small batches, each in its own transaction.
+ */
+@Service
+public class WorkloadRebalancingService {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadRebalancingService.class);
+
+    private static final String REBALANCING_JOB = "workload-rebalancing";
+
+    static final String REASON_ORPHANED = "ORPHANED";
+    static final String REASON_OVER_CAPACITY = "OVER_CAPACITY";
+
+    @Autowired
+    private LeadService leadService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private LeadHistoryService leadHistoryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    /**
+     * Open leads a rep may hold above the fair share before leads are moved away
+     */
+    @Value("${lead.rebalancing.tolerance:2}")
+    private int tolerance = 2;
+
+    /**
+     * Hard cap on open leads per rep; 0 means only the fair share and tolerance apply
+     */
+    @Value("${lead.rebalancing.max-open-leads:0}")
+    private int maxOpenLeads;
+
+    /**
+     * Moves applied per transaction, so a run never locks more than this many rows at once
+     */
+    @Value("${lead.rebalancing.batch-size:200}")
+    private int batchSize = 200;
+
+    /**
+     * Plan a rebalancing run without changing anything
+     * @return planned moves and per-rep loads before and after
+     * @throws BusinessException if leads are orphaned and there is no active sales person to take them
+     */
+    public RebalancePlan plan() {
+        List<User> salesPersons = userService.findActiveSalesPersons();
+        Map<Long, Long> loads = new LinkedHashMap<>();
+        for (User salesPerson : salesPersons) {
+            loads.put(salesPerson.getId(), 0L);
+        }
+
+        // One grouped query for every assignee's open lead count
+        Map<Long, Long> orphaned = new LinkedHashMap<>();
+        long totalOpen = 0;
+        for (Object[] row : leadService.countOpenLeadsByAssigneeWithActiveFlag()) {
+            Long userId = (Long) row[0];
+            long count = (Long) row[2];
+            if (!Boolean.TRUE.equals(row[1])) {
+                orphaned.put(userId, count);
+            } else if (loads.containsKey(userId)) {
+                loads.put(userId, count);
+            } else {
+                // Active users outside the sales team keep what they hold
+                continue;
+            }
+            totalOpen += count;
+        }
+
+        RebalancePlan plan = new RebalancePlan();
+        plan.loadsBefore.putAll(loads);
+        if (salesPersons.isEmpty()) {
+            if (!orphaned.isEmpty()) {
+                throw new BusinessException("No active sales persons to take over orphaned leads");
+            }
+            return plan;
+        }
+
+        long target = (totalOpen + salesPersons.size() - 1) / salesPersons.size();
+        long threshold = target + tolerance;
+        if (maxOpenLeads > 0) {
+            threshold = Math.max(target, Math.min(threshold, maxOpenLeads));
+        }
+        plan.targetLoad = target;
+        plan.maxLoad = threshold;
+
+        // Donors give up everything (orphaned) or just their excess over the threshold
+        Map<Long, Long> excess = new LinkedHashMap<>(orphaned);
+        loads.forEach((userId, load) -> {
+            if (load > plan.maxLoad) {
+                excess.put(userId, load - plan.maxLoad);
+            }
+        });
+
+        // Receivers are reps below the fair share, least-loaded first
+        PriorityQueue<Long> receivers = new PriorityQueue<>(
+                Comparator.<Long>comparingLong(loads::get).thenComparingLong(id -> id));
+        loads.forEach((userId, load) -> {
+            if (load < target) {
+                receivers.add(userId);
+            }
+        });
+
+        for (Map.Entry<Long, Long> donor : excess.entrySet()) {
+            Long fromUserId = donor.getKey();
+            String reason = orphaned.containsKey(fromUserId) ? REASON_ORPHANED : REASON_OVER_CAPACITY;
+            for (Long leadId : leadService.findOpenLeadIdsForReassignment(fromUserId, donor.getValue().intValue())) {
+                Long toUserId = receivers.poll();
+                if (toUserId == null) {
+                    break;
+                }
+                plan.moves.add(new Move(leadId, fromUserId, toUserId, reason));
+                loads.computeIfPresent(fromUserId, (id, load) -> load - 1);
+                loads.computeIfPresent(toUserId, (id, load) -> load + 1);
+                if (loads.get(toUserId) < target) {
+                    receivers.add(toUserId);
+                }
+            }
+        }
+
+        plan.loadsAfter.putAll(loads);
+        return plan;
+    }
+
+    /**
+     * Rebalance open leads across active sales persons
+     * @param dryRun if true, only plan the moves
+     * @return the plan, with the number of leads actually moved unless this was a dry run
+     */
+    @CacheEvict(value = "leads", allEntries = true)
+    public RebalancePlan rebalance(boolean dryRun) {
+        return rebalance(dryRun, () -> true);
+    }
+
+    /**
+     * @param leading checked before each batch after the first; the run stops once it is false
+     */
+    private RebalancePlan rebalance(boolean dryRun, BooleanSupplier leading) {
+        RebalancePlan plan = plan();
+        plan.dryRun = dryRun;
+        if (dryRun || plan.moves.isEmpty()) {
+            return plan;
+        }
+
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (Move move : plan.moves) {
+            userIds.add(move.fromUserId);
+            userIds.add(move.toUserId);
+        }
+        Map<Long, User> usersById = userService.findAllByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int from = 0; from < plan.moves.size(); from += batchSize) {
+            if (from > 0 && !leading.getAsBoolean()) {
+                log.info("Stopped rebalancing after {} leads: this node no longer runs the job", plan.movedCount);
+                break;
+            }
+            List<Move> batch = plan.moves.subList(from, Math.min(from + batchSize, plan.moves.size()));
+            Integer moved = transaction.execute(status -> applyBatch(batch, usersById));
+            plan.movedCount += moved != null ? moved : 0;
+        }
+
+        log.info("Rebalanced {} of {} planned leads", plan.movedCount, plan.moves.size());
+        return plan;
+    }
+
+    /**
+     * Scheduled rebalancing, enabled by setting lead.rebalancing.cron; runs on one node only
+     */
+    @Scheduled(cron = "${lead.rebalancing.cron:-}")
+    public void scheduledRebalance() {
+        scheduledJobRunner.runAsLeader(REBALANCING_JOB, true, () -> {
+            rebalance(false, () -> scheduledJobRunner.isLeader(REBALANCING_JOB));
+            // Called on this rather than through the proxy, so rebalance's @CacheEvict does not apply
+            Cache leads = cacheManager.getCache("leads");
+            if (leads != null) {
+                leads.clear();
+            }
+        });
+    }
+
+    /**
+     * Apply one batch of moves with one UPDATE per (from, to) pair and log history in one batch.
+     * Leads that changed assignee or status after planning are not moved and get no history.
+     * @param batch moves to apply
+     * @param usersById users referenced by the moves
+     * @return number of leads moved
+     */
+    private int applyBatch(List<Move> batch, Map<Long, User> usersById) {
+        Map<Long, Map<Long, List<Move>>> byPair = new LinkedHashMap<>();
+        for (Move move : batch) {
+            byPair.computeIfAbsent(move.fromUserId, id -> new LinkedHashMap<>())
+                    .computeIfAbsent(move.toUserId, id -> new ArrayList<>())
+                    .add(move);
+        }
+
+        List<LeadHistory> activities = new ArrayList<>();
+        int moved = 0;
+        for (Map.Entry<Long, Map<Long, List<Move>>> fromEntry : byPair.entrySet()) {
+            User fromUser = usersById.get(fromEntry.getKey());
+            for (Map.Entry<Long, List<Move>> toEntry : fromEntry.getValue().entrySet()) {
+                User toUser = usersById.get(toEntry.getKey());
+                List<Move> moves = toEntry.getValue();
+                Set<Long> updated = new HashSet<>(leadService.reassignOpenLeads(
+                        moves.stream().map(Move::getLeadId).toList(), fromEntry.getKey(), toUser));
+                if (updated.size() != moves.size()) {
+                    log.warn("Expected to move {} leads from {} to {} but updated {}; some leads changed concurrently",
+                            moves.size(), fromUser.getUsername(), toUser.getUsername(), updated.size());
+                }
+                for (Move move : moves) {
+                    if (!updated.contains(move.leadId)) {
+                        continue;
+                    }
+                    activities.add(leadHistoryService.newActivity(leadService.getReference(move.leadId), toUser,
+                            "Lead reassigned from " + fromUser.getUsername() + " to " + toUser.getUsername()
+                                    + (REASON_ORPHANED.equals(move.reason) ? " (previous owner inactive)" : " (workload rebalancing)"),
+                            "Reassigned", "SYSTEM", null, null));
+                }
+                moved += updated.size();
+            }
+        }
+        leadHistoryService.logActivities(activities);
+        return moved;
+    }
+
+    /**
+     * A single planned lead move
+     */
+    public static class Move {
+        private final Long leadId;
+        private final Long fromUserId;
+        private final Long toUserId;
+        private final String reason;
+
+        public Move(Long leadId, Long fromUserId, Long toUserId, String reason) {
+            this.leadId = leadId;
+            this.fromUserId = fromUserId;
+            this.toUserId = toUserId;
+            this.reason = reason;
+        }
+
+        public Long getLeadId() { return leadId; }
+        public Long getFromUserId() { return fromUserId; }
+        public Long getToUserId() { return toUserId; }
+        /** ORPHANED or OVER_CAPACITY */
+        public String getReason() { return reason; }
+    }
+
+    /**
+     * Outcome of planning or applying a rebalancing run
+     */
+    public static class RebalancePlan {
+        private final List<Move> moves = new ArrayList<>();
+        private final Map<Long, Long> loadsBefore = new LinkedHashMap<>();
+        private final Map<Long, Long> loadsAfter = new LinkedHashMap<>();
+        private long targetLoad;
+        private long maxLoad;
+        private boolean dryRun;
+        private int movedCount;
+
+        public List<Move> getMoves() { return moves; }
+        /** Open leads per active sales person ID before the run */
+        public Map<Long, Long> getLoadsBefore() { return loadsBefore; }
+        /** Open leads per active sales person ID once the plan is applied */
+        public Map<Long, Long> getLoadsAfter() { return loadsAfter; }
+        /** Fair share: open leads divided by active sales persons, rounded up */
+        public long getTargetLoad() { return targetLoad; }
+        /** Load above which a rep gives up leads */
+        public long getMaxLoad() { return maxLoad; }
+        public boolean isDryRun() { return dryRun; }
+        public int getMovedCount() { return movedCount; }
+    }
+}
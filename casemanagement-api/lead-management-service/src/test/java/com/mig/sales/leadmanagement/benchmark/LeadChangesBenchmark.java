@@ -0,0 +1,194 @@
+package com.mig.sales.leadmanagement.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares two ways for a client to pick up the 100 leads changed since its last poll,
+ * out of 100k, on an in-memory H2 database with the leads and lead_outbox tables:
+ * reloading the full lead list and diffing it against the previous one, or reading the
+ * outbox after a watermark (a primary key range scan, as GET /leads/changes does) and
+ * loading just the changed leads.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark=LeadChangesBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LeadChangesBenchmark {
+
+    private static final int CHANGES_PER_POLL = 100;
+
+    private static final String[] STATUSES = {"NEW", "ASSIGNED", "IN_PROGRESS", "PRE_CONVERSION", "CONVERTED"};
+
+    @Param({"100000"})
+    private int leads;
+
+    private Connection connection;
+    private final Random random = new Random(42);
+    private long nextEventId = 1;
+
+    /** The full-list client's copy: lead ID to update time */
+    private Map<Long, Timestamp> snapshot;
+
+    /** The change-feed client's watermark */
+    private long watermark;
+
+    @Setup(Level.Trial)
+    public void createData() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:changes;DB_CLOSE_DELAY=-1");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE leads (lead_id BIGINT PRIMARY KEY, lead_name VARCHAR(100), " +
+                    "company VARCHAR(100), email VARCHAR(100), status VARCHAR(20), assigned_to BIGINT, " +
+                    "lead_score INT, potential_value DECIMAL(15,2), updated_date TIMESTAMP)");
+            statement.execute("CREATE TABLE lead_outbox (event_id BIGINT PRIMARY KEY, lead_id BIGINT NOT NULL, " +
+                    "event_type VARCHAR(20) NOT NULL, status VARCHAR(20), assigned_to BIGINT, lead_score INT, " +
+                    "created_date TIMESTAMP NOT NULL, published_date TIMESTAMP)");
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO leads VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= leads; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Lead " + id);
+                insert.setString(3, "Company " + id % 5000);
+                insert.setString(4, "lead" + id + "@example.com");
+                insert.setString(5, STATUSES[(int) (id % STATUSES.length)]);
+                insert.setLong(6, id % 500);
+                insert.setInt(7, (int) (id % 100));
+                insert.setBigDecimal(8, BigDecimal.valueOf(id % 250_000));
+                insert.setTimestamp(9, now);
+                insert.addBatch();
+                if (id % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        snapshot = loadSnapshot();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    /**
+     * Change 100 random leads and record their outbox events, as lead writes would between two polls
+     */
+    @Setup(Level.Invocation)
+    public void changeLeads() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement update = connection.prepareStatement(
+                     "UPDATE leads SET status = ?, updated_date = ? WHERE lead_id = ?");
+             PreparedStatement event = connection.prepareStatement(
+                     "INSERT INTO lead_outbox (event_id, lead_id, event_type, status, created_date) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < CHANGES_PER_POLL; i++) {
+                long leadId = 1 + random.nextInt(leads);
+                String status = STATUSES[random.nextInt(STATUSES.length)];
+                update.setString(1, status);
+                update.setTimestamp(2, now);
+                update.setLong(3, leadId);
+                update.addBatch();
+                event.setLong(1, nextEventId++);
+                event.setLong(2, leadId);
+                event.setString(3, "STATUS_CHANGED");
+                event.setString(4, status);
+                event.setTimestamp(5, now);
+                event.addBatch();
+            }
+            update.executeBatch();
+            event.executeBatch();
+        }
+    }
+
+    @Benchmark
+    public List<Long> pollFullList() throws SQLException {
+        Map<Long, Timestamp> current = loadSnapshot();
+        List<Long> changed = new ArrayList<>();
+        for (Map.Entry<Long, Timestamp> entry : current.entrySet()) {
+            if (!entry.getValue().equals(snapshot.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        snapshot = current;
+        return changed;
+    }
+
+    @Benchmark
+    public List<Long> pollChangeFeed() throws SQLException {
+        Set<Long> changed = new LinkedHashSet<>();
+        try (PreparedStatement page = connection.prepareStatement(
+                "SELECT event_id, lead_id FROM lead_outbox WHERE event_id > ? ORDER BY event_id LIMIT 500")) {
+            page.setLong(1, watermark);
+            try (ResultSet rows = page.executeQuery()) {
+                while (rows.next()) {
+                    watermark = rows.getLong(1);
+                    changed.add(rows.getLong(2));
+                }
+            }
+        }
+        List<Long> loaded = new ArrayList<>(changed.size());
+        StringBuilder sql = new StringBuilder("SELECT * FROM leads WHERE lead_id IN (");
+        for (int i = 0; i < changed.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        try (PreparedStatement select = connection.prepareStatement(sql.append(')').toString())) {
+            int index = 1;
+            for (Long leadId : changed) {
+                select.setLong(index++, leadId);
+            }
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    loaded.add(rows.getLong("lead_id"));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    private Map<Long, Timestamp> loadSnapshot() throws SQLException {
+        Map<Long, Timestamp> leadsById = new HashMap<>(leads * 2);
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT * FROM leads")) {
+            while (rows.next()) {
+                leadsById.put(rows.getLong("lead_id"), rows.getTimestamp("updated_date"));
+            }
+        }
+        return leadsById;
+    }
+}
@@ -0,0 +1,181 @@
+package com.mig.sales.leadmanagement.benchmark;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of updateLeadStatus's statements with each way of writing its history entry,
+ * against H2 over a loopback TCP connection so every statement is a real round trip:
+ *
+ * save        - a LEAD_HISTORY_SEQ round trip and an INSERT per entry (allocationSize 1)
+ * transaction - IDs drawn 50 at a time, and the INSERT sent as a batch at commit
+ *
+ * Each invocation reads the lead, updates its status, writes history and commits. Sample
+ * time mode reports the p99 next to the mean.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark=LeadHistoryWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LeadHistoryWriteBenchmark {
+
+    private static final int LEADS = 10_000;
+    private static final int ID_BLOCK = 50;
+
+    private static final String[] STATUSES = {"ASSIGNED", "IN_PROGRESS"};
+
+    @Param({"save", "transaction"})
+    private String mode;
+
+    private Server server;
+    private Connection connection;
+    private final Random random = new Random(42);
+
+    private long nextId = 1;
+    private long lastId;
+
+    @Setup(Level.Trial)
+    public void createData() throws SQLException, IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        server = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+        connection = connect(port);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE leads (lead_id BIGINT PRIMARY KEY, lead_name VARCHAR(100), " +
+                    "status VARCHAR(20), assigned_to BIGINT, updated_date TIMESTAMP)");
+            statement.execute("CREATE TABLE lead_history (history_id BIGINT PRIMARY KEY, lead_id BIGINT NOT NULL, " +
+                    "user_id BIGINT, comment_text VARCHAR(4000), action VARCHAR(100), timestamp TIMESTAMP, " +
+                    "action_type VARCHAR(50), old_status VARCHAR(20), new_status VARCHAR(20))");
+            statement.execute("CREATE INDEX idx_history_lead_id ON lead_history(lead_id)");
+            statement.execute("CREATE SEQUENCE lead_history_seq START WITH 1 INCREMENT BY " +
+                    ("save".equals(mode) ? 1 : ID_BLOCK));
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO leads VALUES (?, ?, ?, ?, ?)")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (long id = 1; id <= LEADS; id++) {
+                insert.setLong(1, id);
+                insert.setString(2, "Lead " + id);
+                insert.setString(3, STATUSES[0]);
+                insert.setLong(4, id % 50);
+                insert.setTimestamp(5, now);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeDatabase() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public String updateLeadStatus() throws SQLException {
+        long leadId = 1 + random.nextInt(LEADS);
+        String oldStatus;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT lead_id, lead_name, status, assigned_to, updated_date FROM leads WHERE lead_id = ?")) {
+            select.setLong(1, leadId);
+            try (ResultSet rows = select.executeQuery()) {
+                rows.next();
+                oldStatus = rows.getString("status");
+            }
+        }
+        String newStatus = STATUSES[0].equals(oldStatus) ? STATUSES[1] : STATUSES[0];
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE leads SET status = ?, updated_date = ? WHERE lead_id = ?")) {
+            update.setString(1, newStatus);
+            update.setTimestamp(2, now);
+            update.setLong(3, leadId);
+            update.executeUpdate();
+        }
+        Object[] history = {leadId, "Status changed from " + oldStatus + " to " + newStatus, now, oldStatus, newStatus};
+        insertHistory(connection, List.<Object[]>of(history), "transaction".equals(mode));
+        connection.commit();
+        return newStatus;
+    }
+
+    /**
+     * Insert history rows, drawing IDs one round trip per row, or in blocks (pooled) when batched
+     */
+    private void insertHistory(Connection target, List<Object[]> rows, boolean batched) throws SQLException {
+        try (PreparedStatement insert = target.prepareStatement("INSERT INTO lead_history (history_id, lead_id, " +
+                "user_id, comment_text, action, timestamp, action_type, old_status, new_status) " +
+                "VALUES (?, ?, 7, ?, 'Status Changed', ?, 'USER_ACTION', ?, ?)")) {
+            for (Object[] row : rows) {
+                insert.setLong(1, batched ? nextPooledId(target) : nextSequenceValue(target));
+                insert.setLong(2, (Long) row[0]);
+                insert.setString(3, (String) row[1]);
+                insert.setTimestamp(4, (Timestamp) row[2]);
+                insert.setString(5, (String) row[3]);
+                insert.setString(6, (String) row[4]);
+                if (batched) {
+                    insert.addBatch();
+                } else {
+                    insert.executeUpdate();
+                }
+            }
+            if (batched) {
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private long nextPooledId(Connection target) throws SQLException {
+        if (nextId > lastId) {
+            nextId = nextSequenceValue(target);
+            lastId = nextId + ID_BLOCK - 1;
+        }
+        return nextId++;
+    }
+
+    private static long nextSequenceValue(Connection target) throws SQLException {
+        try (Statement statement = target.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT NEXT VALUE FOR lead_history_seq")) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private static Connection connect(int port) throws SQLException {
+        return DriverManager.getConnection("jdbc:h2:tcp://localhost:" + port + "/mem:history;DB_CLOSE_DELAY=-1");
+    }
+}
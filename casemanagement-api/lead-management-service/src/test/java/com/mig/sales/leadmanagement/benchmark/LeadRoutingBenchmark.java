@@ -0,0 +1,96 @@
+package com.mig.sales.leadmanagement.benchmark;
+
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.service.LeadRoutingIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes 1M synthetic leads across 500 tagged reps through {@link LeadRoutingIndex}.
+ * Reports the average cost of routing a single lead.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark=LeadRoutingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LeadRoutingBenchmark {
+
+    private static final int REPS = 500;
+    private static final int LEADS = 1_000_000;
+
+    private static final String[] STATES = {
+            "CA", "TX", "NY", "FL", "IL", "PA", "OH", "GA", "NC", "MI",
+            "NJ", "VA", "WA", "AZ", "MA", "TN", "IN", "MO", "MD", "WI"};
+    private static final String[] INDUSTRIES = {
+            "Technology", "Healthcare", "Finance", "Manufacturing", "Retail",
+            "Energy", "Education", "Logistics", "Media", "Government"};
+
+    private List<User> reps;
+    private String[] leadLocations;
+    private String[] leadIndustries;
+    private LeadRoutingIndex index;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        Random random = new Random(42);
+        reps = new ArrayList<>(REPS);
+        for (int i = 0; i < REPS; i++) {
+            User rep = new User();
+            rep.setId((long) i + 1);
+            // Most reps cover two states and two industries; every 25th rep is an untagged generalist
+            if (i % 25 != 0) {
+                rep.setTerritories(STATES[random.nextInt(STATES.length)] + "," + STATES[random.nextInt(STATES.length)]);
+                rep.setIndustries(INDUSTRIES[random.nextInt(INDUSTRIES.length)] + "," + INDUSTRIES[random.nextInt(INDUSTRIES.length)]);
+            }
+            reps.add(rep);
+        }
+
+        leadLocations = new String[LEADS];
+        leadIndustries = new String[LEADS];
+        for (int i = 0; i < LEADS; i++) {
+            String state = STATES[random.nextInt(STATES.length)];
+            // Mix bare territory codes with "City, ST" locations
+            leadLocations[i] = random.nextBoolean() ? state : "City" + random.nextInt(50) + ", " + state;
+            leadIndustries[i] = INDUSTRIES[random.nextInt(INDUSTRIES.length)];
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void buildIndex() {
+        index = LeadRoutingIndex.build(reps, Collections.emptyMap());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void route1MLeadsAcross500Reps(Blackhole blackhole) {
+        for (int i = 0; i < LEADS; i++) {
+            blackhole.consume(index.route(leadLocations[i], leadIndustries[i]));
+        }
+    }
+
+    @Benchmark
+    public LeadRoutingIndex buildIndexFor500Reps() {
+        return LeadRoutingIndex.build(reps, Collections.emptyMap());
+    }
+}
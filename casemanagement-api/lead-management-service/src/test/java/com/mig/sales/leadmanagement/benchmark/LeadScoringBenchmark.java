@@ -0,0 +1,108 @@
+package com.mig.sales.leadmanagement.benchmark;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.service.LeadScoringService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores 10k synthetic leads with {@link LeadScoringService}, against a copy of the
+ * original hard-coded scoring for comparison. Run with the GC profiler to see the
+ * per-score allocation; gc.alloc.rate.norm should be 0 B/op for the compiled rules.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark="LeadScoringBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LeadScoringBenchmark {
+
+    private static final int LEADS = 10_000;
+
+    private static final String[] SOURCES = {"Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show"};
+
+    private LeadScoringService leadScoringService;
+    private Lead[] leads;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        leadScoringService = new LeadScoringService();
+        Random random = new Random(42);
+        leads = new Lead[LEADS];
+        for (int i = 0; i < LEADS; i++) {
+            Lead lead = new Lead();
+            lead.setPotentialValue(BigDecimal.valueOf(random.nextInt(200_000_000), 2));
+            lead.setLeadSource(SOURCES[random.nextInt(SOURCES.length)]);
+            lead.setEmail(random.nextInt(4) == 0 ? null : "lead" + i + "@example.com");
+            lead.setPhone(random.nextInt(3) == 0 ? " " : "555-" + i);
+            leads[i] = lead;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void compiledRules(Blackhole blackhole) {
+        for (Lead lead : leads) {
+            blackhole.consume(leadScoringService.calculateScore(lead));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void originalHardCodedRules(Blackhole blackhole) {
+        for (Lead lead : leads) {
+            blackhole.consume(originalScore(lead));
+        }
+    }
+
+    /**
+     * The scoring as originally hard-coded in LeadScoringService
+     */
+    private static int originalScore(Lead lead) {
+        int score = 0;
+        if (lead.getPotentialValue() != null) {
+            if (lead.getPotentialValue().compareTo(new BigDecimal("500000")) > 0) {
+                score += 50;
+            } else if (lead.getPotentialValue().compareTo(new BigDecimal("100000")) >= 0) {
+                score += 20;
+            } else {
+                score += 5;
+            }
+        }
+        if (lead.getLeadSource() != null) {
+            switch (lead.getLeadSource()) {
+                case "Partner Referral": score += 30; break;
+                case "Webinar": score += 15; break;
+                case "Website Signup": score += 10; break;
+                case "Cold Call": score += 5; break;
+                default: break;
+            }
+        }
+        boolean hasEmail = lead.getEmail() != null && !lead.getEmail().trim().isEmpty();
+        boolean hasPhone = lead.getPhone() != null && !lead.getPhone().trim().isEmpty();
+        if (hasEmail && hasPhone) {
+            score += 15;
+        } else if (hasEmail || hasPhone) {
+            score += 5;
+        }
+        return Math.min(Math.max(score, 0), 100);
+    }
+}
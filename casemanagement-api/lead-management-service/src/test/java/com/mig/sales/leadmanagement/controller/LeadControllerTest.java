@@ -178,7 +178,7 @@ class LeadControllerTest {
     void testGetMyLeads_Success() throws Exception {
         // Arrange
         List<Lead> leads = Arrays.asList(testLead);
-        when(leadService.findByAssignedTo(any(User.class))).thenReturn(leads);
+        when(leadService.findMyLeads(any(User.class), isNull(), eq(20))).thenReturn(leads);
         when(userService.findByUsername("testuser")).thenReturn(testUser);
 
         // Act & Assert
@@ -0,0 +1,152 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs LeadHistoryRepository's keyset queries against H2, paging through many records that share timestamps
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class LeadHistoryRepositoryTest {
+
+    private static final int ROWS = 3_000;
+    private static final int PAGE_SIZE = 97;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired
+    private LeadHistoryRepository leadHistoryRepository;
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private User salesPerson;
+    private List<LeadHistory> saved;
+
+    @BeforeEach
+    void setUp() {
+        salesPerson = userRepository.save(user("history.person"));
+        User manager = userRepository.save(user("history.manager"));
+        Lead lead = new Lead();
+        lead.setLeadName("History Lead");
+        lead.setStatus("ASSIGNED");
+        lead = leadRepository.save(lead);
+
+        // Timestamps repeat every 200 rows and run against insertion order, so the ID tiebreak decides most pages
+        List<LeadHistory> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            LeadHistory history = new LeadHistory();
+            history.setLead(lead);
+            history.setUser(i % 3 == 0 ? manager : salesPerson);
+            history.setAction(i % 4 == 0 ? "Status Changed" : "Assigned");
+            history.setActionType(i % 2 == 0 ? "USER_ACTION" : "SYSTEM_ACTION");
+            history.setTimestamp(START.plusMinutes(200 - i % 200));
+            rows.add(history);
+        }
+        saved = leadHistoryRepository.saveAll(rows);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindByActionAfter_ReturnsEveryRecordOnceInOrder() {
+        walk(pageable -> leadHistoryRepository.findLatestByAction("Status Changed", pageable),
+                (last, pageable) -> leadHistoryRepository.findByActionAfter("Status Changed",
+                        last.getTimestamp(), last.getId(), pageable),
+                h -> "Status Changed".equals(h.getAction()));
+    }
+
+    @Test
+    void testFindByActionTypeAfter_ReturnsEveryRecordOnceInOrder() {
+        walk(pageable -> leadHistoryRepository.findLatestByActionType("SYSTEM_ACTION", pageable),
+                (last, pageable) -> leadHistoryRepository.findByActionTypeAfter("SYSTEM_ACTION",
+                        last.getTimestamp(), last.getId(), pageable),
+                h -> "SYSTEM_ACTION".equals(h.getActionType()));
+    }
+
+    @Test
+    void testFindByUserAfter_ReturnsEveryRecordOnceInOrder() {
+        walk(pageable -> leadHistoryRepository.findLatestByUser(salesPerson, pageable),
+                (last, pageable) -> leadHistoryRepository.findByUserAfter(salesPerson,
+                        last.getTimestamp(), last.getId(), pageable),
+                h -> salesPerson.getId().equals(h.getUser().getId()));
+    }
+
+    @Test
+    void testFindInRangeAfter_ReturnsEveryRecordOnceInOrder() {
+        LocalDateTime startDate = START.plusMinutes(50);
+        LocalDateTime endDate = START.plusMinutes(150);
+        walk(pageable -> leadHistoryRepository.findLatestInRange(startDate, endDate, pageable),
+                (last, pageable) -> leadHistoryRepository.findInRangeAfter(startDate, endDate,
+                        last.getTimestamp(), last.getId(), pageable),
+                h -> !h.getTimestamp().isBefore(startDate) && !h.getTimestamp().isAfter(endDate));
+    }
+
+    /**
+     * Page through a query to the end and check the pages hold exactly the matching records, newest first
+     */
+    private void walk(Function<Pageable, List<LeadHistory>> first,
+                      PageAfter next,
+                      Predicate<LeadHistory> matches) {
+        List<Long> expected = saved.stream()
+                .filter(matches)
+                .sorted(Comparator.comparing(LeadHistory::getTimestamp)
+                        .thenComparing(LeadHistory::getId).reversed())
+                .map(LeadHistory::getId)
+                .toList();
+        assertTrue(expected.size() > 5 * PAGE_SIZE);
+
+        List<Long> returned = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        Pageable pageable = Pageable.ofSize(PAGE_SIZE);
+        List<LeadHistory> page = first.apply(pageable);
+        while (!page.isEmpty()) {
+            assertTrue(page.size() <= PAGE_SIZE);
+            for (LeadHistory history : page) {
+                assertTrue(seen.add(history.getId()), "record " + history.getId() + " returned twice");
+                returned.add(history.getId());
+            }
+            page = next.apply(page.get(page.size() - 1), pageable);
+        }
+
+        assertEquals(expected, returned);
+    }
+
+    @FunctionalInterface
+    private interface PageAfter {
+        List<LeadHistory> apply(LeadHistory last, Pageable pageable);
+    }
+
+    private static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password123");
+        user.setRole("SALES_PERSON");
+        return user;
+    }
+}
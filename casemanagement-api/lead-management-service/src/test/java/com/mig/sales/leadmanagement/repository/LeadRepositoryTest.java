@@ -0,0 +1,84 @@
+package com.mig.sales.leadmanagement.repository;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs LeadRepository's locking reads against H2 with a second transaction competing for the rows
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LeadRepositoryTest {
+
+    @Autowired
+    private LeadRepository leadRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private Long leadId;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        Lead lead = new Lead();
+        lead.setLeadName("Rescored Lead");
+        lead.setStatus("ASSIGNED");
+        lead.setLeadScore(40);
+        leadId = leadRepository.save(lead).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        leadRepository.deleteById(leadId);
+    }
+
+    @Test
+    void testLockScoringInputsBetween_ScoreChangedMeanwhileIsNotOverwritten() throws Exception {
+        CompletableFuture<Integer> concurrentUpdate = new CompletableFuture<>();
+
+        transaction.executeWithoutResult(status -> {
+            // Act: the rescoring chunk reads the lead, then an edit rescores it before the chunk writes
+            List<Object[]> rows = leadRepository.lockScoringInputsBetween(leadId - 1, leadId);
+            assertEquals(1, rows.size());
+            assertEquals(40, rows.get(0)[5]);
+
+            CompletableFuture.runAsync(() -> concurrentUpdate.complete(transaction.execute(edit ->
+                    leadRepository.updateLeadScores(Collections.singletonList(leadId), 70, LocalDateTime.now()))));
+            assertThrows(Exception.class, () -> concurrentUpdate.get(300, TimeUnit.MILLISECONDS),
+                    "the edit should wait for the chunk's lock");
+
+            leadRepository.updateLeadScores(Collections.singletonList(leadId), 55, LocalDateTime.now());
+        });
+
+        // Assert: the edit ran after the chunk committed, so its score is the one kept
+        assertEquals(1, concurrentUpdate.get(5, TimeUnit.SECONDS));
+        assertEquals(70, leadRepository.findById(leadId).orElseThrow().getLeadScore());
+    }
+
+    @Test
+    void testLockScoringInputsBetween_ReadsOnlyTheRange() {
+        List<Object[]> rows = transaction.execute(status -> leadRepository.lockScoringInputsBetween(leadId, leadId + 100));
+
+        assertTrue(rows.isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for AssigneeTopLeadsIndex
+ */
+@ExtendWith(MockitoExtension.class)
+class AssigneeTopLeadsIndexTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Mock
+    private LeadRepository leadRepository;
+
+    @InjectMocks
+    private AssigneeTopLeadsIndex index;
+
+    private User rep;
+    private User otherRep;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "topK", 3);
+        rep = user(1L);
+        otherRep = user(2L);
+    }
+
+    @Test
+    void testFindPage_ServesRepeatedReadsFromMemory() {
+        // Arrange
+        when(leadRepository.findTopAssigned(eq(1L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(lead(10L, 90), lead(11L, 80), lead(12L, null)));
+
+        // Act
+        index.findPage(rep, null, 2);
+        List<Lead> page = index.findPage(rep, null, 3);
+
+        // Assert
+        assertEquals(Arrays.asList(10L, 11L, 12L), ids(page));
+        assertSame(rep, page.get(0).getAssignedTo());
+        verify(leadRepository, times(1)).findTopAssigned(1L, Pageable.ofSize(4));
+    }
+
+    @Test
+    void testLeadSaved_UpdatesShelvesIncrementally() {
+        // Arrange: the rep has more leads than fit on the shelf
+        when(leadRepository.findTopAssigned(eq(1L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(lead(10L, 90), lead(11L, 80), lead(12L, 70), lead(13L, 60)));
+        index.findPage(rep, null, 1);
+
+        // Act: a new lead enters the top, one is rescored higher and one moves to another rep
+        index.leadSaved(assigned(lead(20L, 85), rep));
+        index.leadSaved(assigned(lead(11L, 95), rep));
+        index.leadSaved(assigned(lead(10L, 90), otherRep));
+        List<Lead> page = index.findPage(rep, null, 2);
+
+        // Assert
+        assertEquals(Arrays.asList(11L, 20L), ids(page));
+        verify(leadRepository, times(1)).findTopAssigned(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void testFindPage_FallsBackToKeysetQueryPastTheShelf() {
+        // Arrange
+        when(leadRepository.findTopAssigned(eq(1L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(lead(10L, 90), lead(11L, 80), lead(12L, 70), lead(13L, 60)));
+        when(leadRepository.findAssignedAfter(1L, 80, CREATED, 11L, Pageable.ofSize(2)))
+                .thenReturn(Arrays.asList(lead(12L, 70), lead(13L, 60)));
+
+        // Act: the page after lead 11 needs two leads, but only one is on the shelf
+        List<Lead> page = index.findPage(rep, lead(11L, 80), 2);
+
+        // Assert
+        assertEquals(Arrays.asList(12L, 13L), ids(page));
+        verify(leadRepository, times(1)).findTopAssigned(eq(1L), any(Pageable.class));
+    }
+
+    @Test
+    void testFindPage_ReloadsShelfDepletedByRemovals() {
+        // Arrange
+        when(leadRepository.findTopAssigned(eq(1L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(lead(10L, 90), lead(11L, 80), lead(12L, 70), lead(13L, 60)))
+                .thenReturn(Arrays.asList(lead(11L, 80), lead(12L, 70), lead(13L, 60)));
+        index.findPage(rep, null, 3);
+
+        // Act
+        index.leadDeleted(10L);
+        List<Lead> page = index.findPage(rep, null, 3);
+
+        // Assert
+        assertEquals(Arrays.asList(11L, 12L, 13L), ids(page));
+        verify(leadRepository, times(2)).findTopAssigned(eq(1L), any(Pageable.class));
+        verify(leadRepository, never()).findAssignedAfter(anyLong(), anyInt(), any(), anyLong(), any());
+    }
+
+    @Test
+    void testLeadsAssigned_DropsTheNewAssigneesShelf() {
+        // Arrange
+        when(leadRepository.findTopAssigned(eq(1L), any(Pageable.class)))
+                .thenReturn(Collections.singletonList(lead(10L, 90)))
+                .thenReturn(Arrays.asList(lead(30L, 95), lead(10L, 90)));
+        index.findPage(rep, null, 3);
+
+        // Act
+        index.leadsUpdated(Collections.singletonList(30L), 1L);
+        List<Lead> page = index.findPage(rep, null, 3);
+
+        // Assert
+        assertEquals(Arrays.asList(30L, 10L), ids(page));
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Lead lead(Long id, Integer score) {
+        Lead lead = new Lead();
+        lead.setId(id);
+        lead.setLeadScore(score);
+        lead.setCreatedDate(CREATED);
+        return lead;
+    }
+
+    private static Lead assigned(Lead lead, User user) {
+        lead.setAssignedTo(user);
+        return lead;
+    }
+
+    private static List<Long> ids(List<Lead> leads) {
+        return leads.stream().map(Lead::getId).collect(Collectors.toList());
+    }
+}
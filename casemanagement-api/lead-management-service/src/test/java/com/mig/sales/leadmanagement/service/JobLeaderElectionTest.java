@@ -0,0 +1,142 @@
+package com.mig.sales.leadmanagement.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for JobLeaderElection with two nodes sharing an in-memory lease store
+ */
+class JobLeaderElectionTest {
+
+    private static final String JOB = "outbox-relay";
+
+    private final InMemoryJobLeaseStore store = new InMemoryJobLeaseStore();
+    private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+    private JobLeaderElection nodeA;
+    private JobLeaderElection nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = node();
+        nodeB = node();
+    }
+
+    @Test
+    void testIsLeader_OnlyOneNodeRunsAJob() {
+        // Act
+        boolean leaderA = nodeA.isLeader(JOB);
+        boolean leaderB = nodeB.isLeader(JOB);
+
+        // Assert
+        assertTrue(leaderA);
+        assertFalse(leaderB);
+        assertNotEquals(nodeA.getOwner(), nodeB.getOwner());
+    }
+
+    @Test
+    void testRenewLeases_HandsJobOverOnceADeadLeadersLeaseExpires() {
+        // Arrange
+        nodeA.isLeader(JOB);
+        nodeB.isLeader(JOB);
+
+        // Act: A renews while alive, then dies and stops renewing
+        advance(Duration.ofSeconds(10));
+        nodeA.renewLeases();
+        nodeB.renewLeases();
+        boolean takenWhileAlive = nodeB.isLeader(JOB);
+        advance(Duration.ofSeconds(25));
+        boolean aAfterMissedRenewals = nodeA.isLeader(JOB);
+        nodeB.renewLeases();
+        boolean takenBeforeExpiry = nodeB.isLeader(JOB);
+        advance(Duration.ofSeconds(6));
+        nodeB.renewLeases();
+
+        // Assert
+        assertFalse(takenWhileAlive);
+        assertFalse(aAfterMissedRenewals, "a leader that cannot renew stops before its lease runs out");
+        assertFalse(takenBeforeExpiry);
+        assertTrue(nodeB.isLeader(JOB));
+        assertEquals(0.0, leaderGauge(nodeA));
+        assertEquals(1.0, leaderGauge(nodeB));
+    }
+
+    @Test
+    void testReleaseLeases_HandsJobOverAtOnceOnShutdown() {
+        // Arrange
+        nodeA.isLeader(JOB);
+        nodeB.isLeader(JOB);
+
+        // Act
+        nodeA.releaseLeases();
+        advance(Duration.ofMillis(1));
+        nodeB.renewLeases();
+
+        // Assert
+        assertFalse(nodeA.isLeader(JOB));
+        assertTrue(nodeB.isLeader(JOB));
+    }
+
+    @Test
+    void testRenewLeases_StoreFailureCostsTheLeadership() {
+        // Arrange
+        JobLeaderElection node = node();
+        ReflectionTestUtils.setField(node, "jobLeaseStore", new JobLeaseStore() {
+            @Override
+            public boolean acquire(String jobName, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+                throw new IllegalStateException("database unavailable");
+            }
+
+            @Override
+            public void release(String jobName, String owner, LocalDateTime now) {
+            }
+        });
+
+        // Act & Assert
+        assertFalse(node.isLeader(JOB));
+    }
+
+    private JobLeaderElection node() {
+        JobLeaderElection election = new JobLeaderElection();
+        ReflectionTestUtils.setField(election, "jobLeaseStore", store);
+        ReflectionTestUtils.setField(election, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(election, "leaseTtlMillis", 30000L);
+        election.clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneId.of("UTC");
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        return election;
+    }
+
+    private static double leaderGauge(JobLeaderElection node) {
+        MeterRegistry registry = (MeterRegistry) ReflectionTestUtils.getField(node, "meterRegistry");
+        return registry.get("lead.jobs.leader").tag("job", JOB).gauge().value();
+    }
+
+    private void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+}
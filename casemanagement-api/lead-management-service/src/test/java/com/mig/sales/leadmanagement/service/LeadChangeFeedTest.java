@@ -0,0 +1,133 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadChangeFeed
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadChangeFeedTest {
+
+    @Mock
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Mock
+    private LeadRepository leadRepository;
+
+    @InjectMocks
+    private LeadChangeFeed leadChangeFeed;
+
+    private final LocalDateTime settled = LocalDateTime.now().minusMinutes(1);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(leadChangeFeed, "enabled", true);
+    }
+
+    @Test
+    void testGetChanges_ReturnsLastChangePerLeadWithTombstones() {
+        // Arrange
+        when(leadOutboxRepository.findAfter(10L, PageRequest.of(0, 4))).thenReturn(Arrays.asList(
+                event(11L, 1L, LeadOutbox.UPDATED, settled),
+                event(12L, 2L, LeadOutbox.CREATED, settled),
+                event(13L, 1L, LeadOutbox.STATUS_CHANGED, settled),
+                event(14L, 3L, LeadOutbox.DELETED, settled)));
+        when(leadRepository.findAllWithAssigneeById(Arrays.asList(2L, 1L)))
+                .thenReturn(Arrays.asList(lead(1L), lead(2L)));
+
+        // Act
+        LeadChangeFeed.ChangesPage page = leadChangeFeed.getChanges(10L, 3);
+
+        // Assert
+        assertEquals(13L, page.getWatermark());
+        assertTrue(page.isHasMore());
+        List<LeadChangeFeed.LeadChange> changes = page.getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(2L, changes.get(0).getLeadId());
+        assertEquals(1L, changes.get(1).getLeadId());
+        assertEquals(LeadOutbox.STATUS_CHANGED, changes.get(1).getEventType());
+        assertFalse(changes.get(1).isDeleted());
+        verify(leadOutboxRepository, never()).findMinId();
+    }
+
+    @Test
+    void testGetChanges_StopsBeforeEventsYoungerThanTheSettleWindow() {
+        // Arrange
+        when(leadOutboxRepository.findAfter(eq(10L), any())).thenReturn(Arrays.asList(
+                event(11L, 3L, LeadOutbox.DELETED, settled),
+                event(12L, 4L, LeadOutbox.UPDATED, LocalDateTime.now())));
+
+        // Act
+        LeadChangeFeed.ChangesPage page = leadChangeFeed.getChanges(10L, 100);
+
+        // Assert
+        assertEquals(11L, page.getWatermark());
+        assertFalse(page.isHasMore());
+        assertEquals(1, page.getChanges().size());
+        assertTrue(page.getChanges().get(0).isDeleted());
+        verify(leadRepository, never()).findAllWithAssigneeById(anyCollection());
+    }
+
+    @Test
+    void testGetChanges_RejectsWatermarkWhoseChangesWerePurged() {
+        // Arrange
+        when(leadOutboxRepository.findAfter(eq(10L), any()))
+                .thenReturn(Collections.singletonList(event(40L, 1L, LeadOutbox.UPDATED, settled)));
+        when(leadOutboxRepository.findMinId()).thenReturn(40L);
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> leadChangeFeed.getChanges(10L, 100));
+    }
+
+    @Test
+    void testGetChanges_WithoutWatermarkStartsAtNewestSettledEvent() {
+        // Arrange
+        when(leadOutboxRepository.findLatest(any())).thenReturn(Arrays.asList(
+                event(21L, 1L, LeadOutbox.UPDATED, LocalDateTime.now()),
+                event(20L, 2L, LeadOutbox.UPDATED, settled)));
+
+        // Act
+        LeadChangeFeed.ChangesPage page = leadChangeFeed.getChanges(null, 100);
+
+        // Assert
+        assertEquals(20L, page.getWatermark());
+        assertTrue(page.getChanges().isEmpty());
+        verify(leadOutboxRepository, never()).findAfter(anyLong(), any());
+    }
+
+    private static LeadOutboxEvent event(Long id, Long leadId, String type, LocalDateTime createdDate) {
+        LeadOutboxEvent event = new LeadOutboxEvent();
+        event.setId(id);
+        event.setLeadId(leadId);
+        event.setEventType(type);
+        event.setCreatedDate(createdDate);
+        return event;
+    }
+
+    private static Lead lead(Long id) {
+        Lead lead = new Lead();
+        lead.setId(id);
+        return lead;
+    }
+}
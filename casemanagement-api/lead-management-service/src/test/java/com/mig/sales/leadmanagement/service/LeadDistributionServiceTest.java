@@ -0,0 +1,313 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.DistributionCursor;
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.ResourceNotFoundException;
+import com.mig.sales.leadmanagement.exception.UnauthorizedException;
+import com.mig.sales.leadmanagement.repository.DistributionCursorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadDistributionService
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadDistributionServiceTest {
+
+    @Mock
+    private LeadService leadService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private LeadHistoryService leadHistoryService;
+
+    @Mock
+    private DistributionCursorRepository distributionCursorRepository;
+
+    @InjectMocks
+    private LeadDistributionService leadDistributionService;
+
+    private User user1;
+    private User user2;
+
+    @BeforeEach
+    void setUp() {
+        user1 = createUser(10L, "rep1");
+        user2 = createUser(20L, "rep2");
+    }
+
+    @Test
+    void testDistributeLeads_ResumesAfterLastAssignedUser() {
+        // Arrange
+        User user3 = createUser(30L, "rep3");
+        DistributionCursor cursor = new DistributionCursor(LeadDistributionService.ROUND_ROBIN_CURSOR);
+        cursor.setLastUserId(20L);
+        when(distributionCursorRepository.lockByName(LeadDistributionService.ROUND_ROBIN_CURSOR))
+                .thenReturn(Optional.of(cursor));
+        when(leadService.findNewLeadsForDistribution()).thenReturn(Arrays.asList(createLead(1L, "NEW"), createLead(2L, "NEW")));
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(user3, user2, user1));
+        when(leadService.assignNewLeads(anyCollection(), any(User.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        int distributed = leadDistributionService.distributeLeads();
+
+        // Assert
+        assertEquals(2, distributed);
+        verify(leadService).assignNewLeads(Collections.singletonList(1L), user3);
+        verify(leadService).assignNewLeads(Collections.singletonList(2L), user1);
+        verify(leadService, never()).updateLead(any(Lead.class));
+        verify(distributionCursorRepository, times(1)).save(cursor);
+        assertEquals(Long.valueOf(10L), cursor.getLastUserId());
+        assertEquals(Long.valueOf(2L), cursor.getAssignedCount());
+    }
+
+    @Test
+    void testDistributeLeads_SmallRunsStayFairAcrossTeamChanges() {
+        // Arrange: 10,000 runs of 1-3 leads; the team changes every 1,000 runs
+        DistributionCursor cursor = new DistributionCursor(LeadDistributionService.ROUND_ROBIN_CURSOR);
+        List<User> team = new ArrayList<>();
+        for (long id = 1; id <= 7; id++) {
+            team.add(createUser(id, "rep" + id));
+        }
+        Map<Long, Integer> segmentCounts = new HashMap<>();
+        Random random = new Random(42);
+        long[] nextLeadId = {1};
+        long[] nextUserId = {8};
+
+        when(distributionCursorRepository.lockByName(LeadDistributionService.ROUND_ROBIN_CURSOR))
+                .thenReturn(Optional.of(cursor));
+        when(userService.findActiveSalesPersons()).thenAnswer(invocation -> new ArrayList<>(team));
+        when(leadService.findNewLeadsForDistribution()).thenAnswer(invocation -> {
+            List<Lead> leads = new ArrayList<>();
+            for (int i = 1 + random.nextInt(3); i > 0; i--) {
+                leads.add(createLead(nextLeadId[0]++, "NEW"));
+            }
+            return leads;
+        });
+        when(leadService.assignNewLeads(anyCollection(), any(User.class))).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            segmentCounts.merge(((User) invocation.getArgument(1)).getId(), ids.size(), Integer::sum);
+            return ids;
+        });
+
+        // Act & Assert
+        for (int segment = 0; segment < 10; segment++) {
+            segmentCounts.clear();
+            for (int run = 0; run < 1000; run++) {
+                leadDistributionService.distributeLeads();
+            }
+
+            // A contiguous stretch of one rotation gives every rep the same share, give or take one lead
+            List<Integer> counts = new ArrayList<>();
+            for (User rep : team) {
+                counts.add(segmentCounts.getOrDefault(rep.getId(), 0));
+            }
+            int spread = Collections.max(counts) - Collections.min(counts);
+            assertTrue(spread <= 1, "Segment " + segment + " spread was " + spread + ": " + segmentCounts);
+
+            // Alternate between removing a rep from the middle and hiring a new one
+            if (segment % 2 == 0) {
+                team.remove(team.size() / 2);
+            } else {
+                team.add(createUser(nextUserId[0]++, "hire" + segment));
+            }
+            clearInvocations(leadService, userService, leadHistoryService, distributionCursorRepository);
+        }
+        assertEquals(nextLeadId[0] - 1, cursor.getAssignedCount().longValue());
+    }
+
+    @Test
+    void testDistributeSpecificLeads_ClassifiesEachLead() {
+        // Arrange
+        Lead new1 = createLead(1L, "NEW");
+        Lead new2 = createLead(2L, "NEW");
+        Lead new3 = createLead(3L, "NEW");
+        Lead assigned = createLead(4L, "ASSIGNED");
+        when(userService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(user2, user1));
+        when(leadService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(new1, new2, new3, assigned));
+        when(leadService.assignNewLeads(anyCollection(), any(User.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        LeadDistributionService.DistributionResult result = leadDistributionService.distributeSpecificLeads(
+                Arrays.asList(1L, 4L, 2L, 99L, 3L, 1L), Arrays.asList(10L, 20L));
+
+        // Assert
+        assertEquals(3, result.getAssignedCount());
+        assertEquals(Long.valueOf(10L), result.getAssigned().get(1L));
+        assertEquals(Long.valueOf(20L), result.getAssigned().get(2L));
+        assertEquals(Long.valueOf(10L), result.getAssigned().get(3L));
+        assertEquals(Collections.singletonList(4L), result.getSkippedNotNew());
+        assertEquals(Collections.singletonList(99L), result.getNotFound());
+
+        verify(leadService, times(1)).findAllByIds(anyCollection());
+        verify(leadService).assignNewLeads(Arrays.asList(1L, 3L), user1);
+        verify(leadService).assignNewLeads(Collections.singletonList(2L), user2);
+        verify(leadService, never()).findById(anyLong());
+        verify(leadService, never()).updateLead(any(Lead.class));
+        verify(leadHistoryService, times(3)).newActivity(any(Lead.class), any(User.class), anyString(),
+                eq("Manually Distributed"), eq("USER_ACTION"), eq("NEW"), eq("ASSIGNED"));
+        verify(leadHistoryService, times(1)).logActivities(anyList());
+    }
+
+    @Test
+    void testDistributeSpecificLeads_ReportsOnlyLeadsTheUpdateAssigned() {
+        // Arrange: lead 3 is claimed by someone else between the read and the UPDATE
+        Lead new1 = createLead(1L, "NEW");
+        Lead new3 = createLead(3L, "NEW");
+        when(userService.findAllByIds(anyCollection())).thenReturn(Collections.singletonList(user1));
+        when(leadService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(new1, new3));
+        when(leadService.assignNewLeads(Arrays.asList(1L, 3L), user1)).thenReturn(Collections.singletonList(1L));
+
+        // Act
+        LeadDistributionService.DistributionResult result = leadDistributionService.distributeSpecificLeads(
+                Arrays.asList(1L, 3L), Collections.singletonList(10L));
+
+        // Assert
+        assertEquals(Collections.singletonMap(1L, 10L), result.getAssigned());
+        assertEquals(Collections.singletonList(3L), result.getSkippedNotNew());
+        verify(leadHistoryService).newActivity(eq(new1), eq(user1), anyString(),
+                eq("Manually Distributed"), eq("USER_ACTION"), eq("NEW"), eq("ASSIGNED"));
+        verify(leadHistoryService, never()).newActivity(eq(new3), any(User.class), anyString(),
+                anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testDistributeSpecificLeads_UnknownUser() {
+        // Arrange
+        when(userService.findAllByIds(anyCollection())).thenReturn(Collections.singletonList(user1));
+
+        // Act & Assert
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () ->
+                leadDistributionService.distributeSpecificLeads(Arrays.asList(1L, 2L), Arrays.asList(10L, 30L)));
+
+        assertEquals("Users not found with ids: [30]", exception.getMessage());
+        verify(leadService, never()).findAllByIds(anyCollection());
+        verify(leadHistoryService, never()).logActivities(anyList());
+    }
+
+    @Test
+    void testDistributeSpecificLeads_EmptyInput() {
+        // Act
+        LeadDistributionService.DistributionResult result =
+                leadDistributionService.distributeSpecificLeads(Collections.emptyList(), Arrays.asList(10L));
+
+        // Assert
+        assertEquals(0, result.getAssignedCount());
+        verifyNoInteractions(leadService, userService, leadHistoryService);
+    }
+
+    @Test
+    void testClaimNextLead_PagesPastIneligibleCandidatesAndLocksOnlyTheMatch() {
+        // Arrange: a full page of Texas leads ahead of the first California one
+        user1.setTerritories("CA");
+        user1.setIndustries("Technology");
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 9, 0);
+        List<Object[]> texas = new ArrayList<>();
+        for (long id = 1; id <= LeadDistributionService.CLAIM_PAGE_SIZE; id++) {
+            texas.add(new Object[]{id, 90, created, "Austin, TX", "Technology"});
+        }
+        Object[] lastTexas = texas.get(texas.size() - 1);
+        Lead california = createLead(500L, "NEW");
+        when(leadService.findClaimCandidates(Set.of("technology"), null, LeadDistributionService.CLAIM_PAGE_SIZE))
+                .thenReturn(texas);
+        when(leadService.findClaimCandidates(Set.of("technology"), lastTexas, LeadDistributionService.CLAIM_PAGE_SIZE))
+                .thenReturn(Collections.singletonList(new Object[]{500L, 40, created, "San Jose, CA", "Technology"}));
+        when(leadService.lockClaimable(500L)).thenReturn(Optional.of(california));
+        when(leadService.assignLeadToUser(500L, user1)).thenReturn(california);
+
+        // Act
+        Optional<Lead> claimed = leadDistributionService.claimNextLead(user1);
+
+        // Assert
+        assertTrue(claimed.isPresent());
+        assertEquals(500L, claimed.get().getId());
+        verify(leadService, times(1)).lockClaimable(anyLong());
+    }
+
+    @Test
+    void testClaimNextLead_PassesOverCandidateTakenByAnotherClaimer() {
+        // Arrange
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 9, 0);
+        Lead second = createLead(2L, "NEW");
+        when(leadService.findClaimCandidates(Collections.emptySet(), null, LeadDistributionService.CLAIM_PAGE_SIZE))
+                .thenReturn(Arrays.asList(new Object[]{1L, 80, created, null, null},
+                        new Object[]{2L, 70, created, null, null}));
+        when(leadService.lockClaimable(1L)).thenReturn(Optional.empty());
+        when(leadService.lockClaimable(2L)).thenReturn(Optional.of(second));
+        when(leadService.assignLeadToUser(2L, user1)).thenReturn(second);
+
+        // Act
+        Optional<Lead> claimed = leadDistributionService.claimNextLead(user1);
+
+        // Assert
+        assertEquals(Optional.of(second), claimed);
+        verify(leadService, never()).assignLeadToUser(eq(1L), any(User.class));
+    }
+
+    @Test
+    void testClaimNextLead_NothingAvailable() {
+        // Arrange
+        when(leadService.findClaimCandidates(Collections.emptySet(), null, LeadDistributionService.CLAIM_PAGE_SIZE))
+                .thenReturn(Collections.emptyList());
+
+        // Act
+        Optional<Lead> claimed = leadDistributionService.claimNextLead(user1);
+
+        // Assert
+        assertFalse(claimed.isPresent());
+        verify(leadService, never()).lockClaimable(anyLong());
+        verify(leadService, never()).assignLeadToUser(anyLong(), any(User.class));
+    }
+
+    @Test
+    void testClaimNextLead_ManagerCannotClaim() {
+        // Arrange
+        user1.setRole("SALES_MANAGER");
+
+        // Act & Assert
+        assertThrows(UnauthorizedException.class, () -> leadDistributionService.claimNextLead(user1));
+        verifyNoInteractions(leadService);
+    }
+
+    private User createUser(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole("SALES_PERSON");
+        user.setIsActive(true);
+        return user;
+    }
+
+    private Lead createLead(Long id, String status) {
+        Lead lead = new Lead();
+        lead.setId(id);
+        lead.setLeadName("Lead " + id);
+        lead.setStatus(status);
+        return lead;
+    }
+}
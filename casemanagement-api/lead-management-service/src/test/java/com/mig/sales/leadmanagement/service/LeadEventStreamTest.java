@@ -0,0 +1,192 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadEventStream
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadEventStreamTest {
+
+    @Mock
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Mock
+    private LeadDistributionService leadDistributionService;
+
+    /** Never runs send tasks, so every subscriber behaves like a client that stopped reading */
+    @Mock
+    private ThreadPoolExecutor stalledSendPool;
+
+    @InjectMocks
+    private LeadEventStream leadEventStream;
+
+    private User manager;
+    private User salesPerson;
+
+    @BeforeEach
+    void setUp() {
+        manager = user(1L, "SALES_MANAGER");
+        salesPerson = user(2L, "SALES_PERSON");
+        ReflectionTestUtils.setField(leadEventStream, "enabled", true);
+        ReflectionTestUtils.setField(leadEventStream, "bufferSize", 2);
+        ReflectionTestUtils.setField(leadEventStream, "sendPool", stalledSendPool);
+    }
+
+    @Test
+    void testPublish_DisconnectsOnlySubscribersWhoseBufferOverflows() {
+        // Arrange
+        leadEventStream.subscribe(manager, new LeadEventStream.Filter(null, null, null, false));
+        leadEventStream.subscribe(manager, new LeadEventStream.Filter(null, Collections.singletonList("CONVERTED"), null, false));
+
+        // Act
+        leadEventStream.publish(Arrays.asList(
+                event(1L, "ASSIGNED", LocalDateTime.now()),
+                event(2L, "IN_PROGRESS", LocalDateTime.now()),
+                event(3L, "CONVERTED", LocalDateTime.now())));
+
+        // Assert
+        assertEquals(1, leadEventStream.getSubscriberCount());
+        assertEquals(1, leadEventStream.getEvictedCount());
+        verify(stalledSendPool, times(2)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void testPoll_WaitsAtAGapUntilItSettlesAndNeverRepeatsAnEvent() {
+        // Arrange
+        ReflectionTestUtils.setField(leadEventStream, "bufferSize", 3);
+        ReflectionTestUtils.setField(leadEventStream, "settleMillis", 3_600_000L);
+        LocalDateTime created = LocalDateTime.now().minusMinutes(1);
+        when(leadOutboxRepository.findLatest(PageRequest.of(0, 1)))
+                .thenReturn(Collections.singletonList(event(10L, "NEW", created)));
+        when(leadOutboxRepository.findAfter(eq(10L), any()))
+                .thenReturn(Arrays.asList(event(11L, "ASSIGNED", created), event(13L, "ASSIGNED", created)));
+        when(leadOutboxRepository.findAfter(eq(11L), any())).thenReturn(
+                Collections.singletonList(event(13L, "ASSIGNED", created)),
+                Arrays.asList(event(13L, "ASSIGNED", created), event(14L, "ASSIGNED", created)));
+        leadEventStream.subscribe(manager, new LeadEventStream.Filter(null, null, null, false));
+
+        // Act
+        leadEventStream.poll(); // starts after the newest event
+        leadEventStream.poll(); // streams 11 and 13, waits at the gap
+        leadEventStream.poll(); // 13 again: not re-sent
+        ReflectionTestUtils.setField(leadEventStream, "settleMillis", 0L);
+        leadEventStream.poll(); // gap settled: streams 14 only and moves past it
+        leadEventStream.poll();
+
+        // Assert
+        verify(leadOutboxRepository, times(2)).findAfter(eq(11L), any());
+        verify(leadOutboxRepository).findAfter(eq(14L), any());
+        // 11, 13 and 14 fill the buffer of 3 exactly; a repeated 13 would have overflowed it
+        assertEquals(0, leadEventStream.getEvictedCount());
+        assertEquals(1, leadEventStream.getSubscriberCount());
+    }
+
+    @Test
+    void testSubscribe_SalesPersonOnlyReceivesChangesToTheirOwnLeads() {
+        // Arrange: asks for everything, including another user's leads and stats
+        leadEventStream.subscribe(salesPerson, new LeadEventStream.Filter(null, null, 9L, true));
+        LeadOutboxEvent others = event(1L, "ASSIGNED", LocalDateTime.now());
+        others.setAssignedTo(9L);
+        LeadOutboxEvent own = event(2L, "ASSIGNED", LocalDateTime.now());
+        own.setAssignedTo(salesPerson.getId());
+
+        // Act: a buffer of 2 overflows on a third frame
+        leadEventStream.publish(Arrays.asList(others, others, own, own));
+        leadEventStream.pushStats();
+
+        // Assert
+        assertEquals(0, leadEventStream.getEvictedCount());
+        verifyNoInteractions(leadDistributionService);
+    }
+
+    @Test
+    void testPushStats_SendsSnapshotThenOnlyChanges() {
+        // Arrange
+        leadEventStream.subscribe(manager, new LeadEventStream.Filter(null, null, null, true));
+        when(leadDistributionService.getDistributionStats()).thenReturn(
+                new LeadDistributionService.DistributionStats(5, 10, 20, 30),
+                new LeadDistributionService.DistributionStats(5, 10, 20, 30),
+                new LeadDistributionService.DistributionStats(5, 9, 21, 30),
+                new LeadDistributionService.DistributionStats(6, 9, 21, 30));
+
+        // Act & Assert: snapshot, nothing, change: two frames fill the buffer of 2
+        leadEventStream.pushStats();
+        leadEventStream.pushStats();
+        leadEventStream.pushStats();
+        assertEquals(0, leadEventStream.getEvictedCount());
+        leadEventStream.pushStats();
+        assertEquals(1, leadEventStream.getEvictedCount());
+    }
+
+    @Test
+    void testStatsDelta_KeepsOnlyChangedFields() {
+        // Act
+        Map<String, Object> snapshot = LeadEventStream.statsDelta(null,
+                new LeadDistributionService.DistributionStats(5, 10, 20, 30));
+        Map<String, Object> delta = LeadEventStream.statsDelta(
+                new LeadDistributionService.DistributionStats(5, 10, 20, 30),
+                new LeadDistributionService.DistributionStats(5, 9, 21, 30));
+
+        // Assert
+        assertEquals(4, snapshot.size());
+        assertEquals(Map.of("newLeadsCount", 9L, "assignedLeadsCount", 21L), delta);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDisconnectBlockedWriters_DisconnectsAndReplacesTheBlockedThread() {
+        // Arrange: one subscriber mid-write for longer than the timeout, one idle
+        leadEventStream.subscribe(manager, new LeadEventStream.Filter(null, null, null, false));
+        leadEventStream.subscribe(manager, new LeadEventStream.Filter(null, null, null, false));
+        Map<Long, ?> subscribers = (Map<Long, ?>) ReflectionTestUtils.getField(leadEventStream, "subscribers");
+        ReflectionTestUtils.setField(subscribers.get(1L), "writeStartedNanos", System.nanoTime() - 10_000_000_000L);
+
+        // Act
+        leadEventStream.disconnectBlockedWriters();
+        leadEventStream.disconnectBlockedWriters();
+
+        // Assert
+        assertEquals(1, leadEventStream.getSubscriberCount());
+        assertEquals(1, leadEventStream.getEvictedCount());
+        verify(stalledSendPool).setCorePoolSize(5);
+        verify(stalledSendPool).setMaximumPoolSize(5);
+    }
+
+    private static User user(Long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+
+    private static LeadOutboxEvent event(Long id, String status, LocalDateTime createdDate) {
+        LeadOutboxEvent event = new LeadOutboxEvent();
+        event.setId(id);
+        event.setLeadId(id * 100);
+        event.setEventType(LeadOutbox.STATUS_CHANGED);
+        event.setStatus(status);
+        event.setCreatedDate(createdDate);
+        return event;
+    }
+}
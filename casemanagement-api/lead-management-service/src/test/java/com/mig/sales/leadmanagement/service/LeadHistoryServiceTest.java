@@ -0,0 +1,131 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.repository.LeadHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadHistoryService's cross-lead queries
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadHistoryServiceTest {
+
+    private static final int TABLE_ROWS = 20_000;
+
+    @Mock
+    private LeadHistoryRepository leadHistoryRepository;
+
+    @InjectMocks
+    private LeadHistoryService leadHistoryService;
+
+    @Test
+    void testFindByAction_WalksEveryRecordWithoutHoldingMoreThanOnePage() {
+        // Arrange: a large table where every fifth record has the action, many sharing a timestamp
+        List<LeadHistory> table = new ArrayList<>(TABLE_ROWS);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (long id = 1; id <= TABLE_ROWS; id++) {
+            table.add(record(id, id % 5 == 0 ? "Status Changed" : "Assigned", start.plusMinutes(id / 3)));
+        }
+        table.sort(Comparator.comparing(LeadHistory::getTimestamp).thenComparing(LeadHistory::getId).reversed());
+        AtomicInteger largestRead = new AtomicInteger();
+        when(leadHistoryRepository.findLatestByAction(eq("Status Changed"), any(Pageable.class)))
+                .thenAnswer(invocation -> read(table, h -> "Status Changed".equals(h.getAction()),
+                        invocation.getArgument(1), largestRead));
+        when(leadHistoryRepository.findByActionAfter(eq("Status Changed"), any(LocalDateTime.class), anyLong(),
+                any(Pageable.class))).thenAnswer(invocation -> {
+                    LocalDateTime timestamp = invocation.getArgument(1);
+                    Long id = invocation.getArgument(2);
+                    return read(table, h -> "Status Changed".equals(h.getAction())
+                            && (h.getTimestamp().isBefore(timestamp)
+                                || (h.getTimestamp().equals(timestamp) && h.getId() < id)),
+                            invocation.getArgument(3), largestRead);
+                });
+
+        // Act
+        Set<Long> seen = new HashSet<>();
+        int pages = 0;
+        LeadHistory after = null;
+        List<LeadHistory> page;
+        while (!(page = leadHistoryService.findByAction("Status Changed", after,
+                LeadHistoryService.MAX_PAGE_SIZE)).isEmpty()) {
+            for (LeadHistory history : page) {
+                assertTrue(seen.add(history.getId()), "record " + history.getId() + " returned twice");
+            }
+            after = page.get(page.size() - 1);
+            pages++;
+        }
+
+        // Assert
+        assertEquals(TABLE_ROWS / 5, seen.size());
+        assertEquals(TABLE_ROWS / 5 / LeadHistoryService.MAX_PAGE_SIZE, pages);
+        assertEquals(LeadHistoryService.MAX_PAGE_SIZE, largestRead.get());
+    }
+
+    @Test
+    void testFindByDateRange_RejectsPagesAboveTheCapWithoutQuerying() {
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> leadHistoryService.findByDateRange(
+                LocalDateTime.now().minusYears(5), LocalDateTime.now(), null, LeadHistoryService.MAX_PAGE_SIZE + 1));
+        assertThrows(BusinessException.class, () -> leadHistoryService.findByUser(null, null, 0));
+        verifyNoInteractions(leadHistoryRepository);
+    }
+
+    @Test
+    void testFindByActionType_ContinuesAfterTheLastRecordOfThePreviousPage() {
+        // Arrange
+        LocalDateTime timestamp = LocalDateTime.of(2024, 3, 1, 12, 0);
+        LeadHistory last = record(42L, "Escalated", timestamp);
+
+        // Act
+        leadHistoryService.findByActionType("WORKFLOW", last, 100);
+
+        // Assert
+        verify(leadHistoryRepository).findByActionTypeAfter("WORKFLOW", timestamp, 42L, Pageable.ofSize(100));
+        verify(leadHistoryRepository, never()).findLatestByActionType(any(), any());
+    }
+
+    /**
+     * Serve one page the way the database would: filter, keep index order, stop at the page size
+     */
+    private static List<LeadHistory> read(List<LeadHistory> table, Predicate<LeadHistory> filter, Pageable pageable,
+                                          AtomicInteger largestRead) {
+        List<LeadHistory> rows = new ArrayList<>();
+        for (LeadHistory history : table) {
+            if (rows.size() == pageable.getPageSize()) {
+                break;
+            }
+            if (filter.test(history)) {
+                rows.add(history);
+            }
+        }
+        largestRead.accumulateAndGet(rows.size(), Math::max);
+        return rows;
+    }
+
+    private static LeadHistory record(Long id, String action, LocalDateTime timestamp) {
+        LeadHistory history = new LeadHistory();
+        history.setId(id);
+        history.setAction(action);
+        history.setTimestamp(timestamp);
+        return history;
+    }
+}
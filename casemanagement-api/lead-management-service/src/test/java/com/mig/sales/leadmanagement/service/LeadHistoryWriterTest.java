@@ -0,0 +1,93 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadHistory;
+import com.mig.sales.leadmanagement.repository.LeadHistoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadHistoryWriter
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadHistoryWriterTest {
+
+    @Mock
+    private LeadHistoryRepository leadHistoryRepository;
+
+    @InjectMocks
+    private LeadHistoryWriter leadHistoryWriter;
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testWrite_InsertsTransactionsEntriesInOneBatchBeforeCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        LeadHistory assigned = activity("Assigned");
+        LeadHistory started = activity("Status Changed");
+        LeadHistory commented = activity("Comment");
+
+        // Act
+        leadHistoryWriter.write(Collections.singletonList(assigned));
+        leadHistoryWriter.write(Arrays.asList(started, commented));
+        verifyNoInteractions(leadHistoryRepository);
+        commit();
+
+        // Assert
+        verify(leadHistoryRepository).saveAll(Arrays.asList(assigned, started, commented));
+        verifyNoMoreInteractions(leadHistoryRepository);
+    }
+
+    @Test
+    void testWrite_DropsEntriesOfRolledBackTransaction() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        leadHistoryWriter.write(Collections.singletonList(activity("Assigned")));
+
+        // Act
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        // Assert
+        verifyNoInteractions(leadHistoryRepository);
+        assertNull(TransactionSynchronizationManager.getResource(leadHistoryWriter));
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.beforeCommit(false);
+        }
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCommit();
+        }
+        for (TransactionSynchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+
+    private static LeadHistory activity(String action) {
+        LeadHistory history = new LeadHistory();
+        history.setAction(action);
+        return history;
+    }
+}
@@ -0,0 +1,118 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadOutboxRelay
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadOutboxRelayTest {
+
+    @Mock
+    private LeadOutboxRepository leadOutboxRepository;
+
+    @Spy
+    private InMemoryLeadEventSink leadEventSink = new InMemoryLeadEventSink();
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private LeadOutboxRelay leadOutboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(leadOutboxRelay, "batchSize", 2);
+    }
+
+    @Test
+    void testRelay_DeliversBatchesInOrderAndMarksThemPublished() {
+        // Arrange
+        when(leadOutboxRepository.findUnpublished(any(Pageable.class))).thenReturn(
+                Arrays.asList(event(1L, 10L), event(2L, 11L)),
+                Collections.singletonList(event(3L, 10L)));
+
+        // Act
+        int delivered = leadOutboxRelay.relay();
+
+        // Assert
+        assertEquals(3, delivered);
+        List<LeadOutboxEvent> events = leadEventSink.getEvents();
+        assertEquals(Arrays.asList(1L, 2L, 3L), events.stream().map(LeadOutboxEvent::getId).toList());
+        verify(leadOutboxRepository).markPublished(eq(Arrays.asList(1L, 2L)), any());
+        verify(leadOutboxRepository).markPublished(eq(Collections.singletonList(3L)), any());
+        verify(leadOutboxRepository, times(2)).findUnpublished(any(Pageable.class));
+    }
+
+    @Test
+    void testRelay_SinkFailureLeavesBatchUnpublished() {
+        // Arrange
+        when(leadOutboxRepository.findUnpublished(any(Pageable.class)))
+                .thenReturn(Arrays.asList(event(1L, 10L), event(2L, 11L)));
+        doThrow(new IllegalStateException("Lead event webhook returned 503"))
+                .when(leadEventSink).publish(anyList());
+
+        // Act
+        int delivered = leadOutboxRelay.relay();
+
+        // Assert
+        assertEquals(0, delivered);
+        verify(leadOutboxRepository, never()).markPublished(anyCollection(), any());
+        verify(leadOutboxRepository, times(1)).findUnpublished(any(Pageable.class));
+    }
+
+    @Test
+    void testRelay_StopsBetweenBatchesOnceNoLongerLeader() {
+        // Arrange
+        when(leadOutboxRepository.findUnpublished(any(Pageable.class))).thenReturn(
+                Arrays.asList(event(1L, 10L), event(2L, 11L)));
+
+        // Act
+        int delivered = leadOutboxRelay.relay(() -> false);
+
+        // Assert
+        assertEquals(2, delivered);
+        verify(leadOutboxRepository, times(1)).findUnpublished(any(Pageable.class));
+    }
+
+    @Test
+    void testPurge_KeepsDeliveredEventsTheSinkMayStillResend() {
+        // Arrange
+        LocalDateTime stillNeeded = LocalDateTime.now().minusDays(30);
+        doReturn(stillNeeded).when(leadEventSink).oldestRetainedPublishedDate();
+
+        // Act
+        leadOutboxRelay.purge();
+
+        // Assert
+        verify(leadOutboxRepository).deletePublishedBefore(stillNeeded);
+    }
+
+    private static LeadOutboxEvent event(Long id, Long leadId) {
+        LeadOutboxEvent event = new LeadOutboxEvent();
+        event.setId(id);
+        event.setLeadId(leadId);
+        event.setEventType(LeadOutbox.STATUS_CHANGED);
+        return event;
+    }
+}
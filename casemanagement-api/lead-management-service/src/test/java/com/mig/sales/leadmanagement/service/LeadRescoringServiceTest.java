@@ -0,0 +1,147 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadRescoringService
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadRescoringServiceTest {
+
+    @Mock
+    private LeadService leadService;
+
+    @Spy
+    private LeadScoringService leadScoringService = new LeadScoringService();
+
+    @Mock
+    private LeadHistoryService leadHistoryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private LeadScoreHistogram leadScoreHistogram;
+
+    @InjectMocks
+    private LeadRescoringService leadRescoringService;
+
+    private User manager;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(leadRescoringService, "chunkSize", 2);
+        leadRescoringService.startScoringPool();
+        manager = new User();
+        manager.setId(1L);
+        manager.setRole("SALES_MANAGER");
+    }
+
+    @AfterEach
+    void tearDown() {
+        leadRescoringService.stopScoringPool();
+    }
+
+    @Test
+    void testRescoreAll_WritesOnlyChangedLeads() {
+        // Arrange: scores are 95, 40 and 5 under the current rules
+        Object[] unchanged = row(1L, "600000", "Partner Referral", "a@b.com", "555", 95);
+        Object[] changed = row(2L, "200000", "Webinar", "a@b.com", null, 30);
+        Object[] unscored = row(3L, "1000", null, null, null, null);
+        when(leadService.lockScoringInputsAfter(0L, 2)).thenReturn(Arrays.asList(unchanged, changed));
+        when(leadService.lockScoringInputsAfter(2L, 2)).thenReturn(Collections.singletonList(unscored));
+        when(leadService.getReference(anyLong())).thenReturn(new Lead());
+
+        // Act
+        LeadRescoringService.RescoreResult result = leadRescoringService.rescoreAll(null, manager);
+
+        // Assert
+        assertTrue(result.isCompleted());
+        assertEquals(3, result.getScannedCount());
+        assertEquals(2, result.getChangedCount());
+        assertEquals(1, result.getPreviouslyUnscoredCount());
+        assertEquals(Collections.singletonMap(10, 1L), result.getScoreDeltas());
+        assertEquals(Long.valueOf(3L), result.getLastProcessedId());
+        verify(leadService).updateLeadScores(Collections.singletonList(2L), 40);
+        verify(leadService).updateLeadScores(Collections.singletonList(3L), 5);
+        verify(leadService, never()).updateLeadScores(eq(Collections.singletonList(1L)), anyInt());
+        verify(leadHistoryService, times(2)).newActivity(any(Lead.class), eq(manager), anyString(),
+                eq("Score Recalculated"), eq("SYSTEM"), isNull(), isNull());
+        verify(leadHistoryService, times(2)).logActivities(anyList());
+        verify(transactionManager, times(2)).commit(any());
+        verify(leadScoreHistogram).rebuild();
+    }
+
+    @Test
+    void testRescoreAll_ResumesAfterGivenId() {
+        // Arrange
+        when(leadService.lockScoringInputsAfter(500L, 2)).thenReturn(Collections.emptyList());
+
+        // Act
+        LeadRescoringService.RescoreResult result = leadRescoringService.rescoreAll(500L, manager);
+
+        // Assert
+        assertTrue(result.isCompleted());
+        assertEquals(0, result.getScannedCount());
+        assertEquals(Long.valueOf(500L), result.getLastProcessedId());
+        verify(leadService, never()).lockScoringInputsAfter(eq(0L), anyInt());
+    }
+
+    @Test
+    void testRescoreAll_FailureReportsResumePoint() {
+        // Arrange
+        when(leadService.lockScoringInputsAfter(0L, 2)).thenReturn(Arrays.asList(
+                row(1L, "600000", "Partner Referral", "a@b.com", "555", 95),
+                row(2L, "600000", "Partner Referral", "a@b.com", "555", 95)));
+        when(leadService.lockScoringInputsAfter(2L, 2)).thenThrow(new IllegalStateException("connection lost"));
+
+        // Act & Assert
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> leadRescoringService.rescoreAll(null, manager));
+        assertTrue(exception.getMessage().contains("afterId=2"));
+
+        // A failed run does not block the next one
+        doReturn(Collections.emptyList()).when(leadService).lockScoringInputsAfter(2L, 2);
+        assertTrue(leadRescoringService.rescoreAll(2L, manager).isCompleted());
+    }
+
+    @Test
+    void testRescoreAll_StopsBetweenChunksOnceItShouldNotGoOn() {
+        // Arrange
+        when(leadService.lockScoringInputsAfter(0L, 2)).thenReturn(Arrays.asList(
+                row(1L, "600000", "Partner Referral", "a@b.com", "555", 95),
+                row(2L, "600000", "Partner Referral", "a@b.com", "555", 95)));
+
+        // Act
+        LeadRescoringService.RescoreResult result = leadRescoringService.rescoreAll(null, null, () -> false);
+
+        // Assert
+        assertFalse(result.isCompleted());
+        assertEquals(Long.valueOf(2L), result.getLastProcessedId());
+        verify(leadService, never()).lockScoringInputsAfter(eq(2L), anyInt());
+    }
+
+    private Object[] row(Long id, String value, String source, String email, String phone, Integer score) {
+        return new Object[] {id, new BigDecimal(value), source, email, phone, score};
+    }
+}
@@ -0,0 +1,116 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LeadRoutingIndex
+ */
+class LeadRoutingIndexTest {
+
+    @Test
+    void testRoute_MatchesTerritoryAndIndustry() {
+        // Arrange
+        List<User> reps = Arrays.asList(
+                createRep(1L, "CA", "Technology"),
+                createRep(2L, "TX", "Technology"),
+                createRep(3L, "CA", "Healthcare"));
+        LeadRoutingIndex index = LeadRoutingIndex.build(reps, Collections.emptyMap());
+
+        // Act & Assert
+        assertEquals(1L, index.repIdAt(index.route("San Francisco, CA", "technology")));
+        assertEquals(2L, index.repIdAt(index.route("tx", "Technology")));
+        assertEquals(3L, index.repIdAt(index.route("ca", " HEALTHCARE ")));
+    }
+
+    @Test
+    void testRoute_UntaggedRepCoversEveryValue() {
+        // Arrange
+        List<User> reps = Arrays.asList(
+                createRep(1L, "CA", "Technology"),
+                createRep(2L, null, ""));
+        LeadRoutingIndex index = LeadRoutingIndex.build(reps, Collections.emptyMap());
+
+        // Act & Assert
+        assertEquals(2L, index.repIdAt(index.route("NY", "Retail")));
+        assertEquals(2L, index.repIdAt(index.route(null, null)));
+    }
+
+    @Test
+    void testRoute_PicksLeastLoadedEligibleRep() {
+        // Arrange
+        List<User> reps = Arrays.asList(
+                createRep(1L, "CA", null),
+                createRep(2L, "CA", null),
+                createRep(3L, "NY", null));
+        Map<Long, Long> openLeads = new HashMap<>();
+        openLeads.put(1L, 5L);
+        openLeads.put(2L, 3L);
+        LeadRoutingIndex index = LeadRoutingIndex.build(reps, openLeads);
+
+        // Act
+        List<Long> routed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            routed.add(index.repIdAt(index.route("CA", null)));
+        }
+
+        // Assert: rep 2 catches up to rep 1, then they alternate; rep 3 is never eligible
+        assertEquals(Arrays.asList(2L, 2L, 1L, 2L), routed);
+        assertEquals(6L, index.loadAt(0));
+        assertEquals(6L, index.loadAt(1));
+        assertEquals(0L, index.loadAt(2));
+    }
+
+    @Test
+    void testRoute_FallsBackToAllRepsWhenNoneEligible() {
+        // Arrange
+        List<User> reps = Arrays.asList(
+                createRep(1L, "CA", "Technology"),
+                createRep(2L, "TX", "Healthcare"));
+        Map<Long, Long> openLeads = new HashMap<>();
+        openLeads.put(1L, 10L);
+        LeadRoutingIndex index = LeadRoutingIndex.build(reps, openLeads);
+
+        // Act & Assert
+        assertEquals(2L, index.repIdAt(index.route("CA", "Healthcare")));
+    }
+
+    @Test
+    void testRoute_MoreThan64Reps() {
+        // Arrange
+        List<User> reps = new ArrayList<>();
+        for (long id = 1; id <= 130; id++) {
+            reps.add(createRep(id, id == 129 ? "Alaska" : "Elsewhere", null));
+        }
+        LeadRoutingIndex index = LeadRoutingIndex.build(reps, Collections.emptyMap());
+
+        // Act & Assert
+        assertEquals(130, index.size());
+        assertEquals(129L, index.repIdAt(index.route("Alaska", "Mining")));
+    }
+
+    @Test
+    void testRoute_EmptyIndex() {
+        LeadRoutingIndex index = LeadRoutingIndex.build(Collections.emptyList(), Collections.emptyMap());
+        assertEquals(-1, index.route("CA", "Technology"));
+    }
+
+    private User createRep(Long id, String territories, String industries) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("rep" + id);
+        user.setRole("SALES_PERSON");
+        user.setTerritories(territories);
+        user.setIndustries(industries);
+        return user;
+    }
+}
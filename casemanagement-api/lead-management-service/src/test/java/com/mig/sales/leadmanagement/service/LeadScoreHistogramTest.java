@@ -0,0 +1,121 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for LeadScoreHistogram
+ */
+@ExtendWith(MockitoExtension.class)
+class LeadScoreHistogramTest {
+
+    @Mock
+    private LeadRepository leadRepository;
+
+    @InjectMocks
+    private LeadScoreHistogram histogram;
+
+    @BeforeEach
+    void setUp() {
+        when(leadRepository.countByScoreSourceAndIndustry()).thenReturn(Arrays.asList(
+                new Object[] {20, "Webinar", "Retail", 2L},
+                new Object[] {50, "Webinar", "Finance", 1L},
+                new Object[] {80, "Partner Referral", "Finance", 1L}));
+        histogram.rebuild();
+    }
+
+    @Test
+    void testPercentileOf_CountsHalfOfEqualScores() {
+        // Act & Assert
+        assertEquals(25.0, histogram.percentileOf(20, null, null));
+        assertEquals(62.5, histogram.percentileOf(50, null, null));
+        assertEquals(100.0, histogram.percentileOf(90, null, null));
+        assertEquals(25.0, histogram.percentileOf(50, null, "Finance"));
+        assertNull(histogram.percentileOf(50, "Cold Call", null));
+    }
+
+    @Test
+    void testGetDistribution_BandsAndQuartiles() {
+        // Act
+        LeadScoreHistogram.ScoreDistribution distribution = histogram.getDistribution("Webinar", null, 25);
+
+        // Assert
+        assertEquals(3, distribution.getTotal());
+        assertArrayEquals(new long[] {2, 0, 1, 0, 0}, distribution.getBands());
+        assertEquals(Integer.valueOf(20), distribution.getMedian());
+        assertEquals(Integer.valueOf(50), distribution.getP90());
+    }
+
+    @Test
+    void testLeadChanges_MoveCountsBetweenBuckets() {
+        // Arrange
+        Lead lead = new Lead();
+        lead.setLeadScore(90);
+        lead.setLeadSource("Partner Referral");
+        lead.setIndustry("Retail");
+
+        // Act: a lead scored 20 is rescored to 90, and a new lead is added at 90
+        histogram.leadChanged(20, "Webinar", "Retail", lead);
+        histogram.leadAdded(lead);
+
+        // Assert
+        LeadScoreHistogram.ScoreDistribution all = histogram.getDistribution(null, null, 101);
+        assertEquals(5, all.getTotal());
+        assertEquals(Integer.valueOf(90), all.getP75());
+        assertEquals(2, histogram.getDistribution("Webinar", null, 101).getTotal());
+        assertEquals(3, histogram.getDistribution(null, "Retail", 101).getTotal());
+        assertEquals(10.0, histogram.percentileOf(20, null, null));
+    }
+
+    @Test
+    void testQueries_RejectTwoFilters() {
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> histogram.percentileOf(50, "Webinar", "Retail"));
+        assertThrows(BusinessException.class, () -> histogram.getDistribution(null, null, 0));
+    }
+
+    @Test
+    void testRebuild_ReplaysChangesCommittedWhileItsQueryRuns() {
+        // Arrange: a lead is created and another rescored from 50 to 80 after the query read its rows
+        Lead created = new Lead();
+        created.setLeadScore(90);
+        created.setLeadSource("Webinar");
+        created.setIndustry("Retail");
+        Lead rescored = new Lead();
+        rescored.setLeadScore(80);
+        rescored.setLeadSource("Webinar");
+        rescored.setIndustry("Finance");
+        when(leadRepository.countByScoreSourceAndIndustry()).thenAnswer(invocation -> {
+            histogram.leadAdded(created);
+            histogram.leadChanged(50, "Webinar", "Finance", rescored);
+            return Arrays.asList(
+                    new Object[] {20, "Webinar", "Retail", 2L},
+                    new Object[] {50, "Webinar", "Finance", 1L},
+                    new Object[] {80, "Partner Referral", "Finance", 1L});
+        });
+
+        // Act
+        histogram.rebuild();
+
+        // Assert
+        LeadScoreHistogram.ScoreDistribution webinar = histogram.getDistribution("Webinar", null, 10);
+        assertEquals(4, webinar.getTotal());
+        assertArrayEquals(new long[] {0, 0, 2, 0, 0, 0, 0, 0, 1, 1, 0}, webinar.getBands());
+
+        // Once the rebuild is over, changes are no longer buffered
+        histogram.leadRemoved(created);
+        assertEquals(3, histogram.getDistribution("Webinar", null, 10).getTotal());
+    }
+}
@@ -8,6 +8,7 @@ import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -188,5 +189,26 @@ class LeadScoringServiceTest {
         assertEquals("LOW", leadScoringService.getLeadPriority(49));
         assertEquals("LOW", leadScoringService.getLeadPriority(0));
     }
-}
 
+    @Test
+    void testScoreAll_MatchesCalculateScore() {
+        // Arrange
+        lead.setPotentialValue(new BigDecimal("600000"));
+        lead.setLeadSource("Partner Referral");
+        lead.setEmail("test@example.com");
+        lead.setPhone("123-456-7890");
+        Lead partial = new Lead();
+        partial.setPotentialValue(new BigDecimal("200000"));
+        partial.setLeadSource("Webinar");
+        partial.setEmail("test@example.com");
+        Lead empty = new Lead();
+
+        // Act
+        int[] scores = leadScoringService.scoreAll(Arrays.asList(lead, partial, empty));
+
+        // Assert
+        assertArrayEquals(new int[] {leadScoringService.calculateScore(lead),
+                leadScoringService.calculateScore(partial), leadScoringService.calculateScore(empty)}, scores);
+        assertArrayEquals(new int[] {95, 40, 0}, scores);
+    }
+}
@@ -2,11 +2,14 @@ package com.mig.sales.leadmanagement.service;
 
 import com.mig.sales.leadmanagement.entity.Lead;
 import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
 import com.mig.sales.leadmanagement.exception.ResourceNotFoundException;
+import com.mig.sales.leadmanagement.exception.UnauthorizedException;
 import com.mig.sales.leadmanagement.repository.LeadRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -16,6 +19,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -39,6 +43,21 @@ class LeadServiceTest {
     @Mock
     private LeadHistoryService leadHistoryService;
 
+    @Mock
+    private AssigneeTopLeadsIndex assigneeTopLeadsIndex;
+
+    @Mock
+    private LeadScoreHistogram leadScoreHistogram;
+
+    @Mock
+    private ManagerLoadIndex managerLoadIndex;
+
+    @Mock
+    private LeadSlaTimers leadSlaTimers;
+
+    @Mock
+    private LeadOutbox leadOutbox;
+
     @InjectMocks
     private LeadService leadService;
 
@@ -257,9 +276,51 @@ class LeadServiceTest {
         verify(leadRepository).save(any(Lead.class));
     }
 
+    @Test
+    void testUpdateLead_MovesEscalationLoadBetweenManagers() {
+        // Arrange: an escalated lead is handed from one manager to another through a plain update
+        User oldManager = new User();
+        oldManager.setId(7L);
+        User newManager = new User();
+        newManager.setId(8L);
+        testLead.setStatus("PRE_CONVERSION");
+        testLead.setAssignedTo(oldManager);
+        Lead changes = new Lead();
+        changes.setId(1L);
+        changes.setAssignedTo(newManager);
+        when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
+        when(leadRepository.save(testLead)).thenReturn(testLead);
+
+        // Act
+        leadService.updateLead(changes);
+
+        // Assert
+        verify(managerLoadIndex).leadsResolved(7L, 1);
+        verify(managerLoadIndex).leadsAssigned(8L, 1);
+    }
+
+    @Test
+    void testReassignLead_LeavesLoadAloneOutsideEscalation() {
+        // Arrange
+        User newRep = new User();
+        newRep.setId(2L);
+        testLead.setStatus("IN_PROGRESS");
+        when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
+        when(leadRepository.save(testLead)).thenReturn(testLead);
+
+        // Act
+        Lead result = leadService.reassignLead(1L, newRep);
+
+        // Assert
+        assertSame(newRep, result.getAssignedTo());
+        verify(leadOutbox).leadChanged(testLead, LeadOutbox.REASSIGNED);
+        verifyNoInteractions(managerLoadIndex);
+    }
+
     @Test
     void testUpdateLeadStatus_Success() {
         // Arrange
+        testLead.setStatus("ASSIGNED");
         when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
         when(leadRepository.save(any(Lead.class))).thenReturn(testLead);
 
@@ -274,6 +335,19 @@ class LeadServiceTest {
         verify(leadHistoryService).logActivity(eq(testLead), eq(testUser), contains("Status changed"), eq("Status Changed"), eq("USER_ACTION"), anyString(), anyString());
     }
 
+    @Test
+    void testUpdateLeadStatus_RejectsTransitionsTheStateMachineDoesNotAllow() {
+        // Arrange
+        when(leadRepository.findById(1L)).thenReturn(Optional.of(testLead));
+
+        // Act & Assert: NEW leads must be assigned first, and only managers convert leads
+        assertThrows(BusinessException.class, () -> leadService.updateLeadStatus(1L, "IN_PROGRESS", testUser));
+        assertThrows(BusinessException.class, () -> leadService.updateLeadStatus(1L, "WON", testUser));
+        testLead.setStatus("PRE_CONVERSION");
+        assertThrows(UnauthorizedException.class, () -> leadService.updateLeadStatus(1L, "CONVERTED", testUser));
+        verify(leadRepository, never()).save(any(Lead.class));
+    }
+
     @Test
     void testAssignLeadToUser_Success() {
         // Arrange
@@ -322,6 +396,45 @@ class LeadServiceTest {
         // Assert
         verify(leadRepository).findById(1L);
         verify(leadRepository).delete(testLead);
+        verify(leadOutbox).leadDeleted(1L);
+    }
+
+    @Test
+    void testAssignNewLeads_ReportsOnlyLeadsActuallyAssigned() {
+        // Arrange
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+        when(leadRepository.assignNewLeads(eq(ids), eq(testUser), any(LocalDateTime.class))).thenReturn(2);
+        when(leadRepository.findIdsUpdatedAt(eq(ids), any(LocalDateTime.class))).thenReturn(Arrays.asList(1L, 3L));
+
+        // Act
+        List<Long> assigned = leadService.assignNewLeads(ids, testUser);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 3L), assigned);
+        verify(leadOutbox).leadsChanged(Arrays.asList(1L, 3L), LeadOutbox.ASSIGNED, "ASSIGNED", 1L, null);
+        verify(assigneeTopLeadsIndex).leadsUpdated(Arrays.asList(1L, 3L), 1L);
+    }
+
+    @Test
+    void testLockAllByIds_LocksInAscendingIdOrderAcrossChunks() {
+        // Arrange: IDs in descending order, more than one IN-list chunk
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1500; id >= 1; id--) {
+            ids.add(id);
+        }
+        List<Long> firstChunk = new ArrayList<>();
+        List<Long> secondChunk = new ArrayList<>();
+        for (long id = 1; id <= 1500; id++) {
+            (id <= LeadService.IN_LIST_CHUNK_SIZE ? firstChunk : secondChunk).add(id);
+        }
+
+        // Act
+        leadService.lockAllByIds(ids);
+
+        // Assert
+        InOrder inOrder = inOrder(leadRepository);
+        inOrder.verify(leadRepository).lockAllById(firstChunk);
+        inOrder.verify(leadRepository).lockAllById(secondChunk);
     }
 
     @Test
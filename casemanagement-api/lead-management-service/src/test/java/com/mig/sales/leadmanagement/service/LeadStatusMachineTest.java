@@ -0,0 +1,86 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.leadmanagement.exception.UnauthorizedException;
+import com.mig.sales.leadmanagement.service.LeadStatusMachine.Action;
+import com.mig.sales.leadmanagement.service.LeadStatusMachine.Verdict;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LeadStatusMachine
+ */
+class LeadStatusMachineTest {
+
+    private User salesPerson;
+    private User manager;
+    private Lead lead;
+
+    @BeforeEach
+    void setUp() {
+        salesPerson = user(1L, "SALES_PERSON");
+        manager = user(2L, "SALES_MANAGER");
+        lead = new Lead();
+        lead.setStatus("IN_PROGRESS");
+        lead.setAssignedTo(salesPerson);
+    }
+
+    @Test
+    void testCheck_AppliesStatusRoleOwnershipAndValueGuards() {
+        // Act & Assert
+        assertEquals(Verdict.ALLOWED, LeadStatusMachine.check(lead, Action.ESCALATE, salesPerson, true));
+        assertEquals(Verdict.NOT_HIGH_VALUE, LeadStatusMachine.check(lead, Action.ESCALATE, salesPerson, false));
+        assertEquals(Verdict.HIGH_VALUE, LeadStatusMachine.check(lead, Action.REQUEST_APPROVAL, salesPerson, true));
+        assertEquals(Verdict.NOT_ASSIGNEE, LeadStatusMachine.check(lead, Action.ESCALATE, manager, true));
+        assertEquals(Verdict.NOT_MANAGER, LeadStatusMachine.check(lead, Action.APPROVE, salesPerson, false));
+        assertEquals(Verdict.INVALID_STATUS, LeadStatusMachine.check(lead, Action.ASSIGN, null, false));
+
+        lead.setStatus("PRE_CONVERSION");
+        lead.setAssignedTo(manager);
+        assertEquals(Verdict.ALLOWED, LeadStatusMachine.check(lead, Action.REJECT, manager, true));
+        assertEquals(Verdict.INVALID_STATUS, LeadStatusMachine.check(lead, Action.ESCALATE, manager, true));
+
+        lead.setStatus("CONVERTED");
+        for (Action action : Action.values()) {
+            assertEquals(Verdict.INVALID_STATUS, LeadStatusMachine.check(lead, action, null, false));
+        }
+    }
+
+    @Test
+    void testCheck_SystemActorSkipsRoleAndOwnershipGuards() {
+        // Act & Assert
+        assertEquals(Verdict.ALLOWED, LeadStatusMachine.check(lead, Action.APPROVE, null, false));
+    }
+
+    @Test
+    void testRequire_ThrowsByKindOfFailure() {
+        // Act & Assert
+        assertThrows(UnauthorizedException.class, () -> LeadStatusMachine.require(lead, Action.APPROVE, salesPerson, false));
+        assertThrows(UnauthorizedException.class, () -> LeadStatusMachine.require(lead, Action.ESCALATE, manager, true));
+        assertThrows(BusinessException.class, () -> LeadStatusMachine.require(lead, Action.ESCALATE, salesPerson, false));
+        assertThrows(BusinessException.class, () -> LeadStatusMachine.require(lead, Action.ASSIGN, null, false));
+    }
+
+    @Test
+    void testStatusUpdate_OnlyReachesPlainTransitions() {
+        // Act & Assert
+        assertEquals(Action.START_WORK, LeadStatusMachine.statusUpdate("ASSIGNED", "IN_PROGRESS"));
+        assertEquals(Action.APPROVE, LeadStatusMachine.statusUpdate("PRE_CONVERSION", "CONVERTED"));
+        assertEquals(Action.REJECT, LeadStatusMachine.statusUpdate("IN_PROGRESS", "REJECTED"));
+        // Escalation also reassigns the lead, so a plain status update cannot take it
+        assertThrows(BusinessException.class, () -> LeadStatusMachine.statusUpdate("IN_PROGRESS", "PRE_CONVERSION"));
+        assertThrows(BusinessException.class, () -> LeadStatusMachine.statusUpdate("NEW", "CONVERTED"));
+        assertThrows(BusinessException.class, () -> LeadStatusMachine.statusUpdate("ASSIGNED", "won"));
+    }
+
+    private static User user(Long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+}
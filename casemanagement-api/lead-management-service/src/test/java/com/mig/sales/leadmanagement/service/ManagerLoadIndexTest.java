@@ -0,0 +1,113 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.repository.LeadRepository;
+import com.mig.sales.leadmanagement.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ManagerLoadIndex
+ */
+@ExtendWith(MockitoExtension.class)
+class ManagerLoadIndexTest {
+
+    @Mock
+    private LeadRepository leadRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private ManagerLoadIndex index;
+
+    private User busy;
+    private User idle;
+
+    @BeforeEach
+    void setUp() {
+        busy = manager(1L, true);
+        idle = manager(2L, true);
+        when(leadRepository.countByAssigneeAndStatusIn(Collections.singletonList("PRE_CONVERSION")))
+                .thenReturn(Collections.singletonList(new Object[] {1L, 2L}));
+        when(userRepository.findActiveUsersByRole("SALES_MANAGER")).thenReturn(Arrays.asList(busy, idle));
+        index.rebuild();
+    }
+
+    @Test
+    void testClaimLeastLoaded_SpreadsEscalations() {
+        // Act: the idle manager takes escalations until it catches up, then ties go to the lower ID
+        User first = index.claimLeastLoaded();
+        User second = index.claimLeastLoaded();
+        User third = index.claimLeastLoaded();
+
+        // Assert
+        assertSame(idle, first);
+        assertSame(idle, second);
+        assertSame(busy, third);
+        assertEquals(3, index.loadOf(1L));
+        assertEquals(2, index.loadOf(2L));
+    }
+
+    @Test
+    void testLeadsResolved_MakesManagerAvailableAgain() {
+        // Arrange
+        index.claimLeastLoaded();
+        index.claimLeastLoaded();
+
+        // Act: the busy manager decides both of their escalated leads
+        index.leadsResolved(1L, 2);
+
+        // Assert
+        assertEquals(0, index.loadOf(1L));
+        assertSame(busy, index.claimLeastLoaded());
+    }
+
+    @Test
+    void testLeadsAssigned_CountsReassignedEscalations() {
+        // Act: an escalated lead moves from the busy manager to the idle one
+        index.leadsResolved(1L, 1);
+        index.leadsAssigned(2L, 1);
+
+        // Assert
+        assertEquals(1, index.loadOf(1L));
+        assertEquals(1, index.loadOf(2L));
+        assertSame(busy, index.claimLeastLoaded());
+    }
+
+    @Test
+    void testManagerChanged_UpdatesRoster() {
+        // Act: the idle manager is deactivated, then a new one joins
+        index.managerChanged(manager(2L, false));
+        assertSame(busy, index.claimLeastLoaded());
+        User newcomer = manager(3L, true);
+        index.managerChanged(newcomer);
+
+        // Assert
+        assertSame(newcomer, index.claimLeastLoaded());
+        index.managerChanged(manager(1L, false));
+        index.managerChanged(manager(3L, false));
+        assertNull(index.claimLeastLoaded());
+        verify(leadRepository, times(1)).countByAssigneeAndStatusIn(anyCollection());
+    }
+
+    private static User manager(Long id, boolean active) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("manager" + id);
+        user.setRole("SALES_MANAGER");
+        user.setIsActive(active);
+        return user;
+    }
+}
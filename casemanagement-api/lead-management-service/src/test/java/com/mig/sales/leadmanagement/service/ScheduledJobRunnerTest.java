@@ -0,0 +1,112 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.JobRun;
+import com.mig.sales.leadmanagement.repository.JobRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ScheduledJobRunner
+ */
+@ExtendWith(MockitoExtension.class)
+class ScheduledJobRunnerTest {
+
+    @Mock
+    private JobLeaderElection jobLeaderElection;
+
+    @Mock
+    private JobRunRepository jobRunRepository;
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private ScheduledJobRunner scheduledJobRunner;
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(jobLeaderElection.getOwner()).thenReturn("node-a/1234");
+    }
+
+    @Test
+    void testRunAsLeader_SkipsJobOnOtherNodes() {
+        // Arrange
+        when(jobLeaderElection.isLeader("workload-rebalancing")).thenReturn(false);
+
+        // Act
+        boolean ran = scheduledJobRunner.runAsLeader("workload-rebalancing", true, runs::incrementAndGet);
+
+        // Assert
+        assertFalse(ran);
+        assertEquals(0, runs.get());
+        verify(jobRunRepository, never()).save(any());
+        assertEquals(1.0, meterRegistry.get("lead.jobs.skipped").tag("job", "workload-rebalancing").counter().count());
+    }
+
+    @Test
+    void testRunAsLeader_RecordsSuccessfulRun() {
+        // Arrange
+        when(jobLeaderElection.isLeader("workload-rebalancing")).thenReturn(true);
+
+        // Act
+        boolean ran = scheduledJobRunner.runAsLeader("workload-rebalancing", true, runs::incrementAndGet);
+
+        // Assert
+        assertTrue(ran);
+        assertEquals(1, runs.get());
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        verify(jobRunRepository).save(run.capture());
+        assertEquals(ScheduledJobRunner.SUCCEEDED, run.getValue().getStatus());
+        assertEquals("node-a/1234", run.getValue().getOwner());
+        assertNotNull(run.getValue().getFinishedAt());
+        assertNull(run.getValue().getErrorMessage());
+        assertEquals(1, meterRegistry.get("lead.jobs.duration").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testRunAsLeader_RecordsFailureWithoutRethrowing() {
+        // Arrange
+        when(jobLeaderElection.isLeader("outbox-purge")).thenReturn(true);
+
+        // Act
+        boolean ran = scheduledJobRunner.runAsLeader("outbox-purge", true, () -> {
+            throw new IllegalStateException("database unavailable");
+        });
+
+        // Assert
+        assertTrue(ran);
+        ArgumentCaptor<JobRun> run = ArgumentCaptor.forClass(JobRun.class);
+        verify(jobRunRepository).save(run.capture());
+        assertEquals(ScheduledJobRunner.FAILED, run.getValue().getStatus());
+        assertTrue(run.getValue().getErrorMessage().contains("database unavailable"));
+        assertEquals(1, meterRegistry.get("lead.jobs.duration").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void testRunAsLeader_KeepsNoHistoryForFrequentJobs() {
+        // Arrange
+        when(jobLeaderElection.isLeader("outbox-relay")).thenReturn(true);
+
+        // Act
+        scheduledJobRunner.runAsLeader("outbox-relay", false, runs::incrementAndGet);
+
+        // Assert
+        assertEquals(1, runs.get());
+        verifyNoInteractions(jobRunRepository);
+    }
+}
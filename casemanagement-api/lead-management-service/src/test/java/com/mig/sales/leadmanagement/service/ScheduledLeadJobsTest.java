@@ -0,0 +1,73 @@
+package com.mig.sales.leadmanagement.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ScheduledLeadJobs
+ */
+@ExtendWith(MockitoExtension.class)
+class ScheduledLeadJobsTest {
+
+    @Mock
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Mock
+    private LeadDistributionService leadDistributionService;
+
+    @Mock
+    private LeadRescoringService leadRescoringService;
+
+    @InjectMocks
+    private ScheduledLeadJobs scheduledLeadJobs;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(scheduledJobRunner.runAsLeader(anyString(), eq(true), any(Runnable.class)))
+                .thenAnswer(invocation -> {
+                    ((Runnable) invocation.getArgument(2)).run();
+                    return true;
+                });
+    }
+
+    @Test
+    void testScheduledDistribution_UsesTheConfiguredStrategy() {
+        // Arrange
+        ReflectionTestUtils.setField(scheduledLeadJobs, "distributionStrategy", "rules");
+
+        // Act
+        scheduledLeadJobs.scheduledDistribution();
+
+        // Assert
+        verify(scheduledJobRunner).runAsLeader(eq(ScheduledLeadJobs.DISTRIBUTION_JOB), eq(true), any(Runnable.class));
+        verify(leadDistributionService).distributeLeadsByRules();
+        verify(leadDistributionService, never()).distributeLeads();
+    }
+
+    @Test
+    void testScheduledRescoring_StopsOnceTheLeaseIsLost() {
+        // Arrange
+        when(scheduledJobRunner.isLeader(ScheduledLeadJobs.RESCORING_JOB)).thenReturn(true, false);
+
+        // Act
+        scheduledLeadJobs.scheduledRescoring();
+
+        // Assert
+        ArgumentCaptor<BooleanSupplier> keepGoing = ArgumentCaptor.forClass(BooleanSupplier.class);
+        verify(leadRescoringService).rescoreAll(isNull(), isNull(), keepGoing.capture());
+        assertTrue(keepGoing.getValue().getAsBoolean());
+        assertFalse(keepGoing.getValue().getAsBoolean());
+    }
+}
@@ -0,0 +1,114 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import com.mig.sales.scoring.LogisticScoringModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ScoringModelTrainingService
+ */
+@ExtendWith(MockitoExtension.class)
+class ScoringModelTrainingServiceTest {
+
+    private static final String[] SOURCES = {"Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show"};
+
+    @Mock
+    private LeadHistoryService leadHistoryService;
+
+    @Spy
+    private LeadScoringService leadScoringService = new LeadScoringService();
+
+    @InjectMocks
+    private ScoringModelTrainingService scoringModelTrainingService;
+
+    @TempDir
+    Path tempDir;
+
+    private Path modelFile;
+
+    @BeforeEach
+    void setUp() {
+        modelFile = tempDir.resolve("lead-scoring.model");
+        ReflectionTestUtils.setField(scoringModelTrainingService, "outputFile", modelFile.toString());
+        ReflectionTestUtils.setField(scoringModelTrainingService, "pageSize", 1000);
+    }
+
+    @Test
+    void testTrain_WritesModelAndComparesWithRules() throws IOException {
+        // Arrange: trade shows convert well although the rules give them no points
+        List<Object[]> history = new ArrayList<>();
+        Random random = new Random(36L);
+        for (long id = 1; id <= 5000; id++) {
+            String source = SOURCES[random.nextInt(SOURCES.length)];
+            double odds = "Trade Show".equals(source) ? 0.6 : "Cold Call".equals(source) ? 0.05 : 0.2;
+            history.add(new Object[] {id, BigDecimal.valueOf(random.nextInt(1_000_000)), source,
+                    "lead" + id + "@example.com", null, random.nextDouble() < odds ? "CONVERTED" : "REJECTED"});
+        }
+        stubHistory(history);
+
+        // Act
+        ScoringModelTrainingService.TrainingReport report = scoringModelTrainingService.train("v1");
+
+        // Assert
+        assertEquals("v1", report.getVersion());
+        assertEquals(1000, report.getHoldoutCount());
+        assertEquals(4000, report.getTrainingCount());
+        assertTrue(report.getModelAuc() > report.getHeuristicAuc(),
+                "model " + report.getModelAuc() + " vs rules " + report.getHeuristicAuc());
+        try (Reader reader = Files.newBufferedReader(modelFile)) {
+            LogisticScoringModel model = LogisticScoringModel.read(reader);
+            assertEquals("v1", model.getVersion());
+            assertTrue(model.score(new BigDecimal("1000"), "Trade Show", "a@b.com", null)
+                    > model.score(new BigDecimal("1000"), "Cold Call", "a@b.com", null));
+        }
+        // One pass to train and one to evaluate, each paging after the last lead read
+        verify(leadHistoryService, times(2)).findOutcomesAfter(0L, 1000);
+        verify(leadHistoryService, times(2)).findOutcomesAfter(4000L, 1000);
+    }
+
+    @Test
+    void testTrain_RejectsHistoryWithoutBothOutcomes() {
+        // Arrange
+        List<Object[]> history = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            history.add(new Object[] {id, new BigDecimal("1000"), "Webinar", null, null, "CONVERTED"});
+        }
+        stubHistory(history);
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> scoringModelTrainingService.train(null));
+        assertFalse(Files.exists(modelFile));
+    }
+
+    private void stubHistory(List<Object[]> history) {
+        when(leadHistoryService.findOutcomesAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            int from = (int) afterId;
+            return from >= history.size() ? Collections.emptyList()
+                    : history.subList(from, Math.min(history.size(), from + limit));
+        });
+    }
+}
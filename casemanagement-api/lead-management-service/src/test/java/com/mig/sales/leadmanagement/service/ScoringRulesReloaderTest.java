@@ -0,0 +1,142 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.scoring.ShadowScoring;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ScoringRulesReloader and shadow scoring in LeadScoringService
+ */
+@ExtendWith(MockitoExtension.class)
+class ScoringRulesReloaderTest {
+
+    @Spy
+    private LeadScoringService leadScoringService = new LeadScoringService();
+
+    @InjectMocks
+    private ScoringRulesReloader scoringRulesReloader;
+
+    @TempDir
+    Path tempDir;
+
+    private Path rulesFile;
+    private Path shadowRulesFile;
+    private Lead lead;
+
+    @BeforeEach
+    void setUp() {
+        rulesFile = tempDir.resolve("rules.json");
+        shadowRulesFile = tempDir.resolve("shadow-rules.json");
+        ReflectionTestUtils.setField(scoringRulesReloader, "rulesFile", rulesFile.toString());
+        ReflectionTestUtils.setField(scoringRulesReloader, "shadowRulesFile", shadowRulesFile.toString());
+
+        // 20 (medium value) + 15 (webinar) + 15 (complete data) under the default rules
+        lead = new Lead();
+        lead.setPotentialValue(new BigDecimal("200000"));
+        lead.setLeadSource("Webinar");
+        lead.setEmail("test@example.com");
+        lead.setPhone("123-456-7890");
+    }
+
+    @Test
+    void testReload_ActivatesChangedRulesFile() throws IOException {
+        // Arrange
+        write(rulesFile, "{\"version\": \"v2\", \"fullContactPoints\": 25}", 1000);
+
+        // Act
+        scoringRulesReloader.reload();
+
+        // Assert: omitted settings keep their defaults
+        assertEquals("v2", leadScoringService.getActiveVersion());
+        assertEquals(60, leadScoringService.calculateScore(lead));
+        assertTrue(leadScoringService.isHighValueLead(withValue("1000000")));
+    }
+
+    @Test
+    void testReload_InvalidFileKeepsRunningRules() throws IOException {
+        // Arrange
+        write(rulesFile, "{\"version\": \"v2\", \"minScore\": 90, \"maxScore\": 10}", 1000);
+
+        // Act
+        scoringRulesReloader.reload();
+
+        // Assert
+        assertEquals("default", leadScoringService.getActiveVersion());
+        assertEquals(50, leadScoringService.calculateScore(lead));
+    }
+
+    @Test
+    void testReload_ShadowRulesRecordDeltasWithoutChangingScores() throws IOException {
+        // Arrange
+        write(shadowRulesFile, "{\"version\": \"candidate\", \"sourcePoints\": {\"Webinar\": 25}}", 1000);
+        scoringRulesReloader.reload();
+
+        // Act
+        int liveScore = leadScoringService.calculateScore(lead);
+        leadScoringService.calculateScore(withValue("50000"));
+        Lead coldCall = withValue("50000");
+        coldCall.setLeadSource("Cold Call");
+        leadScoringService.calculateScore(coldCall);
+
+        // Assert: live scores are unchanged; the candidate adds 10 for webinars and drops cold calls to 0 points
+        assertEquals(50, liveScore);
+        ShadowScoring.Report report = leadScoringService.getShadowReport();
+        assertEquals("default", report.getLiveVersion());
+        assertEquals("candidate", report.getCandidateVersion());
+        assertEquals(3, report.getSampledCount());
+        assertEquals(3, report.getChangedCount());
+        assertEquals(Long.valueOf(2L), report.getScoreDeltas().get(10));
+        assertEquals(Long.valueOf(1L), report.getScoreDeltas().get(-5));
+
+        // Removing the shadow file stops shadow scoring
+        Files.delete(shadowRulesFile);
+        scoringRulesReloader.reload();
+        assertNull(leadScoringService.getShadowReport());
+    }
+
+    @Test
+    void testReload_ModelFileReplacesRulesButKeepsHighValueThreshold() throws IOException {
+        // Arrange
+        Path modelFile = tempDir.resolve("trained.model");
+        write(modelFile, "version=model-1\nintercept=-2.0\nvalue.log10=0.0\nvalue.missing=0.0\n"
+                + "contact.email=0.0\ncontact.phone=0.0\nsource.none=0.0\nsource.unknown=0.0\n"
+                + "source.[Webinar]=2.0\n", 1000);
+        ReflectionTestUtils.setField(scoringRulesReloader, "rulesFile", modelFile.toString());
+
+        // Act
+        scoringRulesReloader.reload();
+
+        // Assert: 100 / (1 + e^0) for webinars
+        assertEquals("model-1", leadScoringService.getActiveVersion());
+        assertEquals(50, leadScoringService.calculateScore(lead));
+        assertTrue(leadScoringService.isHighValueLead(withValue("1000000")));
+    }
+
+    private Lead withValue(String potentialValue) {
+        Lead other = new Lead();
+        other.setPotentialValue(new BigDecimal(potentialValue));
+        other.setLeadSource("Webinar");
+        other.setEmail("test@example.com");
+        return other;
+    }
+
+    private static void write(Path file, String json, long modifiedMillis) throws IOException {
+        Files.writeString(file, json);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modifiedMillis));
+    }
+}
@@ -0,0 +1,77 @@
+package com.mig.sales.leadmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SlaTimingWheel
+ */
+class SlaTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void testAdvance_ExpiresTimersAcrossLevelsAtTheirTick() {
+        // Arrange: 1 ms ticks, 4 slots per level, 3 levels; deadlines land on every level
+        SlaTimingWheel wheel = new SlaTimingWheel(1, 4, 3, START);
+        wheel.schedule(1L, START + 3);
+        wheel.schedule(2L, START + 13);
+        wheel.schedule(3L, START + 50);
+        wheel.schedule(4L, START + 200);
+
+        // Act & Assert: nothing fires before its deadline, everything fires at it
+        List<Long> fired = new ArrayList<>();
+        for (long now = START; now <= START + 200; now++) {
+            List<Long> expired = wheel.advance(now, 10);
+            for (Long leadId : expired) {
+                long deadline = leadId == 1L ? 3 : leadId == 2L ? 13 : leadId == 3L ? 50 : 200;
+                assertEquals(START + deadline, now, "lead " + leadId);
+            }
+            fired.addAll(expired);
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testScheduleAndCancel_ReplaceTimersInPlace() {
+        // Arrange
+        SlaTimingWheel wheel = new SlaTimingWheel(1000, 64, 3, START);
+        wheel.schedule(1L, START + 5_000);
+        wheel.schedule(2L, START + 5_000);
+        wheel.schedule(3L, START - 1);
+
+        // Act: lead 1 is updated and moves out, lead 2 leaves the open statuses
+        wheel.schedule(1L, START + 60_000);
+        assertTrue(wheel.cancel(2L));
+        assertFalse(wheel.cancel(2L));
+
+        // Assert: the overdue timer fires on the next advance, the moved one only at its new deadline
+        assertEquals(Collections.singletonList(3L), wheel.advance(START, 10));
+        assertTrue(wheel.advance(START + 10_000, 10).isEmpty());
+        assertEquals(Collections.singletonList(1L), wheel.advance(START + 60_000, 10));
+    }
+
+    @Test
+    void testAdvance_HandsOverExpiredTimersInBatches() {
+        // Arrange: more timers than the top level's turn covers, including one far beyond it
+        SlaTimingWheel wheel = new SlaTimingWheel(1, 4, 2, START);
+        for (long leadId = 1; leadId <= 10; leadId++) {
+            wheel.schedule(leadId, START + 10);
+        }
+        wheel.schedule(99L, START + 100);
+
+        // Act & Assert
+        assertEquals(4, wheel.advance(START + 10, 4).size());
+        assertEquals(4, wheel.advance(START + 10, 4).size());
+        assertEquals(2, wheel.advance(START + 10, 4).size());
+        assertTrue(wheel.advance(START + 99, 4).isEmpty());
+        assertEquals(Collections.singletonList(99L), wheel.advance(START + 100, 4));
+    }
+}
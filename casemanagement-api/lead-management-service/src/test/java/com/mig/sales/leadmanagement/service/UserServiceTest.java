@@ -33,6 +33,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ManagerLoadIndex managerLoadIndex;
+
     @InjectMocks
     private UserService userService;
 
@@ -0,0 +1,328 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mig.sales.leadmanagement.entity.LeadOutboxEvent;
+import com.mig.sales.leadmanagement.entity.WebhookCursor;
+import com.mig.sales.leadmanagement.repository.LeadOutboxRepository;
+import com.mig.sales.leadmanagement.repository.WebhookCursorRepository;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for WebhookLeadEventSink against a stub HTTP server
+ */
+class WebhookLeadEventSinkTest {
+
+    private HttpServer server;
+    private final ConcurrentLinkedQueue<JsonNode> bodies = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxSeenInFlight = new AtomicInteger();
+    private volatile IntSupplier status = () -> 200;
+    private volatile long handlerDelayMillis;
+    /** Bodies and status of a second endpoint, /other */
+    private final ConcurrentLinkedQueue<JsonNode> otherBodies = new ConcurrentLinkedQueue<>();
+    private volatile int otherStatus = 200;
+    /** Requests to a third endpoint, /stalled, which answers only once the test ends */
+    private final AtomicInteger stalledCalls = new AtomicInteger();
+    private final CountDownLatch unstall = new CountDownLatch(1);
+
+    private MeterRegistry meterRegistry;
+    private LeadOutboxRepository leadOutboxRepository;
+    private WebhookCursorRepository webhookCursorRepository;
+    private WebhookLeadEventSink sink;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/events", exchange -> {
+            maxSeenInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                bodies.add(LeadEventSink.EVENT_MAPPER.readTree(
+                        new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+                if (handlerDelayMillis > 0) {
+                    Thread.sleep(handlerDelayMillis);
+                }
+                exchange.sendResponseHeaders(status.getAsInt(), -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.createContext("/other", exchange -> {
+            otherBodies.add(LeadEventSink.EVENT_MAPPER.readTree(
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+            exchange.sendResponseHeaders(otherStatus, -1);
+            exchange.close();
+        });
+        server.createContext("/stalled", exchange -> {
+            stalledCalls.incrementAndGet();
+            try {
+                unstall.await();
+                exchange.sendResponseHeaders(200, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        leadOutboxRepository = mock(LeadOutboxRepository.class);
+        webhookCursorRepository = mock(WebhookCursorRepository.class);
+        sink = new WebhookLeadEventSink();
+        ReflectionTestUtils.setField(sink, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sink, "leadOutboxRepository", leadOutboxRepository);
+        ReflectionTestUtils.setField(sink, "webhookCursorRepository", webhookCursorRepository);
+        ReflectionTestUtils.setField(sink, "webhookUrls", "http://127.0.0.1:" + server.getAddress().getPort() + "/events");
+        ReflectionTestUtils.setField(sink, "requestBatchSize", 10);
+        ReflectionTestUtils.setField(sink, "maxInFlight", 2);
+        ReflectionTestUtils.setField(sink, "initialBackoffMillis", 10L);
+        ReflectionTestUtils.setField(sink, "maxBackoffMillis", 50L);
+        sink.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        unstall.countDown();
+        sink.stop();
+        server.stop(0);
+    }
+
+    @Test
+    void testPublish_SplitsBatchByLeadKeepingEachLeadsEventsTogetherAndInOrder() {
+        // Arrange
+        List<LeadOutboxEvent> events = new ArrayList<>();
+        for (long id = 1; id <= 60; id++) {
+            events.add(event(id, id % 15));
+        }
+
+        // Act
+        sink.publish(events);
+
+        // Assert
+        assertEquals(6, bodies.size());
+        Map<Long, Integer> requestOfLead = new HashMap<>();
+        Map<Long, Long> lastEventOfLead = new HashMap<>();
+        int request = 0;
+        int eventCount = 0;
+        for (JsonNode body : bodies) {
+            int currentRequest = ++request;
+            for (JsonNode event : body) {
+                long leadId = event.get("leadId").asLong();
+                long eventId = event.get("id").asLong();
+                assertEquals(request, requestOfLead.computeIfAbsent(leadId, id -> currentRequest));
+                assertTrue(eventId > lastEventOfLead.getOrDefault(leadId, 0L));
+                lastEventOfLead.put(leadId, eventId);
+                eventCount++;
+            }
+        }
+        assertEquals(60, eventCount);
+        assertEquals(60.0, meterRegistry.get("lead.webhook.events").counter().count());
+        assertEquals(6.0, meterRegistry.get("lead.webhook.requests").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void testPublish_CapsRequestsInFlightPerEndpoint() {
+        // Arrange
+        handlerDelayMillis = 50;
+        List<LeadOutboxEvent> events = new ArrayList<>();
+        for (long id = 1; id <= 80; id++) {
+            events.add(event(id, id));
+        }
+
+        // Act
+        sink.publish(events);
+
+        // Assert
+        assertEquals(8, bodies.size());
+        assertTrue(maxSeenInFlight.get() <= 2, "saw " + maxSeenInFlight.get() + " requests in flight");
+        assertEquals(0.0, meterRegistry.get("lead.webhook.in.flight").gauge().value());
+    }
+
+    @Test
+    void testPublish_RetriesUnavailableEndpointWithBackoff() {
+        // Arrange
+        AtomicInteger calls = new AtomicInteger();
+        status = () -> calls.incrementAndGet() <= 2 ? 503 : 200;
+
+        // Act
+        sink.publish(Collections.singletonList(event(1L, 1L)));
+
+        // Assert
+        assertEquals(3, calls.get());
+        assertEquals(2.0, meterRegistry.get("lead.webhook.requests").tag("outcome", "retry").counter().count());
+        assertEquals(1.0, meterRegistry.get("lead.webhook.requests").tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void testPublish_FailsWithoutRetryOnClientError() {
+        // Arrange
+        status = () -> 400;
+
+        // Act & Assert
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> sink.publish(Collections.singletonList(event(1L, 1L))));
+        assertTrue(error.getMessage().contains("HTTP 400"));
+        assertEquals(1, bodies.size());
+        assertEquals(1.0, meterRegistry.get("lead.webhook.requests").tag("outcome", "failure").counter().count());
+    }
+
+    @Test
+    void testPublish_EndpointThatKeepsFailingFallsBehindWithoutHoldingUpTheOthers() {
+        // Arrange
+        useBothEndpoints();
+        otherStatus = 503;
+
+        // Act
+        sink.publish(Arrays.asList(event(1L, 1L), event(2L, 2L)));
+
+        // Assert
+        assertEquals(1, bodies.size());
+        ArgumentCaptor<WebhookCursor> cursor = ArgumentCaptor.forClass(WebhookCursor.class);
+        verify(webhookCursorRepository).save(cursor.capture());
+        assertEquals(otherUrl(), cursor.getValue().getEndpointUrl());
+        assertTrue(cursor.getValue().getBehindSince().isBefore(LocalDateTime.now()));
+        assertTrue(cursor.getValue().getLastError().contains("HTTP 503"));
+        assertEquals(1.0, meterRegistry.get("lead.webhook.behind").tag("endpoint", otherUrl()).gauge().value());
+    }
+
+    @Test
+    void testPublish_StalledEndpointDoesNotHoldUpTheOthersOrTheRelay() {
+        // Arrange: more requests than the stalled endpoint's in-flight cap could ever release
+        useEndpoints(stalledUrl());
+        ReflectionTestUtils.setField(sink, "deliveryTimeoutMillis", 500L);
+        List<LeadOutboxEvent> events = new ArrayList<>();
+        for (long id = 1; id <= 60; id++) {
+            events.add(event(id, id));
+        }
+
+        // Act
+        long startNanos = System.nanoTime();
+        sink.publish(events);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        // Assert
+        assertTrue(elapsedMillis < 3000, "publish took " + elapsedMillis + " ms");
+        int eventCount = 0;
+        for (JsonNode body : bodies) {
+            eventCount += body.size();
+        }
+        assertEquals(6, bodies.size());
+        assertEquals(60, eventCount);
+        assertEquals(2, stalledCalls.get());
+        ArgumentCaptor<WebhookCursor> cursor = ArgumentCaptor.forClass(WebhookCursor.class);
+        verify(webhookCursorRepository).save(cursor.capture());
+        assertEquals(stalledUrl(), cursor.getValue().getEndpointUrl());
+        assertTrue(cursor.getValue().getLastError().contains("did not take the batch within 500 ms"));
+    }
+
+    @Test
+    void testPublish_ReplaysMissedEventsInDeliveryOrderBeforeRejoiningLiveBatches() {
+        // Arrange: /other fell behind and has recovered; two events were delivered without it
+        useBothEndpoints();
+        WebhookCursor cursor = new WebhookCursor(otherUrl(), LocalDateTime.now().minusMinutes(5));
+        when(webhookCursorRepository.findAll()).thenReturn(Collections.singletonList(cursor));
+        when(leadOutboxRepository.findPublishedSince(eq(cursor.getBehindSince()), any(Pageable.class)))
+                .thenReturn(Arrays.asList(event(1L, 1L), event(2L, 1L)));
+
+        // Act
+        sink.publish(Collections.singletonList(event(3L, 1L)));
+
+        // Assert
+        List<Long> otherEvents = new ArrayList<>();
+        for (JsonNode body : otherBodies) {
+            body.forEach(event -> otherEvents.add(event.get("id").asLong()));
+        }
+        assertEquals(Arrays.asList(1L, 2L, 3L), otherEvents);
+        assertEquals(1, bodies.size());
+        verify(webhookCursorRepository).delete(cursor);
+        assertEquals(cursor.getBehindSince(), sink.oldestRetainedPublishedDate());
+    }
+
+    @Test
+    void testPublish_StillFailsWhenNoEndpointTakesTheBatch() {
+        // Arrange
+        useBothEndpoints();
+        status = () -> 503;
+        otherStatus = 503;
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> sink.publish(Collections.singletonList(event(1L, 1L))));
+        verify(webhookCursorRepository, never()).save(any());
+    }
+
+    @Test
+    void testPublish_RecordsDeliveryLagFromEachEventsCommit() {
+        // Arrange
+        LeadOutboxEvent event = event(1L, 1L);
+        event.setCreatedDate(LocalDateTime.now().minus(Duration.ofSeconds(30)));
+
+        // Act
+        sink.publish(Collections.singletonList(event));
+
+        // Assert
+        assertTrue(meterRegistry.get("lead.webhook.lag").timer().max(TimeUnit.SECONDS) >= 30);
+    }
+
+    private void useBothEndpoints() {
+        useEndpoints(otherUrl());
+    }
+
+    private void useEndpoints(String secondUrl) {
+        sink.stop();
+        ReflectionTestUtils.setField(sink, "webhookUrls",
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/events," + secondUrl);
+        ReflectionTestUtils.setField(sink, "maxAttempts", 2);
+        meterRegistry.clear();
+        sink.start();
+    }
+
+    private String otherUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/other";
+    }
+
+    private String stalledUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/stalled";
+    }
+
+    private static LeadOutboxEvent event(Long id, Long leadId) {
+        LeadOutboxEvent event = new LeadOutboxEvent();
+        event.setId(id);
+        event.setLeadId(leadId);
+        event.setEventType(LeadOutbox.UPDATED);
+        return event;
+    }
+}
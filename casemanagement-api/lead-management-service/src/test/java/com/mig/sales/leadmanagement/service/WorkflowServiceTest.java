@@ -0,0 +1,235 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkflowService
+ */
+@ExtendWith(MockitoExtension.class)
+class WorkflowServiceTest {
+
+    @Mock
+    private LeadService leadService;
+
+    @Mock
+    private ManagerLoadIndex managerLoadIndex;
+
+    @Mock
+    private LeadSlaTimers leadSlaTimers;
+
+    @Spy
+    private LeadScoringService leadScoringService = new LeadScoringService();
+
+    @Mock
+    private LeadHistoryService leadHistoryService;
+
+    @InjectMocks
+    private WorkflowService workflowService;
+
+    private User salesPerson;
+    private User manager;
+
+    @BeforeEach
+    void setUp() {
+        salesPerson = user(1L, "SALES_PERSON");
+        manager = user(2L, "SALES_MANAGER");
+    }
+
+    @Test
+    void testGetAllowedActions_LoadsAllLeadsInOneCall() {
+        // Arrange
+        Lead standard = lead(10L, "ASSIGNED", "50000", salesPerson);
+        Lead highValue = lead(11L, "IN_PROGRESS", "2000000", salesPerson);
+        Lead converted = lead(12L, "CONVERTED", "50000", salesPerson);
+        when(leadService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(converted, highValue, standard));
+
+        // Act
+        Map<Long, Set<LeadStatusMachine.Action>> allowed =
+                workflowService.getAllowedActions(Arrays.asList(10L, 11L, 12L, 99L), salesPerson);
+
+        // Assert
+        assertEquals(Arrays.asList(10L, 11L, 12L), Arrays.asList(allowed.keySet().toArray()));
+        assertEquals(EnumSet.of(LeadStatusMachine.Action.START_WORK, LeadStatusMachine.Action.REQUEST_APPROVAL),
+                allowed.get(10L));
+        assertEquals(EnumSet.of(LeadStatusMachine.Action.ESCALATE), allowed.get(11L));
+        assertTrue(allowed.get(12L).isEmpty());
+        verify(leadService, times(1)).findAllByIds(anyCollection());
+        verify(leadService, never()).findById(anyLong());
+    }
+
+    @Test
+    void testGetAllowedActions_ManagerDecidesOwnLeadsOnly() {
+        // Arrange
+        Lead escalated = lead(20L, "PRE_CONVERSION", "2000000", manager);
+        Lead othersLead = lead(21L, "IN_PROGRESS", "50000", salesPerson);
+        when(leadService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(escalated, othersLead));
+
+        // Act
+        Map<Long, Set<LeadStatusMachine.Action>> allowed =
+                workflowService.getAllowedActions(Arrays.asList(20L, 21L), manager);
+
+        // Assert
+        assertEquals(EnumSet.of(LeadStatusMachine.Action.APPROVE, LeadStatusMachine.Action.REJECT), allowed.get(20L));
+        assertTrue(allowed.get(21L).isEmpty());
+    }
+
+    @Test
+    void testApproveLeads_OneUpdateAndOneHistoryBatch() {
+        // Arrange
+        Lead escalated = lead(30L, "PRE_CONVERSION", "2000000", manager);
+        Lead standard = lead(31L, "IN_PROGRESS", "50000", manager);
+        Lead converted = lead(32L, "CONVERTED", "50000", manager);
+        Lead othersLead = lead(33L, "PRE_CONVERSION", "2000000", salesPerson);
+        when(leadService.lockAllByIds(anyCollection())).thenReturn(Arrays.asList(othersLead, converted, standard, escalated));
+        when(leadService.transitionLeads(anyCollection(), eq(LeadStatusMachine.Action.APPROVE), eq(2L), eq(manager)))
+                .thenReturn(2);
+
+        // Act
+        WorkflowService.BulkTransitionResult result =
+                workflowService.approveLeads(Arrays.asList(30L, 31L, 32L, 33L, 99L, 30L), manager);
+
+        // Assert
+        assertEquals(Arrays.asList(30L, 31L), result.getApplied());
+        assertEquals(LeadStatusMachine.Verdict.INVALID_STATUS, result.getRefused().get(32L));
+        assertEquals(LeadStatusMachine.Verdict.NOT_ASSIGNEE, result.getRefused().get(33L));
+        assertEquals(Collections.singletonList(99L), result.getNotFound());
+        verify(leadService, times(1)).transitionLeads(eq(Arrays.asList(30L, 31L)),
+                eq(LeadStatusMachine.Action.APPROVE), eq(2L), eq(manager));
+        verify(leadHistoryService, times(2)).newActivity(any(), eq(manager), anyString(), eq("Approved"),
+                eq("WORKFLOW"), anyString(), eq("CONVERTED"));
+        verify(leadHistoryService, times(1)).logActivities(anyList());
+        verify(managerLoadIndex).leadsResolved(2L, 1);
+        verify(leadService, never()).transition(any(), any(), any(), any());
+    }
+
+    @Test
+    void testEscalateLeads_NothingAllowedSkipsUpdate() {
+        // Arrange
+        Lead standard = lead(40L, "IN_PROGRESS", "50000", salesPerson);
+        when(leadService.lockAllByIds(anyCollection())).thenReturn(Collections.singletonList(standard));
+
+        // Act
+        WorkflowService.BulkTransitionResult result =
+                workflowService.escalateLeads(Collections.singletonList(40L), salesPerson);
+
+        // Assert
+        assertEquals(0, result.getAppliedCount());
+        assertEquals(LeadStatusMachine.Verdict.NOT_HIGH_VALUE, result.getRefused().get(40L));
+        verify(managerLoadIndex, never()).claimLeastLoaded();
+        verify(leadService, never()).transitionLeads(anyCollection(), any(), anyLong(), any());
+        verify(leadHistoryService, never()).logActivities(anyList());
+    }
+
+    @Test
+    void testEscalateLeads_SpreadsAcrossManagers() {
+        // Arrange
+        User otherManager = user(3L, "SALES_MANAGER");
+        Lead first = lead(60L, "IN_PROGRESS", "2000000", salesPerson);
+        Lead second = lead(61L, "ASSIGNED", "2000000", salesPerson);
+        Lead third = lead(62L, "IN_PROGRESS", "2000000", salesPerson);
+        when(leadService.lockAllByIds(anyCollection())).thenReturn(Arrays.asList(first, second, third));
+        when(managerLoadIndex.claimLeastLoaded()).thenReturn(manager, otherManager, manager);
+        when(leadService.transitionLeads(anyCollection(), eq(LeadStatusMachine.Action.ESCALATE), eq(1L), any()))
+                .thenAnswer(invocation -> invocation.<Collection<Long>>getArgument(0).size());
+
+        // Act
+        WorkflowService.BulkTransitionResult result =
+                workflowService.escalateLeads(Arrays.asList(60L, 61L, 62L), salesPerson);
+
+        // Assert: one UPDATE per manager
+        assertEquals(3, result.getAppliedCount());
+        verify(leadService).transitionLeads(eq(Arrays.asList(60L, 62L)), eq(LeadStatusMachine.Action.ESCALATE),
+                eq(1L), eq(manager));
+        verify(leadService).transitionLeads(eq(Collections.singletonList(61L)), eq(LeadStatusMachine.Action.ESCALATE),
+                eq(1L), eq(otherManager));
+        verify(leadHistoryService, times(1)).logActivities(anyList());
+    }
+
+    @Test
+    void testRejectLeads_RowCountMismatchFails() {
+        // Arrange
+        Lead escalated = lead(50L, "PRE_CONVERSION", "2000000", manager);
+        when(leadService.lockAllByIds(anyCollection())).thenReturn(Collections.singletonList(escalated));
+        when(leadService.transitionLeads(anyCollection(), any(), anyLong(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(BusinessException.class,
+                () -> workflowService.rejectLeads(Collections.singletonList(50L), manager, "Budget cut"));
+        verify(leadHistoryService, never()).logActivities(anyList());
+    }
+
+    @Test
+    void testHandleSlaBreaches_EscalatesHighValueAndFlagsTheRest() {
+        // Arrange
+        LocalDateTime overdue = LocalDateTime.now().minusHours(50);
+        Lead highValue = lead(70L, "IN_PROGRESS", "2000000", salesPerson);
+        highValue.setUpdatedDate(overdue);
+        Lead standard = lead(71L, "ASSIGNED", "50000", salesPerson);
+        standard.setUpdatedDate(overdue);
+        Lead touched = lead(72L, "IN_PROGRESS", "50000", salesPerson);
+        touched.setUpdatedDate(LocalDateTime.now().minusHours(1));
+        Lead converted = lead(73L, "CONVERTED", "50000", salesPerson);
+        converted.setUpdatedDate(overdue);
+        when(leadSlaTimers.getSla()).thenReturn(Duration.ofHours(48));
+        when(leadService.lockAllByIds(anyCollection())).thenReturn(Arrays.asList(highValue, standard, touched, converted));
+        when(managerLoadIndex.claimLeastLoaded()).thenReturn(manager);
+        when(leadService.transition(highValue, LeadStatusMachine.Action.ESCALATE, null, manager)).thenAnswer(invocation -> {
+            highValue.setStatus("PRE_CONVERSION");
+            return highValue;
+        });
+
+        // Act
+        WorkflowService.SlaBreachResult result = workflowService.handleSlaBreaches(Arrays.asList(70L, 71L, 72L, 73L));
+
+        // Assert
+        assertEquals(Collections.singletonList(70L), result.getEscalated());
+        assertEquals(Collections.singletonList(71L), result.getFlagged());
+        verify(leadSlaTimers).leadSaved(touched);
+        assertTrue(standard.getUpdatedDate().isAfter(overdue));
+        verify(leadSlaTimers).leadsFlagged(Collections.singletonList(71L), standard.getUpdatedDate());
+        verify(managerLoadIndex, times(1)).claimLeastLoaded();
+        verify(leadHistoryService).newActivity(eq(standard), isNull(), anyString(), eq("SLA Breached"),
+                eq("SYSTEM"), eq("ASSIGNED"), eq("ASSIGNED"));
+        verify(leadHistoryService, times(1)).logActivities(anyList());
+    }
+
+    private static User user(Long id, String role) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setRole(role);
+        return user;
+    }
+
+    private static Lead lead(Long id, String status, String value, User assignee) {
+        Lead lead = new Lead();
+        lead.setId(id);
+        lead.setStatus(status);
+        lead.setPotentialValue(new BigDecimal(value));
+        lead.setAssignedTo(assignee);
+        return lead;
+    }
+}
@@ -0,0 +1,236 @@
+package com.mig.sales.leadmanagement.service;
+
+import com.mig.sales.leadmanagement.entity.Lead;
+import com.mig.sales.leadmanagement.entity.User;
+import com.mig.sales.leadmanagement.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for WorkloadRebalancingService
+ */
+@ExtendWith(MockitoExtension.class)
+class WorkloadRebalancingServiceTest {
+
+    @Mock
+    private LeadService leadService;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private LeadHistoryService leadHistoryService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ScheduledJobRunner scheduledJobRunner;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @InjectMocks
+    private WorkloadRebalancingService workloadRebalancingService;
+
+    private User rep1;
+    private User rep2;
+    private User rep3;
+    private User inactiveRep;
+
+    @BeforeEach
+    void setUp() {
+        rep1 = createUser(1L, "rep1", true);
+        rep2 = createUser(2L, "rep2", true);
+        rep3 = createUser(3L, "rep3", true);
+        inactiveRep = createUser(9L, "gone", false);
+    }
+
+    @Test
+    void testPlan_MovesOrphanedLeadsToLeastLoadedReps() {
+        // Arrange
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(rep1, rep2, rep3));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Arrays.asList(
+                row(1L, true, 4L), row(2L, true, 1L), row(9L, false, 3L)));
+        when(leadService.findOpenLeadIdsForReassignment(9L, 3)).thenReturn(Arrays.asList(100L, 101L, 102L));
+
+        // Act
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.plan();
+
+        // Assert
+        assertEquals(3, plan.getTargetLoad());
+        assertEquals(3, plan.getMoves().size());
+        assertTrue(plan.getMoves().stream().allMatch(move ->
+                WorkloadRebalancingService.REASON_ORPHANED.equals(move.getReason()) && move.getFromUserId() == 9L));
+        assertEquals(Long.valueOf(4L), plan.getLoadsAfter().get(1L));
+        assertEquals(Long.valueOf(2L), plan.getLoadsAfter().get(2L));
+        assertEquals(Long.valueOf(2L), plan.getLoadsAfter().get(3L));
+        verify(leadService, never()).findOpenLeadIdsForReassignment(eq(1L), anyInt());
+    }
+
+    @Test
+    void testPlan_MovesOnlyExcessAboveTolerance() {
+        // Arrange
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(rep1, rep2));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Collections.singletonList(
+                row(1L, true, 10L)));
+        when(leadService.findOpenLeadIdsForReassignment(1L, 3)).thenReturn(Arrays.asList(100L, 101L, 102L));
+
+        // Act
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.plan();
+
+        // Assert: fair share is 5, tolerance 2, so rep1 keeps 7
+        assertEquals(7, plan.getMaxLoad());
+        assertEquals(3, plan.getMoves().size());
+        assertTrue(plan.getMoves().stream().allMatch(move -> move.getToUserId() == 2L
+                && WorkloadRebalancingService.REASON_OVER_CAPACITY.equals(move.getReason())));
+        assertEquals(Long.valueOf(7L), plan.getLoadsAfter().get(1L));
+    }
+
+    @Test
+    void testPlan_BalancedTeamNeedsNoMoves() {
+        // Arrange
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(rep1, rep2));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Arrays.asList(
+                row(1L, true, 6L), row(2L, true, 4L)));
+
+        // Act
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.plan();
+
+        // Assert
+        assertTrue(plan.getMoves().isEmpty());
+        verify(leadService, never()).findOpenLeadIdsForReassignment(anyLong(), anyInt());
+    }
+
+    @Test
+    void testPlan_OrphanedLeadsWithoutActiveReps() {
+        // Arrange
+        when(userService.findActiveSalesPersons()).thenReturn(Collections.emptyList());
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Collections.singletonList(
+                row(9L, false, 3L)));
+
+        // Act & Assert
+        assertThrows(BusinessException.class, () -> workloadRebalancingService.plan());
+    }
+
+    @Test
+    void testRebalance_DryRunChangesNothing() {
+        // Arrange
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(rep1, rep2));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Collections.singletonList(
+                row(9L, false, 2L)));
+        when(leadService.findOpenLeadIdsForReassignment(9L, 2)).thenReturn(Arrays.asList(100L, 101L));
+
+        // Act
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.rebalance(true);
+
+        // Assert
+        assertTrue(plan.isDryRun());
+        assertEquals(2, plan.getMoves().size());
+        assertEquals(0, plan.getMovedCount());
+        verify(leadService, never()).reassignOpenLeads(anyCollection(), anyLong(), any(User.class));
+        verifyNoInteractions(leadHistoryService, transactionManager);
+    }
+
+    @Test
+    void testRebalance_AppliesMovesInBatches() {
+        // Arrange
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(rep1, rep2));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Collections.singletonList(
+                row(9L, false, 2L)));
+        when(leadService.findOpenLeadIdsForReassignment(9L, 2)).thenReturn(Arrays.asList(100L, 101L));
+        when(userService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(inactiveRep, rep1, rep2));
+        when(leadService.reassignOpenLeads(anyCollection(), eq(9L), any(User.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(leadService.getReference(anyLong())).thenAnswer(invocation -> {
+            Lead lead = new Lead();
+            lead.setId(invocation.getArgument(0));
+            return lead;
+        });
+
+        // Act
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.rebalance(false);
+
+        // Assert
+        assertEquals(2, plan.getMovedCount());
+        verify(leadService).reassignOpenLeads(Collections.singletonList(100L), 9L, rep1);
+        verify(leadService).reassignOpenLeads(Collections.singletonList(101L), 9L, rep2);
+        verify(leadHistoryService, times(2)).newActivity(any(Lead.class), any(User.class), anyString(),
+                eq("Reassigned"), eq("SYSTEM"), isNull(), isNull());
+        verify(leadHistoryService, times(1)).logActivities(anyList());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void testRebalance_LogsHistoryOnlyForLeadsActuallyMoved() {
+        // Arrange: lead 101 is closed between planning and the UPDATE
+        when(userService.findActiveSalesPersons()).thenReturn(Arrays.asList(rep1, rep2));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Collections.singletonList(
+                row(9L, false, 2L)));
+        when(leadService.findOpenLeadIdsForReassignment(9L, 2)).thenReturn(Arrays.asList(100L, 101L));
+        when(userService.findAllByIds(anyCollection())).thenReturn(Arrays.asList(inactiveRep, rep1, rep2));
+        when(leadService.reassignOpenLeads(Collections.singletonList(100L), 9L, rep1))
+                .thenReturn(Collections.singletonList(100L));
+        when(leadService.reassignOpenLeads(Collections.singletonList(101L), 9L, rep2))
+                .thenReturn(Collections.emptyList());
+        Lead moved = new Lead();
+        moved.setId(100L);
+        when(leadService.getReference(100L)).thenReturn(moved);
+
+        // Act
+        WorkloadRebalancingService.RebalancePlan plan = workloadRebalancingService.rebalance(false);
+
+        // Assert
+        assertEquals(1, plan.getMovedCount());
+        verify(leadHistoryService, times(1)).newActivity(eq(moved), eq(rep1), anyString(),
+                eq("Reassigned"), eq("SYSTEM"), isNull(), isNull());
+        verify(leadService, never()).getReference(101L);
+    }
+
+    @Test
+    void testScheduledRebalance_EvictsLeadCache() {
+        // Arrange
+        Cache leads = mock(Cache.class);
+        when(cacheManager.getCache("leads")).thenReturn(leads);
+        when(scheduledJobRunner.runAsLeader(eq("workload-rebalancing"), eq(true), any(Runnable.class)))
+                .thenAnswer(invocation -> {
+                    ((Runnable) invocation.getArgument(2)).run();
+                    return true;
+                });
+        when(userService.findActiveSalesPersons()).thenReturn(Collections.singletonList(rep1));
+        when(leadService.countOpenLeadsByAssigneeWithActiveFlag()).thenReturn(Collections.emptyList());
+
+        // Act
+        workloadRebalancingService.scheduledRebalance();
+
+        // Assert
+        verify(leads).clear();
+    }
+
+    private Object[] row(Long userId, boolean active, Long count) {
+        return new Object[] {userId, active, count};
+    }
+
+    private User createUser(Long id, String username, boolean active) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole("SALES_PERSON");
+        user.setIsActive(active);
+        return user;
+    }
+}
@@ -0,0 +1,156 @@
+#!/bin/bash
+
+# Lead Management Service - Concurrent Claim Load Test
+# Registers a pool of sales persons, seeds NEW leads, then has every rep call
+# POST /leads/next in parallel until the pool is drained. Verifies that no lead
+# was claimed twice and reports claim latency.
+
+# Configuration
+BASE_URL="http://localhost:8080"
+CLAIMERS=100
+LEADS=2000
+PASSWORD="password123"
+WORK_DIR=$(mktemp -d)
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+NC='\033[0m' # No Color
+
+print_status() {
+    echo -e "${GREEN}[INFO]${NC} $1"
+}
+
+print_error() {
+    echo -e "${RED}[ERROR]${NC} $1"
+}
+
+# Register (ignoring "already exists") and log in a user, printing its token
+login() {
+    local username=$1
+    local role=$2
+
+    curl -s -X POST "$BASE_URL/auth/register" \
+        -H "Content-Type: application/json" \
+        -d "{\"username\": \"$username\", \"password\": \"$PASSWORD\", \"role\": \"$role\"}" > /dev/null
+
+    curl -s -X POST "$BASE_URL/auth/login" \
+        -H "Content-Type: application/json" \
+        -d "{\"username\": \"$username\", \"password\": \"$PASSWORD\"}" \
+        | grep -o '"token":"[^"]*"' | cut -d'"' -f4
+}
+
+# Seed NEW leads with a spread of values so claim order matters
+seed_leads() {
+    local token=$1
+    print_status "Seeding $LEADS leads..."
+    for i in $(seq 1 $LEADS); do
+        curl -s -X POST "$BASE_URL/leads" \
+            -H "Content-Type: application/json" \
+            -H "Authorization: Bearer $token" \
+            -d "{
+                \"leadName\": \"Claim Test Lead $i\",
+                \"company\": \"Claim Test Company $i\",
+                \"email\": \"claim$i@testcompany.com\",
+                \"phone\": \"555-1$i\",
+                \"potentialValue\": $(( (i % 20) * 50000 )),
+                \"leadSource\": \"Webinar\"
+            }" > /dev/null
+    done
+}
+
+# Claim until the service reports nothing left; one line per claim: <leadId> <seconds>
+claim_loop() {
+    local token=$1
+    local out=$2
+    while true; do
+        local response
+        response=$(curl -s -w ' %{time_total}' -X POST "$BASE_URL/leads/next" \
+            -H "Authorization: Bearer $token")
+        local lead_id
+        lead_id=$(echo "$response" | grep -o '"data":{"id":[0-9]*' | grep -o '[0-9]*$')
+        if [ -z "$lead_id" ]; then
+            break
+        fi
+        echo "$lead_id ${response##* }" >> "$out"
+    done
+}
+
+main() {
+    echo "Lead Management Service - Concurrent Claim Load Test"
+    echo "===================================================="
+
+    if ! curl -s -f "$BASE_URL/actuator/health" > /dev/null; then
+        print_error "Service is not running at $BASE_URL"
+        exit 1
+    fi
+
+    local seeder_token
+    seeder_token=$(login "claim_seeder" "SALES_MANAGER")
+    seed_leads "$seeder_token"
+
+    print_status "Logging in $CLAIMERS claimers..."
+    local tokens=()
+    for i in $(seq 1 $CLAIMERS); do
+        tokens+=("$(login "claimer_$i" "SALES_PERSON")")
+    done
+
+    print_status "Starting $CLAIMERS concurrent claimers..."
+    local start
+    start=$(date +%s.%N)
+    for i in $(seq 1 $CLAIMERS); do
+        claim_loop "${tokens[$((i - 1))]}" "$WORK_DIR/claimer_$i.txt" &
+    done
+    wait
+    local elapsed
+    elapsed=$(echo "$(date +%s.%N) - $start" | bc)
+
+    cat "$WORK_DIR"/claimer_*.txt > "$WORK_DIR/all.txt" 2>/dev/null
+    local total duplicates
+    total=$(wc -l < "$WORK_DIR/all.txt")
+    duplicates=$(cut -d' ' -f1 "$WORK_DIR/all.txt" | sort | uniq -d | wc -l)
+
+    print_status "Claimed $total leads in ${elapsed}s"
+    print_status "Throughput: $(echo "scale=1; $total / $elapsed" | bc) claims/s"
+    print_status "Latency p50: $(cut -d' ' -f2 "$WORK_DIR/all.txt" | sort -n | awk '{a[NR]=$1} END {print a[int(NR*0.50)+1]}')s"
+    print_status "Latency p99: $(cut -d' ' -f2 "$WORK_DIR/all.txt" | sort -n | awk '{a[NR]=$1} END {print a[int(NR*0.99)+1]}')s"
+
+    rm -rf "$WORK_DIR"
+    if [ "$duplicates" -ne 0 ]; then
+        print_error "$duplicates leads were claimed more than once"
+        exit 1
+    fi
+    print_status "No lead was claimed twice"
+}
+
+while [[ $# -gt 0 ]]; do
+    case $1 in
+        -u|--url)
+            BASE_URL="$2"
+            shift 2
+            ;;
+        -c|--claimers)
+            CLAIMERS="$2"
+            shift 2
+            ;;
+        -l|--leads)
+            LEADS="$2"
+            shift 2
+            ;;
+        -h|--help)
+            echo "Usage: $0 [OPTIONS]"
+            echo "Options:"
+            echo "  -u, --url URL          Base URL (default: http://localhost:8080)"
+            echo "  -c, --claimers NUM     Concurrent claimers (default: 100)"
+            echo "  -l, --leads NUM        Leads to seed (default: 2000)"
+            echo "  -h, --help             Show this help message"
+            exit 0
+            ;;
+        *)
+            print_error "Unknown option: $1"
+            exit 1
+            ;;
+    esac
+done
+
+main
@@ -0,0 +1,38 @@
+package com.mig.sales.scoring;
+
+/**
+ * Base of the scorers that can score a {@link ScoringBatch}: the batch asks its scorer
+ * how to encode sources and values, and the scorer reads the columns back.
+ */
+abstract class ColumnarScorer implements LeadScorer {
+
+    @Override
+    public ScoringBatch newBatch(int size) {
+        return new ScoringBatch(this, size);
+    }
+
+    /**
+     * Score a range of a batch created by this scorer
+     */
+    final void score(ScoringBatch batch, int from, int to, int[] scores) {
+        if (batch.scorer != this) {
+            throw new IllegalArgumentException("Batch was created for a different scorer");
+        }
+        scoreColumns(batch, from, to, scores);
+    }
+
+    /**
+     * Score a range of a batch; same results as {@link #score(java.math.BigDecimal, String, String, String)} on each lead
+     */
+    abstract void scoreColumns(ScoringBatch batch, int from, int to, int[] scores);
+
+    /**
+     * @return whether batches should convert values to whole cents
+     */
+    abstract boolean scoresInCents();
+
+    /**
+     * @return dense ordinal of a lead source, {@link ScoringBatch#NO_SOURCE} or {@link ScoringBatch#UNKNOWN_SOURCE}
+     */
+    abstract int sourceOrdinal(String leadSource);
+}
@@ -0,0 +1,242 @@
+package com.mig.sales.scoring;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lead scoring evaluator compiled from {@link ScoringRules}.
+ *
+ * Value bands are sorted and unpacked into parallel arrays, and source weights are
+ * copied into a private lookup table, once at compile time. Scoring a lead then only
+ * compares against the precomputed thresholds, looks up the source and scans the
+ * contact fields in place, so it allocates nothing and is safe to share across threads.
+ *
+ * The case management EJB and the lead management service both score through this
+ * class, so a lead gets the same score whichever path it came in on.
+ *
+ * For large batches, {@link #newBatch(int)} converts leads into columns once: values
+ * to whole cents compared against precomputed cent thresholds, sources to dense
+ * ordinals through a {@link SourceTable}, contact fields to a two-bit mask. The batch
+ * is then scored in one loop over primitive arrays.
+ */
+public final class CompiledScoringRules extends ColumnarScorer {
+
+    private final String version;
+    private final BigDecimal[] bandMins;
+    private final boolean[] bandInclusive;
+    private final int[] bandPoints;
+    private final int defaultValuePoints;
+    private final int missingValuePoints;
+    private final Map<String, Integer> sourcePoints;
+    private final int unknownSourcePoints;
+    private final int fullContactPoints;
+    private final int partialContactPoints;
+    private final int minScore;
+    private final int maxScore;
+    private final BigDecimal highValueThreshold;
+
+    // Batch scoring tables; bandCents is null if a band minimum is not a whole number of cents
+    private final long[] bandCents;
+    private final SourceTable sourceTable;
+    private final int[] ordinalPoints;
+    private final int[] contactPoints;
+
+    private CompiledScoringRules(ScoringRules rules) {
+        this.version = rules.getVersion();
+        List<ScoringRules.ValueBand> bands = new ArrayList<>(rules.getValueBands());
+        for (ScoringRules.ValueBand band : bands) {
+            if (band == null || band.getMin() == null) {
+                throw new IllegalArgumentException("Every value band needs a minimum");
+            }
+        }
+        // Highest minimum first; at equal minimums the exclusive band takes values above it
+        Collections.sort(bands, Comparator.comparing(ScoringRules.ValueBand::getMin).reversed()
+                .thenComparing(ScoringRules.ValueBand::isInclusive));
+
+        this.bandMins = new BigDecimal[bands.size()];
+        this.bandInclusive = new boolean[bands.size()];
+        this.bandPoints = new int[bands.size()];
+        for (int i = 0; i < bands.size(); i++) {
+            bandMins[i] = bands.get(i).getMin();
+            bandInclusive[i] = bands.get(i).isInclusive();
+            bandPoints[i] = bands.get(i).getPoints();
+        }
+
+        Map<String, Integer> sources = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : rules.getSourcePoints().entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                sources.put(entry.getKey(), entry.getValue());
+            }
+        }
+        this.sourcePoints = sources;
+
+        if (rules.getMinScore() > rules.getMaxScore()) {
+            throw new IllegalArgumentException("Minimum score " + rules.getMinScore()
+                    + " is above maximum score " + rules.getMaxScore());
+        }
+        this.defaultValuePoints = rules.getDefaultValuePoints();
+        this.missingValuePoints = rules.getMissingValuePoints();
+        this.unknownSourcePoints = rules.getUnknownSourcePoints();
+        this.fullContactPoints = rules.getFullContactPoints();
+        this.partialContactPoints = rules.getPartialContactPoints();
+        this.minScore = rules.getMinScore();
+        this.maxScore = rules.getMaxScore();
+        this.highValueThreshold = rules.getHighValueThreshold();
+
+        this.bandCents = centThresholds(bandMins, bandInclusive);
+
+        List<String> sourceNames = new ArrayList<>(sources.keySet());
+        this.sourceTable = new SourceTable(sourceNames);
+        this.ordinalPoints = new int[SourceTable.ordinalCount(sourceNames)];
+        this.ordinalPoints[ScoringBatch.UNKNOWN_SOURCE] = unknownSourcePoints;
+        for (int i = 0; i < sourceNames.size(); i++) {
+            ordinalPoints[ScoringBatch.UNKNOWN_SOURCE + 1 + i] = sources.get(sourceNames.get(i));
+        }
+
+        this.contactPoints = new int[] {0, partialContactPoints, partialContactPoints, fullContactPoints};
+    }
+
+    /**
+     * Compile scoring rules into an evaluator
+     * @param rules the rules; later changes to them do not affect the evaluator
+     * @return compiled evaluator
+     * @throws IllegalArgumentException if the rules are inconsistent
+     */
+    public static CompiledScoringRules compile(ScoringRules rules) {
+        return new CompiledScoringRules(rules);
+    }
+
+    /**
+     * @return version label of the rules this evaluator was compiled from
+     */
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Score a lead from its scoring attributes
+     * @param potentialValue potential value, may be null
+     * @param leadSource lead source, may be null
+     * @param email email address, may be null or blank
+     * @param phone phone number, may be null or blank
+     * @return score clamped to the configured range
+     */
+    @Override
+    public int score(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        int score = valuePoints(potentialValue);
+
+        if (leadSource != null) {
+            Integer points = sourcePoints.get(leadSource);
+            score += points != null ? points : unknownSourcePoints;
+        }
+
+        boolean hasEmail = hasText(email);
+        boolean hasPhone = hasText(phone);
+        if (hasEmail && hasPhone) {
+            score += fullContactPoints;
+        } else if (hasEmail || hasPhone) {
+            score += partialContactPoints;
+        }
+
+        return Math.min(Math.max(score, minScore), maxScore);
+    }
+
+    @Override
+    void scoreColumns(ScoringBatch batch, int from, int to, int[] scores) {
+        long[] valueCents = batch.valueCents;
+        int[] sourceOrdinals = batch.sourceOrdinals;
+        byte[] contactFlags = batch.contactFlags;
+        for (int i = from; i < to; i++) {
+            long cents = valueCents[i];
+            int score;
+            if (cents == ScoringBatch.MISSING) {
+                score = missingValuePoints;
+            } else if (cents == ScoringBatch.NOT_CENTS) {
+                score = valuePoints(batch.exactValues[i]);
+            } else {
+                score = valuePoints(cents);
+            }
+            score += ordinalPoints[sourceOrdinals[i]] + contactPoints[contactFlags[i]];
+            scores[i] = score < minScore ? minScore : (score > maxScore ? maxScore : score);
+        }
+    }
+
+    @Override
+    boolean scoresInCents() {
+        // Only if every band minimum is a whole number of cents
+        return bandCents != null;
+    }
+
+    @Override
+    int sourceOrdinal(String leadSource) {
+        return sourceTable.ordinal(leadSource);
+    }
+
+    /**
+     * Check whether a potential value makes a lead high-value
+     * @param potentialValue potential value, may be null
+     * @return true if at or above the high-value threshold
+     */
+    public boolean isHighValue(BigDecimal potentialValue) {
+        return potentialValue != null && highValueThreshold != null
+                && potentialValue.compareTo(highValueThreshold) >= 0;
+    }
+
+    private int valuePoints(BigDecimal potentialValue) {
+        if (potentialValue == null) {
+            return missingValuePoints;
+        }
+        for (int i = 0; i < bandMins.length; i++) {
+            int comparison = potentialValue.compareTo(bandMins[i]);
+            if (comparison > 0 || (comparison == 0 && bandInclusive[i])) {
+                return bandPoints[i];
+            }
+        }
+        return defaultValuePoints;
+    }
+
+    private int valuePoints(long cents) {
+        for (int i = 0; i < bandCents.length; i++) {
+            if (cents >= bandCents[i]) {
+                return bandPoints[i];
+            }
+        }
+        return defaultValuePoints;
+    }
+
+    /**
+     * Turn band minimums into the lowest matching value in cents, or null if one is not a whole number of cents
+     */
+    private static long[] centThresholds(BigDecimal[] mins, boolean[] inclusive) {
+        long[] thresholds = new long[mins.length];
+        for (int i = 0; i < mins.length; i++) {
+            long cents = ScoringBatch.toCents(mins[i]);
+            if (cents == ScoringBatch.NOT_CENTS) {
+                return null;
+            }
+            thresholds[i] = inclusive[i] ? cents : cents + 1;
+        }
+        return thresholds;
+    }
+
+    /**
+     * Same result as {@code value != null && !value.trim().isEmpty()}, without creating a trimmed copy
+     */
+    static boolean hasText(String value) {
+        if (value == null) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
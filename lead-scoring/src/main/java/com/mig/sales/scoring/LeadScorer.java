@@ -0,0 +1,36 @@
+package com.mig.sales.scoring;
+
+import java.math.BigDecimal;
+
+/**
+ * Scores leads from their scoring attributes. Implementations are immutable and
+ * safe to share across threads.
+ *
+ * {@link CompiledScoringRules} scores with configured heuristics and
+ * {@link LogisticScoringModel} with a model trained from conversion history; either
+ * can be the live scorer or run in the shadow of the other.
+ */
+public interface LeadScorer {
+
+    /**
+     * @return label identifying the rules or model in logs and shadow reports
+     */
+    String getVersion();
+
+    /**
+     * Score a lead from its scoring attributes
+     * @param potentialValue potential value, may be null
+     * @param leadSource lead source, may be null
+     * @param email email address, may be null or blank
+     * @param phone phone number, may be null or blank
+     * @return score from 0 to 100 unless the scorer's range says otherwise
+     */
+    int score(BigDecimal potentialValue, String leadSource, String email, String phone);
+
+    /**
+     * Create an empty batch of leads to score with this scorer
+     * @param size number of leads in the batch
+     * @return batch whose leads are all unset until {@link ScoringBatch#set} is called
+     */
+    ScoringBatch newBatch(int size);
+}
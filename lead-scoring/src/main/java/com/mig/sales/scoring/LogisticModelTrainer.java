@@ -0,0 +1,264 @@
+package com.mig.sales.scoring;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits a {@link LogisticScoringModel} to leads with a known outcome.
+ *
+ * Examples are kept in compact columns as they are added. Training is Newton's method
+ * (iteratively reweighted least squares) with an L2 penalty on every weight except the
+ * intercept, which keeps the fit finite when a source predicts the outcome perfectly.
+ * Each example has at most five non-zero features, so an iteration costs a few dozen
+ * operations per example plus one small linear solve. Sources seen fewer than
+ * {@link #setMinSourceCount(int)} times share the weight of unlisted sources.
+ */
+public final class LogisticModelTrainer {
+
+    private static final int INTERCEPT = 0;
+    private static final int LOG_VALUE = 1;
+    private static final int MISSING_VALUE = 2;
+    private static final int EMAIL = 3;
+    private static final int PHONE = 4;
+    private static final int FIRST_SOURCE = 5;
+
+    private static final int FLAG_MISSING = 1;
+    private static final int FLAG_EMAIL = 2;
+    private static final int FLAG_PHONE = 4;
+    private static final int FLAG_CONVERTED = 8;
+
+    private int minSourceCount = 30;
+    private double l2Penalty = 1.0;
+    private int maxIterations = 50;
+
+    private double[] logValues = new double[1024];
+    private int[] sourceIds = new int[1024];
+    private byte[] flags = new byte[1024];
+    private int size;
+    private int convertedCount;
+
+    private final Map<String, Integer> sourceIdsByName = new HashMap<>();
+    private final List<String> sourceNames = new ArrayList<>();
+    private final List<int[]> sourceCounts = new ArrayList<>();
+
+    /**
+     * @param minSourceCount examples a source needs to get a weight of its own; default 30
+     */
+    public void setMinSourceCount(int minSourceCount) {
+        this.minSourceCount = minSourceCount;
+    }
+
+    /**
+     * @param l2Penalty strength of the penalty on large weights; default 1
+     */
+    public void setL2Penalty(double l2Penalty) {
+        this.l2Penalty = l2Penalty;
+    }
+
+    /**
+     * @param maxIterations Newton steps before giving up on convergence; default 50
+     */
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Add a lead with a known outcome
+     * @param potentialValue potential value, may be null
+     * @param leadSource lead source, may be null
+     * @param email email address, may be null or blank
+     * @param phone phone number, may be null or blank
+     * @param converted true if the lead converted, false if it was rejected
+     */
+    public void add(BigDecimal potentialValue, String leadSource, String email, String phone, boolean converted) {
+        if (size == flags.length) {
+            int capacity = size * 2;
+            logValues = Arrays.copyOf(logValues, capacity);
+            sourceIds = Arrays.copyOf(sourceIds, capacity);
+            flags = Arrays.copyOf(flags, capacity);
+        }
+        logValues[size] = potentialValue == null ? 0.0 : LogisticScoringModel.logValue(potentialValue.doubleValue());
+        sourceIds[size] = leadSource == null ? -1 : sourceId(leadSource);
+        flags[size] = (byte) ((potentialValue == null ? FLAG_MISSING : 0)
+                | (CompiledScoringRules.hasText(email) ? FLAG_EMAIL : 0)
+                | (CompiledScoringRules.hasText(phone) ? FLAG_PHONE : 0)
+                | (converted ? FLAG_CONVERTED : 0));
+        if (converted) {
+            convertedCount++;
+        }
+        size++;
+    }
+
+    /**
+     * @return number of examples added
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return number of converted examples added
+     */
+    public int getConvertedCount() {
+        return convertedCount;
+    }
+
+    /**
+     * Fit a model to the examples added so far
+     * @param version version label of the model
+     * @return the fitted model
+     * @throws IllegalArgumentException if the examples do not include both outcomes
+     */
+    public LogisticScoringModel train(String version) {
+        if (convertedCount == 0 || convertedCount == size) {
+            throw new IllegalArgumentException("Training needs both converted and rejected leads; got "
+                    + convertedCount + " converted out of " + size);
+        }
+
+        // Feature per source: none, unknown, then the listed sources by name
+        List<String> listed = new ArrayList<>();
+        for (int i = 0; i < sourceNames.size(); i++) {
+            if (sourceCounts.get(i)[0] >= minSourceCount) {
+                listed.add(sourceNames.get(i));
+            }
+        }
+        Collections.sort(listed);
+        int[] sourceFeature = new int[sourceNames.size()];
+        for (int i = 0; i < sourceNames.size(); i++) {
+            int position = Collections.binarySearch(listed, sourceNames.get(i));
+            sourceFeature[i] = FIRST_SOURCE + (position >= 0 ? ScoringBatch.UNKNOWN_SOURCE + 1 + position : ScoringBatch.UNKNOWN_SOURCE);
+        }
+        int dimensions = FIRST_SOURCE + SourceTable.ordinalCount(listed);
+
+        double[] weights = new double[dimensions];
+        int[] active = new int[5];
+        double[] values = new double[5];
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] gradient = new double[dimensions];
+            double[][] hessian = new double[dimensions][dimensions];
+            for (int i = 0; i < size; i++) {
+                int count = features(i, sourceFeature, active, values);
+                double z = 0.0;
+                for (int k = 0; k < count; k++) {
+                    z += weights[active[k]] * values[k];
+                }
+                double p = 1.0 / (1.0 + Math.exp(-z));
+                double residual = ((flags[i] & FLAG_CONVERTED) != 0 ? 1.0 : 0.0) - p;
+                double curvature = p * (1.0 - p);
+                for (int a = 0; a < count; a++) {
+                    gradient[active[a]] += residual * values[a];
+                    for (int b = 0; b < count; b++) {
+                        hessian[active[a]][active[b]] += curvature * values[a] * values[b];
+                    }
+                }
+            }
+            for (int j = 0; j < dimensions; j++) {
+                if (j == INTERCEPT) {
+                    hessian[j][j] += 1e-9;
+                } else {
+                    gradient[j] -= l2Penalty * weights[j];
+                    hessian[j][j] += l2Penalty;
+                }
+            }
+
+            double[] step = solve(hessian, gradient);
+            double largestStep = 0.0;
+            for (int j = 0; j < dimensions; j++) {
+                weights[j] += step[j];
+                largestStep = Math.max(largestStep, Math.abs(step[j]));
+            }
+            if (largestStep < 1e-7) {
+                break;
+            }
+        }
+
+        double[] ordinalWeights = Arrays.copyOfRange(weights, FIRST_SOURCE, dimensions);
+        return new LogisticScoringModel(version, weights[INTERCEPT], weights[LOG_VALUE], weights[MISSING_VALUE],
+                weights[EMAIL], weights[PHONE], listed, ordinalWeights);
+    }
+
+    /**
+     * Fill the non-zero features of one example
+     * @return number of non-zero features
+     */
+    private int features(int i, int[] sourceFeature, int[] active, double[] values) {
+        int count = 0;
+        active[count] = INTERCEPT;
+        values[count++] = 1.0;
+        if ((flags[i] & FLAG_MISSING) != 0) {
+            active[count] = MISSING_VALUE;
+            values[count++] = 1.0;
+        } else {
+            active[count] = LOG_VALUE;
+            values[count++] = logValues[i];
+        }
+        if ((flags[i] & FLAG_EMAIL) != 0) {
+            active[count] = EMAIL;
+            values[count++] = 1.0;
+        }
+        if ((flags[i] & FLAG_PHONE) != 0) {
+            active[count] = PHONE;
+            values[count++] = 1.0;
+        }
+        active[count] = sourceIds[i] < 0 ? FIRST_SOURCE + ScoringBatch.NO_SOURCE : sourceFeature[sourceIds[i]];
+        values[count++] = 1.0;
+        return count;
+    }
+
+    private int sourceId(String source) {
+        Integer id = sourceIdsByName.get(source);
+        if (id == null) {
+            id = sourceNames.size();
+            sourceIdsByName.put(source, id);
+            sourceNames.add(source);
+            sourceCounts.add(new int[1]);
+        }
+        sourceCounts.get(id)[0]++;
+        return id;
+    }
+
+    /**
+     * Solve a x = b by Gaussian elimination with partial pivoting; a and b are overwritten
+     */
+    static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        for (int column = 0; column < n; column++) {
+            int pivot = column;
+            for (int row = column + 1; row < n; row++) {
+                if (Math.abs(a[row][column]) > Math.abs(a[pivot][column])) {
+                    pivot = row;
+                }
+            }
+            double[] swapRow = a[column];
+            a[column] = a[pivot];
+            a[pivot] = swapRow;
+            double swap = b[column];
+            b[column] = b[pivot];
+            b[pivot] = swap;
+
+            for (int row = column + 1; row < n; row++) {
+                double factor = a[row][column] / a[column][column];
+                if (factor != 0.0) {
+                    for (int k = column; k < n; k++) {
+                        a[row][k] -= factor * a[column][k];
+                    }
+                    b[row] -= factor * b[column];
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = b[row];
+            for (int k = row + 1; k < n; k++) {
+                sum -= a[row][k] * x[k];
+            }
+            x[row] = sum / a[row][row];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,234 @@
+package com.mig.sales.scoring;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+/**
+ * Logistic regression model of the probability that a lead converts, trained from
+ * conversion history by {@link LogisticModelTrainer}. The score is that probability
+ * as a percentage, so it stays within 0 to 100.
+ *
+ * The model uses the same attributes as the heuristic rules: the base-10 logarithm of
+ * the potential value (or a weight for a missing value), one weight per lead source
+ * plus one for unlisted sources and one for no source, and a weight each for having
+ * an email address and a phone number. Scoring is one table lookup, a few additions
+ * and an exponential.
+ *
+ * Models are stored as a small properties file; see {@link #write(Writer)}.
+ */
+public final class LogisticScoringModel extends ColumnarScorer {
+
+    private static final String SOURCE_PREFIX = "source.";
+
+    private final String version;
+    private final double intercept;
+    private final double logValueWeight;
+    private final double missingValueWeight;
+    private final double emailWeight;
+    private final double phoneWeight;
+    private final List<String> sources;
+    private final double[] ordinalWeights;
+    private final SourceTable sourceTable;
+
+    /**
+     * @param sources listed sources, in ordinal order
+     * @param ordinalWeights weights by source ordinal: no source, unlisted source, then the listed sources
+     */
+    LogisticScoringModel(String version, double intercept, double logValueWeight, double missingValueWeight,
+                         double emailWeight, double phoneWeight, List<String> sources, double[] ordinalWeights) {
+        if (ordinalWeights.length != SourceTable.ordinalCount(sources)) {
+            throw new IllegalArgumentException("Expected " + SourceTable.ordinalCount(sources)
+                    + " source weights but got " + ordinalWeights.length);
+        }
+        this.version = version;
+        this.intercept = intercept;
+        this.logValueWeight = logValueWeight;
+        this.missingValueWeight = missingValueWeight;
+        this.emailWeight = emailWeight;
+        this.phoneWeight = phoneWeight;
+        this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+        this.ordinalWeights = ordinalWeights.clone();
+        this.sourceTable = new SourceTable(this.sources);
+    }
+
+    @Override
+    public String getVersion() {
+        return version;
+    }
+
+    @Override
+    public int score(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        return toScore(logit(potentialValue, leadSource, email, phone));
+    }
+
+    /**
+     * @return probability of conversion predicted for a lead, from 0 to 1
+     */
+    public double probability(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        return 1.0 / (1.0 + Math.exp(-logit(potentialValue, leadSource, email, phone)));
+    }
+
+    @Override
+    void scoreColumns(ScoringBatch batch, int from, int to, int[] scores) {
+        long[] valueCents = batch.valueCents;
+        int[] sourceOrdinals = batch.sourceOrdinals;
+        byte[] contactFlags = batch.contactFlags;
+        for (int i = from; i < to; i++) {
+            int flags = contactFlags[i];
+            double z = intercept + valueTerm(valueCents[i], batch.exactValues[i])
+                    + ordinalWeights[sourceOrdinals[i]]
+                    + ((flags & ScoringBatch.HAS_EMAIL) != 0 ? emailWeight : 0.0)
+                    + ((flags & ScoringBatch.HAS_PHONE) != 0 ? phoneWeight : 0.0);
+            scores[i] = toScore(z);
+        }
+    }
+
+    @Override
+    boolean scoresInCents() {
+        return true;
+    }
+
+    @Override
+    int sourceOrdinal(String leadSource) {
+        return sourceTable.ordinal(leadSource);
+    }
+
+    private double logit(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        long cents = potentialValue == null ? ScoringBatch.MISSING : ScoringBatch.toCents(potentialValue);
+        return intercept + valueTerm(cents, potentialValue)
+                + ordinalWeights[sourceTable.ordinal(leadSource)]
+                + (CompiledScoringRules.hasText(email) ? emailWeight : 0.0)
+                + (CompiledScoringRules.hasText(phone) ? phoneWeight : 0.0);
+    }
+
+    /**
+     * @param cents value in cents, or MISSING, or NOT_CENTS with the exact value given
+     */
+    private double valueTerm(long cents, BigDecimal exactValue) {
+        if (cents == ScoringBatch.MISSING) {
+            return missingValueWeight;
+        }
+        double value = cents == ScoringBatch.NOT_CENTS ? exactValue.doubleValue() : cents / 100.0;
+        return logValueWeight * logValue(value);
+    }
+
+    /**
+     * Value feature shared with the trainer; negative values count as zero
+     */
+    static double logValue(double value) {
+        return Math.log10(1.0 + Math.max(value, 0.0));
+    }
+
+    private static int toScore(double z) {
+        return (int) Math.round(100.0 / (1.0 + Math.exp(-z)));
+    }
+
+    /**
+     * Write the model as properties: version, intercept, value.log10, value.missing,
+     * contact.email, contact.phone, source.none, source.unknown and source.&lt;name&gt;
+     * for each listed source
+     * @param writer destination; not closed
+     * @throws IOException if writing fails
+     */
+    public void write(Writer writer) throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("# Lead scoring model: logistic regression on lead attributes\n");
+        line(out, "version", version);
+        line(out, "intercept", Double.toString(intercept));
+        line(out, "value.log10", Double.toString(logValueWeight));
+        line(out, "value.missing", Double.toString(missingValueWeight));
+        line(out, "contact.email", Double.toString(emailWeight));
+        line(out, "contact.phone", Double.toString(phoneWeight));
+        line(out, SOURCE_PREFIX + "none", Double.toString(ordinalWeights[ScoringBatch.NO_SOURCE]));
+        line(out, SOURCE_PREFIX + "unknown", Double.toString(ordinalWeights[ScoringBatch.UNKNOWN_SOURCE]));
+        for (int i = 0; i < sources.size(); i++) {
+            line(out, SOURCE_PREFIX + "[" + sources.get(i) + "]",
+                    Double.toString(ordinalWeights[ScoringBatch.UNKNOWN_SOURCE + 1 + i]));
+        }
+        writer.write(out.toString());
+        writer.flush();
+    }
+
+    /**
+     * Read a model written by {@link #write(Writer)}
+     * @param reader source; not closed
+     * @return the model
+     * @throws IOException if reading fails
+     * @throws IllegalArgumentException if a weight is missing or not a number
+     */
+    public static LogisticScoringModel read(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+        List<String> sources = new ArrayList<>();
+        List<Double> sourceWeights = new ArrayList<>();
+        for (String key : new TreeSet<>(properties.stringPropertyNames())) {
+            if (key.startsWith(SOURCE_PREFIX + "[") && key.endsWith("]")) {
+                sources.add(key.substring(SOURCE_PREFIX.length() + 1, key.length() - 1));
+                sourceWeights.add(number(properties, key));
+            }
+        }
+        double[] ordinalWeights = new double[SourceTable.ordinalCount(sources)];
+        ordinalWeights[ScoringBatch.NO_SOURCE] = number(properties, SOURCE_PREFIX + "none");
+        ordinalWeights[ScoringBatch.UNKNOWN_SOURCE] = number(properties, SOURCE_PREFIX + "unknown");
+        for (int i = 0; i < sources.size(); i++) {
+            ordinalWeights[ScoringBatch.UNKNOWN_SOURCE + 1 + i] = sourceWeights.get(i);
+        }
+        return new LogisticScoringModel(properties.getProperty("version", "model"),
+                number(properties, "intercept"), number(properties, "value.log10"),
+                number(properties, "value.missing"), number(properties, "contact.email"),
+                number(properties, "contact.phone"), sources, ordinalWeights);
+    }
+
+    private static double number(Properties properties, String key) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Model has no " + key);
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Model weight " + key + " is not a number: " + value);
+        }
+    }
+
+    private static void line(StringBuilder out, String key, String value) {
+        escape(out, key, true);
+        out.append('=');
+        escape(out, value, false);
+        out.append('\n');
+    }
+
+    /**
+     * Escape as {@link Properties#load(Reader)} expects, keeping non-ASCII characters as they are
+     */
+    private static void escape(StringBuilder out, String text, boolean key) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                case '\f': out.append("\\f"); break;
+                case '=': case ':': case '#': case '!':
+                    out.append('\\').append(c);
+                    break;
+                case ' ':
+                    if (key || i == 0) {
+                        out.append('\\');
+                    }
+                    out.append(c);
+                    break;
+                default:
+                    out.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.mig.sales.scoring;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * A fixed-size batch of leads in columnar form, scored in one pass by the
+ * {@link LeadScorer} that created it.
+ *
+ * Each lead is converted once when it is set: the potential value to whole cents, the
+ * source to a dense ordinal and the contact fields to a two-bit mask. Values that are
+ * not a whole number of cents keep their BigDecimal and are compared exactly. Leads at
+ * different indexes may be set from different threads; scoring must happen after all
+ * of them are set.
+ */
+public final class ScoringBatch {
+
+    static final long MISSING = Long.MIN_VALUE;
+    static final long NOT_CENTS = Long.MIN_VALUE + 1;
+
+    static final int NO_SOURCE = 0;
+    static final int UNKNOWN_SOURCE = 1;
+
+    static final int HAS_EMAIL = 1;
+    static final int HAS_PHONE = 2;
+
+    final ColumnarScorer scorer;
+    final long[] valueCents;
+    final BigDecimal[] exactValues;
+    final int[] sourceOrdinals;
+    final byte[] contactFlags;
+
+    ScoringBatch(ColumnarScorer scorer, int size) {
+        this.scorer = scorer;
+        this.valueCents = new long[size];
+        this.exactValues = new BigDecimal[size];
+        this.sourceOrdinals = new int[size];
+        this.contactFlags = new byte[size];
+        Arrays.fill(valueCents, MISSING);
+    }
+
+    /**
+     * @return number of leads in the batch
+     */
+    public int size() {
+        return valueCents.length;
+    }
+
+    /**
+     * Set the scoring attributes of one lead
+     * @param index position in the batch
+     * @param potentialValue potential value, may be null
+     * @param leadSource lead source, may be null
+     * @param email email address, may be null or blank
+     * @param phone phone number, may be null or blank
+     */
+    public void set(int index, BigDecimal potentialValue, String leadSource, String email, String phone) {
+        long cents = potentialValue == null ? MISSING
+                : scorer.scoresInCents() ? toCents(potentialValue) : NOT_CENTS;
+        valueCents[index] = cents;
+        exactValues[index] = cents == NOT_CENTS ? potentialValue : null;
+        sourceOrdinals[index] = scorer.sourceOrdinal(leadSource);
+        contactFlags[index] = (byte) ((CompiledScoringRules.hasText(email) ? HAS_EMAIL : 0)
+                | (CompiledScoringRules.hasText(phone) ? HAS_PHONE : 0));
+    }
+
+    /**
+     * Score every lead in the batch
+     * @return scores in batch order
+     */
+    public int[] score() {
+        int[] scores = new int[size()];
+        scorer.score(this, 0, scores.length, scores);
+        return scores;
+    }
+
+    /**
+     * Score part of the batch
+     * @param from first index, inclusive
+     * @param to last index, exclusive
+     * @param scores receives the score of lead i at index i
+     */
+    public void score(int from, int to, int[] scores) {
+        scorer.score(this, from, to, scores);
+    }
+
+    /**
+     * Convert a value to whole cents
+     * @return the value in cents, or NOT_CENTS if it has a fraction of a cent or is out of range
+     */
+    static long toCents(BigDecimal value) {
+        if (value.scale() == 2 && value.precision() <= 18) {
+            return value.unscaledValue().longValue();
+        }
+        BigDecimal cents = value.movePointRight(2);
+        if (cents.scale() > 0) {
+            cents = cents.stripTrailingZeros();
+            if (cents.scale() > 0) {
+                return NOT_CENTS;
+            }
+        }
+        return cents.precision() - cents.scale() <= 18 ? cents.longValue() : NOT_CENTS;
+    }
+}
@@ -0,0 +1,69 @@
+package com.mig.sales.scoring;
+
+import java.util.Arrays;
+
+/**
+ * Offline measures of how well a scorer ranks leads by outcome
+ */
+public final class ScoringMetrics {
+
+    private ScoringMetrics() {
+    }
+
+    /**
+     * Area under the ROC curve: the probability that a random converted lead scores
+     * higher than a random rejected one, counting ties as half
+     * @param scores score per lead
+     * @param converted outcome per lead
+     * @return AUC from 0 to 1; 0.5 is no better than chance
+     * @throws IllegalArgumentException if the arrays differ in length or one outcome is absent
+     */
+    public static double auc(int[] scores, boolean[] converted) {
+        if (scores.length != converted.length) {
+            throw new IllegalArgumentException("Got " + scores.length + " scores for " + converted.length + " outcomes");
+        }
+        int positives = 0;
+        for (boolean outcome : converted) {
+            if (outcome) {
+                positives++;
+            }
+        }
+        int negatives = scores.length - positives;
+        if (positives == 0 || negatives == 0) {
+            throw new IllegalArgumentException("AUC needs both converted and rejected leads");
+        }
+
+        int[] positiveScores = new int[positives];
+        int[] negativeScores = new int[negatives];
+        for (int i = 0, p = 0, n = 0; i < scores.length; i++) {
+            if (converted[i]) {
+                positiveScores[p++] = scores[i];
+            } else {
+                negativeScores[n++] = scores[i];
+            }
+        }
+        Arrays.sort(negativeScores);
+
+        double wins = 0.0;
+        for (int score : positiveScores) {
+            int below = firstIndexAtLeast(negativeScores, score);
+            int ties = firstIndexAtLeast(negativeScores, score + 1) - below;
+            wins += below + 0.5 * ties;
+        }
+        return wins / ((double) positives * negatives);
+    }
+
+    private static int firstIndexAtLeast(int[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
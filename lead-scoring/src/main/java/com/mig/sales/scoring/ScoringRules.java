@@ -0,0 +1,116 @@
+package com.mig.sales.scoring;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Editable lead scoring rules, bound from the lead.scoring configuration properties
+ * of the lead management service or read from a versioned rules file.
+ * Rules are compiled into a {@link CompiledScoringRules} evaluator before use; changing
+ * an instance afterwards has no effect on scores.
+ */
+public class ScoringRules {
+
+    /** Label identifying this rule set in logs and shadow reports */
+    private String version = "default";
+
+    /** Potential value bands, matched from the highest minimum down */
+    private List<ValueBand> valueBands = new ArrayList<>();
+
+    /** Points for a potential value below every band */
+    private int defaultValuePoints;
+
+    /** Points for a lead without a potential value */
+    private int missingValuePoints;
+
+    /** Points per lead source, matched exactly */
+    private Map<String, Integer> sourcePoints = new LinkedHashMap<>();
+
+    /** Points for a lead source not listed in sourcePoints */
+    private int unknownSourcePoints;
+
+    /** Points for having both an email and a phone number */
+    private int fullContactPoints;
+
+    /** Points for having only one of email and phone number */
+    private int partialContactPoints;
+
+    private int minScore;
+    private int maxScore = 100;
+
+    /** Potential value from which a lead counts as high-value */
+    private BigDecimal highValueThreshold;
+
+    /**
+     * @return the rules the service has always applied
+     */
+    public static ScoringRules defaults() {
+        ScoringRules rules = new ScoringRules();
+        rules.valueBands.add(new ValueBand(new BigDecimal("500000"), false, 50));
+        rules.valueBands.add(new ValueBand(new BigDecimal("100000"), true, 20));
+        rules.defaultValuePoints = 5;
+        rules.missingValuePoints = 0;
+        rules.sourcePoints.put("Partner Referral", 30);
+        rules.sourcePoints.put("Webinar", 15);
+        rules.sourcePoints.put("Website Signup", 10);
+        rules.sourcePoints.put("Cold Call", 5);
+        rules.unknownSourcePoints = 0;
+        rules.fullContactPoints = 15;
+        rules.partialContactPoints = 5;
+        rules.minScore = 0;
+        rules.maxScore = 100;
+        rules.highValueThreshold = new BigDecimal("1000000");
+        return rules;
+    }
+
+    public String getVersion() { return version; }
+    public void setVersion(String version) { this.version = version; }
+    public List<ValueBand> getValueBands() { return valueBands; }
+    public void setValueBands(List<ValueBand> valueBands) { this.valueBands = valueBands; }
+    public int getDefaultValuePoints() { return defaultValuePoints; }
+    public void setDefaultValuePoints(int defaultValuePoints) { this.defaultValuePoints = defaultValuePoints; }
+    public int getMissingValuePoints() { return missingValuePoints; }
+    public void setMissingValuePoints(int missingValuePoints) { this.missingValuePoints = missingValuePoints; }
+    public Map<String, Integer> getSourcePoints() { return sourcePoints; }
+    public void setSourcePoints(Map<String, Integer> sourcePoints) { this.sourcePoints = sourcePoints; }
+    public int getUnknownSourcePoints() { return unknownSourcePoints; }
+    public void setUnknownSourcePoints(int unknownSourcePoints) { this.unknownSourcePoints = unknownSourcePoints; }
+    public int getFullContactPoints() { return fullContactPoints; }
+    public void setFullContactPoints(int fullContactPoints) { this.fullContactPoints = fullContactPoints; }
+    public int getPartialContactPoints() { return partialContactPoints; }
+    public void setPartialContactPoints(int partialContactPoints) { this.partialContactPoints = partialContactPoints; }
+    public int getMinScore() { return minScore; }
+    public void setMinScore(int minScore) { this.minScore = minScore; }
+    public int getMaxScore() { return maxScore; }
+    public void setMaxScore(int maxScore) { this.maxScore = maxScore; }
+    public BigDecimal getHighValueThreshold() { return highValueThreshold; }
+    public void setHighValueThreshold(BigDecimal highValueThreshold) { this.highValueThreshold = highValueThreshold; }
+
+    /**
+     * Points awarded for a potential value above (or at, if inclusive) a minimum
+     */
+    public static class ValueBand {
+        private BigDecimal min;
+        private boolean inclusive = true;
+        private int points;
+
+        public ValueBand() {
+        }
+
+        public ValueBand(BigDecimal min, boolean inclusive, int points) {
+            this.min = min;
+            this.inclusive = inclusive;
+            this.points = points;
+        }
+
+        public BigDecimal getMin() { return min; }
+        public void setMin(BigDecimal min) { this.min = min; }
+        public boolean isInclusive() { return inclusive; }
+        public void setInclusive(boolean inclusive) { this.inclusive = inclusive; }
+        public int getPoints() { return points; }
+        public void setPoints(int points) { this.points = points; }
+    }
+}
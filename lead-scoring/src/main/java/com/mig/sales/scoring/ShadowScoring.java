@@ -0,0 +1,100 @@
+package com.mig.sales.scoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A candidate scorer evaluated next to the live one, with the distribution of score
+ * differences it would cause.
+ *
+ * Recording a sample is one scoring pass with the candidate plus a few atomic
+ * increments, so it can run on the request thread without locks. The candidate and
+ * its statistics are swapped together, so a report never mixes versions.
+ */
+public final class ShadowScoring {
+
+    private static final int MAX_DELTA = 100;
+
+    private final LeadScorer candidate;
+    private final double sampleRate;
+    private final AtomicLongArray deltaCounts = new AtomicLongArray(2 * MAX_DELTA + 1);
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder deltaSum = new LongAdder();
+
+    /**
+     * @param candidate rules or model to evaluate in the shadow of the live scorer
+     * @param sampleRate fraction of scored leads to evaluate, from 0 to 1
+     */
+    public ShadowScoring(LeadScorer candidate, double sampleRate) {
+        this.candidate = candidate;
+        this.sampleRate = sampleRate;
+    }
+
+    public LeadScorer getCandidate() {
+        return candidate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Record one comparison
+     * @param liveScore score from the live scorer
+     * @param candidateScore score from the candidate
+     */
+    public void record(int liveScore, int candidateScore) {
+        int delta = Math.max(-MAX_DELTA, Math.min(MAX_DELTA, candidateScore - liveScore));
+        deltaCounts.incrementAndGet(delta + MAX_DELTA);
+        deltaSum.add(delta);
+        sampled.increment();
+    }
+
+    /**
+     * @param liveVersion version of the live scorer to report against
+     * @return point-in-time summary of the recorded differences
+     */
+    public Report report(String liveVersion) {
+        Report report = new Report();
+        report.liveVersion = liveVersion;
+        report.candidateVersion = candidate.getVersion();
+        report.sampleRate = sampleRate;
+        report.sampledCount = sampled.sum();
+        for (int i = 0; i < deltaCounts.length(); i++) {
+            long count = deltaCounts.get(i);
+            if (count > 0) {
+                report.scoreDeltas.put(i - MAX_DELTA, count);
+                if (i != MAX_DELTA) {
+                    report.changedCount += count;
+                }
+            }
+        }
+        report.meanDelta = report.sampledCount == 0 ? 0.0 : (double) deltaSum.sum() / report.sampledCount;
+        return report;
+    }
+
+    /**
+     * Summary of shadow scoring
+     */
+    public static class Report {
+        private String liveVersion;
+        private String candidateVersion;
+        private double sampleRate;
+        private long sampledCount;
+        private long changedCount;
+        private double meanDelta;
+        private final Map<Integer, Long> scoreDeltas = new LinkedHashMap<>();
+
+        public String getLiveVersion() { return liveVersion; }
+        public String getCandidateVersion() { return candidateVersion; }
+        public double getSampleRate() { return sampleRate; }
+        public long getSampledCount() { return sampledCount; }
+        /** Sampled leads the candidate would score differently */
+        public long getChangedCount() { return changedCount; }
+        public double getMeanDelta() { return meanDelta; }
+        /** Number of sampled leads per score difference (candidate minus live), in ascending order */
+        public Map<Integer, Long> getScoreDeltas() { return scoreDeltas; }
+    }
+}
@@ -0,0 +1,52 @@
+package com.mig.sales.scoring;
+
+import java.util.List;
+
+/**
+ * Open-addressing table from lead source to dense ordinal, built once. Ordinal 0 is a
+ * lead without a source, 1 a source not in the table, and the listed sources follow
+ * in order from 2.
+ */
+final class SourceTable {
+
+    private final String[] keys;
+    private final int[] ordinals;
+
+    SourceTable(List<String> sources) {
+        int size = Integer.highestOneBit(Math.max(sources.size(), 1) * 4);
+        this.keys = new String[size];
+        this.ordinals = new int[size];
+        int ordinal = ScoringBatch.UNKNOWN_SOURCE + 1;
+        for (String source : sources) {
+            int slot = source.hashCode() & (size - 1);
+            while (keys[slot] != null) {
+                slot = (slot + 1) & (size - 1);
+            }
+            keys[slot] = source;
+            ordinals[slot] = ordinal++;
+        }
+    }
+
+    /**
+     * @return number of ordinals, including the ones for no source and an unknown source
+     */
+    static int ordinalCount(List<String> sources) {
+        return sources.size() + 2;
+    }
+
+    int ordinal(String source) {
+        if (source == null) {
+            return ScoringBatch.NO_SOURCE;
+        }
+        int mask = keys.length - 1;
+        for (int slot = source.hashCode() & mask; ; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key == null) {
+                return ScoringBatch.UNKNOWN_SOURCE;
+            }
+            if (key.equals(source)) {
+                return ordinals[slot];
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.mig.sales.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Unit tests for CompiledScoringRules
+ */
+class CompiledScoringRulesTest {
+
+    private static final String[] SOURCES = {
+            "Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show", null};
+    private static final String[] CONTACTS = {"someone@example.com", "555-0100", "", "   ", " x ", null};
+    private static final String[] VALUES = {
+            "0", "99999.99", "100000", "100000.00", "100000.01", "499999", "500000", "500000.00",
+            "500000.01", "999999.99", "1000000", "2500000", "-10"};
+
+    @Test
+    void testDefaultRules_MatchOriginalScoring() {
+        // Arrange
+        CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal value = random.nextInt(8) == 0 ? null : new BigDecimal(VALUES[random.nextInt(VALUES.length)]);
+            String source = SOURCES[random.nextInt(SOURCES.length)];
+            String email = CONTACTS[random.nextInt(CONTACTS.length)];
+            String phone = CONTACTS[random.nextInt(CONTACTS.length)];
+
+            // Act & Assert
+            assertEquals(originalScore(value, source, email, phone), rules.score(value, source, email, phone),
+                    "value=" + value + " source=" + source + " email=" + email + " phone=" + phone);
+        }
+    }
+
+    @Test
+    void testDefaultRules_HighValueThreshold() {
+        // Arrange
+        CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+
+        // Act & Assert
+        assertTrue(rules.isHighValue(new BigDecimal("1000000.00")));
+        assertFalse(rules.isHighValue(new BigDecimal("999999.99")));
+        assertFalse(rules.isHighValue(null));
+    }
+
+    @Test
+    void testCustomRules_BandsSourcesAndClamp() {
+        // Arrange
+        ScoringRules custom = new ScoringRules();
+        custom.getValueBands().add(new ScoringRules.ValueBand(new BigDecimal("10000"), true, 40));
+        custom.getValueBands().add(new ScoringRules.ValueBand(new BigDecimal("50000"), true, 70));
+        custom.setDefaultValuePoints(1);
+        custom.getSourcePoints().put("Webinar", 50);
+        custom.setUnknownSourcePoints(-5);
+        custom.setFullContactPoints(10);
+        custom.setMinScore(0);
+        custom.setMaxScore(100);
+
+        // Act
+        CompiledScoringRules rules = CompiledScoringRules.compile(custom);
+
+        // Assert: bands are matched highest first regardless of configured order
+        assertEquals(100, rules.score(new BigDecimal("60000"), "Webinar", "a@b.com", "555"));
+        assertEquals(45, rules.score(new BigDecimal("10000"), "Other", "a@b.com", "555"));
+        assertEquals(0, rules.score(null, "Other", null, null));
+        assertFalse(rules.isHighValue(new BigDecimal("99999999")));
+    }
+
+    @Test
+    void testCompile_RejectsInvalidRules() {
+        // Arrange
+        ScoringRules invertedRange = ScoringRules.defaults();
+        invertedRange.setMinScore(50);
+        invertedRange.setMaxScore(10);
+        ScoringRules missingMin = ScoringRules.defaults();
+        missingMin.setValueBands(Collections.singletonList(new ScoringRules.ValueBand(null, true, 10)));
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> CompiledScoringRules.compile(invertedRange));
+        assertThrows(IllegalArgumentException.class, () -> CompiledScoringRules.compile(missingMin));
+    }
+
+    @Test
+    void testScore_DoesNotAllocate() {
+        // Arrange
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        BigDecimal[] values = new BigDecimal[VALUES.length];
+        for (int i = 0; i < VALUES.length; i++) {
+            values[i] = new BigDecimal(VALUES[i]);
+        }
+        long threadId = Thread.currentThread().getId();
+        int checksum = 0;
+        for (int i = 0; i < 200_000; i++) {
+            checksum += rules.score(values[i % values.length], SOURCES[i % SOURCES.length],
+                    CONTACTS[i % CONTACTS.length], CONTACTS[(i / 7) % CONTACTS.length]);
+        }
+
+        // Act
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            checksum += rules.score(values[i % values.length], SOURCES[i % SOURCES.length],
+                    CONTACTS[i % CONTACTS.length], CONTACTS[(i / 7) % CONTACTS.length]);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // Assert: a single allocation per score would already be megabytes
+        assertTrue(checksum > 0);
+        assertTrue(allocated < 1024, "Scoring 1M leads allocated " + allocated + " bytes");
+    }
+
+    /**
+     * The scoring rules as originally hard-coded in LeadScoringService
+     */
+    private static int originalScore(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        int score = 0;
+        if (potentialValue != null) {
+            if (potentialValue.compareTo(new BigDecimal("500000")) > 0) {
+                score += 50;
+            } else if (potentialValue.compareTo(new BigDecimal("100000")) >= 0) {
+                score += 20;
+            } else {
+                score += 5;
+            }
+        }
+        if (leadSource != null) {
+            switch (leadSource) {
+                case "Partner Referral": score += 30; break;
+                case "Webinar": score += 15; break;
+                case "Website Signup": score += 10; break;
+                case "Cold Call": score += 5; break;
+                default: break;
+            }
+        }
+        boolean hasEmail = email != null && !email.trim().isEmpty();
+        boolean hasPhone = phone != null && !phone.trim().isEmpty();
+        if (hasEmail && hasPhone) {
+            score += 15;
+        } else if (hasEmail || hasPhone) {
+            score += 5;
+        }
+        return Math.min(Math.max(score, 0), 100);
+    }
+}
@@ -0,0 +1,161 @@
+package com.mig.sales.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LogisticModelTrainer, LogisticScoringModel and ScoringMetrics
+ */
+class LogisticScoringModelTest {
+
+    private static final String[] SOURCES = {"Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show", null};
+
+    // Conversion odds used to generate the synthetic history
+    private static final double TRUE_INTERCEPT = -4.0;
+    private static final double TRUE_LOG_VALUE = 0.6;
+    private static final double TRUE_EMAIL = 0.3;
+    private static final double TRUE_PHONE = 1.0;
+    private static final double[] TRUE_SOURCE = {1.5, -0.5, 0.0, -1.0, 0.8, 0.0};
+
+    @Test
+    void testTrain_RecoversWeightsAndOutranksHeuristic() throws IOException {
+        // Arrange
+        Random random = new Random(36L);
+        LogisticModelTrainer trainer = new LogisticModelTrainer();
+        for (int i = 0; i < 40_000; i++) {
+            Lead lead = randomLead(random);
+            trainer.add(lead.value, lead.source, lead.email, lead.phone, lead.converted);
+        }
+        Lead[] holdout = new Lead[20_000];
+        for (int i = 0; i < holdout.length; i++) {
+            holdout[i] = randomLead(random);
+        }
+
+        // Act
+        LogisticScoringModel model = trainer.train("test-model");
+
+        // Assert: weights are close to the generating ones
+        StringWriter written = new StringWriter();
+        model.write(written);
+        Properties weights = new Properties();
+        weights.load(new StringReader(written.toString()));
+        assertEquals(TRUE_LOG_VALUE, Double.parseDouble(weights.getProperty("value.log10")), 0.15);
+        assertEquals(TRUE_PHONE, Double.parseDouble(weights.getProperty("contact.phone")), 0.15);
+        assertEquals(TRUE_SOURCE[0] - TRUE_SOURCE[3], Double.parseDouble(weights.getProperty("source.[Partner Referral]"))
+                - Double.parseDouble(weights.getProperty("source.[Cold Call]")), 0.2);
+
+        // The model ranks unseen leads better than the heuristic rules, which misjudge trade shows and phones
+        CompiledScoringRules heuristic = CompiledScoringRules.compile(ScoringRules.defaults());
+        int[] modelScores = new int[holdout.length];
+        int[] heuristicScores = new int[holdout.length];
+        boolean[] converted = new boolean[holdout.length];
+        for (int i = 0; i < holdout.length; i++) {
+            Lead lead = holdout[i];
+            modelScores[i] = model.score(lead.value, lead.source, lead.email, lead.phone);
+            heuristicScores[i] = heuristic.score(lead.value, lead.source, lead.email, lead.phone);
+            converted[i] = lead.converted;
+        }
+        double modelAuc = ScoringMetrics.auc(modelScores, converted);
+        double heuristicAuc = ScoringMetrics.auc(heuristicScores, converted);
+        assertTrue(modelAuc > heuristicAuc, "model AUC " + modelAuc + " vs heuristic AUC " + heuristicAuc);
+        assertTrue(modelAuc > 0.7, "model AUC " + modelAuc);
+    }
+
+    @Test
+    void testWriteRead_RoundTripsScores() throws IOException {
+        // Arrange
+        LogisticScoringModel model = new LogisticScoringModel("2024-06 model", -1.25, 0.5, -0.75, 0.25, 1.0,
+                Arrays.asList("Partner Referral", "Trade=Show: East #1"), new double[] {-0.5, 0.1, 1.5, 0.75});
+
+        // Act
+        StringWriter written = new StringWriter();
+        model.write(written);
+        LogisticScoringModel read = LogisticScoringModel.read(new StringReader(written.toString()));
+
+        // Assert
+        assertEquals("2024-06 model", read.getVersion());
+        Random random = new Random(5L);
+        for (int i = 0; i < 10_000; i++) {
+            Lead lead = randomLead(random);
+            String source = i % 7 == 0 ? "Trade=Show: East #1" : lead.source;
+            assertEquals(model.probability(lead.value, source, lead.email, lead.phone),
+                    read.probability(lead.value, source, lead.email, lead.phone), 0.0);
+        }
+    }
+
+    @Test
+    void testRead_RejectsMissingWeight() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> LogisticScoringModel.read(new StringReader("version=broken\nintercept=1.0\n")));
+    }
+
+    @Test
+    void testScoreBatch_MatchesScalarScoring() {
+        // Arrange
+        LogisticScoringModel model = new LogisticScoringModel("m", -2.0, 0.4, -1.0, 0.3, 0.9,
+                Arrays.asList("Partner Referral", "Webinar"), new double[] {-0.5, 0.0, 1.5, 0.2});
+        Random random = new Random(9L);
+        ScoringBatch batch = model.newBatch(5_000);
+        int[] expected = new int[5_000];
+        for (int i = 0; i < expected.length; i++) {
+            Lead lead = randomLead(random);
+            BigDecimal value = i % 11 == 0 && lead.value != null ? lead.value.add(new BigDecimal("0.001")) : lead.value;
+            batch.set(i, value, lead.source, lead.email, lead.phone);
+            expected[i] = model.score(value, lead.source, lead.email, lead.phone);
+        }
+
+        // Act & Assert
+        assertArrayEquals(expected, batch.score());
+    }
+
+    @Test
+    void testTrain_RejectsSingleOutcome() {
+        // Arrange
+        LogisticModelTrainer trainer = new LogisticModelTrainer();
+        trainer.add(new BigDecimal("1000"), "Webinar", "a@b.com", null, true);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> trainer.train("m"));
+    }
+
+    @Test
+    void testAuc_CountsTiesAsHalf() {
+        // Act & Assert
+        assertEquals(0.875, ScoringMetrics.auc(new int[] {1, 2, 2, 3}, new boolean[] {false, true, false, true}), 1e-12);
+        assertEquals(0.5, ScoringMetrics.auc(new int[] {7, 7}, new boolean[] {true, false}), 1e-12);
+        assertThrows(IllegalArgumentException.class, () -> ScoringMetrics.auc(new int[] {1}, new boolean[] {true}));
+    }
+
+    private static Lead randomLead(Random random) {
+        Lead lead = new Lead();
+        lead.value = random.nextInt(10) == 0 ? null : BigDecimal.valueOf((long) Math.pow(10, 2 + random.nextDouble() * 5), 0);
+        int source = random.nextInt(SOURCES.length);
+        lead.source = SOURCES[source];
+        lead.email = random.nextInt(4) == 0 ? null : "lead@example.com";
+        lead.phone = random.nextInt(3) == 0 ? " " : "555-0100";
+        double z = TRUE_INTERCEPT + TRUE_SOURCE[source]
+                + (lead.value != null ? TRUE_LOG_VALUE * LogisticScoringModel.logValue(lead.value.doubleValue()) : 0.0)
+                + (lead.email != null ? TRUE_EMAIL : 0.0)
+                + (!lead.phone.trim().isEmpty() ? TRUE_PHONE : 0.0);
+        lead.converted = random.nextDouble() < 1.0 / (1.0 + Math.exp(-z));
+        return lead;
+    }
+
+    private static class Lead {
+        BigDecimal value;
+        String source;
+        String email;
+        String phone;
+        boolean converted;
+    }
+}
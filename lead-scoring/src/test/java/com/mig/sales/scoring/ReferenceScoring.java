@@ -0,0 +1,82 @@
+package com.mig.sales.scoring;
+
+import java.math.BigDecimal;
+
+/**
+ * Straightforward scoring implementations that {@link CompiledScoringRules} is checked
+ * and benchmarked against
+ */
+public final class ReferenceScoring {
+
+    private ReferenceScoring() {
+    }
+
+    /**
+     * Evaluate scoring rules directly from their configured form, without compiling them
+     */
+    public static int score(ScoringRules rules, BigDecimal potentialValue, String leadSource, String email, String phone) {
+        int score;
+        if (potentialValue == null) {
+            score = rules.getMissingValuePoints();
+        } else {
+            // The matching band with the highest minimum; at equal minimums the exclusive band, then the first listed
+            ScoringRules.ValueBand best = null;
+            for (ScoringRules.ValueBand band : rules.getValueBands()) {
+                int comparison = potentialValue.compareTo(band.getMin());
+                boolean matches = comparison > 0 || (comparison == 0 && band.isInclusive());
+                if (matches && (best == null || band.getMin().compareTo(best.getMin()) > 0
+                        || (band.getMin().compareTo(best.getMin()) == 0 && best.isInclusive() && !band.isInclusive()))) {
+                    best = band;
+                }
+            }
+            score = best != null ? best.getPoints() : rules.getDefaultValuePoints();
+        }
+
+        if (leadSource != null) {
+            Integer points = rules.getSourcePoints().get(leadSource);
+            score += points != null ? points : rules.getUnknownSourcePoints();
+        }
+
+        boolean hasEmail = email != null && !email.trim().isEmpty();
+        boolean hasPhone = phone != null && !phone.trim().isEmpty();
+        if (hasEmail && hasPhone) {
+            score += rules.getFullContactPoints();
+        } else if (hasEmail || hasPhone) {
+            score += rules.getPartialContactPoints();
+        }
+
+        return Math.min(Math.max(score, rules.getMinScore()), rules.getMaxScore());
+    }
+
+    /**
+     * The scoring as hard-coded in the case management EJB before it moved to this module:
+     * no credit for a single contact channel and no clamp
+     */
+    public static int legacyEjbScore(BigDecimal potentialValue, String leadSource, String email, String phone) {
+        int score = 0;
+        if (potentialValue != null) {
+            if (potentialValue.compareTo(new BigDecimal("500000")) > 0) {
+                score += 50;
+            } else if (potentialValue.compareTo(new BigDecimal("100000")) >= 0) {
+                score += 20;
+            } else {
+                score += 5;
+            }
+        }
+        if (leadSource != null) {
+            switch (leadSource) {
+                case "Partner Referral": score += 30; break;
+                case "Webinar": score += 15; break;
+                case "Website Signup": score += 10; break;
+                case "Cold Call": score += 5; break;
+                default: break;
+            }
+        }
+        boolean hasEmail = email != null && !email.trim().isEmpty();
+        boolean hasPhone = phone != null && !phone.trim().isEmpty();
+        if (hasEmail && hasPhone) {
+            score += 15;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mig.sales.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ScoringBatch
+ */
+class ScoringBatchTest {
+
+    @Test
+    void testScore_DefaultRules() {
+        // Arrange
+        CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        ScoringBatch batch = rules.newBatch(4);
+        batch.set(0, new BigDecimal("600000"), "Partner Referral", "a@b.com", "555");
+        batch.set(1, new BigDecimal("500000.00"), "Trade Show", " ", "555");
+        batch.set(2, new BigDecimal("100000.000"), "Webinar", null, null);
+
+        // Act
+        int[] scores = batch.score();
+
+        // Assert: the unset lead scores like a lead without any attributes
+        assertArrayEquals(new int[] {95, 25, 35, 0}, scores);
+    }
+
+    @Test
+    void testScore_ValuesThatAreNotWholeCents() {
+        // Arrange
+        ScoringRules subCent = ScoringRules.defaults();
+        subCent.getValueBands().add(new ScoringRules.ValueBand(new BigDecimal("10.005"), true, 10));
+        CompiledScoringRules defaults = CompiledScoringRules.compile(ScoringRules.defaults());
+        CompiledScoringRules withSubCentBand = CompiledScoringRules.compile(subCent);
+        ScoringBatch batch = defaults.newBatch(3);
+        batch.set(0, new BigDecimal("500000.001"), null, null, null);
+        batch.set(1, new BigDecimal("99999.999"), null, null, null);
+        batch.set(2, new BigDecimal("1E+25"), null, null, null);
+        ScoringBatch subCentBatch = withSubCentBand.newBatch(2);
+        subCentBatch.set(0, new BigDecimal("10.005"), null, null, null);
+        subCentBatch.set(1, new BigDecimal("10.00"), null, null, null);
+
+        // Act & Assert
+        assertArrayEquals(new int[] {50, 5, 50}, batch.score());
+        assertArrayEquals(new int[] {10, 5}, subCentBatch.score());
+    }
+
+    @Test
+    void testScore_Range() {
+        // Arrange
+        CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        ScoringBatch batch = rules.newBatch(3);
+        for (int i = 0; i < 3; i++) {
+            batch.set(i, new BigDecimal("200000"), "Webinar", "a@b.com", "555");
+        }
+        int[] scores = new int[3];
+
+        // Act
+        batch.score(1, 3, scores);
+
+        // Assert
+        assertArrayEquals(new int[] {0, 50, 50}, scores);
+    }
+
+    @Test
+    void testScore_RejectsBatchFromOtherRules() {
+        // Arrange
+        CompiledScoringRules rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        CompiledScoringRules otherRules = CompiledScoringRules.compile(ScoringRules.defaults());
+        ScoringBatch batch = otherRules.newBatch(1);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> rules.score(batch, 0, 1, new int[1]));
+    }
+
+    @Test
+    void testToCents() {
+        assertEquals(12345L, ScoringBatch.toCents(new BigDecimal("123.45")));
+        assertEquals(12300L, ScoringBatch.toCents(new BigDecimal("123")));
+        assertEquals(12340L, ScoringBatch.toCents(new BigDecimal("123.4000")));
+        assertEquals(10000000L, ScoringBatch.toCents(new BigDecimal("1E+5")));
+        assertEquals(-50L, ScoringBatch.toCents(new BigDecimal("-0.50")));
+        assertEquals(0L, ScoringBatch.toCents(new BigDecimal("0.000")));
+        assertEquals(ScoringBatch.NOT_CENTS, ScoringBatch.toCents(new BigDecimal("0.001")));
+        assertEquals(ScoringBatch.NOT_CENTS, ScoringBatch.toCents(new BigDecimal("1E+20")));
+    }
+}
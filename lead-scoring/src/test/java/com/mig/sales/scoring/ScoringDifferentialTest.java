@@ -0,0 +1,176 @@
+package com.mig.sales.scoring;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential tests comparing CompiledScoringRules with {@link ReferenceScoring} over
+ * randomized rule sets and leads
+ */
+class ScoringDifferentialTest {
+
+    private static final String[] SOURCES = {
+            "Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show", "webinar", "", null};
+    private static final String[] CONTACTS = {"someone@example.com", "555-0100", "", "   ", "\t", " x ", null};
+
+    @Test
+    void testRandomRules_MatchReferenceScoring() {
+        Random random = new Random(20240601L);
+
+        for (int ruleSet = 0; ruleSet < 2_000; ruleSet++) {
+            // Arrange
+            ScoringRules rules = randomRules(random);
+            CompiledScoringRules compiled = CompiledScoringRules.compile(rules);
+            List<BigDecimal> values = interestingValues(rules);
+
+            for (int i = 0; i < 500; i++) {
+                BigDecimal value = values.get(random.nextInt(values.size()));
+                String source = SOURCES[random.nextInt(SOURCES.length)];
+                String email = CONTACTS[random.nextInt(CONTACTS.length)];
+                String phone = CONTACTS[random.nextInt(CONTACTS.length)];
+
+                // Act & Assert
+                int expected = ReferenceScoring.score(rules, value, source, email, phone);
+                int actual = compiled.score(value, source, email, phone);
+                if (expected != actual) {
+                    fail("rule set " + ruleSet + ": value=" + value + " source=" + source + " email=" + email
+                            + " phone=" + phone + " expected " + expected + " but was " + actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRandomRules_BatchMatchesScalarScoring() {
+        Random random = new Random(35L);
+
+        for (int ruleSet = 0; ruleSet < 2_000; ruleSet++) {
+            // Arrange
+            ScoringRules rules = randomRules(random);
+            CompiledScoringRules compiled = CompiledScoringRules.compile(rules);
+            List<BigDecimal> values = interestingValues(rules);
+            int size = random.nextInt(300);
+            ScoringBatch batch = compiled.newBatch(size);
+            int[] expected = new int[size];
+            for (int i = 0; i < size; i++) {
+                BigDecimal value = values.get(random.nextInt(values.size()));
+                String source = SOURCES[random.nextInt(SOURCES.length)];
+                String email = CONTACTS[random.nextInt(CONTACTS.length)];
+                String phone = CONTACTS[random.nextInt(CONTACTS.length)];
+                batch.set(i, value, source, email, phone);
+                expected[i] = compiled.score(value, source, email, phone);
+            }
+
+            // Act
+            int[] actual = batch.score();
+
+            // Assert
+            assertArrayEquals(expected, actual, "rule set " + ruleSet);
+        }
+    }
+
+    @Test
+    void testRandomRules_HighValueMatchesThreshold() {
+        Random random = new Random(11L);
+
+        for (int i = 0; i < 10_000; i++) {
+            // Arrange
+            ScoringRules rules = ScoringRules.defaults();
+            rules.setHighValueThreshold(random.nextInt(4) == 0 ? null : randomAmount(random));
+            CompiledScoringRules compiled = CompiledScoringRules.compile(rules);
+            BigDecimal value = random.nextInt(10) == 0 ? null : randomAmount(random);
+
+            // Act & Assert
+            boolean expected = value != null && rules.getHighValueThreshold() != null
+                    && value.compareTo(rules.getHighValueThreshold()) >= 0;
+            assertEquals(expected, compiled.isHighValue(value), "value=" + value + " threshold=" + rules.getHighValueThreshold());
+        }
+    }
+
+    @Test
+    void testDefaultRules_DifferFromLegacyEjbOnlyBySingleChannelCredit() {
+        // Arrange
+        CompiledScoringRules compiled = CompiledScoringRules.compile(ScoringRules.defaults());
+        List<BigDecimal> values = interestingValues(ScoringRules.defaults());
+        Random random = new Random(3L);
+        int singleChannelLeads = 0;
+
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal value = values.get(random.nextInt(values.size()));
+            String source = SOURCES[random.nextInt(SOURCES.length)];
+            String email = CONTACTS[random.nextInt(CONTACTS.length)];
+            String phone = CONTACTS[random.nextInt(CONTACTS.length)];
+            boolean singleChannel = CompiledScoringRules.hasText(email) != CompiledScoringRules.hasText(phone);
+
+            // Act
+            int difference = compiled.score(value, source, email, phone)
+                    - ReferenceScoring.legacyEjbScore(value, source, email, phone);
+
+            // Assert: the default rules never reach the clamp, so only the partial contact credit differs
+            assertEquals(singleChannel ? 5 : 0, difference, "value=" + value + " email=" + email + " phone=" + phone);
+            if (singleChannel) {
+                singleChannelLeads++;
+            }
+        }
+        assertTrue(singleChannelLeads > 0);
+    }
+
+    private static ScoringRules randomRules(Random random) {
+        ScoringRules rules = new ScoringRules();
+        int bands = random.nextInt(5);
+        for (int i = 0; i < bands; i++) {
+            // Reuse an earlier minimum now and then to cover ties between bands
+            BigDecimal min = i > 0 && random.nextInt(4) == 0
+                    ? rules.getValueBands().get(random.nextInt(i)).getMin()
+                    : random.nextInt(20) == 0 ? randomAmount(random).add(new BigDecimal("0.005")) : randomAmount(random);
+            rules.getValueBands().add(new ScoringRules.ValueBand(min, random.nextBoolean(), random.nextInt(81) - 20));
+        }
+        rules.setDefaultValuePoints(random.nextInt(21) - 5);
+        rules.setMissingValuePoints(random.nextInt(21) - 5);
+        for (String source : SOURCES) {
+            if (source != null && random.nextBoolean()) {
+                rules.getSourcePoints().put(source, random.nextInt(61) - 10);
+            }
+        }
+        rules.setUnknownSourcePoints(random.nextInt(21) - 10);
+        rules.setFullContactPoints(random.nextInt(31));
+        rules.setPartialContactPoints(random.nextInt(16));
+        int min = random.nextInt(41) - 10;
+        rules.setMinScore(min);
+        rules.setMaxScore(min + random.nextInt(120));
+        return rules;
+    }
+
+    /**
+     * Values on, just beside and between the band minimums, at different scales, plus null
+     */
+    private static List<BigDecimal> interestingValues(ScoringRules rules) {
+        List<BigDecimal> values = new ArrayList<>();
+        values.add(null);
+        values.add(BigDecimal.ZERO);
+        values.add(new BigDecimal("-1"));
+        values.add(new BigDecimal("1000000000"));
+        values.add(new BigDecimal("1E+30"));
+        values.add(new BigDecimal("-1E+30"));
+        BigDecimal cent = new BigDecimal("0.01");
+        for (ScoringRules.ValueBand band : rules.getValueBands()) {
+            values.add(band.getMin());
+            values.add(band.getMin().setScale(4));
+            values.add(band.getMin().subtract(cent));
+            values.add(band.getMin().add(cent));
+            values.add(band.getMin().add(new BigDecimal("0.001")));
+            values.add(band.getMin().subtract(new BigDecimal("0.001")));
+        }
+        return values;
+    }
+
+    private static BigDecimal randomAmount(Random random) {
+        return BigDecimal.valueOf(random.nextInt(200_000_000) - 1_000_000, 2);
+    }
+}
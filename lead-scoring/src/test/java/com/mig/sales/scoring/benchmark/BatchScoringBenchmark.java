@@ -0,0 +1,98 @@
+package com.mig.sales.scoring.benchmark;
+
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.ScoringBatch;
+import com.mig.sales.scoring.ScoringRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores a batch of synthetic leads one at a time with {@link CompiledScoringRules#score},
+ * and as a columnar {@link ScoringBatch}, both with the conversion into columns included
+ * and with a batch converted beforehand. Times are per batch; divide by leads for per-lead cost.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark="BatchScoringBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BatchScoringBenchmark {
+
+    private static final String[] SOURCES = {"Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show"};
+
+    @Param({"1000", "100000", "1000000"})
+    private int leads;
+
+    private CompiledScoringRules rules;
+    private BigDecimal[] values;
+    private String[] sources;
+    private String[] emails;
+    private String[] phones;
+    private ScoringBatch convertedBatch;
+    private int[] scores;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        Random random = new Random(42);
+        values = new BigDecimal[leads];
+        sources = new String[leads];
+        emails = new String[leads];
+        phones = new String[leads];
+        for (int i = 0; i < leads; i++) {
+            // Scale 2, as loaded from the NUMERIC(15,2) column
+            values[i] = BigDecimal.valueOf(random.nextInt(200_000_000), 2);
+            sources[i] = SOURCES[random.nextInt(SOURCES.length)];
+            emails[i] = random.nextInt(4) == 0 ? null : "lead" + i + "@example.com";
+            phones[i] = random.nextInt(3) == 0 ? " " : "555-" + i;
+        }
+        convertedBatch = convert();
+        scores = new int[leads];
+    }
+
+    @Benchmark
+    public int[] scalar() {
+        for (int i = 0; i < leads; i++) {
+            scores[i] = rules.score(values[i], sources[i], emails[i], phones[i]);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public int[] batchIncludingConversion() {
+        ScoringBatch batch = convert();
+        batch.score(0, leads, scores);
+        return scores;
+    }
+
+    @Benchmark
+    public int[] batchPreconverted() {
+        convertedBatch.score(0, leads, scores);
+        return scores;
+    }
+
+    private ScoringBatch convert() {
+        ScoringBatch batch = rules.newBatch(leads);
+        for (int i = 0; i < leads; i++) {
+            batch.set(i, values[i], sources[i], emails[i], phones[i]);
+        }
+        return batch;
+    }
+}
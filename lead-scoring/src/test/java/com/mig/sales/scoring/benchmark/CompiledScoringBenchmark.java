@@ -0,0 +1,90 @@
+package com.mig.sales.scoring.benchmark;
+
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.ReferenceScoring;
+import com.mig.sales.scoring.ScoringRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores 10k synthetic leads with {@link CompiledScoringRules}, against the rules
+ * evaluated uncompiled and against the scoring formerly hard-coded in the EJB.
+ * Run with the GC profiler to see the per-score allocation.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark="CompiledScoringBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompiledScoringBenchmark {
+
+    private static final int LEADS = 10_000;
+
+    private static final String[] SOURCES = {"Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show"};
+
+    private ScoringRules rules;
+    private CompiledScoringRules compiledRules;
+    private BigDecimal[] values;
+    private String[] sources;
+    private String[] emails;
+    private String[] phones;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        rules = ScoringRules.defaults();
+        compiledRules = CompiledScoringRules.compile(rules);
+        Random random = new Random(42);
+        values = new BigDecimal[LEADS];
+        sources = new String[LEADS];
+        emails = new String[LEADS];
+        phones = new String[LEADS];
+        for (int i = 0; i < LEADS; i++) {
+            values[i] = BigDecimal.valueOf(random.nextInt(200_000_000), 2);
+            sources[i] = SOURCES[random.nextInt(SOURCES.length)];
+            emails[i] = random.nextInt(4) == 0 ? null : "lead" + i + "@example.com";
+            phones[i] = random.nextInt(3) == 0 ? " " : "555-" + i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void compiledRules(Blackhole blackhole) {
+        for (int i = 0; i < LEADS; i++) {
+            blackhole.consume(compiledRules.score(values[i], sources[i], emails[i], phones[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void uncompiledRules(Blackhole blackhole) {
+        for (int i = 0; i < LEADS; i++) {
+            blackhole.consume(ReferenceScoring.score(rules, values[i], sources[i], emails[i], phones[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void legacyEjbRules(Blackhole blackhole) {
+        for (int i = 0; i < LEADS; i++) {
+            blackhole.consume(ReferenceScoring.legacyEjbScore(values[i], sources[i], emails[i], phones[i]));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.mig.sales.scoring.benchmark;
+
+import com.mig.sales.scoring.CompiledScoringRules;
+import com.mig.sales.scoring.LeadScorer;
+import com.mig.sales.scoring.LogisticModelTrainer;
+import com.mig.sales.scoring.ScoringRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lead scoring latency of the heuristic rules and of a logistic model trained on
+ * synthetic history, both through the {@link LeadScorer} interface.
+ *
+ * Run with: mvn test-compile exec:exec -Pbenchmark -Dbenchmark="ScorerLatencyBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScorerLatencyBenchmark {
+
+    private static final int LEADS = 10_000;
+
+    private static final String[] SOURCES = {"Partner Referral", "Webinar", "Website Signup", "Cold Call", "Trade Show"};
+
+    private LeadScorer rules;
+    private LeadScorer model;
+    private BigDecimal[] values;
+    private String[] sources;
+    private String[] emails;
+    private String[] phones;
+
+    @Setup(Level.Trial)
+    public void createData() {
+        Random random = new Random(42);
+        values = new BigDecimal[LEADS];
+        sources = new String[LEADS];
+        emails = new String[LEADS];
+        phones = new String[LEADS];
+        LogisticModelTrainer trainer = new LogisticModelTrainer();
+        for (int i = 0; i < LEADS; i++) {
+            values[i] = BigDecimal.valueOf(random.nextInt(200_000_000), 2);
+            sources[i] = SOURCES[random.nextInt(SOURCES.length)];
+            emails[i] = random.nextInt(4) == 0 ? null : "lead" + i + "@example.com";
+            phones[i] = random.nextInt(3) == 0 ? " " : "555-" + i;
+            trainer.add(values[i], sources[i], emails[i], phones[i], random.nextInt(5) == 0);
+        }
+        rules = CompiledScoringRules.compile(ScoringRules.defaults());
+        model = trainer.train("benchmark");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void heuristicRules(Blackhole blackhole) {
+        score(rules, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEADS)
+    public void logisticModel(Blackhole blackhole) {
+        score(model, blackhole);
+    }
+
+    private void score(LeadScorer scorer, Blackhole blackhole) {
+        for (int i = 0; i < LEADS; i++) {
+            blackhole.consume(scorer.score(values[i], sources[i], emails[i], phones[i]));
+        }
+    }
+}